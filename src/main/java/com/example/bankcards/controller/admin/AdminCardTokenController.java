@@ -0,0 +1,64 @@
+package com.example.bankcards.controller.admin;
+
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.CardOwnershipException;
+import com.example.bankcards.exception.dto.ErrorResponse;
+import com.example.bankcards.model.dto.card.CardTokenRevealRequest;
+import com.example.bankcards.model.dto.card.CardTokenRevealResponseDto;
+import com.example.bankcards.service.card.CardTokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for the card token vault.
+ * All operations require the authenticated user to have the 'ROLE_ADMIN' authority.
+ */
+@RestController
+@RequestMapping("/api/admin/card-tokens")
+@RequiredArgsConstructor
+@Tag(name = "Admin Card Tokens", description = "Audited recovery of card numbers from their tokens")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class AdminCardTokenController {
+
+    private final CardTokenService cardTokenService;
+
+    /**
+     * Recovers the full card number of a token. The administrator, token and reason are written to the audit log.
+     *
+     * @param token The token.
+     * @param request The body with the reason for the recovery.
+     * @param authentication The authentication object containing the administrator's details.
+     * @return A {@link ResponseEntity} containing the card number and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws CardNotFoundException (HTTP 404) if the token does not exist.
+     */
+    @Operation(summary = "Recover a card number",
+            description = "Returns the full card number of a token and records the access in the audit log. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Card number recovered",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardTokenRevealResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Reason is missing or too long.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "404", description = "Token not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardNotFoundException.class)))
+    })
+    @PostMapping("/{token}/reveal")
+    public ResponseEntity<CardTokenRevealResponseDto> reveal(@PathVariable String token,
+                                                             @Valid @RequestBody CardTokenRevealRequest request,
+                                                             Authentication authentication) {
+        String cardNumber = cardTokenService.detokenize(token, authentication.getName(), request.getReason());
+        return ResponseEntity.ok(new CardTokenRevealResponseDto(token, cardNumber));
+    }
+}
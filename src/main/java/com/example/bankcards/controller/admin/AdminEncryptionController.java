@@ -0,0 +1,147 @@
+package com.example.bankcards.controller.admin;
+
+import com.example.bankcards.exception.card.CardOwnershipException;
+import com.example.bankcards.exception.encryption.KeyRotationConflictException;
+import com.example.bankcards.exception.encryption.ReencryptionInProgressException;
+import com.example.bankcards.exception.encryption.ReencryptionRunNotFoundException;
+import com.example.bankcards.model.dto.encryption.DataKeyResponseDto;
+import com.example.bankcards.model.dto.encryption.ReencryptionRunResponseDto;
+import com.example.bankcards.service.encryption.CardReencryptionService;
+import com.example.bankcards.service.encryption.DataKeyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for data-encryption key rotation and the re-encryption of card numbers.
+ * All operations require the authenticated user to have the 'ROLE_ADMIN' authority.
+ */
+@RestController
+@RequestMapping("/api/admin/encryption")
+@RequiredArgsConstructor
+@Tag(name = "Admin Encryption", description = "Rotation of the data-encryption keys protecting card numbers")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class AdminEncryptionController {
+
+    private final DataKeyService dataKeyService;
+    private final CardReencryptionService cardReencryptionService;
+
+    /**
+     * Retrieves the versions of the data-encryption key.
+     *
+     * @return A {@link ResponseEntity} containing the keys, oldest first, and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     */
+    @Operation(summary = "List data keys", description = "Returns every key version and which one encrypts new data. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Keys retrieved successfully",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = DataKeyResponseDto.class)))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class)))
+    })
+    @GetMapping("/keys")
+    public ResponseEntity<List<DataKeyResponseDto>> getKeys() {
+        return ResponseEntity.ok(dataKeyService.getKeys());
+    }
+
+    /**
+     * Rotates the data-encryption key. The new key becomes active after a short delay, and card numbers are then
+     * re-encrypted with it in the background.
+     *
+     * @param authentication The authentication object containing the administrator's details.
+     * @return A {@link ResponseEntity} containing the new key and HTTP status 201 (Created).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws KeyRotationConflictException (HTTP 409) if another rotation happened at the same time.
+     */
+    @Operation(summary = "Rotate the data key",
+            description = "Creates a new key version; once active, card numbers are re-encrypted online. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Key created",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = DataKeyResponseDto.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "409", description = "Another rotation happened at the same time.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = KeyRotationConflictException.class)))
+    })
+    @PostMapping("/keys")
+    public ResponseEntity<DataKeyResponseDto> rotateKey(Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(dataKeyService.rotate(authentication.getName()));
+    }
+
+    /**
+     * Starts a re-encryption run with the active key in the background, e.g. to finish cards a previous run left.
+     * Its progress is available from {@link #getRun(Long)}.
+     *
+     * @param authentication The authentication object containing the administrator's details.
+     * @return A {@link ResponseEntity} containing the new run and HTTP status 202 (Accepted).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws ReencryptionInProgressException (HTTP 409) if another run is in progress.
+     */
+    @Operation(summary = "Start a re-encryption run",
+            description = "Re-encrypts every card number still on an older key in parallel ranges. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Run started",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReencryptionRunResponseDto.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "409", description = "Another run is in progress.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReencryptionInProgressException.class)))
+    })
+    @PostMapping("/reencryption/runs")
+    public ResponseEntity<ReencryptionRunResponseDto> startRun(Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(cardReencryptionService.start(authentication.getName()));
+    }
+
+    /**
+     * Retrieves the most recent re-encryption runs.
+     *
+     * @param limit The maximum number of runs.
+     * @return A {@link ResponseEntity} containing the runs, newest first, and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     */
+    @Operation(summary = "List recent re-encryption runs", description = "Returns the latest runs with their progress. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Runs retrieved successfully",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ReencryptionRunResponseDto.class)))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class)))
+    })
+    @GetMapping("/reencryption/runs")
+    public ResponseEntity<List<ReencryptionRunResponseDto>> getRuns(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(cardReencryptionService.getRecentRuns(limit));
+    }
+
+    /**
+     * Retrieves a re-encryption run with its progress and throughput.
+     *
+     * @param id The ID of the run.
+     * @return A {@link ResponseEntity} containing the run and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws ReencryptionRunNotFoundException (HTTP 404) if the run is not found.
+     */
+    @Operation(summary = "Get a re-encryption run", description = "Returns the checkpoint, counters and throughput of a run. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Run retrieved successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReencryptionRunResponseDto.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "404", description = "Run not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReencryptionRunNotFoundException.class)))
+    })
+    @GetMapping("/reencryption/runs/{id}")
+    public ResponseEntity<ReencryptionRunResponseDto> getRun(@PathVariable Long id) {
+        return ResponseEntity.ok(cardReencryptionService.getRun(id));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.controller.admin;
+
+import com.example.bankcards.exception.card.CardOwnershipException;
+import com.example.bankcards.exception.reconciliation.ReconciliationInProgressException;
+import com.example.bankcards.exception.reconciliation.ReconciliationRunNotFoundException;
+import com.example.bankcards.model.dto.reconciliation.ReconciliationDiscrepancyDto;
+import com.example.bankcards.model.dto.reconciliation.ReconciliationRunResponseDto;
+import com.example.bankcards.service.reconciliation.ReconciliationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for balance reconciliation runs.
+ * All operations require the authenticated user to have the 'ROLE_ADMIN' authority.
+ */
+@RestController
+@RequestMapping("/api/admin/reconciliation/runs")
+@RequiredArgsConstructor
+@Tag(name = "Admin Reconciliation", description = "Reconciliation of account balances against cards, the journal and transactions")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class AdminReconciliationController {
+
+    private final ReconciliationService reconciliationService;
+
+    /**
+     * Starts a reconciliation run in the background. Its progress is available from {@link #getRun(Long)}.
+     *
+     * @param authentication The authentication object containing the administrator's details.
+     * @return A {@link ResponseEntity} containing the new run and HTTP status 202 (Accepted).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws ReconciliationInProgressException (HTTP 409) if another run is in progress.
+     */
+    @Operation(summary = "Start a reconciliation run",
+            description = "Checks every account against its cards, its journal balance and its transaction history in parallel ranges. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Run started",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReconciliationRunResponseDto.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "409", description = "Another run is in progress.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReconciliationInProgressException.class)))
+    })
+    @PostMapping
+    public ResponseEntity<ReconciliationRunResponseDto> startRun(Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reconciliationService.start(authentication.getName()));
+    }
+
+    /**
+     * Retrieves the most recent reconciliation runs.
+     *
+     * @param limit The maximum number of runs.
+     * @return A {@link ResponseEntity} containing the runs, newest first, and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     */
+    @Operation(summary = "List recent reconciliation runs", description = "Returns the latest runs with their progress. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Runs retrieved successfully",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ReconciliationRunResponseDto.class)))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class)))
+    })
+    @GetMapping
+    public ResponseEntity<List<ReconciliationRunResponseDto>> getRuns(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(reconciliationService.getRecentRuns(limit));
+    }
+
+    /**
+     * Retrieves a reconciliation run with its progress and throughput.
+     *
+     * @param id The ID of the run.
+     * @return A {@link ResponseEntity} containing the run and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws ReconciliationRunNotFoundException (HTTP 404) if the run is not found.
+     */
+    @Operation(summary = "Get a reconciliation run", description = "Returns the progress, counters and throughput of a run. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Run retrieved successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReconciliationRunResponseDto.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "404", description = "Run not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReconciliationRunNotFoundException.class)))
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<ReconciliationRunResponseDto> getRun(@PathVariable Long id) {
+        return ResponseEntity.ok(reconciliationService.getRun(id));
+    }
+
+    /**
+     * Retrieves a page of the discrepancies found by a run.
+     *
+     * @param id The ID of the run.
+     * @param afterId The ID of the last discrepancy of the previous page; omit for the first page.
+     * @param limit The maximum number of discrepancies.
+     * @return A {@link ResponseEntity} containing the discrepancies ordered by ID and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws ReconciliationRunNotFoundException (HTTP 404) if the run is not found.
+     */
+    @Operation(summary = "List discrepancies of a reconciliation run",
+            description = "Returns the mismatches found by a run, paged by the ID of the last received item. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Discrepancies retrieved successfully",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ReconciliationDiscrepancyDto.class)))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "404", description = "Run not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReconciliationRunNotFoundException.class)))
+    })
+    @GetMapping("/{id}/discrepancies")
+    public ResponseEntity<List<ReconciliationDiscrepancyDto>> getDiscrepancies(@PathVariable Long id,
+                                                                               @RequestParam(required = false) Long afterId,
+                                                                               @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(reconciliationService.getDiscrepancies(id, afterId, limit));
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.bankcards.controller.admin;
+
+import com.example.bankcards.exception.card.CardOwnershipException;
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.dto.ErrorResponse;
+import com.example.bankcards.exception.transfer.TransferNotFoundException;
+import com.example.bankcards.exception.transfer.TransferNotOnHoldException;
+import com.example.bankcards.exception.transfer.TransferNotReversibleException;
+import com.example.bankcards.model.dto.transfer.BatchTransferRequest;
+import com.example.bankcards.model.dto.transfer.BatchTransferResponseDto;
+import com.example.bankcards.model.dto.transfer.BatchTransferReversalRequest;
+import com.example.bankcards.model.dto.transfer.TransferDeclineRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.model.dto.transfer.TransferReversalRequest;
+import com.example.bankcards.service.transfer.BatchTransferService;
+import com.example.bankcards.service.transfer.TransferReversalService;
+import com.example.bankcards.service.transfer.TransferService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for money transfer operations performed by administrators.
+ * All operations require the authenticated user to have the 'ROLE_ADMIN' authority.
+ */
+@RestController
+@RequestMapping("/api/admin/transfers")
+@RequiredArgsConstructor
+@Tag(name = "Admin Transfer Management", description = "Operations related to money transfers performed by administrators")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class AdminTransferController {
+
+    private final BatchTransferService batchTransferService;
+    private final TransferReversalService transferReversalService;
+    private final TransferService transferService;
+
+    /**
+     * Executes many transfers between any cards in one request (e.g., payroll or refunds).
+     * Source card ownership is not checked.
+     *
+     * @param request The request body containing the list of transfers.
+     * @return A {@link ResponseEntity} containing a result per item
+     *         ({@link BatchTransferResponseDto}) and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     */
+    @Operation(summary = "Create many money transfers at once",
+            description = "Validates and applies a list of transfers between any cards in chunked transactions. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed; see per-item results",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchTransferResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid batch (empty, too large or invalid items).",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class)))
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResponseDto> createTransferBatch(@Valid @RequestBody BatchTransferRequest request) {
+        BatchTransferResponseDto result = batchTransferService.createTransfersAsAdmin(request.getTransfers());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Reverses a completed transfer: moves the amount back to the sender, posts compensating transactions
+     * linked to the transfer and marks it {@code REVERSED}, atomically.
+     *
+     * @param id The ID of the transfer to reverse.
+     * @param request Optional body with the reason of the reversal.
+     * @param authentication The authentication object containing the administrator's details.
+     * @return A {@link ResponseEntity} containing the reversed transfer ({@link TransferResponseDto}) and HTTP status 200 (OK).
+     * @throws InsufficientFundsException (HTTP 400) if the recipient card no longer holds the amount.
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws TransferNotFoundException (HTTP 404) if the transfer is not found.
+     * @throws TransferNotReversibleException (HTTP 409) if the transfer failed or was already reversed.
+     */
+    @Operation(summary = "Reverse a transfer",
+            description = "Moves the amount of a completed transfer back to the sender and marks the transfer as reversed. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transfer reversed successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "The recipient card no longer holds the amount.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = InsufficientFundsException.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "404", description = "Transfer not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferNotFoundException.class))),
+            @ApiResponse(responseCode = "409", description = "Transfer failed or was already reversed.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferNotReversibleException.class)))
+    })
+    @PostMapping("/{id}/reverse")
+    public ResponseEntity<TransferResponseDto> reverseTransfer(@PathVariable Long id,
+                                                               @Valid @RequestBody(required = false) TransferReversalRequest request,
+                                                               Authentication authentication) {
+        String reason = request != null ? request.getReason() : null;
+        return ResponseEntity.ok(transferReversalService.reverse(id, reason, authentication.getName()));
+    }
+
+    /**
+     * Reverses many transfers at once, e.g., after an incident.
+     * Reversals are applied in chunked transactions; an item that cannot be reversed does not affect the others.
+     *
+     * @param request The request body containing the transfer IDs and the reason.
+     * @param authentication The authentication object containing the administrator's details.
+     * @return A {@link ResponseEntity} containing a result per item ({@link BatchTransferResponseDto}) and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     */
+    @Operation(summary = "Reverse many transfers at once",
+            description = "Reverses a list of transfers in chunked transactions and returns a result per item (REVERSED or FAILED). Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Bulk reversal processed; see per-item results",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchTransferResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request (empty or too large).",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class)))
+    })
+    @PostMapping("/reverse/batch")
+    public ResponseEntity<BatchTransferResponseDto> reverseTransfers(@Valid @RequestBody BatchTransferReversalRequest request,
+                                                                     Authentication authentication) {
+        return ResponseEntity.ok(transferReversalService.reverseAll(request.getTransferIds(), request.getReason(), authentication.getName()));
+    }
+
+    /**
+     * Retrieves the transfers held by fraud screening, oldest first.
+     *
+     * @param limit The maximum number of transfers.
+     * @return A {@link ResponseEntity} containing the held transfers and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     */
+    @Operation(summary = "List transfers on hold",
+            description = "Returns the transfers held by fraud screening with the rule that held them. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Held transfers retrieved successfully",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = TransferResponseDto.class)))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class)))
+    })
+    @GetMapping("/held")
+    public ResponseEntity<List<TransferResponseDto>> getHeldTransfers(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(transferService.getHeldTransfers(limit));
+    }
+
+    /**
+     * Executes a transfer held by fraud screening without screening it again.
+     *
+     * @param id The ID of the held transfer.
+     * @return A {@link ResponseEntity} containing the completed transfer ({@link TransferResponseDto}) and HTTP status 200 (OK).
+     * @throws InsufficientFundsException (HTTP 400) if the source card no longer holds the amount; the transfer stays on hold.
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws TransferNotFoundException (HTTP 404) if the transfer is not found.
+     * @throws TransferNotOnHoldException (HTTP 409) if the transfer is not on hold.
+     */
+    @Operation(summary = "Release a transfer on hold",
+            description = "Executes a transfer held by fraud screening. Balances and limits are checked as usual. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transfer released and completed",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "The transfer can no longer be executed (e.g., insufficient funds).",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = InsufficientFundsException.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "404", description = "Transfer not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferNotFoundException.class))),
+            @ApiResponse(responseCode = "409", description = "Transfer is not on hold.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferNotOnHoldException.class)))
+    })
+    @PostMapping("/{id}/release")
+    public ResponseEntity<TransferResponseDto> releaseTransfer(@PathVariable Long id) {
+        return ResponseEntity.ok(transferService.releaseHeldTransfer(id));
+    }
+
+    /**
+     * Declines a transfer held by fraud screening; it becomes {@code FAILED} and no money moves.
+     *
+     * @param id The ID of the held transfer.
+     * @param request Optional body with the reason, shown to the sender.
+     * @return A {@link ResponseEntity} containing the declined transfer ({@link TransferResponseDto}) and HTTP status 200 (OK).
+     * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_ADMIN' authority.
+     * @throws TransferNotFoundException (HTTP 404) if the transfer is not found.
+     * @throws TransferNotOnHoldException (HTTP 409) if the transfer is not on hold.
+     */
+    @Operation(summary = "Decline a transfer on hold",
+            description = "Marks a transfer held by fraud screening as failed. Only accessible by administrators.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transfer declined",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferResponseDto.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "404", description = "Transfer not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferNotFoundException.class))),
+            @ApiResponse(responseCode = "409", description = "Transfer is not on hold.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferNotOnHoldException.class)))
+    })
+    @PostMapping("/{id}/decline")
+    public ResponseEntity<TransferResponseDto> declineTransfer(@PathVariable Long id,
+                                                               @Valid @RequestBody(required = false) TransferDeclineRequest request) {
+        String reason = request != null ? request.getReason() : null;
+        return ResponseEntity.ok(transferService.declineHeldTransfer(id, reason));
+    }
+}
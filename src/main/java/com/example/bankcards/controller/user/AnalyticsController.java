@@ -0,0 +1,75 @@
+package com.example.bankcards.controller.user;
+
+import com.example.bankcards.exception.analytics.InvalidAnalyticsRangeException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.CardOwnershipException;
+import com.example.bankcards.model.dto.analytics.SpendingAnalyticsResponseDto;
+import com.example.bankcards.service.analytics.Granularity;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * REST controller for the user's spending analytics.
+ * Series are served from pre-aggregated daily and monthly rollups.
+ * All operations require the authenticated user.
+ */
+@RestController
+@RequestMapping("/api/user/analytics")
+@RequiredArgsConstructor
+@Tag(name = "User Analytics", description = "Income, spending and fee statistics of the user's accounts and cards")
+public class AnalyticsController {
+
+    private final SpendingAnalyticsService spendingAnalyticsService;
+
+    /**
+     * Retrieves the income, spending and fee totals of the authenticated user per day or month.
+     *
+     * @param from The first day to include (ISO date); defaults to 30 days or 12 months before {@code to}.
+     * @param to The last day to include (ISO date); defaults to today.
+     * @param granularity {@code DAY} (default) or {@code MONTH}.
+     * @param cardId Optional card to restrict the series to; by default all of the user's accounts are included.
+     * @param authentication The authentication object containing the current user's details.
+     * @return A {@link ResponseEntity} containing the series ({@link SpendingAnalyticsResponseDto}) and HTTP status 200 (OK).
+     * @throws InvalidAnalyticsRangeException (HTTP 400) if the range is inverted or too long.
+     * @throws CardOwnershipException (HTTP 403) if the card does not belong to the user.
+     * @throws CardNotFoundException (HTTP 404) if the card is not found.
+     */
+    @Operation(summary = "Get spending analytics",
+            description = "Returns credits, debits, fees and operation counts per day or month. " +
+                    "Transfers between the user's own cards are not counted.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Series retrieved successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SpendingAnalyticsResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid range.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = InvalidAnalyticsRangeException.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Card does not belong to user.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "404", description = "Card not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardNotFoundException.class)))
+    })
+    @GetMapping("/spending")
+    public ResponseEntity<SpendingAnalyticsResponseDto> getSpending(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") Granularity granularity,
+            @RequestParam(required = false) Long cardId,
+            Authentication authentication) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(spendingAnalyticsService.getSpending(username, from, to, granularity, cardId));
+    }
+}
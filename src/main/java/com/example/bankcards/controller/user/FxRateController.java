@@ -0,0 +1,47 @@
+package com.example.bankcards.controller.user;
+
+import com.example.bankcards.exception.fx.FxRateUnavailableException;
+import com.example.bankcards.model.dto.fx.FxRatesResponseDto;
+import com.example.bankcards.service.fx.FxRateService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for exchange rates.
+ * Rates are served from the server-side cache, the same rates cross-currency transfers are converted at.
+ */
+@RestController
+@RequestMapping("/api/user/fx")
+@RequiredArgsConstructor
+@Tag(name = "Exchange Rates", description = "Official exchange rates used for cross-currency transfers")
+public class FxRateController {
+
+    private final FxRateService fxRateService;
+
+    /**
+     * Retrieves the cached official exchange rates.
+     *
+     * @return A {@link ResponseEntity} containing the rates ({@link FxRatesResponseDto}) and HTTP status 200 (OK).
+     * @throws FxRateUnavailableException (HTTP 503) if no up-to-date rates are loaded.
+     */
+    @Operation(summary = "Get exchange rates", description = "Returns the price of each supported currency in BYN.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rates retrieved successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = FxRatesResponseDto.class))),
+            @ApiResponse(responseCode = "503", description = "Rates are not loaded or out of date.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = FxRateUnavailableException.class)))
+    })
+    @GetMapping("/rates")
+    public ResponseEntity<FxRatesResponseDto> getRates() {
+        return ResponseEntity.ok(fxRateService.getRates());
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.bankcards.controller.user;
 
+import com.example.bankcards.exception.dto.BadRequestException;
 import com.example.bankcards.exception.user.UserNotFoundException;
 import com.example.bankcards.model.dto.user.QuickTransferDto;
 import com.example.bankcards.model.entity.QuickTransfer;
 import com.example.bankcards.model.entity.User;
 import com.example.bankcards.repository.QuickTransferRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.card.CardTokenService;
+import com.example.bankcards.util.CardMaskingUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +18,8 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @RestController
@@ -25,15 +30,20 @@ public class QuickTransferController {
 
     private final QuickTransferRepository quickTransferRepository;
     private final UserRepository userRepository;
+    private final CardTokenService cardTokenService;
 
     @GetMapping
     public ResponseEntity<List<QuickTransferDto>> getAll(Authentication authentication) {
         List<QuickTransfer> list = quickTransferRepository.findByUserUsername(authentication.getName());
+        // Маски берутся из хранилища токенов одним запросом, без расшифровки номеров
+        Map<String, String> masks = cardTokenService.getMaskedCardNumbers(
+                list.stream().map(QuickTransfer::getCardToken).filter(Objects::nonNull).collect(Collectors.toSet()));
         List<QuickTransferDto> dtos = list.stream().map(qt -> {
             QuickTransferDto dto = new QuickTransferDto();
             dto.setId(qt.getId());
             dto.setName(qt.getName());
-            dto.setCardNumber(qt.getCardNumber());
+            dto.setCardNumber(masks.get(qt.getCardToken()));
+            dto.setCardToken(qt.getCardToken());
             return dto;
         }).collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
@@ -45,15 +55,26 @@ public class QuickTransferController {
         User user = userRepository.findByUsername(authentication.getName())
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
 
+        String cardToken;
+        try {
+            cardToken = cardTokenService.tokenize(request.getCardNumber(), null);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+
         QuickTransfer qt = new QuickTransfer();
         qt.setUser(user);
         qt.setName(request.getName());
-        qt.setCardNumber(request.getCardNumber());
+        qt.setCardToken(cardToken);
 
         QuickTransfer saved = quickTransferRepository.save(qt);
 
-        request.setId(saved.getId());
-        return ResponseEntity.ok(request);
+        QuickTransferDto dto = new QuickTransferDto();
+        dto.setId(saved.getId());
+        dto.setName(saved.getName());
+        dto.setCardNumber(CardMaskingUtil.maskCardNumber(request.getCardNumber()));
+        dto.setCardToken(cardToken);
+        return ResponseEntity.ok(dto);
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,141 @@
+package com.example.bankcards.controller.user;
+
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.CardOwnershipException;
+import com.example.bankcards.exception.schedule.InvalidScheduleException;
+import com.example.bankcards.exception.schedule.ScheduledTransferNotFoundException;
+import com.example.bankcards.exception.transfer.InvalidTransferException;
+import com.example.bankcards.model.dto.schedule.ScheduledTransferRequest;
+import com.example.bankcards.model.dto.schedule.ScheduledTransferResponseDto;
+import com.example.bankcards.model.entity.enums.ScheduledTransferStatus;
+import com.example.bankcards.service.schedule.ScheduledTransferService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for managing the user's standing orders (scheduled and recurring transfers).
+ * Orders are executed in the background when due; the resulting transfers appear in the transfer history.
+ * All operations require the authenticated user.
+ */
+@RestController
+@RequestMapping("/api/user/scheduled-transfers")
+@RequiredArgsConstructor
+@Tag(name = "Scheduled Transfers", description = "Standing orders repeated by a cron rule or a fixed interval")
+public class ScheduledTransferController {
+
+    private final ScheduledTransferService scheduledTransferService;
+
+    /**
+     * Creates a standing order for the authenticated user.
+     *
+     * @param request The order, with either a cron expression or an interval.
+     * @param authentication The authentication object containing the current user's details.
+     * @return A {@link ResponseEntity} containing the created order ({@link ScheduledTransferResponseDto}) and HTTP status 201 (Created).
+     * @throws InvalidScheduleException (HTTP 400) if the rule is missing, ambiguous, malformed or too frequent.
+     * @throws InvalidTransferException (HTTP 400) if the source and destination card are the same.
+     * @throws CardOwnershipException (HTTP 403) if the source card does not belong to the user.
+     * @throws CardNotFoundException (HTTP 404) if the source or destination card is not found.
+     */
+    @Operation(summary = "Create a standing order",
+            description = "Schedules a transfer repeated by a cron rule (e.g., '0 0 9 1 * *' for the 1st of every month) or every N seconds.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Order created successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScheduledTransferResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid rule or transfer.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(oneOf = {InvalidScheduleException.class, InvalidTransferException.class}))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Source card does not belong to the user.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
+            @ApiResponse(responseCode = "404", description = "Source or destination card not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardNotFoundException.class)))
+    })
+    @PostMapping
+    public ResponseEntity<ScheduledTransferResponseDto> create(@Valid @RequestBody ScheduledTransferRequest request,
+                                                               Authentication authentication) {
+        ScheduledTransferResponseDto order = scheduledTransferService.create(request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(order);
+    }
+
+    /**
+     * Retrieves the authenticated user's standing orders.
+     *
+     * @param authentication The authentication object containing the current user's details.
+     * @return A {@link ResponseEntity} containing the orders, soonest due first, and HTTP status 200 (OK).
+     */
+    @Operation(summary = "Get my standing orders",
+            description = "Returns the user's standing orders with their next due time and the result of the last run.")
+    @ApiResponse(responseCode = "200", description = "Orders retrieved successfully")
+    @GetMapping
+    public ResponseEntity<List<ScheduledTransferResponseDto>> getMyScheduledTransfers(Authentication authentication) {
+        return ResponseEntity.ok(scheduledTransferService.getUserScheduledTransfers(authentication.getName()));
+    }
+
+    /**
+     * Pauses a standing order; it is kept but not executed.
+     *
+     * @param id The ID of the order.
+     * @param authentication The authentication object containing the current user's details.
+     * @return A {@link ResponseEntity} containing the updated order and HTTP status 200 (OK).
+     * @throws ScheduledTransferNotFoundException (HTTP 404) if the order does not exist or belongs to another user.
+     */
+    @Operation(summary = "Pause a standing order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order paused"),
+            @ApiResponse(responseCode = "404", description = "Order not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScheduledTransferNotFoundException.class)))
+    })
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<ScheduledTransferResponseDto> pause(@PathVariable Long id, Authentication authentication) {
+        return ResponseEntity.ok(scheduledTransferService.updateStatus(id, ScheduledTransferStatus.PAUSED, authentication.getName()));
+    }
+
+    /**
+     * Resumes a paused standing order from its next occurrence.
+     *
+     * @param id The ID of the order.
+     * @param authentication The authentication object containing the current user's details.
+     * @return A {@link ResponseEntity} containing the updated order and HTTP status 200 (OK).
+     * @throws ScheduledTransferNotFoundException (HTTP 404) if the order does not exist or belongs to another user.
+     */
+    @Operation(summary = "Resume a standing order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order resumed"),
+            @ApiResponse(responseCode = "404", description = "Order not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScheduledTransferNotFoundException.class)))
+    })
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ScheduledTransferResponseDto> resume(@PathVariable Long id, Authentication authentication) {
+        return ResponseEntity.ok(scheduledTransferService.updateStatus(id, ScheduledTransferStatus.ACTIVE, authentication.getName()));
+    }
+
+    /**
+     * Deletes a standing order.
+     *
+     * @param id The ID of the order.
+     * @param authentication The authentication object containing the current user's details.
+     * @return A {@link ResponseEntity} with HTTP status 204 (No Content).
+     * @throws ScheduledTransferNotFoundException (HTTP 404) if the order does not exist or belongs to another user.
+     */
+    @Operation(summary = "Delete a standing order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Order deleted"),
+            @ApiResponse(responseCode = "404", description = "Order not found.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScheduledTransferNotFoundException.class)))
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Long id, Authentication authentication) {
+        scheduledTransferService.delete(id, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+}
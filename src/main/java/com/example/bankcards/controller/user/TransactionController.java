@@ -0,0 +1,71 @@
+package com.example.bankcards.controller.user;
+
+import com.example.bankcards.exception.export.InvalidExportRangeException;
+import com.example.bankcards.service.export.ExportFormat;
+import com.example.bankcards.service.export.HistoryExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * REST controller for the user's account transactions.
+ * All operations require the authenticated user.
+ */
+@RestController
+@RequestMapping("/api/user/transactions")
+@RequiredArgsConstructor
+@Tag(name = "User Transactions", description = "Operations related to the user's account transactions")
+public class TransactionController {
+
+    private final HistoryExportService historyExportService;
+
+    /**
+     * Streams all transactions on the authenticated user's accounts as a file download, oldest first.
+     *
+     * @param format The file format: {@code CSV} (default) or {@code NDJSON}.
+     * @param gzip Whether to gzip the file.
+     * @param from The first day to include (ISO date); omit for no lower bound.
+     * @param to The last day to include (ISO date); omit for no upper bound.
+     * @param authentication The authentication object containing the current user's details.
+     * @return A {@link ResponseEntity} streaming the file with HTTP status 200 (OK).
+     * @throws InvalidExportRangeException (HTTP 400) if {@code from} is after {@code to}.
+     */
+    @Operation(summary = "Export transactions of the current user",
+            description = "Streams all transactions on the authenticated user's accounts as CSV or NDJSON, optionally gzipped.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = InvalidExportRangeException.class)))
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                                    @RequestParam(defaultValue = "false") boolean gzip,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                    Authentication authentication) {
+        String username = authentication.getName();
+        StreamingResponseBody body = historyExportService.exportTransactions(username, format, from, to, gzip);
+        String filename = "transactions." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getMediaType()))
+                .body(body);
+    }
+}
@@ -3,17 +3,36 @@ package com.example.bankcards.controller.user;
 import com.example.bankcards.exception.card.CardNotFoundException;
 import com.example.bankcards.exception.card.CardStatusException;
 import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.dto.ErrorResponse;
+import com.example.bankcards.exception.export.InvalidExportRangeException;
+import com.example.bankcards.exception.idempotency.IdempotencyKeyMismatchException;
+import com.example.bankcards.exception.limit.SpendingLimitExceededException;
+import com.example.bankcards.exception.pagination.InvalidCursorException;
 import com.example.bankcards.exception.transfer.InvalidTransferException;
 import com.example.bankcards.exception.transfer.TransferNotFoundException;
+import com.example.bankcards.exception.transfer.TransferQueueFullException;
+import com.example.bankcards.model.dto.transfer.BatchTransferRequest;
+import com.example.bankcards.model.dto.transfer.BatchTransferResponseDto;
+import com.example.bankcards.model.dto.transfer.TransferPageResponseDto;
 import com.example.bankcards.model.dto.transfer.TransferRequest;
 import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.service.export.ExportFormat;
+import com.example.bankcards.service.export.HistoryExportService;
+import com.example.bankcards.service.transfer.AsyncTransferService;
+import com.example.bankcards.service.transfer.BatchTransferService;
+import com.example.bankcards.service.transfer.GroupCommitTransferExecutor;
 import com.example.bankcards.service.transfer.TransferService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import com.example.bankcards.exception.card.CardOwnershipException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -24,6 +43,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -39,90 +59,191 @@ import java.util.List;
 public class TransferController {
 
     private final TransferService transferService;
+    private final AsyncTransferService asyncTransferService;
+    private final GroupCommitTransferExecutor groupCommitTransferExecutor;
+    private final BatchTransferService batchTransferService;
+    private final HistoryExportService historyExportService;
 
     /**
      * Allows an authenticated user to initiate a new money transfer between cards.
      *
      * @param request The request body containing details for the transfer, including
      *                source card ID, destination card number, and amount.
+     * @param idempotencyKey Optional {@code Idempotency-Key} header. A retry with the same key and body
+     *                       returns the original transfer instead of creating a new one.
+     * @param mode {@code sync} (default) to execute the transfer before responding, or {@code async} to only admit it;
+     *             the final status of an admitted transfer is available from {@link #getTransfer(Long, Authentication)}.
      * @param authentication The authentication object containing the current user's details.
      * @return A {@link ResponseEntity} containing the created transfer details
-     *         ({@link TransferResponseDto}) and HTTP status 201 (Created).
+     *         ({@link TransferResponseDto}) and HTTP status 201 (Created), or the {@code PENDING} transfer
+     *         and HTTP status 202 (Accepted) in {@code async} mode.
      * @throws InvalidTransferException (HTTP 400) if attempting to transfer to the same card.
      * @throws InsufficientFundsException (HTTP 400) if the source card has insufficient funds.
      * @throws CardStatusException (HTTP 400) if the source or destination card is not active.
      * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_USER' authority
      *         or if the source card does not belong to the user.
      * @throws CardNotFoundException (HTTP 404) if the source or destination card is not found.
+     * @throws IdempotencyKeyMismatchException (HTTP 400) if the key was already used for a different request.
+     * @throws SpendingLimitExceededException (HTTP 400) if the transfer exceeds the card's daily or the user's monthly limit.
+     * @throws TransferQueueFullException (HTTP 429) if the asynchronous admission queue is full.
      */
     @Operation(summary = "Create a new money transfer",
-            description = "Allows an authenticated user to initiate a new money transfer between cards.")
+            description = "Allows an authenticated user to initiate a new money transfer between cards. " +
+                    "With mode=async the transfer is admitted as PENDING and executed in the background; " +
+                    "poll it by ID for the final status.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Transfer created successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferResponseDto.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid transfer request (e.g., same card, inactive card, insufficient funds).",
-                    content = @Content(mediaType = "application/json", schema = @Schema(oneOf = {InvalidTransferException.class, InsufficientFundsException.class, CardStatusException.class}))),
+            @ApiResponse(responseCode = "202", description = "Transfer admitted for asynchronous execution",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid transfer request (e.g., same card, inactive card, insufficient funds, spending limit exceeded).",
+                    content = @Content(mediaType = "application/json", schema = @Schema(oneOf = {InvalidTransferException.class, InsufficientFundsException.class, CardStatusException.class, IdempotencyKeyMismatchException.class, SpendingLimitExceededException.class}))),
             @ApiResponse(responseCode = "403", description = "Forbidden - User access required or card does not belong to the user.",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
             @ApiResponse(responseCode = "404", description = "Source or destination card not found.",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardNotFoundException.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardNotFoundException.class))),
+            @ApiResponse(responseCode = "429", description = "Too many asynchronous transfers in progress; retry later.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferQueueFullException.class)))
     })
     @PostMapping
     public ResponseEntity<TransferResponseDto> createTransfer(@Valid @RequestBody TransferRequest request,
+                                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                              @RequestParam(defaultValue = "sync") String mode,
                                                               Authentication authentication) {
         String username = authentication.getName();
-        TransferResponseDto transfer = transferService.createTransfer(request, username);
+        if ("async".equalsIgnoreCase(mode)) {
+            TransferResponseDto pending = asyncTransferService.submit(request, username, idempotencyKey);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(pending);
+        }
+        TransferResponseDto transfer = groupCommitTransferExecutor.isEnabled()
+                ? groupCommitTransferExecutor.submit(request, username, idempotencyKey)
+                : transferService.createTransfer(request, username, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(transfer);
     }
 
     /**
-     * Retrieves a list of all money transfers initiated by or received by the authenticated user.
+     * Allows an authenticated user to execute many transfers in one request (e.g., payroll or refunds).
+     * Items are validated up front and applied in chunked transactions; a failing item does not
+     * affect the others.
      *
+     * @param request The request body containing the list of transfers. Every source card must belong to the user.
      * @param authentication The authentication object containing the current user's details.
-     * @return A {@link ResponseEntity} containing a list of transfer details
-     *         ({@link TransferResponseDto}) and HTTP status 200 (OK).
+     * @return A {@link ResponseEntity} containing a result per item
+     *         ({@link BatchTransferResponseDto}) and HTTP status 200 (OK).
+     */
+    @Operation(summary = "Create many money transfers at once",
+            description = "Validates and applies a list of transfers in chunked transactions and returns a result per item.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed; see per-item results",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchTransferResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid batch (empty, too large or invalid items).",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User access required.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class)))
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResponseDto> createTransferBatch(@Valid @RequestBody BatchTransferRequest request,
+                                                                        Authentication authentication) {
+        String username = authentication.getName();
+        BatchTransferResponseDto result = batchTransferService.createTransfers(request.getTransfers(), username);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Retrieves one page of the money transfers initiated by or received by the authenticated user, newest first.
+     *
+     * @param limit The maximum number of transfers to return.
+     * @param cursor The {@code next} cursor from the previous page; omit for the first page.
+     * @param authentication The authentication object containing the current user's details.
+     * @return A {@link ResponseEntity} containing the page ({@link TransferPageResponseDto}) and HTTP status 200 (OK).
+     * @throws InvalidCursorException (HTTP 400) if the cursor is malformed.
      * @throws CardOwnershipException (HTTP 403) if the authenticated user does not have 'ROLE_USER' authority.
      */
-    @Operation(summary = "Get all transfers for the current user",
-            description = "Retrieves a list of all money transfers initiated by or received by the authenticated user.")
+    @Operation(summary = "Get transfers for the current user",
+            description = "Retrieves one page of the money transfers initiated by or received by the authenticated user, " +
+                    "newest first. Pass the returned 'next' cursor to get the following page.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of transfers",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferResponseDto.class))),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of transfers",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferPageResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Malformed cursor.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = InvalidCursorException.class))),
             @ApiResponse(responseCode = "403", description = "Forbidden - User access required.",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class)))
     })
     @GetMapping("/my")
-    public ResponseEntity<List<TransferResponseDto>> getMyTransfers(Authentication authentication) {
+    public ResponseEntity<TransferPageResponseDto> getMyTransfers(@RequestParam(defaultValue = "50") int limit,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  Authentication authentication) {
         String username = authentication.getName();
-        List<TransferResponseDto> transfers = transferService.getUserTransfers(username);
+        TransferPageResponseDto transfers = transferService.getUserTransfers(username, cursor, limit);
         return ResponseEntity.ok(transfers);
     }
 
     /**
-     * Retrieves a list of transfers associated with a specific card owned by the authenticated user.
+     * Streams the full transfer history of the authenticated user as a file download, oldest first.
+     * Rows are written as they are read from the database, so the export size is not limited by memory.
+     *
+     * @param format The file format: {@code CSV} (default) or {@code NDJSON}.
+     * @param gzip Whether to gzip the file.
+     * @param from The first day to include (ISO date); omit for no lower bound.
+     * @param to The last day to include (ISO date); omit for no upper bound.
+     * @param authentication The authentication object containing the current user's details.
+     * @return A {@link ResponseEntity} streaming the file with HTTP status 200 (OK).
+     * @throws InvalidExportRangeException (HTTP 400) if {@code from} is after {@code to}.
+     */
+    @Operation(summary = "Export transfers of the current user",
+            description = "Streams all transfers initiated by or received by the authenticated user as CSV or NDJSON, optionally gzipped.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = InvalidExportRangeException.class)))
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransfers(@RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                                 @RequestParam(defaultValue = "false") boolean gzip,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                 Authentication authentication) {
+        String username = authentication.getName();
+        StreamingResponseBody body = historyExportService.exportTransfers(username, format, from, to, gzip);
+        String filename = "transfers." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getMediaType()))
+                .body(body);
+    }
+
+    /**
+     * Retrieves one page of the transfers associated with a specific card owned by the authenticated user, newest first.
      *
      * @param cardId The ID of the card for which to retrieve transfers.
+     * @param limit The maximum number of transfers to return.
+     * @param cursor The {@code next} cursor from the previous page; omit for the first page.
      * @param authentication The authentication object containing the current user's details.
-     * @return A {@link ResponseEntity} containing a list of transfer details
-     *         ({@link TransferResponseDto}) and HTTP status 200 (OK).
+     * @return A {@link ResponseEntity} containing the page ({@link TransferPageResponseDto}) and HTTP status 200 (OK).
+     * @throws InvalidCursorException (HTTP 400) if the cursor is malformed.
      * @throws CardOwnershipException (HTTP 403) if the card does not belong to the user or user access is required.
      * @throws CardNotFoundException (HTTP 404) if the card is not found with the given ID.
      */
     @Operation(summary = "Get transfers for a specific card",
-            description = "Retrieves a list of transfers associated with a specific card owned by the authenticated user.")
+            description = "Retrieves one page of the transfers associated with a specific card owned by the authenticated user, newest first.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of card transfers",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferResponseDto.class))),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of card transfers",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferPageResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Malformed cursor.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = InvalidCursorException.class))),
             @ApiResponse(responseCode = "403", description = "Forbidden - Card does not belong to user or user access required.",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardOwnershipException.class))),
             @ApiResponse(responseCode = "404", description = "Card not found with the given ID.",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = CardNotFoundException.class)))
     })
     @GetMapping("/card/{cardId}")
-    public ResponseEntity<List<TransferResponseDto>> getCardTransfers(@PathVariable Long cardId,
-                                                                      Authentication authentication) {
+    public ResponseEntity<TransferPageResponseDto> getCardTransfers(@PathVariable Long cardId,
+                                                                    @RequestParam(defaultValue = "50") int limit,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    Authentication authentication) {
         String username = authentication.getName();
-        List<TransferResponseDto> transfers = transferService.getCardTransfers(cardId, username);
+        TransferPageResponseDto transfers = transferService.getCardTransfers(cardId, username, cursor, limit);
         return ResponseEntity.ok(transfers);
     }
 
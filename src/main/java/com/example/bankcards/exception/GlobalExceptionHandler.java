@@ -7,12 +7,15 @@ import com.example.bankcards.exception.dto.ConflictException;
 import com.example.bankcards.exception.dto.ForbiddenException;
 import com.example.bankcards.exception.dto.ResourceNotFoundException;
 import com.example.bankcards.exception.dto.ErrorResponse;
+import com.example.bankcards.exception.dto.ServiceUnavailableException;
+import com.example.bankcards.exception.dto.TooManyRequestsException;
 import com.example.bankcards.exception.transfer.InvalidTransferException;
 import com.example.bankcards.exception.user.AuthenticationFailedException;
 import com.example.bankcards.exception.user.DuplicateUsernameException;
 import com.example.bankcards.exception.user.TokenExpiredException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import com.example.bankcards.exception.card.CardOwnershipException;
@@ -150,6 +153,38 @@ public class GlobalExceptionHandler {
         return createErrorResponseEntity(HttpStatus.CONFLICT, ex.getMessage(), request);
     }
 
+    /**
+     * Handles {@link TooManyRequestsException} and its subclasses (e.g., a full transfer admission queue).
+     * Returns an HTTP 429 Too Many Requests status with a {@code Retry-After} hint.
+     *
+     * @param ex the {@link TooManyRequestsException} that was thrown.
+     * @param request the current {@link HttpServletRequest}.
+     * @return a {@link ResponseEntity} with an {@link ErrorResponse} and HTTP 429 Too Many Requests status.
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(TooManyRequestsException ex, HttpServletRequest request) {
+        // Перегрузка — ожидаемая ситуация, стек не нужен
+        log.warn("TooManyRequestsException: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), request.getRequestURI(), null);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    /**
+     * Handles {@link ServiceUnavailableException} and its subclasses (e.g., a missing exchange rate).
+     * Returns an HTTP 503 Service Unavailable status.
+     *
+     * @param ex the {@link ServiceUnavailableException} that was thrown.
+     * @param request the current {@link HttpServletRequest}.
+     * @return a {@link ResponseEntity} with an {@link ErrorResponse} and HTTP 503 Service Unavailable status.
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(ServiceUnavailableException ex, HttpServletRequest request) {
+        log.warn("ServiceUnavailableException: {}", ex.getMessage());
+        return createErrorResponseEntity(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request);
+    }
+
     /**
      * Handles {@link ForbiddenException} and its subclasses (e.g., {@link TokenExpiredException}).
      * Returns an HTTP 403 Forbidden status.
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.analytics;
+
+import com.example.bankcards.exception.dto.BadRequestException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when the period or granularity of an analytics request is invalid.
+ * This exception maps to an HTTP 400 Bad Request status.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidAnalyticsRangeException extends BadRequestException {
+
+    /**
+     * Constructs a new InvalidAnalyticsRangeException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InvalidAnalyticsRangeException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new InvalidAnalyticsRangeException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public InvalidAnalyticsRangeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.dto.ConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when an operation could not acquire the in-process lock of a card in time
+ * because too many concurrent operations are queued on the same card.
+ * The client may safely retry the request.
+ * This exception maps to an HTTP 409 Conflict status.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CardLockTimeoutException extends ConflictException {
+
+    /**
+     * Constructs a new CardLockTimeoutException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public CardLockTimeoutException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new CardLockTimeoutException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public CardLockTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.dto.ConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when an attempt is made to create a card with a number that is already registered.
+ * This exception maps to an HTTP 409 Conflict status.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateCardNumberException extends ConflictException {
+
+    /**
+     * Constructs a new DuplicateCardNumberException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public DuplicateCardNumberException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new DuplicateCardNumberException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public DuplicateCardNumberException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.dto.BadRequestException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a card number fails the Luhn check or its BIN is not in the BIN table.
+ * This exception maps to an HTTP 400 Bad Request status.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCardNumberException extends BadRequestException {
+
+    /**
+     * Constructs a new InvalidCardNumberException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InvalidCardNumberException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new InvalidCardNumberException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public InvalidCardNumberException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.encryption;
+
+import com.example.bankcards.exception.dto.ConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a data key is rotated concurrently with another rotation.
+ * This exception maps to an HTTP 409 Conflict status.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class KeyRotationConflictException extends ConflictException {
+
+    /**
+     * Constructs a new KeyRotationConflictException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public KeyRotationConflictException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new KeyRotationConflictException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public KeyRotationConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.encryption;
+
+import com.example.bankcards.exception.dto.ConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a card re-encryption run is started while another one is still running.
+ * This exception maps to an HTTP 409 Conflict status.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ReencryptionInProgressException extends ConflictException {
+
+    /**
+     * Constructs a new ReencryptionInProgressException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public ReencryptionInProgressException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new ReencryptionInProgressException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public ReencryptionInProgressException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.encryption;
+
+import com.example.bankcards.exception.dto.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a requested card re-encryption run is not found.
+ * This exception maps to an HTTP 404 Not Found status.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ReencryptionRunNotFoundException extends ResourceNotFoundException {
+
+    /**
+     * Constructs a new ReencryptionRunNotFoundException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public ReencryptionRunNotFoundException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new ReencryptionRunNotFoundException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public ReencryptionRunNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.export;
+
+import com.example.bankcards.exception.dto.BadRequestException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when the date range of a history export is invalid.
+ * This exception maps to an HTTP 400 Bad Request status.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidExportRangeException extends BadRequestException {
+
+    /**
+     * Constructs a new InvalidExportRangeException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InvalidExportRangeException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new InvalidExportRangeException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public InvalidExportRangeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.fraud;
+
+import com.example.bankcards.exception.dto.BadRequestException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when fraud screening rejects a transfer (e.g., too many transfers from a card in a short time).
+ * This exception maps to an HTTP 400 Bad Request status.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class TransferRejectedException extends BadRequestException {
+
+    /**
+     * Constructs a new TransferRejectedException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public TransferRejectedException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new TransferRejectedException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public TransferRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
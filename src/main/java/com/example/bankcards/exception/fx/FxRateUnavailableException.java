@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.fx;
+
+import com.example.bankcards.exception.dto.ServiceUnavailableException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a cross-currency operation needs an exchange rate that is missing or out of date.
+ * This exception maps to an HTTP 503 Service Unavailable status.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class FxRateUnavailableException extends ServiceUnavailableException {
+
+    /**
+     * Constructs a new FxRateUnavailableException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public FxRateUnavailableException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new FxRateUnavailableException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public FxRateUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.bankcards.exception.idempotency;
+
+import com.example.bankcards.exception.dto.BadRequestException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when an {@code Idempotency-Key} is malformed or has already been used
+ * for a request with a different payload.
+ * This exception maps to an HTTP 400 Bad Request status.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class IdempotencyKeyMismatchException extends BadRequestException {
+
+    /**
+     * Constructs a new IdempotencyKeyMismatchException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new IdempotencyKeyMismatchException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public IdempotencyKeyMismatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
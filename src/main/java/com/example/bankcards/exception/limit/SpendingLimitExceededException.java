@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.limit;
+
+import com.example.bankcards.exception.dto.BadRequestException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when an outgoing operation would exceed a monthly user or daily card spending limit.
+ * This exception maps to an HTTP 400 Bad Request status.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class SpendingLimitExceededException extends BadRequestException {
+
+    /**
+     * Constructs a new SpendingLimitExceededException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public SpendingLimitExceededException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new SpendingLimitExceededException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public SpendingLimitExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
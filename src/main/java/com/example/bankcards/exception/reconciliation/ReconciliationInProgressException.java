@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.reconciliation;
+
+import com.example.bankcards.exception.dto.ConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a reconciliation run is started while another one is still running.
+ * This exception maps to an HTTP 409 Conflict status.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ReconciliationInProgressException extends ConflictException {
+
+    /**
+     * Constructs a new ReconciliationInProgressException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public ReconciliationInProgressException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new ReconciliationInProgressException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public ReconciliationInProgressException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.reconciliation;
+
+import com.example.bankcards.exception.dto.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a requested reconciliation run is not found.
+ * This exception maps to an HTTP 404 Not Found status.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ReconciliationRunNotFoundException extends ResourceNotFoundException {
+
+    /**
+     * Constructs a new ReconciliationRunNotFoundException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public ReconciliationRunNotFoundException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new ReconciliationRunNotFoundException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public ReconciliationRunNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.schedule;
+
+import com.example.bankcards.exception.dto.BadRequestException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when the rule of a scheduled transfer is invalid (e.g., a malformed cron expression or both a cron and an interval).
+ * This exception maps to an HTTP 400 Bad Request status.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidScheduleException extends BadRequestException {
+
+    /**
+     * Constructs a new InvalidScheduleException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InvalidScheduleException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new InvalidScheduleException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public InvalidScheduleException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
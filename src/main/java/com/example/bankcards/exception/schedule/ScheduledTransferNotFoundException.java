@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.schedule;
+
+import com.example.bankcards.exception.dto.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a requested scheduled transfer is not found or belongs to another user.
+ * This exception maps to an HTTP 404 Not Found status.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ScheduledTransferNotFoundException extends ResourceNotFoundException {
+
+    /**
+     * Constructs a new ScheduledTransferNotFoundException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public ScheduledTransferNotFoundException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new ScheduledTransferNotFoundException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public ScheduledTransferNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
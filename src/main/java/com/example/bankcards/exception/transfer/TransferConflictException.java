@@ -0,0 +1,34 @@
+package com.example.bankcards.exception.transfer;
+
+import com.example.bankcards.exception.dto.ConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a money transfer cannot be completed because of concurrent operations
+ * on the same cards or accounts (e.g., repeated deadlocks), even after retrying.
+ * The client may safely retry the request.
+ * This exception maps to an HTTP 409 Conflict status.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class TransferConflictException extends ConflictException {
+
+    /**
+     * Constructs a new TransferConflictException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public TransferConflictException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new TransferConflictException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public TransferConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.transfer;
+
+import com.example.bankcards.exception.dto.ConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a transfer cannot be reversed because it failed or was already reversed.
+ * This exception maps to an HTTP 409 Conflict status.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class TransferNotReversibleException extends ConflictException {
+
+    /**
+     * Constructs a new TransferNotReversibleException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public TransferNotReversibleException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new TransferNotReversibleException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public TransferNotReversibleException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
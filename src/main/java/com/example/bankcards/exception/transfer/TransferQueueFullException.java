@@ -0,0 +1,32 @@
+package com.example.bankcards.exception.transfer;
+
+import com.example.bankcards.exception.dto.TooManyRequestsException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when an asynchronous transfer cannot be admitted because the admission queue is full.
+ * This exception maps to an HTTP 429 Too Many Requests status.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TransferQueueFullException extends TooManyRequestsException {
+
+    /**
+     * Constructs a new TransferQueueFullException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public TransferQueueFullException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new TransferQueueFullException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause the cause.
+     */
+    public TransferQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
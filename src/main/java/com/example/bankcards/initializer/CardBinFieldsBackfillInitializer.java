@@ -0,0 +1,72 @@
+package com.example.bankcards.initializer;
+
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.card.BinLookupService;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.util.CardNumber;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Component that fills the BIN metadata ({@code brand}, {@code card_type}, {@code issuer}, {@code issuer_country})
+ * for cards created before the columns existed.
+ * Cards are processed in ascending ID order in chunks, each chunk in its own transaction,
+ * so the job is restartable and never holds locks on the whole table.
+ * Cards whose BIN is not in the table get type {@code UNKNOWN} and are not revisited;
+ * cards whose number cannot be decrypted are logged and skipped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardBinFieldsBackfillInitializer implements CommandLineRunner {
+
+    private final CardRepository cardRepository;
+    private final CardEncryptionService cardEncryptionService;
+    private final BinLookupService binLookupService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Walks all cards without BIN metadata and looks it up by the decrypted card number.
+     *
+     * @param args Command line arguments (not used in this implementation).
+     */
+    @Override
+    public void run(String... args) {
+        long lastId = 0L;
+        int updated = 0;
+        while (true) {
+            final long fromId = lastId;
+            List<Card> chunk = cardRepository.findTop500ByCardTypeIsNullAndIdGreaterThanOrderByIdAsc(fromId);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            Integer chunkUpdated = transactionTemplate.execute(status -> backfillChunk(chunk));
+            updated += chunkUpdated != null ? chunkUpdated : 0;
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+        if (updated > 0) {
+            log.info("Backfilled BIN fields for {} cards", updated);
+        }
+    }
+
+    private int backfillChunk(List<Card> chunk) {
+        int updated = 0;
+        for (Card card : chunk) {
+            try {
+                CardNumber cardNumber = CardNumber.parse(cardEncryptionService.decryptCardNumber(card.getCardNumber()));
+                binLookupService.applyBinFields(card, binLookupService.lookup(cardNumber));
+                cardRepository.save(card);
+                updated++;
+            } catch (Exception e) {
+                log.warn("Skipping card {} during BIN fields backfill: {}", card.getId(), e.getMessage());
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bankcards.initializer;
+
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.card.CardEncryptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Component that fills the display fields ({@code first_digits}, {@code last_digits})
+ * for cards created before the columns existed. The brand is filled from the BIN table by
+ * {@link CardBinFieldsBackfillInitializer}.
+ * Cards are processed in ascending ID order in chunks, each chunk in its own transaction,
+ * so the job is restartable and never holds locks on the whole table.
+ * Cards whose number cannot be decrypted are logged and skipped; they keep being masked by decryption.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardDisplayFieldsBackfillInitializer implements CommandLineRunner {
+
+    private final CardRepository cardRepository;
+    private final CardEncryptionService cardEncryptionService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Walks all cards without display fields and derives them from the decrypted card number.
+     *
+     * @param args Command line arguments (not used in this implementation).
+     */
+    @Override
+    public void run(String... args) {
+        long lastId = 0L;
+        int updated = 0;
+        while (true) {
+            final long fromId = lastId;
+            List<Card> chunk = cardRepository.findTop500ByLastDigitsIsNullAndIdGreaterThanOrderByIdAsc(fromId);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            Integer chunkUpdated = transactionTemplate.execute(status -> backfillChunk(chunk));
+            updated += chunkUpdated != null ? chunkUpdated : 0;
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+        if (updated > 0) {
+            log.info("Backfilled display fields for {} cards", updated);
+        }
+    }
+
+    private int backfillChunk(List<Card> chunk) {
+        int updated = 0;
+        for (Card card : chunk) {
+            try {
+                String plainCardNumber = cardEncryptionService.decryptCardNumber(card.getCardNumber());
+                cardEncryptionService.applyDisplayFields(card, plainCardNumber);
+                cardRepository.save(card);
+                updated++;
+            } catch (Exception e) {
+                log.warn("Skipping card {} during display fields backfill: {}", card.getId(), e.getMessage());
+            }
+        }
+        return updated;
+    }
+}
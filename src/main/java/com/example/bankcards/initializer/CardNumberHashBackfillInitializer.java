@@ -0,0 +1,73 @@
+package com.example.bankcards.initializer;
+
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.card.CardEncryptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Component that fills the {@code card_number_hash} blind index for cards created
+ * before the column existed.
+ * Cards are processed in ascending ID order in chunks, each chunk in its own transaction,
+ * so the job is restartable and never holds locks on the whole table.
+ * Cards whose number cannot be decrypted, or duplicates an already indexed card, are logged and skipped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardNumberHashBackfillInitializer implements CommandLineRunner {
+
+    private final CardRepository cardRepository;
+    private final CardEncryptionService cardEncryptionService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Walks all cards without a blind index and computes it from the decrypted card number.
+     *
+     * @param args Command line arguments (not used in this implementation).
+     */
+    @Override
+    public void run(String... args) {
+        long lastId = 0L;
+        int updated = 0;
+        while (true) {
+            final long fromId = lastId;
+            List<Card> chunk = cardRepository.findTop500ByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(fromId);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            Integer chunkUpdated = transactionTemplate.execute(status -> backfillChunk(chunk));
+            updated += chunkUpdated != null ? chunkUpdated : 0;
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+        if (updated > 0) {
+            log.info("Backfilled card number hash for {} cards", updated);
+        }
+    }
+
+    private int backfillChunk(List<Card> chunk) {
+        int updated = 0;
+        for (Card card : chunk) {
+            try {
+                String plainCardNumber = cardEncryptionService.decryptCardNumber(card.getCardNumber());
+                String cardNumberHash = cardEncryptionService.hashCardNumber(plainCardNumber);
+                if (cardRepository.existsByCardNumberHash(cardNumberHash)) {
+                    log.warn("Skipping card {} during hash backfill: duplicate card number", card.getId());
+                    continue;
+                }
+                card.setCardNumberHash(cardNumberHash);
+                cardRepository.save(card);
+                updated++;
+            } catch (Exception e) {
+                log.warn("Skipping card {} during hash backfill: {}", card.getId(), e.getMessage());
+            }
+        }
+        return updated;
+    }
+}
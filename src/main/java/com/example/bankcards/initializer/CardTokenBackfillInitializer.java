@@ -0,0 +1,106 @@
+package com.example.bankcards.initializer;
+
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.QuickTransfer;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.QuickTransferRepository;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.service.card.CardTokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Component that moves card numbers created before the card token vault existed into it:
+ * cards get their {@code card_token}, and saved recipients get a token in place of their plain card number,
+ * which is then cleared.
+ * Rows are processed in ascending ID order in chunks, each chunk in its own transaction,
+ * so the job is restartable and never holds locks on the whole table.
+ * Rows whose number cannot be decrypted or is invalid are logged and skipped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardTokenBackfillInitializer implements CommandLineRunner {
+
+    private final CardRepository cardRepository;
+    private final QuickTransferRepository quickTransferRepository;
+    private final CardEncryptionService cardEncryptionService;
+    private final CardTokenService cardTokenService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Tokenizes the numbers of all cards and saved recipients that have no token yet.
+     *
+     * @param args Command line arguments (not used in this implementation).
+     */
+    @Override
+    public void run(String... args) {
+        int cards = backfillCards();
+        int recipients = backfillQuickTransfers();
+        if (cards > 0 || recipients > 0) {
+            log.info("Tokenized card numbers of {} cards and {} saved recipients", cards, recipients);
+        }
+    }
+
+    private int backfillCards() {
+        long lastId = 0L;
+        int updated = 0;
+        while (true) {
+            final long fromId = lastId;
+            List<Card> chunk = cardRepository.findTop500ByCardTokenIsNullAndIdGreaterThanOrderByIdAsc(fromId);
+            if (chunk.isEmpty()) {
+                return updated;
+            }
+            Integer chunkUpdated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Card card : chunk) {
+                    try {
+                        String plainCardNumber = cardEncryptionService.decryptCardNumber(card.getCardNumber());
+                        card.setCardToken(cardTokenService.tokenize(plainCardNumber, card.getId()));
+                        cardRepository.save(card);
+                        count++;
+                    } catch (Exception e) {
+                        log.warn("Skipping card {} during token backfill: {}", card.getId(), e.getMessage());
+                    }
+                }
+                return count;
+            });
+            updated += chunkUpdated != null ? chunkUpdated : 0;
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+    }
+
+    private int backfillQuickTransfers() {
+        long lastId = 0L;
+        int updated = 0;
+        while (true) {
+            final long fromId = lastId;
+            List<QuickTransfer> chunk = quickTransferRepository.findTop500ByCardTokenIsNullAndIdGreaterThanOrderByIdAsc(fromId);
+            if (chunk.isEmpty()) {
+                return updated;
+            }
+            Integer chunkUpdated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (QuickTransfer quickTransfer : chunk) {
+                    try {
+                        quickTransfer.setCardToken(cardTokenService.tokenize(quickTransfer.getCardNumber(), null));
+                        // Открытый номер больше нигде не хранится
+                        quickTransfer.setCardNumber(null);
+                        quickTransferRepository.save(quickTransfer);
+                        count++;
+                    } catch (Exception e) {
+                        log.warn("Skipping saved recipient {} during token backfill: {}", quickTransfer.getId(), e.getMessage());
+                    }
+                }
+                return count;
+            });
+            updated += chunkUpdated != null ? chunkUpdated : 0;
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.bankcards.model.dto.account;
 
 import com.example.bankcards.model.entity.enums.AccountType;
+import com.example.bankcards.model.entity.enums.Currency;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -13,6 +14,9 @@ public class AccountCreateRequest {
     @NotNull(message = "Account type is required")
     private AccountType accountType;
 
+    // Валюта счета; по умолчанию BYN
+    private Currency currency;
+
     // UserId не требуется, если мы создаем счет для аутентифицированного пользователя,
     // но оставим его для удобства администрирования, если потребуется.
     private Long userId;
@@ -1,6 +1,7 @@
 package com.example.bankcards.model.dto.account;
 
 import com.example.bankcards.model.entity.enums.AccountType;
+import com.example.bankcards.model.entity.enums.Currency;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -14,6 +15,7 @@ public class AccountResponseDto {
     private String accountNumber;
     private BigDecimal balance;
     private AccountType accountType;
+    private Currency currency;
     private Long userId;
     private LocalDateTime createdAt;
 }
\ No newline at end of file
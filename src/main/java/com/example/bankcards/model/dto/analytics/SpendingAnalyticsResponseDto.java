@@ -0,0 +1,29 @@
+package com.example.bankcards.model.dto.analytics;
+
+import com.example.bankcards.service.analytics.Granularity;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO for a spending analytics series.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Spending series of the user or one of their cards over a period.")
+public class SpendingAnalyticsResponseDto {
+    @Schema(description = "Period length of the points.", example = "DAY")
+    private Granularity granularity;
+    @Schema(description = "First day covered.", example = "2025-03-01")
+    private LocalDate from;
+    @Schema(description = "Last day covered.", example = "2025-03-31")
+    private LocalDate to;
+    @Schema(description = "Totals over the whole range.")
+    private SpendingPointDto total;
+    @Schema(description = "Periods with activity, oldest first; periods without activity are omitted.")
+    private List<SpendingPointDto> points;
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.model.dto.analytics;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO for the totals of one analytics period.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Totals of one day or month.")
+public class SpendingPointDto {
+    @Schema(description = "First day of the period.", example = "2025-03-01")
+    private LocalDate periodStart;
+    @Schema(description = "Money received (deposits, incoming transfers from other users).", example = "1500.00")
+    private BigDecimal credits;
+    @Schema(description = "Money spent (withdrawals, outgoing transfers to other users).", example = "420.50")
+    private BigDecimal debits;
+    @Schema(description = "Service fees charged.", example = "5.00")
+    private BigDecimal fees;
+    @Schema(description = "Number of operations.", example = "12")
+    private int count;
+}
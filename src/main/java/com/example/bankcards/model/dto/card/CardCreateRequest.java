@@ -1,5 +1,6 @@
 package com.example.bankcards.model.dto.card;
 
+import com.example.bankcards.model.entity.enums.Currency;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -20,7 +21,7 @@ import java.time.LocalDate;
 @Schema(description = "DTO for creating a new bank card request.")
 public class CardCreateRequest {
     @NotBlank(message = "Card number is required")
-    @Schema(description = "Unique bank card number.", example = "1234567890123456")
+    @Schema(description = "Unique bank card number.", example = "4111111111111111")
     private String cardNumber;
 
     @NotBlank(message = "Card holder name is required")
@@ -39,4 +40,7 @@ public class CardCreateRequest {
     @NotNull(message = "User ID is required")
     @Schema(description = "ID of the user to whom the card belongs.", example = "1")
     private Long userId;
+
+    @Schema(description = "Currency of the card; the card is linked to the user's checking account in this currency. Defaults to BYN.", example = "BYN")
+    private Currency currency;
 }
\ No newline at end of file
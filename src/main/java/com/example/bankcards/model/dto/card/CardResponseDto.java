@@ -1,6 +1,9 @@
 package com.example.bankcards.model.dto.card;
 
+import com.example.bankcards.model.entity.enums.CardBrand;
 import com.example.bankcards.model.entity.enums.CardStatus;
+import com.example.bankcards.model.entity.enums.CardType;
+import com.example.bankcards.model.entity.enums.Currency;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 
@@ -18,8 +21,18 @@ import java.time.LocalDate;
 public class CardResponseDto {
     @Schema(description = "Unique card identifier.", example = "1")
     private Long id;
-    @Schema(description = "Bank card number.", example = "1234567890123456")
+    @Schema(description = "Bank card number.", example = "4111 **** **** 1111")
     private String cardNumber;
+    @Schema(description = "Token of the card number, usable as a transfer destination instead of the number.", example = "tok_3q2-7wEAAAAdAQAAAQAAAA")
+    private String cardToken;
+    @Schema(description = "Payment system of the card.", example = "VISA")
+    private CardBrand brand;
+    @Schema(description = "Funding type of the card, from the BIN table.", example = "DEBIT")
+    private CardType cardType;
+    @Schema(description = "Issuing bank of the card, from the BIN table.", example = "CyberBank")
+    private String issuer;
+    @Schema(description = "ISO 3166-1 alpha-2 code of the issuer's country.", example = "BY")
+    private String issuerCountry;
     @Schema(description = "Name of the card holder.", example = "JOHN DOE")
     private String cardHolder;
     @Schema(description = "Card expiration date.", example = "2028-12-31")
@@ -28,6 +41,10 @@ public class CardResponseDto {
     private CardStatus cardStatus;
     @Schema(description = "Current balance of the card.", example = "950.50")
     private BigDecimal balance;
+    @Schema(description = "Currency of the card balance.", example = "BYN")
+    private Currency currency;
+    @Schema(description = "Daily spending limit of the card, if any.", example = "1000.00")
+    private BigDecimal dailyLimit;
     @Schema(description = "Username of the card owner.", example = "testuser")
     private String username;
 }
\ No newline at end of file
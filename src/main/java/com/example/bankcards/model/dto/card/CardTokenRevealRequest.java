@@ -0,0 +1,18 @@
+package com.example.bankcards.model.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for recovering the card number of a token.")
+public class CardTokenRevealRequest {
+    @NotBlank(message = "Reason is required")
+    @Size(max = 255, message = "Reason must not exceed 255 characters")
+    @Schema(description = "Why the card number is needed; written to the audit log.", example = "Chargeback request, ticket #1234")
+    private String reason;
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.model.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO with the card number recovered from a token.")
+public class CardTokenRevealResponseDto {
+    @Schema(description = "The token.", example = "tok_3q2-7wEAAAAdAQAAAQAAAA")
+    private String token;
+    @Schema(description = "The full card number.", example = "4111111111111111")
+    private String cardNumber;
+}
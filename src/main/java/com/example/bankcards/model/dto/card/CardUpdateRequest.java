@@ -2,6 +2,7 @@ package com.example.bankcards.model.dto.card;
 
 import com.example.bankcards.model.entity.enums.CardStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -23,4 +24,7 @@ public class CardUpdateRequest {
     private CardStatus cardStatus;
     @Schema(description = "New balance of the card.", example = "1200.00")
     private BigDecimal balance;
+    @Schema(description = "New daily spending limit of the card.", example = "1000.00")
+    @PositiveOrZero(message = "Daily limit cannot be negative")
+    private BigDecimal dailyLimit;
 }
@@ -0,0 +1,28 @@
+package com.example.bankcards.model.dto.encryption;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO representing a version of the data-encryption key. The key material itself is never returned.")
+public class DataKeyResponseDto {
+    @Schema(description = "Key version, carried by every ciphertext as a 'v<version>:' prefix.", example = "3")
+    private int version;
+
+    @Schema(description = "Administrator who rotated the key.", example = "admin")
+    private String createdBy;
+
+    @Schema(description = "When the key was created.", example = "2025-03-01T10:00:00")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "From when new data is encrypted with the key; until then it only decrypts.", example = "2025-03-01T10:02:00")
+    private LocalDateTime activeFrom;
+
+    @Schema(description = "Whether new data is currently encrypted with this key.", example = "true")
+    private boolean current;
+}
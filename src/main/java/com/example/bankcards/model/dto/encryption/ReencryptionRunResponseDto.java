@@ -0,0 +1,50 @@
+package com.example.bankcards.model.dto.encryption;
+
+import com.example.bankcards.model.entity.enums.ReencryptionStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO representing a card re-encryption run and its progress.")
+public class ReencryptionRunResponseDto {
+    @Schema(description = "Unique identifier of the run.", example = "4")
+    private Long id;
+
+    @Schema(description = "Status of the run.", example = "RUNNING")
+    private ReencryptionStatus status;
+
+    @Schema(description = "Key version the card numbers are re-encrypted with.", example = "3")
+    private int targetVersion;
+
+    @Schema(description = "Administrator who started the run; empty if it was started after a key became active.", example = "admin")
+    private String triggeredBy;
+
+    @Schema(description = "Number of card ID ranges the run processes.", example = "5000")
+    private int totalRanges;
+
+    @Schema(description = "Number of leading ranges that are fully processed; a resumed run continues from here.", example = "1200")
+    private int checkpointRange;
+
+    @Schema(description = "Percentage of ranges processed, up to the checkpoint.", example = "24.0")
+    private double progressPercent;
+
+    @Schema(description = "Number of card numbers re-encrypted so far.", example = "1200000")
+    private long cardsReencrypted;
+
+    @Schema(description = "Number of card numbers left on an older key because they stayed locked by transfers.", example = "0")
+    private long cardsSkipped;
+
+    @Schema(description = "Card numbers re-encrypted per second since the run started.", example = "9500.0")
+    private double cardsPerSecond;
+
+    @Schema(description = "When the run started.", example = "2025-03-01T10:05:00")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "When the run finished; empty while it is running.", example = "2025-03-01T10:07:10")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.model.dto.fx;
+
+import com.example.bankcards.model.entity.enums.Currency;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * DTO for the cached exchange rates.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Official exchange rates used for cross-currency transfers.")
+public class FxRatesResponseDto {
+    @Schema(description = "Currency the rates are quoted in.", example = "BYN")
+    private Currency base;
+    @Schema(description = "When the rates were loaded from the source.", example = "2025-03-01T09:00:00Z")
+    private Instant loadedAt;
+    @Schema(description = "Price of one unit of each currency in the base currency.", example = "{\"USD\": 3.2718, \"EUR\": 3.5412}")
+    private Map<Currency, BigDecimal> rates;
+}
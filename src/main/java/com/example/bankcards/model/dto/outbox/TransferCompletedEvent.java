@@ -0,0 +1,27 @@
+package com.example.bankcards.model.dto.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Outbox payload of a {@code TRANSFER_COMPLETED} event.
+ * Carries user IDs rather than usernames so the dispatcher can fan out notifications without lookups.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferCompletedEvent {
+    private Long transferId;
+    private Long fromCardId;
+    private Long toCardId;
+    private Long fromUserId;
+    private Long toUserId;
+    private BigDecimal amount;
+    // Сумма зачисления в валюте получателя; null, если перевод без конвертации (и в событиях до мультивалютности)
+    private BigDecimal creditedAmount;
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.model.dto.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Outbox payload of a {@code TRANSFER_REVERSED} event.
+ * Carries user IDs rather than usernames so the dispatcher can fan out notifications without lookups.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferReversedEvent {
+    private Long transferId;
+    private Long fromCardId;
+    private Long toCardId;
+    private Long fromUserId;
+    private Long toUserId;
+    private BigDecimal amount;
+    // Сумма, возвращенная отправителю: перевод вместе с комиссией
+    private BigDecimal refundedAmount;
+    // Сумма, списанная с получателя, в его валюте
+    private BigDecimal debitedAmount;
+    private String reversedBy;
+    private String reason;
+}
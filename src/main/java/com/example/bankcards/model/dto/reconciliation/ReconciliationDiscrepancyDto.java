@@ -0,0 +1,36 @@
+package com.example.bankcards.model.dto.reconciliation;
+
+import com.example.bankcards.model.entity.enums.ReconciliationCheck;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO representing a mismatch found by a reconciliation run.")
+public class ReconciliationDiscrepancyDto {
+    @Schema(description = "Unique identifier of the discrepancy; pass the last one as 'afterId' to get the next page.", example = "501")
+    private Long id;
+
+    @Schema(description = "ID of the account.", example = "42")
+    private Long accountId;
+
+    @Schema(description = "What was compared.", example = "CARDS")
+    private ReconciliationCheck check;
+
+    @Schema(description = "Expected value: the account balance, or the journal movements for the TRANSACTIONS check.", example = "1500.00")
+    private BigDecimal expected;
+
+    @Schema(description = "Actual value: the card sum, the journal balance or the transaction replay.", example = "1450.00")
+    private BigDecimal actual;
+
+    @Schema(description = "Actual minus expected.", example = "-50.00")
+    private BigDecimal difference;
+
+    @Schema(description = "When the discrepancy was found.", example = "2025-03-01T02:01:13")
+    private LocalDateTime detectedAt;
+}
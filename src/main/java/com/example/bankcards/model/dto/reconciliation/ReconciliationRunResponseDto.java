@@ -0,0 +1,50 @@
+package com.example.bankcards.model.dto.reconciliation;
+
+import com.example.bankcards.model.entity.enums.ReconciliationStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO representing a balance reconciliation run and its progress.")
+public class ReconciliationRunResponseDto {
+    @Schema(description = "Unique identifier of the run.", example = "12")
+    private Long id;
+
+    @Schema(description = "Status of the run.", example = "RUNNING")
+    private ReconciliationStatus status;
+
+    @Schema(description = "Administrator who started the run; empty for the nightly schedule.", example = "admin")
+    private String triggeredBy;
+
+    @Schema(description = "Number of account ID ranges the run checks.", example = "250")
+    private int totalRanges;
+
+    @Schema(description = "Number of ranges already processed, including failed ones.", example = "120")
+    private int completedRanges;
+
+    @Schema(description = "Number of ranges that could not be checked.", example = "0")
+    private int failedRanges;
+
+    @Schema(description = "Percentage of ranges processed.", example = "48.0")
+    private double progressPercent;
+
+    @Schema(description = "Number of accounts checked so far.", example = "1200000")
+    private long accountsChecked;
+
+    @Schema(description = "Number of discrepancies found so far.", example = "37")
+    private long discrepancies;
+
+    @Schema(description = "Accounts checked per second since the run started.", example = "8450.5")
+    private double accountsPerSecond;
+
+    @Schema(description = "When the run started.", example = "2025-03-01T02:00:00")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "When the run finished; empty while it is running.", example = "2025-03-01T02:04:10")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,50 @@
+package com.example.bankcards.model.dto.schedule;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for creating a scheduled (standing order) transfer. Exactly one of cronExpression and intervalSeconds is required.")
+public class ScheduledTransferRequest {
+    @NotNull(message = "From card ID is required")
+    @Schema(description = "ID of the card from which the transfers are made.", example = "1")
+    private Long fromCardId;
+
+    @Schema(description = "Number of the card to which the transfers are made.", example = "5555555555554444")
+    private String toCardNumber;
+
+    @Schema(description = "Token of the destination card number (alternative to the number).", example = "tok_3q2-7wEAAAAdAQAAAQAAAA")
+    private String toCardToken;
+
+    @Schema(description = "ID of the destination card (alternative to the number).", example = "2")
+    private Long toCardId;
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    @Schema(description = "Amount of every transfer.", example = "500.00")
+    private BigDecimal amount;
+
+    @Size(max = 255, message = "Description must not exceed 255 characters")
+    @Schema(description = "Optional description of the order.", example = "Rent")
+    private String description;
+
+    @Size(max = 100, message = "Cron expression must not exceed 100 characters")
+    @Schema(description = "Spring cron expression (second minute hour day month weekday).", example = "0 0 9 1 * *")
+    private String cronExpression;
+
+    @Positive(message = "Interval must be positive")
+    @Schema(description = "Fixed interval between transfers in seconds.", example = "604800")
+    private Long intervalSeconds;
+
+    @Schema(description = "First run; defaults to the next time matching the cron rule, or now plus the interval.", example = "2025-04-01T09:00:00")
+    private LocalDateTime startAt;
+}
@@ -0,0 +1,57 @@
+package com.example.bankcards.model.dto.schedule;
+
+import com.example.bankcards.model.entity.enums.ScheduledTransferStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO representing a scheduled (standing order) transfer.")
+public class ScheduledTransferResponseDto {
+    @Schema(description = "Unique identifier of the order.", example = "1")
+    private Long id;
+
+    @Schema(description = "ID of the source card.", example = "1")
+    private Long fromCardId;
+
+    @Schema(description = "Masked number of the source card.", example = "4000 **** **** 0002")
+    private String fromCardNumber;
+
+    @Schema(description = "ID of the destination card.", example = "2")
+    private Long toCardId;
+
+    @Schema(description = "Masked number of the destination card.", example = "5100 **** **** 0005")
+    private String toCardNumber;
+
+    @Schema(description = "Amount of every transfer.", example = "500.00")
+    private BigDecimal amount;
+
+    @Schema(description = "Description of the order.", example = "Rent")
+    private String description;
+
+    @Schema(description = "Cron rule, if the order is cron-based.", example = "0 0 9 1 * *")
+    private String cronExpression;
+
+    @Schema(description = "Interval in seconds, if the order is interval-based.", example = "604800")
+    private Long intervalSeconds;
+
+    @Schema(description = "Status of the order.", example = "ACTIVE")
+    private ScheduledTransferStatus status;
+
+    @Schema(description = "Due time of the next transfer.", example = "2025-04-01T09:00:00")
+    private LocalDateTime nextRunAt;
+
+    @Schema(description = "When the last transfer ran.", example = "2025-03-01T09:00:02")
+    private LocalDateTime lastRunAt;
+
+    @Schema(description = "ID of the transfer created by the last successful run.", example = "42")
+    private Long lastTransferId;
+
+    @Schema(description = "Why the last attempt failed, if it did.", example = "Insufficient funds on card.")
+    private String lastError;
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.model.dto.transfer;
+
+import com.example.bankcards.model.entity.enums.TransferStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+/**
+ * DTO for the outcome of a single item of a bulk transfer.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Result of a single transfer within a bulk transfer request.")
+public class BatchTransferItemResultDto {
+    @Schema(description = "Zero-based position of the item in the request.", example = "0")
+    private int index;
+    @Schema(description = "ID of the created transfer, if it succeeded.", example = "42")
+    private Long transferId;
+    @Schema(description = "Outcome of the item (SUCCESS or FAILED).", example = "SUCCESS")
+    private TransferStatus status;
+    @Schema(description = "Reason of the failure, if the item failed.", example = "Insufficient funds.")
+    private String error;
+}
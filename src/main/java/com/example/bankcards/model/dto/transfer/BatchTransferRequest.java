@@ -0,0 +1,24 @@
+package com.example.bankcards.model.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO for a bulk transfer request.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for bulk transfer request (e.g., payroll or refunds).")
+public class BatchTransferRequest {
+    @NotEmpty(message = "At least one transfer is required")
+    @Size(max = 1000, message = "A batch may contain at most 1000 transfers")
+    @Schema(description = "Transfers to execute. Each item is validated and applied independently.")
+    private List<@Valid TransferRequest> transfers;
+}
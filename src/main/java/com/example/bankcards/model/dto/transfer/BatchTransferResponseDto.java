@@ -0,0 +1,25 @@
+package com.example.bankcards.model.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO for bulk transfer response.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "DTO for bulk transfer response with a result per requested item.")
+public class BatchTransferResponseDto {
+    @Schema(description = "Number of transfers in the request.", example = "3")
+    private int total;
+    @Schema(description = "Number of transfers that were applied.", example = "2")
+    private int succeeded;
+    @Schema(description = "Number of transfers that were rejected.", example = "1")
+    private int failed;
+    @Schema(description = "Per-item results, in request order.")
+    private List<BatchTransferItemResultDto> results;
+}
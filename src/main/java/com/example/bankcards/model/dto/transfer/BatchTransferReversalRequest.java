@@ -0,0 +1,24 @@
+package com.example.bankcards.model.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for reversing many transfers at once (e.g., after an incident).")
+public class BatchTransferReversalRequest {
+    @NotEmpty(message = "At least one transfer ID is required")
+    @Schema(description = "IDs of the transfers to reverse.", example = "[101, 102, 103]")
+    private List<@NotNull Long> transferIds;
+
+    @Size(max = 255, message = "Reason must not exceed 255 characters")
+    @Schema(description = "Why the transfers are reversed; applied to every item.", example = "Incident 2025-03-14: duplicated payroll")
+    private String reason;
+}
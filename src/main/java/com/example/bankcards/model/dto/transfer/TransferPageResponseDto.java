@@ -0,0 +1,21 @@
+package com.example.bankcards.model.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO for one page of transfer history.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "One page of transfer history, newest first.")
+public class TransferPageResponseDto {
+    @Schema(description = "Transfers on this page, ordered by creation time descending.")
+    private List<TransferResponseDto> items;
+    @Schema(description = "Opaque cursor for the next page; absent on the last page.", example = "MjAyNS0wMS0wMVQxMDowMDo1MHwxMjM")
+    private String next;
+}
@@ -17,9 +17,12 @@ public class TransferRequest {
     @Schema(description = "ID of the card from which the transfer is made.", example = "1")
     private Long fromCardId;
 
-    @Schema(description = "Number of the card to which the transfer is made.", example = "9876543210987654")
+    @Schema(description = "Number of the card to which the transfer is made.", example = "5555555555554444")
     private String toCardNumber;
 
+    @Schema(description = "Token of the destination card number (e.g., from a saved recipient), used instead of the number.", example = "tok_3q2-7wEAAAAdAQAAAQAAAA")
+    private String toCardToken;
+
     @Schema(description = "ID of the destination card (optional, used for internal transfers).", example = "2")
     private Long toCardId;
 
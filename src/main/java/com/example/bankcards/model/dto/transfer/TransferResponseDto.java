@@ -18,14 +18,24 @@ import java.time.LocalDateTime;
 public class TransferResponseDto {
     @Schema(description = "Unique transfer identifier.", example = "1")
     private Long id;
-    @Schema(description = "Number of the card from which the transfer was made.", example = "1234567890123456")
+    @Schema(description = "Number of the card from which the transfer was made.", example = "4111 **** **** 1111")
     private String fromCardNumber;
-    @Schema(description = "Number of the card to which the transfer was made.", example = "9876543210987654")
+    @Schema(description = "Number of the card to which the transfer was made.", example = "5555 **** **** 4444")
     private String toCardNumber;
     @Schema(description = "Amount of the transfer.", example = "50.00")
     private BigDecimal amount;
+    @Schema(description = "Amount credited in the destination card's currency; set for cross-currency transfers.", example = "15.38")
+    private BigDecimal creditedAmount;
+    @Schema(description = "Exchange rate applied to a cross-currency transfer, destination units per source unit.", example = "0.30769231")
+    private BigDecimal exchangeRate;
+    @Schema(description = "Fee debited from the source card on top of the amount; set if a fee was charged.", example = "0.75")
+    private BigDecimal feeAmount;
     @Schema(description = "Status of the transfer (e.g., COMPLETED, PENDING, FAILED).", example = "COMPLETED")
     private TransferStatus status;
+    @Schema(description = "Why the transfer failed; set for failed asynchronous transfers.", example = "Insufficient funds.")
+    private String failureReason;
+    @Schema(description = "Which fraud screening rule held the transfer; set for transfers on hold.", example = "Transfers to 21 recipients within an hour")
+    private String holdReason;
     @Schema(description = "Date and time when the transfer occurred.", example = "2023-10-26T10:30:00")
     private LocalDateTime transferDate;
     @Schema(description = "Date and time when the transfer record was created.", example = "2023-10-26T10:29:55")
@@ -0,0 +1,16 @@
+package com.example.bankcards.model.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for reversing a transfer.")
+public class TransferReversalRequest {
+    @Size(max = 255, message = "Reason must not exceed 255 characters")
+    @Schema(description = "Why the transfer is reversed.", example = "Fraudulent transfer, ticket #1234")
+    private String reason;
+}
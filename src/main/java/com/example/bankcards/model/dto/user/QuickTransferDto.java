@@ -6,5 +6,7 @@ import lombok.Data;
 public class QuickTransferDto {
     private Long id;
     private String name;
+    // Полный номер только во входящем запросе; в ответах — маска
     private String cardNumber;
-}
\ No newline at end of file
+    private String cardToken;
+}
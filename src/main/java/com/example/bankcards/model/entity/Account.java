@@ -1,6 +1,7 @@
 package com.example.bankcards.model.entity;
 
 import com.example.bankcards.model.entity.enums.AccountType;
+import com.example.bankcards.model.entity.enums.Currency;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
@@ -25,6 +26,15 @@ public class Account extends BasicEntity {
     @Column(nullable = false)
     private AccountType accountType;
 
+    // Валюта счета; карты счета ведутся в той же валюте
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 3)
+    private Currency currency = Currency.BYN;
+
+    // Горячий счет: зачисления идут в t_account_balance_buckets, эффективный баланс = balance + сумма бакетов
+    @Column(nullable = false)
+    private boolean bucketed = false;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
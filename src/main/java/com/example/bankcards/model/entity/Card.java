@@ -1,6 +1,9 @@
 package com.example.bankcards.model.entity;
 
+import com.example.bankcards.model.entity.enums.CardBrand;
 import com.example.bankcards.model.entity.enums.CardStatus;
+import com.example.bankcards.model.entity.enums.CardType;
+import com.example.bankcards.model.entity.enums.Currency;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -28,6 +31,58 @@ public class Card extends BasicEntity {
     @Column(nullable = false, length = 100)
     private String cardNumber;
 
+    /**
+     * Blind index of the card number: a keyed HMAC of the normalized plain number.
+     * Allows equality lookups and uniqueness checks without decrypting {@link #cardNumber}.
+     */
+    @Column(name = "card_number_hash", unique = true, length = 64)
+    private String cardNumberHash;
+
+    /**
+     * Token of the card number in the card token vault ({@code t_card_tokens}); lets clients refer to the card
+     * without handling its number.
+     */
+    @Column(name = "card_token", unique = true, length = 40)
+    private String cardToken;
+
+    /**
+     * The first four digits of the card number, kept in clear for display (e.g., {@code 4111 **** **** 1111}).
+     */
+    @Column(name = "first_digits", length = 4)
+    private String firstDigits;
+
+    /**
+     * The last four digits of the card number, kept in clear for display.
+     */
+    @Column(name = "last_digits", length = 4)
+    private String lastDigits;
+
+    /**
+     * The payment system of the card, from the BIN table ({@code BinLookupService}).
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private CardBrand brand;
+
+    /**
+     * The funding type of the card (debit, credit, prepaid), from the BIN table.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "card_type", length = 20)
+    private CardType cardType;
+
+    /**
+     * The issuing bank of the card, from the BIN table; {@code null} if the table does not name it.
+     */
+    @Column(length = 100)
+    private String issuer;
+
+    /**
+     * The ISO 3166-1 alpha-2 code of the issuer's country, from the BIN table; used for cross-border fees.
+     */
+    @Column(name = "issuer_country", length = 2)
+    private String issuerCountry;
+
     /**
      * The name of the card holder as it appears on the card.
      */
@@ -56,6 +111,20 @@ public class Card extends BasicEntity {
     @Column(nullable = false, precision = 15, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    /**
+     * The currency of the balance; always the currency of the linked account.
+     * Defaults to {@link Currency#BYN}.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 3)
+    private Currency currency = Currency.BYN;
+
+    /**
+     * Optional limit on the outgoing spend of this card per calendar day; {@code null} means no card limit.
+     */
+    @Column(name = "daily_limit", precision = 19, scale = 2)
+    private BigDecimal dailyLimit;
+
     /**
      * The account this card is linked to. (UPDATED RELATIONSHIP)
      * Many-to-one relationship, fetched lazily.
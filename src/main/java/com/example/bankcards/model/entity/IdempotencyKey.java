@@ -0,0 +1,59 @@
+package com.example.bankcards.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a processed request identified by a client-supplied {@code Idempotency-Key} header.
+ * The stored response is returned as-is when the client replays the same request,
+ * so retries never create a duplicate transfer.
+ * It extends {@link BasicEntity} to inherit common fields like ID and timestamps.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "t_idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uq_idempotency_keys_username_key",
+                columnNames = {"username", "idempotency_key"}))
+public class IdempotencyKey extends BasicEntity {
+
+    /**
+     * The username of the client that sent the request. Keys are scoped per user.
+     */
+    @Column(nullable = false)
+    private String username;
+
+    /**
+     * The client-supplied key.
+     */
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    /**
+     * SHA-256 of the request payload, used to reject reuse of a key for a different request.
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /**
+     * The ID of the transfer created by the original request.
+     */
+    @Column(name = "transfer_id")
+    private Long transferId;
+
+    /**
+     * The serialized response of the original request.
+     */
+    @Column(name = "response_body", nullable = false, columnDefinition = "TEXT")
+    private String responseBody;
+
+    /**
+     * The moment after which the key is no longer honoured and may be purged.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
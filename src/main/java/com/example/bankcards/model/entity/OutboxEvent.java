@@ -0,0 +1,53 @@
+package com.example.bankcards.model.entity;
+
+import com.example.bankcards.model.entity.enums.OutboxEventType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents an event in the transactional outbox.
+ * Events are written in the same transaction as the business change they describe and are
+ * processed asynchronously after commit by the outbox dispatcher, which deletes them once handled.
+ * It extends {@link BasicEntity} to inherit common fields like ID and timestamps.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "t_outbox")
+public class OutboxEvent extends BasicEntity {
+
+    /**
+     * The kind of event, which determines how the payload is interpreted.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 50)
+    private OutboxEventType eventType;
+
+    /**
+     * The ID of the entity the event is about (e.g., the transfer ID).
+     */
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    /**
+     * The event body, serialized as JSON.
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    /**
+     * The number of failed processing attempts.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * The moment from which the event may be picked up; pushed back after a failed attempt.
+     */
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt = LocalDateTime.now();
+}
@@ -17,6 +17,15 @@ public class QuickTransfer extends BasicEntity {
     @Column(nullable = false)
     private String name;
 
-    @Column(nullable = false)
+    /**
+     * Plain card number of recipients saved before tokenization; cleared by
+     * {@link com.example.bankcards.initializer.CardTokenBackfillInitializer} once the number is in the vault.
+     */
     private String cardNumber;
-}
\ No newline at end of file
+
+    /**
+     * Token of the recipient's card number in the card token vault.
+     */
+    @Column(name = "card_token", length = 40)
+    private String cardToken;
+}
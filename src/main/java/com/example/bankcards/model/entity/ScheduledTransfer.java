@@ -0,0 +1,111 @@
+package com.example.bankcards.model.entity;
+
+import com.example.bankcards.model.entity.enums.ScheduledTransferStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a standing order: a transfer between two cards repeated by a cron rule or a fixed interval.
+ * Exactly one of {@code cronExpression} and {@code intervalSeconds} is set. The scheduler picks up
+ * active orders whose {@code nextRunAt} has passed and advances it after every occurrence.
+ * It extends {@link BasicEntity} to inherit common fields like ID and timestamps.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "t_scheduled_transfers")
+public class ScheduledTransfer extends BasicEntity {
+
+    /**
+     * The user who owns the order and the source card.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * The card from which the money is transferred.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "from_card_id", nullable = false)
+    private Card fromCard;
+
+    /**
+     * The card to which the money is transferred.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "to_card_id", nullable = false)
+    private Card toCard;
+
+    /**
+     * The amount transferred on every occurrence.
+     */
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    /**
+     * Optional user-facing description (e.g., "Rent").
+     */
+    @Column(length = 255)
+    private String description;
+
+    /**
+     * Spring cron expression (six fields, seconds first), or {@code null} for interval orders.
+     */
+    @Column(name = "cron_expression", length = 100)
+    private String cronExpression;
+
+    /**
+     * Fixed interval between occurrences in seconds, or {@code null} for cron orders.
+     */
+    @Column(name = "interval_seconds")
+    private Long intervalSeconds;
+
+    /**
+     * Whether the order is executed.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ScheduledTransferStatus status = ScheduledTransferStatus.ACTIVE;
+
+    /**
+     * The due time of the next occurrence.
+     */
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    /**
+     * While set and in the future, the order is claimed by a scheduler worker or waits for a retry.
+     */
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    /**
+     * The number of failed attempts of the current occurrence.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * When the last occurrence completed or was given up.
+     */
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    /**
+     * The transfer created by the last successful occurrence.
+     */
+    @Column(name = "last_transfer_id")
+    private Long lastTransferId;
+
+    /**
+     * The reason the last attempt failed, or {@code null} after a success.
+     */
+    @Column(name = "last_error", length = 255)
+    private String lastError;
+}
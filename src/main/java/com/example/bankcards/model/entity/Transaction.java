@@ -42,4 +42,7 @@ public class Transaction extends BasicEntity {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private TransferStatus status = TransferStatus.SUCCESS; // Reuse TransferStatus for simplicity (SUCCESS/FAILED)
+
+    @Column(name = "transfer_id")
+    private Long transferId; // Исходный перевод для компенсирующих транзакций сторнирования
 }
\ No newline at end of file
@@ -43,6 +43,30 @@ public class Transfer extends BasicEntity{
     @Column(nullable = false, precision = 15, scale = 2)
     private BigDecimal amount;
 
+    /**
+     * The amount credited to the destination card in its currency, or {@code null} if both cards share a currency.
+     */
+    @Column(name = "credited_amount", precision = 15, scale = 2)
+    private BigDecimal creditedAmount;
+
+    /**
+     * The exchange rate applied to a cross-currency transfer (destination units per source unit), or {@code null}.
+     */
+    @Column(name = "exchange_rate", precision = 19, scale = 8)
+    private BigDecimal exchangeRate;
+
+    /**
+     * The fee debited from the source card on top of the amount, in its currency, or {@code null} if none was charged.
+     */
+    @Column(name = "fee_amount", precision = 15, scale = 2)
+    private BigDecimal feeAmount;
+
+    /**
+     * The fee as credited to the fee collection account in its currency, or {@code null} if it was not converted.
+     */
+    @Column(name = "fee_collected_amount", precision = 15, scale = 2)
+    private BigDecimal feeCollectedAmount;
+
     /**
      * The date and time when the transfer occurred.
      */
@@ -55,4 +79,34 @@ public class Transfer extends BasicEntity{
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private TransferStatus status;
+
+    /**
+     * When the transfer was reversed, or {@code null} if it was not.
+     */
+    @Column(name = "reversed_at")
+    private LocalDateTime reversedAt;
+
+    /**
+     * The username of the administrator who reversed the transfer.
+     */
+    @Column(name = "reversed_by", length = 50)
+    private String reversedBy;
+
+    /**
+     * The reason given for the reversal.
+     */
+    @Column(name = "reversal_reason", length = 255)
+    private String reversalReason;
+
+    /**
+     * Why an asynchronously executed transfer failed, or {@code null}.
+     */
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+
+    /**
+     * Which fraud screening rule held the transfer, or {@code null}.
+     */
+    @Column(name = "hold_reason", length = 255)
+    private String holdReason;
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing the payment system (brand) of a bank card, derived from its leading digits.
+ */
+public enum CardBrand {
+
+    /**
+     * Visa: numbers start with 4.
+     */
+    VISA,
+
+    /**
+     * Mastercard: numbers start with 51-55 or 2221-2720.
+     */
+    MASTERCARD,
+
+    /**
+     * Mir: numbers start with 2200-2204.
+     */
+    MIR,
+
+    /**
+     * American Express: numbers start with 34 or 37.
+     */
+    AMEX,
+
+    /**
+     * UnionPay: numbers start with 62.
+     */
+    UNIONPAY,
+
+    /**
+     * The brand could not be determined.
+     */
+    UNKNOWN
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing the funding type of a bank card, taken from the BIN table.
+ */
+public enum CardType {
+
+    /**
+     * Debit card: spends the holder's own funds.
+     */
+    DEBIT,
+
+    /**
+     * Credit card: spends a credit line.
+     */
+    CREDIT,
+
+    /**
+     * Prepaid card: spends a preloaded balance.
+     */
+    PREPAID,
+
+    /**
+     * The BIN table does not know the type.
+     */
+    UNKNOWN
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing the currency an account and its cards are held in (ISO 4217 codes).
+ * Exchange rates are quoted against {@link #BYN}, the base currency of the bank.
+ */
+public enum Currency {
+
+    /**
+     * Belarusian ruble, the base currency.
+     */
+    BYN,
+
+    /**
+     * US dollar.
+     */
+    USD,
+
+    /**
+     * Euro.
+     */
+    EUR,
+
+    /**
+     * Russian ruble.
+     */
+    RUB
+}
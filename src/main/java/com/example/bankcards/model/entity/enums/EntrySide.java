@@ -0,0 +1,17 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing the side of a journal leg.
+ */
+public enum EntrySide {
+
+    /**
+     * The leg the money leaves.
+     */
+    DEBIT,
+
+    /**
+     * The leg the money arrives at.
+     */
+    CREDIT
+}
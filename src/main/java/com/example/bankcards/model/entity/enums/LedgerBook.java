@@ -0,0 +1,34 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing the book a journal leg is posted to.
+ * Customer legs always reference an account; the other books are bank-side counterparts without one.
+ */
+public enum LedgerBook {
+
+    /**
+     * A customer account; its balance is credits minus debits.
+     */
+    CUSTOMER,
+
+    /**
+     * Cash that entered or left the bank through deposits and withdrawals.
+     */
+    CASH,
+
+    /**
+     * Fee income of the bank when no fee collection account is configured.
+     */
+    FEE_INCOME,
+
+    /**
+     * Currency position of the bank: the counterpart of both sides of a cross-currency transfer.
+     * Its legs are in different currencies, so unlike the customer books it has no meaningful balance.
+     */
+    FX_POSITION,
+
+    /**
+     * Counterpart of the opening balances carried over when the journal was introduced.
+     */
+    OPENING
+}
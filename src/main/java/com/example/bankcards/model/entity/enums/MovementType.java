@@ -0,0 +1,37 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing the business operation behind a journal movement.
+ */
+public enum MovementType {
+
+    /**
+     * A transfer between two cards.
+     */
+    TRANSFER,
+
+    /**
+     * The reversal of an earlier transfer.
+     */
+    REVERSAL,
+
+    /**
+     * A cash deposit to a card.
+     */
+    DEPOSIT,
+
+    /**
+     * A cash withdrawal from a card.
+     */
+    WITHDRAWAL,
+
+    /**
+     * A service fee paid from an account.
+     */
+    FEE,
+
+    /**
+     * An opening balance carried over when the journal was introduced.
+     */
+    OPENING
+}
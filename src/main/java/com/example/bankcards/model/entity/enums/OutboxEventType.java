@@ -0,0 +1,9 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Defines the kinds of events written to the transactional outbox.
+ */
+public enum OutboxEventType {
+    TRANSFER_COMPLETED, // Перевод проведен; payload — TransferCompletedEvent
+    TRANSFER_REVERSED   // Перевод отменен администратором; payload — TransferReversedEvent
+}
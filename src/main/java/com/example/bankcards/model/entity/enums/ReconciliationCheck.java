@@ -0,0 +1,23 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing what a reconciliation discrepancy compares.
+ */
+public enum ReconciliationCheck {
+
+    /**
+     * The sum of the account's card balances against the account balance; only for accounts with cards.
+     */
+    CARDS,
+
+    /**
+     * The journal balance of the account against the account balance.
+     */
+    JOURNAL,
+
+    /**
+     * The replay of the account's transactions against the journal movements over the same period;
+     * only for accounts with cards.
+     */
+    TRANSACTIONS
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing the state of a reconciliation run.
+ */
+public enum ReconciliationStatus {
+
+    /**
+     * The run is checking account ranges.
+     */
+    RUNNING,
+
+    /**
+     * Every range was checked.
+     */
+    COMPLETED,
+
+    /**
+     * The run stopped early or some ranges could not be checked.
+     */
+    FAILED
+}
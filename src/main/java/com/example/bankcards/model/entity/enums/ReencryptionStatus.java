@@ -0,0 +1,22 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing the state of a card re-encryption run.
+ */
+public enum ReencryptionStatus {
+
+    /**
+     * The run is re-encrypting card ranges.
+     */
+    RUNNING,
+
+    /**
+     * Every card is encrypted with the target key version.
+     */
+    COMPLETED,
+
+    /**
+     * The run stopped early, or some cards could not be re-encrypted and need another run.
+     */
+    FAILED
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing what a spending rollup row aggregates: the owner (account or card)
+ * and the length of its period (calendar day or month).
+ */
+public enum RollupScope {
+
+    /**
+     * Totals of an account for one calendar day.
+     */
+    ACCOUNT_DAY,
+
+    /**
+     * Totals of an account for one calendar month.
+     */
+    ACCOUNT_MONTH,
+
+    /**
+     * Totals of a card for one calendar day.
+     */
+    CARD_DAY,
+
+    /**
+     * Totals of a card for one calendar month.
+     */
+    CARD_MONTH
+}
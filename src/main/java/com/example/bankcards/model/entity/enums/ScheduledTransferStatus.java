@@ -0,0 +1,17 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing the possible statuses of a scheduled (standing order) transfer.
+ */
+public enum ScheduledTransferStatus {
+
+    /**
+     * The order runs on its schedule.
+     */
+    ACTIVE,
+
+    /**
+     * The order is kept but not executed until resumed.
+     */
+    PAUSED
+}
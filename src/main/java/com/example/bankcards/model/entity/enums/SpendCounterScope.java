@@ -0,0 +1,17 @@
+package com.example.bankcards.model.entity.enums;
+
+/**
+ * Enumeration representing what a spend counter is kept for, which also fixes the length of its period.
+ */
+public enum SpendCounterScope {
+
+    /**
+     * Outgoing spend of a user in a calendar month; checked against {@code User.monthlyLimit}.
+     */
+    USER_MONTH,
+
+    /**
+     * Outgoing spend of a card in a calendar day; checked against {@code Card.dailyLimit}.
+     */
+    CARD_DAY
+}
@@ -10,5 +10,7 @@ public enum TransactionType {
     ATM_WITHDRAWAL, // Снятие наличных в банкомате
     FEE,            // Комиссия
     TRANSFER_IN,    // Входящий перевод
-    TRANSFER_OUT    // Исходящий перевод
+    TRANSFER_OUT,   // Исходящий перевод
+    REVERSAL_IN,    // Возврат отправителю при сторнировании перевода
+    REVERSAL_OUT    // Списание у получателя при сторнировании перевода
 }
\ No newline at end of file
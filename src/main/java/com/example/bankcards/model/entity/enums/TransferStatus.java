@@ -5,6 +5,17 @@ package com.example.bankcards.model.entity.enums;
  */
 public enum TransferStatus {
 
+    /**
+     * The transfer was accepted for asynchronous execution and has not been applied yet.
+     */
+    PENDING,
+
+    /**
+     * The transfer was held by fraud screening and waits for an administrator to release or decline it;
+     * no money has moved.
+     */
+    ON_HOLD,
+
     /**
      * The transfer was completed successfully.
      */
@@ -13,5 +24,10 @@ public enum TransferStatus {
     /**
      * The transfer failed to complete.
      */
-    FAILED
+    FAILED,
+
+    /**
+     * The transfer completed and was later reversed by an administrator; the money was moved back.
+     */
+    REVERSED
 }
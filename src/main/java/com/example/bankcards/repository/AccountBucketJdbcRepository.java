@@ -0,0 +1,58 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * JDBC repository for the sub-balances of bucketed accounts ({@code t_account_balance_buckets}).
+ * A credit is a single upsert that locks only one bucket row, so concurrent credits to the same hot account
+ * proceed in parallel as long as they pick different buckets. It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountBucketJdbcRepository {
+
+    private static final String CREDIT =
+            "INSERT INTO t_account_balance_buckets (account_id, bucket, amount, updated_at) VALUES (?, ?, ?, now()) " +
+            "ON CONFLICT (account_id, bucket) DO UPDATE " +
+            "SET amount = t_account_balance_buckets.amount + EXCLUDED.amount, updated_at = now()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds an amount to one bucket of an account, creating the bucket if needed.
+     *
+     * @param accountId The ID of the account.
+     * @param bucket The bucket index.
+     * @param amount The amount to add.
+     */
+    public void credit(Long accountId, int bucket, BigDecimal amount) {
+        jdbcTemplate.update(CREDIT, accountId, bucket, amount);
+    }
+
+    /**
+     * Removes all buckets of an account and returns their total.
+     * Buckets being credited concurrently are waited for, so no credit is lost.
+     *
+     * @param accountId The ID of the account.
+     * @return The total of the removed buckets (zero if there were none).
+     */
+    public BigDecimal drain(Long accountId) {
+        List<BigDecimal> amounts = jdbcTemplate.queryForList(
+                "DELETE FROM t_account_balance_buckets WHERE account_id = ? RETURNING amount", BigDecimal.class, accountId);
+        return amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Finds the accounts that currently have buckets to compact.
+     *
+     * @return The account IDs.
+     */
+    public List<Long> findAccountIdsWithBuckets() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT account_id FROM t_account_balance_buckets", Long.class);
+    }
+}
@@ -1,11 +1,34 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.model.entity.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
     List<Account> findByUserUsername(String username);
+
+    @Query("SELECT a.id FROM Account a WHERE a.user.username = :username")
+    List<Long> findIdsByUserUsername(@Param("username") String username);
     Optional<Account> findByAccountNumber(String accountNumber);
-}
\ No newline at end of file
+
+    // Блокировка строки счета (SELECT ... FOR UPDATE) до конца транзакции.
+    // Порядок блокировок: сначала карты, затем счета, по возрастанию ID.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    // Пакетная блокировка счетов в порядке возрастания ID
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Флаг читается скалярным запросом, чтобы не загружать сущность счета без блокировки
+    @Query("SELECT a.bucketed FROM Account a WHERE a.id = :id")
+    Optional<Boolean> findBucketedById(@Param("id") Long id);
+}
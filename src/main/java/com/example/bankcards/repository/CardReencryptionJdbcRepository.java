@@ -0,0 +1,243 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.model.entity.enums.ReencryptionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC repository for re-encrypting card numbers — those of the cards ({@code t_cards.card_number}) and those in
+ * the token vault ({@code t_card_tokens.encrypted_pan}) — and for the runs that do it ({@code t_reencryption_runs}).
+ * Cards are read in ID ranges and vault entries in token order, both with {@code FOR UPDATE SKIP LOCKED}, so a range
+ * never waits for a row that a transfer holds and a transfer waits at most for one short range transaction.
+ * It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardReencryptionJdbcRepository {
+
+    private static final String RUN_COLUMNS =
+            "id, status, target_version, triggered_by, min_card_id, total_ranges, checkpoint_range, " +
+            "cards_reencrypted, cards_skipped, created_at, updated_at, finished_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates a run in the {@code RUNNING} state.
+     *
+     * @param targetVersion The key version card numbers are re-encrypted with.
+     * @param triggeredBy The administrator who started the run, or {@code null} if it was started automatically.
+     * @param minCardId The lowest card ID; range {@code i} starts at {@code minCardId + i * rangeSize}.
+     * @param totalRanges The number of card ranges the run will process.
+     * @return The ID of the run.
+     * @throws org.springframework.dao.DuplicateKeyException if another run is already {@code RUNNING}.
+     */
+    public Long createRun(int targetVersion, String triggeredBy, long minCardId, int totalRanges) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO t_reencryption_runs (status, target_version, triggered_by, min_card_id, total_ranges) " +
+                "VALUES ('RUNNING', ?, ?, ?, ?) RETURNING id",
+                Long.class, targetVersion, triggeredBy, minCardId, totalRanges);
+    }
+
+    /**
+     * Takes over a run that stopped reporting progress (e.g., its instance crashed), so it can be resumed from its
+     * checkpoint. At most one caller gets the run.
+     *
+     * @param staleBefore Runs without progress since this time are considered abandoned.
+     * @return The run, or empty if there is none.
+     */
+    public Optional<RunRow> claimStaleRun(LocalDateTime staleBefore) {
+        return jdbcTemplate.query(
+                "UPDATE t_reencryption_runs SET updated_at = now() WHERE id = (" +
+                "  SELECT id FROM t_reencryption_runs WHERE status = 'RUNNING' AND updated_at < ? " +
+                "  LIMIT 1 FOR UPDATE SKIP LOCKED" +
+                ") RETURNING " + RUN_COLUMNS,
+                RUN_MAPPER, Timestamp.valueOf(staleBefore)).stream().findFirst();
+    }
+
+    /**
+     * Returns the lowest and highest card ID, or empty if there are no cards.
+     *
+     * @return The bounds as a two-element array.
+     */
+    public Optional<long[]> findCardIdBounds() {
+        return jdbcTemplate.query("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM t_cards", rs -> {
+            rs.next();
+            long min = rs.getLong("min_id");
+            return rs.wasNull() ? Optional.empty() : Optional.of(new long[]{min, rs.getLong("max_id")});
+        });
+    }
+
+    /**
+     * Locks the cards of an ID range whose number is not encrypted with the given key version yet.
+     * Cards locked by other transactions are skipped, not waited for.
+     *
+     * @param fromId The lowest card ID, inclusive.
+     * @param toId The highest card ID, inclusive.
+     * @param versionPrefix The prefix of card numbers already encrypted with the target version.
+     * @return The cards with their current encrypted numbers.
+     */
+    public List<CardCiphertext> lockCardsToReencrypt(long fromId, long toId, String versionPrefix) {
+        return jdbcTemplate.query(
+                "SELECT id, card_number FROM t_cards WHERE id BETWEEN ? AND ? AND card_number NOT LIKE ? " +
+                "ORDER BY id FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new CardCiphertext(rs.getLong("id"), rs.getString("card_number")),
+                fromId, toId, versionPrefix + "%");
+    }
+
+    /**
+     * Counts the cards of an ID range whose number is not encrypted with the given key version yet.
+     *
+     * @param fromId The lowest card ID, inclusive.
+     * @param toId The highest card ID, inclusive.
+     * @param versionPrefix The prefix of card numbers already encrypted with the target version.
+     * @return The number of cards left.
+     */
+    public int countCardsToReencrypt(long fromId, long toId, String versionPrefix) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM t_cards WHERE id BETWEEN ? AND ? AND card_number NOT LIKE ?",
+                Integer.class, fromId, toId, versionPrefix + "%");
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Stores re-encrypted card numbers in one JDBC batch.
+     *
+     * @param cards The cards with their new encrypted numbers.
+     */
+    public void updateCardNumbers(List<CardCiphertext> cards) {
+        jdbcTemplate.batchUpdate("UPDATE t_cards SET card_number = ? WHERE id = ?", cards, cards.size(),
+                (ps, card) -> {
+                    ps.setString(1, card.cardNumber());
+                    ps.setLong(2, card.id());
+                });
+    }
+
+    /**
+     * Locks the next vault entries after a token whose number is not encrypted with the given key version yet.
+     * Entries locked by other transactions are skipped, not waited for.
+     *
+     * @param afterToken The last token of the previous batch; the empty string for the first batch.
+     * @param versionPrefix The prefix of numbers already encrypted with the target version.
+     * @param limit The maximum number of entries.
+     * @return The entries with their current encrypted numbers, in token order.
+     */
+    public List<TokenCiphertext> lockTokensToReencrypt(String afterToken, String versionPrefix, int limit) {
+        return jdbcTemplate.query(
+                "SELECT token, encrypted_pan FROM t_card_tokens WHERE token > ? AND encrypted_pan NOT LIKE ? " +
+                "ORDER BY token LIMIT ? FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new TokenCiphertext(rs.getString("token"), rs.getString("encrypted_pan")),
+                afterToken, versionPrefix + "%", limit);
+    }
+
+    /**
+     * Counts the vault entries whose number is not encrypted with the given key version yet.
+     *
+     * @param versionPrefix The prefix of numbers already encrypted with the target version.
+     * @return The number of entries left.
+     */
+    public int countTokensToReencrypt(String versionPrefix) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM t_card_tokens WHERE encrypted_pan NOT LIKE ?", Integer.class, versionPrefix + "%");
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Stores re-encrypted vault numbers in one JDBC batch.
+     *
+     * @param tokens The vault entries with their new encrypted numbers.
+     */
+    public void updateEncryptedPans(List<TokenCiphertext> tokens) {
+        jdbcTemplate.batchUpdate("UPDATE t_card_tokens SET encrypted_pan = ? WHERE token = ?", tokens, tokens.size(),
+                (ps, token) -> {
+                    ps.setString(1, token.encryptedPan());
+                    ps.setString(2, token.token());
+                });
+    }
+
+    /**
+     * Adds the results of one range to the run's counter and moves its checkpoint forward.
+     *
+     * @param runId The ID of the run.
+     * @param reencrypted The number of card numbers re-encrypted.
+     * @param checkpointRange The number of leading ranges that are fully processed.
+     */
+    public void addProgress(Long runId, int reencrypted, int checkpointRange) {
+        jdbcTemplate.update(
+                "UPDATE t_reencryption_runs SET cards_reencrypted = cards_reencrypted + ?, " +
+                "checkpoint_range = GREATEST(checkpoint_range, ?), updated_at = now() WHERE id = ?",
+                reencrypted, checkpointRange, runId);
+    }
+
+    /**
+     * Moves a run to its final state.
+     *
+     * @param runId The ID of the run.
+     * @param status {@code COMPLETED} or {@code FAILED}.
+     * @param skipped The number of cards left on an older key.
+     */
+    public void finishRun(Long runId, ReencryptionStatus status, long skipped) {
+        jdbcTemplate.update(
+                "UPDATE t_reencryption_runs SET status = ?, cards_skipped = ?, finished_at = now(), updated_at = now() " +
+                "WHERE id = ?",
+                status.name(), skipped, runId);
+    }
+
+    /**
+     * Finds a run by its ID.
+     *
+     * @param runId The ID of the run.
+     * @return The run, or empty if it does not exist.
+     */
+    public Optional<RunRow> findRun(Long runId) {
+        return jdbcTemplate.query("SELECT " + RUN_COLUMNS + " FROM t_reencryption_runs WHERE id = ?", RUN_MAPPER, runId)
+                .stream().findFirst();
+    }
+
+    /**
+     * Returns the most recent runs, newest first.
+     *
+     * @param limit The maximum number of runs.
+     * @return The runs.
+     */
+    public List<RunRow> findRecentRuns(int limit) {
+        return jdbcTemplate.query("SELECT " + RUN_COLUMNS + " FROM t_reencryption_runs ORDER BY id DESC LIMIT ?",
+                RUN_MAPPER, limit);
+    }
+
+    private static final RowMapper<RunRow> RUN_MAPPER = (rs, rowNum) -> {
+        Timestamp finishedAt = rs.getTimestamp("finished_at");
+        return new RunRow(rs.getLong("id"), ReencryptionStatus.valueOf(rs.getString("status")),
+                rs.getInt("target_version"), rs.getString("triggered_by"), rs.getLong("min_card_id"),
+                rs.getInt("total_ranges"), rs.getInt("checkpoint_range"), rs.getLong("cards_reencrypted"),
+                rs.getLong("cards_skipped"), rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getTimestamp("updated_at").toLocalDateTime(),
+                finishedAt != null ? finishedAt.toLocalDateTime() : null);
+    };
+
+    /**
+     * A card ID with its encrypted number.
+     */
+    public record CardCiphertext(long id, String cardNumber) {
+    }
+
+    /**
+     * A vault token with its encrypted number.
+     */
+    public record TokenCiphertext(String token, String encryptedPan) {
+    }
+
+    /**
+     * A re-encryption run with its progress counters.
+     */
+    public record RunRow(Long id, ReencryptionStatus status, int targetVersion, String triggeredBy, long minCardId,
+                         int totalRanges, int checkpointRange, long cardsReencrypted, long cardsSkipped,
+                         LocalDateTime startedAt, LocalDateTime updatedAt, LocalDateTime finishedAt) {
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.model.entity.Card;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for {@link com.example.bankcards.model.entity.Card} entities.
@@ -32,6 +36,109 @@ public interface CardRepository extends JpaRepository<Card, Long> {
      */
     List<Card> findByAccount_User_Username(String username); // Используем вывод запросов Spring Data JPA
 
+    /**
+     * Finds the IDs of all cards belonging to a user without loading the cards.
+     *
+     * @param username The username of the card owner.
+     * @return The card IDs.
+     */
+    @Query("SELECT c.id FROM Card c WHERE c.account.user.username = :username")
+    List<Long> findIdsByUserUsername(@Param("username") String username);
+
+    /**
+     * Finds the ID of a card by the blind index of its number.
+     * Backed by the unique index on {@code card_number_hash}, so no decryption is required.
+     * Only the ID is returned so that the card can then be locked and loaded in a deterministic order.
+     *
+     * @param cardNumberHash The keyed hash of the normalized plain card number.
+     * @return An {@link Optional} containing the ID of the matching card, if any.
+     */
+    @Query("SELECT c.id FROM Card c WHERE c.cardNumberHash = :cardNumberHash")
+    Optional<Long> findIdByCardNumberHash(@Param("cardNumberHash") String cardNumberHash);
+
+    /**
+     * Loads a card and locks its row ({@code SELECT ... FOR UPDATE}) until the end of the current transaction.
+     * Callers that lock several rows must do so in ascending ID order to avoid deadlocks.
+     *
+     * @param id The ID of the card to lock.
+     * @return An {@link Optional} containing the locked {@link Card}, if found.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id = :id")
+    Optional<Card> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Checks whether a card with the given blind index already exists.
+     *
+     * @param cardNumberHash The keyed hash of the normalized plain card number.
+     * @return {@code true} if a card with this number is already stored.
+     */
+    boolean existsByCardNumberHash(String cardNumberHash);
+
+    /**
+     * Returns the next chunk of cards that have no blind index yet, in ascending ID order.
+     * Used by the backfill job to walk the table with a keyset cursor.
+     *
+     * @param id The last processed card ID (exclusive lower bound).
+     * @return Up to 500 cards with {@code card_number_hash IS NULL} and an ID greater than {@code id}.
+     */
+    List<Card> findTop500ByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(Long id);
+
+    /**
+     * Returns the next chunk of cards whose number is not tokenized yet, in ascending ID order.
+     * Used by the token backfill job to walk the table with a keyset cursor.
+     *
+     * @param id The last processed card ID (exclusive lower bound).
+     * @return Up to 500 cards with {@code card_token IS NULL} and an ID greater than {@code id}.
+     */
+    List<Card> findTop500ByCardTokenIsNullAndIdGreaterThanOrderByIdAsc(Long id);
+
+    /**
+     * Returns the next chunk of cards that have no display fields yet, in ascending ID order.
+     * Used by the display fields backfill job to walk the table with a keyset cursor.
+     *
+     * @param id The last processed card ID (exclusive lower bound).
+     * @return Up to 500 cards with {@code last_digits IS NULL} and an ID greater than {@code id}.
+     */
+    List<Card> findTop500ByLastDigitsIsNullAndIdGreaterThanOrderByIdAsc(Long id);
+
+    /**
+     * Returns the next chunk of cards that have no BIN metadata yet, in ascending ID order.
+     * Used by the BIN fields backfill job to walk the table with a keyset cursor.
+     *
+     * @param id The last processed card ID (exclusive lower bound).
+     * @return Up to 500 cards with {@code card_type IS NULL} and an ID greater than {@code id}.
+     */
+    List<Card> findTop500ByCardTypeIsNullAndIdGreaterThanOrderByIdAsc(Long id);
+
     // Переименовали старый метод на новый, чтобы соответствовать новой структуре.
     // List<Card> findByUserUsername(String username); // Старый метод удален/заменен
+
+    /**
+     * Loads and locks several cards at once ({@code SELECT ... ORDER BY id FOR UPDATE}).
+     * Rows are locked in ascending ID order, consistent with {@link #findByIdForUpdate(Long)}.
+     *
+     * @param ids The IDs of the cards to lock.
+     * @return The locked cards that exist, ordered by ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :ids ORDER BY c.id")
+    List<Card> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Resolves many blind indexes to card IDs in a single query.
+     *
+     * @param cardNumberHashes The keyed hashes of the normalized plain card numbers.
+     * @return The ID and hash of every matching card.
+     */
+    List<CardIdView> findByCardNumberHashIn(Collection<String> cardNumberHashes);
+
+    /**
+     * Projection with the card ID and its blind index.
+     */
+    interface CardIdView {
+        Long getId();
+
+        String getCardNumberHash();
+    }
 }
\ No newline at end of file
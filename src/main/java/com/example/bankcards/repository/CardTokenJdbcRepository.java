@@ -0,0 +1,97 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC repository for the card token vault ({@code t_card_tokens}).
+ * Each card number is stored once, encrypted, under a random token; tokens are found by the blind index of the
+ * number, so tokenizing a known number needs no decryption.
+ * It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardTokenJdbcRepository {
+
+    private static final String COLUMNS = "token, encrypted_pan, first_digits, last_digits, card_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Finds the token of a card number together with the card it is bound to.
+     *
+     * @param panHash The blind index of the card number.
+     * @return The vault entry, or empty if the number is not tokenized.
+     */
+    public Optional<TokenRow> findByPanHash(String panHash) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM t_card_tokens WHERE pan_hash = ?", TOKEN_MAPPER, panHash)
+                .stream().findFirst();
+    }
+
+    /**
+     * Finds a vault entry by its token.
+     *
+     * @param token The token.
+     * @return The vault entry, or empty if the token does not exist.
+     */
+    public Optional<TokenRow> findByToken(String token) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM t_card_tokens WHERE token = ?", TOKEN_MAPPER, token)
+                .stream().findFirst();
+    }
+
+    /**
+     * Finds the vault entries of several tokens in one query.
+     *
+     * @param tokens The tokens.
+     * @return The entries that exist, in no particular order.
+     */
+    public List<TokenRow> findByTokens(Collection<String> tokens) {
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(tokens.size(), "?"));
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM t_card_tokens WHERE token IN (" + placeholders + ")",
+                TOKEN_MAPPER, tokens.toArray());
+    }
+
+    /**
+     * Stores a card number under a new token. If the number is already in the vault, the existing token is kept
+     * and only bound to the card if it had none.
+     *
+     * @param token The new token.
+     * @param panHash The blind index of the card number.
+     * @param encryptedPan The encrypted card number.
+     * @param firstDigits The first four digits of the number.
+     * @param lastDigits The last four digits of the number.
+     * @param cardId The card with this number, or {@code null} for a number of another bank.
+     * @return The token the number is stored under.
+     */
+    public String upsert(String token, String panHash, String encryptedPan, String firstDigits, String lastDigits,
+                         Long cardId) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO t_card_tokens (token, pan_hash, encrypted_pan, first_digits, last_digits, card_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?) " +
+                "ON CONFLICT (pan_hash) DO UPDATE SET card_id = COALESCE(t_card_tokens.card_id, EXCLUDED.card_id) " +
+                "RETURNING token",
+                String.class, token, panHash, encryptedPan, firstDigits, lastDigits, cardId);
+    }
+
+    private static final RowMapper<TokenRow> TOKEN_MAPPER = (rs, rowNum) -> {
+        long cardId = rs.getLong("card_id");
+        return new TokenRow(rs.getString("token"), rs.getString("encrypted_pan"), rs.getString("first_digits"),
+                rs.getString("last_digits"), rs.wasNull() ? null : cardId);
+    };
+
+    /**
+     * A vault entry; {@code cardId} is {@code null} if the number belongs to no card of the bank.
+     */
+    public record TokenRow(String token, String encryptedPan, String firstDigits, String lastDigits, Long cardId) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC repository for the versioned data-encryption keys ({@code t_data_keys}).
+ * Keys are stored wrapped with the master key; activation times are evaluated against the database clock,
+ * so every instance agrees on which key is active.
+ * It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DataKeyJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns every key, oldest first.
+     *
+     * @return The keys.
+     */
+    public List<DataKeyRow> findAll() {
+        return jdbcTemplate.query(
+                "SELECT version, wrapped_key, created_by, created_at, active_from, active_from <= now() AS active " +
+                "FROM t_data_keys ORDER BY version",
+                (rs, rowNum) -> new DataKeyRow(rs.getInt("version"), rs.getString("wrapped_key"),
+                        rs.getString("created_by"), rs.getTimestamp("created_at").toLocalDateTime(),
+                        rs.getTimestamp("active_from").toLocalDateTime(), rs.getBoolean("active")));
+    }
+
+    /**
+     * Stores a new key with the next version.
+     *
+     * @param wrappedKey The key wrapped with the master key.
+     * @param createdBy The administrator who rotated the key.
+     * @param activationDelaySeconds How long the key only decrypts before new data is encrypted with it.
+     * @return The version of the new key.
+     * @throws org.springframework.dao.DuplicateKeyException if another key was stored with the same version concurrently.
+     */
+    public int insertNext(String wrappedKey, String createdBy, long activationDelaySeconds) {
+        Integer version = jdbcTemplate.queryForObject(
+                "INSERT INTO t_data_keys (version, wrapped_key, created_by, created_at, active_from) " +
+                "SELECT COALESCE(MAX(version), 0) + 1, ?, ?, now(), now() + make_interval(secs => ?) FROM t_data_keys " +
+                "RETURNING version",
+                Integer.class, wrappedKey, createdBy, (double) activationDelaySeconds);
+        return version != null ? version : 0;
+    }
+
+    /**
+     * A stored data key; {@code active} tells whether its activation time has passed.
+     */
+    public record DataKeyRow(int version, String wrappedKey, String createdBy, LocalDateTime createdAt,
+                             LocalDateTime activeFrom, boolean active) {
+    }
+}
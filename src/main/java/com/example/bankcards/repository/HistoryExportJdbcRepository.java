@@ -0,0 +1,140 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC repository that streams transfer and transaction history for exports.
+ * Rows are read through a forward-only, read-only cursor with a bounded fetch size and handed to the caller
+ * one at a time, so memory use does not depend on the length of the history.
+ * PostgreSQL only honours the fetch size inside a transaction, so callers must run in one.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HistoryExportJdbcRepository {
+
+    private static final String TRANSFERS =
+            "SELECT t.id, t.amount, t.status, t.transfer_date, " +
+            "fc.id AS from_card_id, fc.card_number AS from_card_number, fc.first_digits AS from_first_digits, fc.last_digits AS from_last_digits, " +
+            "tc.id AS to_card_id, tc.card_number AS to_card_number, tc.first_digits AS to_first_digits, tc.last_digits AS to_last_digits " +
+            "FROM t_transfers t " +
+            "JOIN t_cards fc ON fc.id = t.from_card_id " +
+            "JOIN t_cards tc ON tc.id = t.to_card_id " +
+            "WHERE (t.from_card_id = ANY (?) OR t.to_card_id = ANY (?)) AND t.created_at >= ? AND t.created_at < ? " +
+            "ORDER BY t.created_at, t.id";
+
+    private static final String TRANSACTIONS =
+            "SELECT t.id, t.account_id, t.amount, t.type, t.transaction_date, t.description, t.status, " +
+            "c.id AS card_id, c.card_number, c.first_digits, c.last_digits " +
+            "FROM t_transactions t " +
+            "LEFT JOIN t_cards c ON c.id = t.card_id " +
+            "WHERE t.account_id = ANY (?) AND t.transaction_date >= ? AND t.transaction_date < ? " +
+            "ORDER BY t.transaction_date, t.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Number of rows fetched from the database per round trip.
+     */
+    @Value("${app.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Streams the transfers touching any of the given cards, oldest first.
+     *
+     * @param cardIds The cards whose transfers are exported.
+     * @param from The inclusive lower bound of the creation time.
+     * @param to The exclusive upper bound of the creation time.
+     * @param consumer Receives each row.
+     */
+    public void streamTransfers(List<Long> cardIds, LocalDateTime from, LocalDateTime to, Consumer<TransferRow> consumer) {
+        jdbcTemplate.query(cursor(TRANSFERS, ps -> {
+            Array ids = ps.getConnection().createArrayOf("bigint", cardIds.toArray());
+            ps.setArray(1, ids);
+            ps.setArray(2, ids);
+            ps.setTimestamp(3, Timestamp.valueOf(from));
+            ps.setTimestamp(4, Timestamp.valueOf(to));
+        }), (RowCallbackHandler) rs -> {
+            consumer.accept(new TransferRow(rs.getLong("id"),
+                    new CardRef(rs.getLong("from_card_id"), rs.getString("from_card_number"),
+                            rs.getString("from_first_digits"), rs.getString("from_last_digits")),
+                    new CardRef(rs.getLong("to_card_id"), rs.getString("to_card_number"),
+                            rs.getString("to_first_digits"), rs.getString("to_last_digits")),
+                    rs.getBigDecimal("amount"), rs.getString("status"),
+                    rs.getTimestamp("transfer_date").toLocalDateTime()));
+        });
+    }
+
+    /**
+     * Streams the transactions of the given accounts, oldest first.
+     *
+     * @param accountIds The accounts whose transactions are exported.
+     * @param from The inclusive lower bound of the transaction date.
+     * @param to The exclusive upper bound of the transaction date.
+     * @param consumer Receives each row.
+     */
+    public void streamTransactions(List<Long> accountIds, LocalDateTime from, LocalDateTime to, Consumer<TransactionRow> consumer) {
+        jdbcTemplate.query(cursor(TRANSACTIONS, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", accountIds.toArray()));
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+        }), (RowCallbackHandler) rs -> {
+            long cardId = rs.getLong("card_id");
+            CardRef card = rs.wasNull() ? null
+                    : new CardRef(cardId, rs.getString("card_number"), rs.getString("first_digits"), rs.getString("last_digits"));
+            consumer.accept(new TransactionRow(rs.getLong("id"), rs.getLong("account_id"), card,
+                    rs.getBigDecimal("amount"), rs.getString("type"),
+                    rs.getTimestamp("transaction_date").toLocalDateTime(),
+                    rs.getString("description"), rs.getString("status")));
+        });
+    }
+
+    private PreparedStatementCreator cursor(String sql, StatementBinder binder) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            binder.bind(ps);
+            return ps;
+        };
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * A card referenced by an exported row: the encrypted number plus its display fields,
+     * which are {@code null} for cards not yet backfilled.
+     */
+    public record CardRef(Long id, String cardNumber, String firstDigits, String lastDigits) {
+    }
+
+    /**
+     * One exported transfer.
+     */
+    public record TransferRow(Long id, CardRef fromCard, CardRef toCard,
+                              BigDecimal amount, String status, LocalDateTime transferDate) {
+    }
+
+    /**
+     * One exported transaction. The card is optional.
+     */
+    public record TransactionRow(Long id, Long accountId, CardRef card, BigDecimal amount, String type,
+                                 LocalDateTime transactionDate, String description, String status) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.model.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository interface for {@link com.example.bankcards.model.entity.IdempotencyKey} entities.
+ * Provides methods for looking up stored responses and purging expired keys.
+ */
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    /**
+     * Finds a stored key for the given user.
+     *
+     * @param username The username the key belongs to.
+     * @param idempotencyKey The client-supplied key.
+     * @return An {@link Optional} containing the {@link IdempotencyKey} if found, otherwise empty.
+     */
+    Optional<IdempotencyKey> findByUsernameAndIdempotencyKey(String username, String idempotencyKey);
+
+    /**
+     * Deletes all keys that expired before the given moment, in a single statement.
+     *
+     * @param now The current time.
+     * @return The number of deleted keys.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Deletes a user's key if it has expired, so the key can be stored again before the periodic purge removes it.
+     *
+     * @param username The username the key belongs to.
+     * @param idempotencyKey The client-supplied key.
+     * @param now The current time; a key expiring at or before it is deleted.
+     * @return The number of deleted keys (0 or 1).
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.username = :username AND k.idempotencyKey = :idempotencyKey " +
+            "AND k.expiresAt <= :now")
+    int deleteExpiredKey(@Param("username") String username, @Param("idempotencyKey") String idempotencyKey,
+                         @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,149 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.model.entity.enums.EntrySide;
+import com.example.bankcards.model.entity.enums.LedgerBook;
+import com.example.bankcards.model.entity.enums.MovementType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC repository for the append-only double-entry journal ({@code t_journal_entries}) and the
+ * balance snapshots derived from it ({@code t_balance_snapshots}).
+ * Posting only inserts rows, so concurrent postings to the same account never wait for each other here.
+ * A balance is its snapshot plus the customer legs created after the snapshot's {@code as_of}.
+ * It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JournalJdbcRepository {
+
+    private static final String NEXT_MOVEMENT_IDS =
+            "SELECT nextval('journal_movement_seq') FROM generate_series(1, ?)";
+
+    private static final String INSERT_LEG =
+            "INSERT INTO t_journal_entries (movement_id, movement_type, book, account_id, card_id, side, amount, transfer_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Проводки старше предыдущего снимка уже учтены во всех снимках, поэтому читается только хвост журнала
+    private static final String REFRESH_SNAPSHOTS =
+            "INSERT INTO t_balance_snapshots (account_id, balance, as_of, taken_at) " +
+            "SELECT e.account_id, " +
+            "COALESCE(s.balance, 0) + SUM(CASE WHEN e.side = 'CREDIT' THEN e.amount ELSE -e.amount END), c.cutoff, now() " +
+            "FROM (SELECT now() - make_interval(secs => ?) AS cutoff, " +
+            "COALESCE((SELECT MAX(as_of) FROM t_balance_snapshots), '-infinity'::timestamp) AS watermark) c " +
+            "JOIN t_journal_entries e ON e.created_at > c.watermark AND e.created_at <= c.cutoff " +
+            "LEFT JOIN t_balance_snapshots s ON s.account_id = e.account_id " +
+            "WHERE e.book = 'CUSTOMER' AND (s.as_of IS NULL OR e.created_at > s.as_of) " +
+            "GROUP BY e.account_id, s.balance, c.cutoff " +
+            "ON CONFLICT (account_id) DO UPDATE SET " +
+            "balance = EXCLUDED.balance, as_of = EXCLUDED.as_of, taken_at = EXCLUDED.taken_at " +
+            "WHERE t_balance_snapshots.as_of < EXCLUDED.as_of";
+
+    private static final String FIND_BALANCES =
+            "SELECT a.id AS account_id, " +
+            "COALESCE(s.balance, 0) + COALESCE(SUM(CASE WHEN e.side = 'CREDIT' THEN e.amount ELSE -e.amount END), 0) AS balance " +
+            "FROM unnest(?) AS a(id) " +
+            "LEFT JOIN t_balance_snapshots s ON s.account_id = a.id " +
+            "LEFT JOIN t_journal_entries e ON e.account_id = a.id AND e.book = 'CUSTOMER' " +
+            "AND e.created_at > COALESCE(s.as_of, '-infinity'::timestamp) " +
+            "GROUP BY a.id, s.balance";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Allocates IDs for new movements with one round trip.
+     *
+     * @param count The number of IDs to allocate; must be positive.
+     * @return The allocated IDs.
+     */
+    public List<Long> nextMovementIds(int count) {
+        return jdbcTemplate.queryForList(NEXT_MOVEMENT_IDS, Long.class, count);
+    }
+
+    /**
+     * Inserts journal legs in one JDBC batch.
+     *
+     * @param legs The legs to insert.
+     */
+    public void insertLegs(List<JournalLeg> legs) {
+        if (legs.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_LEG, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                JournalLeg leg = legs.get(i);
+                ps.setLong(1, leg.movementId());
+                ps.setString(2, leg.movementType().name());
+                ps.setString(3, leg.book().name());
+                setNullableLong(ps, 4, leg.accountId());
+                setNullableLong(ps, 5, leg.cardId());
+                ps.setString(6, leg.side().name());
+                ps.setBigDecimal(7, leg.amount());
+                setNullableLong(ps, 8, leg.transferId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return legs.size();
+            }
+        });
+    }
+
+    /**
+     * Folds the customer legs created up to {@code lagSeconds} ago into the snapshots of their accounts.
+     * Snapshots of accounts without new legs keep their previous {@code as_of}.
+     *
+     * @param lagSeconds How far behind the current time the snapshots are taken, so that postings
+     *                   still in flight at the cutoff are not skipped.
+     * @return The number of snapshots written.
+     */
+    public int refreshSnapshots(long lagSeconds) {
+        return jdbcTemplate.update(REFRESH_SNAPSHOTS, lagSeconds);
+    }
+
+    /**
+     * Returns the journal balances of several accounts in one query.
+     *
+     * @param accountIds The IDs of the accounts; must not be empty.
+     * @return The balance per account ID; accounts without legs have a zero balance.
+     */
+    public Map<Long, BigDecimal> findBalances(Collection<Long> accountIds) {
+        Map<Long, BigDecimal> result = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FIND_BALANCES);
+            ps.setArray(1, con.createArrayOf("bigint", accountIds.toArray()));
+            return ps;
+        }, rs -> {
+            result.put(rs.getLong("account_id"), rs.getBigDecimal("balance"));
+        });
+        return result;
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    /**
+     * One leg of a movement. {@code accountId} is set for customer legs only; {@code cardId} and
+     * {@code transferId} are optional references to the card and transfer behind the movement.
+     */
+    public record JournalLeg(Long movementId, MovementType movementType, LedgerBook book, Long accountId, Long cardId,
+                             EntrySide side, BigDecimal amount, Long transferId) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.model.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for {@link com.example.bankcards.model.entity.OutboxEvent} entities.
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the next batch of events that are ready to be processed.
+     * Rows already locked by another dispatcher worker (or another instance) are skipped rather than waited on,
+     * so concurrent workers always claim disjoint batches.
+     *
+     * @param now The current time; only events with {@code availableAt <= now} are returned.
+     * @param limit The maximum number of events to claim.
+     * @return The claimed events, oldest first.
+     */
+    @Query(value = "SELECT * FROM t_outbox WHERE available_at <= :now ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
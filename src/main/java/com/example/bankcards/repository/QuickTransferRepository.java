@@ -6,4 +6,12 @@ import java.util.List;
 
 public interface QuickTransferRepository extends JpaRepository<QuickTransfer, Long> {
     List<QuickTransfer> findByUserUsername(String username);
+
+    /**
+     * Returns the next chunk of saved recipients whose card number is not tokenized yet, in ascending ID order.
+     *
+     * @param id The last processed recipient ID (exclusive lower bound).
+     * @return Up to 500 recipients with {@code card_token IS NULL} and an ID greater than {@code id}.
+     */
+    List<QuickTransfer> findTop500ByCardTokenIsNullAndIdGreaterThanOrderByIdAsc(Long id);
 }
\ No newline at end of file
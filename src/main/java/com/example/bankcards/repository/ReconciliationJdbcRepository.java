@@ -0,0 +1,231 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.model.entity.enums.ReconciliationCheck;
+import com.example.bankcards.model.entity.enums.ReconciliationStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC repository for balance reconciliation runs ({@code t_reconciliation_runs}) and the discrepancies
+ * they find ({@code t_reconciliation_discrepancies}).
+ * A range of accounts is checked with a single set-based statement that compares every account with its cards,
+ * its journal legs and its transaction history and inserts only the mismatches, so the check reads one consistent
+ * snapshot per range and sends no per-account rows to the application.
+ * Accounts without cards, such as the fee collection account ({@code app.fees.collection-account-id}), are credited
+ * without card balances or transaction rows, so only their journal is checked.
+ * It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReconciliationJdbcRepository {
+
+    private static final String RUN_COLUMNS =
+            "id, status, triggered_by, total_ranges, completed_ranges, failed_ranges, accounts_checked, discrepancies, " +
+            "created_at, updated_at, finished_at";
+
+    // Проверки счета: сумма карт и журнал против баланса счета (с бакетами), история транзакций против проводок
+    // журнала за тот же период — с момента входящего остатка, если он был перенесен при введении журнала.
+    // У счетов без карт (счет сбора комиссий) нет ни карт, ни транзакций — для них сверяется только журнал
+    private static final String RECONCILE_RANGE =
+            "INSERT INTO t_reconciliation_discrepancies (run_id, account_id, check_type, expected, actual, difference, detected_at) " +
+            "WITH acc AS (" +
+            "  SELECT a.id, a.balance + COALESCE(b.pending, 0) AS balance FROM t_accounts a " +
+            "  LEFT JOIN (SELECT account_id, SUM(amount) AS pending FROM t_account_balance_buckets " +
+            "             WHERE account_id BETWEEN ? AND ? GROUP BY account_id) b ON b.account_id = a.id " +
+            "  WHERE a.id BETWEEN ? AND ?" +
+            "), cards AS (" +
+            "  SELECT account_id, SUM(balance) AS total FROM t_cards WHERE account_id BETWEEN ? AND ? GROUP BY account_id" +
+            "), journal AS (" +
+            "  SELECT account_id, " +
+            "         SUM(CASE WHEN side = 'CREDIT' THEN amount ELSE -amount END) AS balance, " +
+            "         SUM(CASE WHEN movement_type = 'OPENING' THEN 0 WHEN side = 'CREDIT' THEN amount ELSE -amount END) AS movements, " +
+            "         MAX(CASE WHEN movement_type = 'OPENING' THEN created_at END) AS opened_at " +
+            "  FROM t_journal_entries WHERE book = 'CUSTOMER' AND account_id BETWEEN ? AND ? GROUP BY account_id" +
+            "), tx AS (" +
+            "  SELECT t.account_id, SUM(CASE WHEN t.type IN ('CREDIT', 'TRANSFER_IN', 'REVERSAL_IN') " +
+            "                           THEN abs(t.amount) ELSE -abs(t.amount) END) AS replay " +
+            "  FROM t_transactions t LEFT JOIN journal j ON j.account_id = t.account_id " +
+            "  WHERE t.account_id BETWEEN ? AND ? AND t.status = 'SUCCESS' " +
+            "  AND (j.opened_at IS NULL OR t.transaction_date >= j.opened_at) " +
+            "  GROUP BY t.account_id" +
+            "), checks AS (" +
+            "  SELECT acc.id, 'CARDS' AS check_type, acc.balance AS expected, COALESCE(cards.total, 0) AS actual " +
+            "  FROM acc JOIN cards ON cards.account_id = acc.id " +
+            "  UNION ALL " +
+            "  SELECT acc.id, 'JOURNAL', acc.balance, COALESCE(journal.balance, 0) " +
+            "  FROM acc LEFT JOIN journal ON journal.account_id = acc.id " +
+            "  UNION ALL " +
+            "  SELECT acc.id, 'TRANSACTIONS', COALESCE(journal.movements, 0), COALESCE(tx.replay, 0) " +
+            "  FROM acc JOIN cards ON cards.account_id = acc.id " +
+            "  LEFT JOIN journal ON journal.account_id = acc.id LEFT JOIN tx ON tx.account_id = acc.id" +
+            ") " +
+            "SELECT ?, id, check_type, expected, actual, actual - expected, now() FROM checks WHERE actual <> expected";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates a run in the {@code RUNNING} state.
+     *
+     * @param triggeredBy The administrator who started the run, or {@code null} for the nightly schedule.
+     * @param totalRanges The number of account ranges the run will check.
+     * @return The ID of the run.
+     * @throws org.springframework.dao.DuplicateKeyException if another run is already {@code RUNNING}.
+     */
+    public Long createRun(String triggeredBy, int totalRanges) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO t_reconciliation_runs (status, triggered_by, total_ranges) VALUES ('RUNNING', ?, ?) RETURNING id",
+                Long.class, triggeredBy, totalRanges);
+    }
+
+    /**
+     * Marks runs that stopped reporting progress (e.g., their instance crashed) as failed, so a new run can start.
+     *
+     * @param staleBefore Runs without progress since this time are considered dead.
+     * @return The number of runs marked as failed.
+     */
+    public int failStaleRuns(LocalDateTime staleBefore) {
+        return jdbcTemplate.update(
+                "UPDATE t_reconciliation_runs SET status = 'FAILED', finished_at = now(), updated_at = now() " +
+                "WHERE status = 'RUNNING' AND updated_at < ?", Timestamp.valueOf(staleBefore));
+    }
+
+    /**
+     * Returns the lowest and highest account ID, or empty if there are no accounts.
+     *
+     * @return The bounds as a two-element array.
+     */
+    public Optional<long[]> findAccountIdBounds() {
+        return jdbcTemplate.query("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM t_accounts", rs -> {
+            rs.next();
+            long min = rs.getLong("min_id");
+            return rs.wasNull() ? Optional.empty() : Optional.of(new long[]{min, rs.getLong("max_id")});
+        });
+    }
+
+    /**
+     * Counts the accounts in an ID range.
+     *
+     * @param fromId The lowest account ID, inclusive.
+     * @param toId The highest account ID, inclusive.
+     * @return The number of accounts.
+     */
+    public int countAccounts(long fromId, long toId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM t_accounts WHERE id BETWEEN ? AND ?", Integer.class, fromId, toId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Checks every account in an ID range and records its discrepancies under the run.
+     *
+     * @param runId The ID of the run.
+     * @param fromId The lowest account ID, inclusive.
+     * @param toId The highest account ID, inclusive.
+     * @return The number of discrepancies recorded.
+     */
+    public int reconcileRange(Long runId, long fromId, long toId) {
+        return jdbcTemplate.update(RECONCILE_RANGE,
+                fromId, toId, fromId, toId, fromId, toId, fromId, toId, fromId, toId, runId);
+    }
+
+    /**
+     * Adds the results of one range to the run's progress counters.
+     *
+     * @param runId The ID of the run.
+     * @param accounts The number of accounts checked in the range.
+     * @param discrepancies The number of discrepancies found in the range.
+     * @param failed Whether the range could not be checked.
+     */
+    public void addProgress(Long runId, int accounts, int discrepancies, boolean failed) {
+        jdbcTemplate.update(
+                "UPDATE t_reconciliation_runs SET completed_ranges = completed_ranges + 1, " +
+                "failed_ranges = failed_ranges + ?, accounts_checked = accounts_checked + ?, " +
+                "discrepancies = discrepancies + ?, updated_at = now() WHERE id = ?",
+                failed ? 1 : 0, accounts, discrepancies, runId);
+    }
+
+    /**
+     * Moves a run to its final state.
+     *
+     * @param runId The ID of the run.
+     * @param status {@code COMPLETED} or {@code FAILED}.
+     */
+    public void finishRun(Long runId, ReconciliationStatus status) {
+        jdbcTemplate.update(
+                "UPDATE t_reconciliation_runs SET status = ?, finished_at = now(), updated_at = now() WHERE id = ?",
+                status.name(), runId);
+    }
+
+    /**
+     * Finds a run by its ID.
+     *
+     * @param runId The ID of the run.
+     * @return The run, or empty if it does not exist.
+     */
+    public Optional<RunRow> findRun(Long runId) {
+        return jdbcTemplate.query("SELECT " + RUN_COLUMNS + " FROM t_reconciliation_runs WHERE id = ?", RUN_MAPPER, runId)
+                .stream().findFirst();
+    }
+
+    /**
+     * Returns the most recent runs, newest first.
+     *
+     * @param limit The maximum number of runs.
+     * @return The runs.
+     */
+    public List<RunRow> findRecentRuns(int limit) {
+        return jdbcTemplate.query("SELECT " + RUN_COLUMNS + " FROM t_reconciliation_runs ORDER BY id DESC LIMIT ?",
+                RUN_MAPPER, limit);
+    }
+
+    /**
+     * Returns a page of a run's discrepancies ordered by ID.
+     *
+     * @param runId The ID of the run.
+     * @param afterId The ID of the last discrepancy of the previous page, or {@code null} for the first page.
+     * @param limit The maximum number of discrepancies.
+     * @return The discrepancies.
+     */
+    public List<DiscrepancyRow> findDiscrepancies(Long runId, Long afterId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, account_id, check_type, expected, actual, difference, detected_at " +
+                "FROM t_reconciliation_discrepancies WHERE run_id = ? AND id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new DiscrepancyRow(rs.getLong("id"), rs.getLong("account_id"),
+                        ReconciliationCheck.valueOf(rs.getString("check_type")),
+                        rs.getBigDecimal("expected"), rs.getBigDecimal("actual"), rs.getBigDecimal("difference"),
+                        rs.getTimestamp("detected_at").toLocalDateTime()),
+                runId, afterId != null ? afterId : 0L, limit);
+    }
+
+    private static final RowMapper<RunRow> RUN_MAPPER = (rs, rowNum) -> {
+        Timestamp finishedAt = rs.getTimestamp("finished_at");
+        return new RunRow(rs.getLong("id"), ReconciliationStatus.valueOf(rs.getString("status")),
+                rs.getString("triggered_by"), rs.getInt("total_ranges"), rs.getInt("completed_ranges"),
+                rs.getInt("failed_ranges"), rs.getLong("accounts_checked"), rs.getLong("discrepancies"),
+                rs.getTimestamp("created_at").toLocalDateTime(), rs.getTimestamp("updated_at").toLocalDateTime(),
+                finishedAt != null ? finishedAt.toLocalDateTime() : null);
+    };
+
+    /**
+     * A reconciliation run with its progress counters.
+     */
+    public record RunRow(Long id, ReconciliationStatus status, String triggeredBy, int totalRanges, int completedRanges,
+                         int failedRanges, long accountsChecked, long discrepancies,
+                         LocalDateTime startedAt, LocalDateTime updatedAt, LocalDateTime finishedAt) {
+    }
+
+    /**
+     * One mismatch found by a run; {@code difference} is {@code actual - expected}.
+     */
+    public record DiscrepancyRow(Long id, Long accountId, ReconciliationCheck check, BigDecimal expected,
+                                 BigDecimal actual, BigDecimal difference, LocalDateTime detectedAt) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC repository for the scheduler's hot path over {@code t_scheduled_transfers}.
+ * Due orders are claimed in batches through the partial index on {@code next_run_at} with {@code SKIP LOCKED},
+ * and their outcomes are written back in one JDBC batch, so a run over hundreds of thousands of orders costs
+ * two statements per batch on top of the transfers themselves.
+ * It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScheduledTransferJdbcRepository {
+
+    private static final String CLAIM_DUE =
+            "UPDATE t_scheduled_transfers s SET locked_until = ? " +
+            "FROM t_users u " +
+            "WHERE s.id IN (SELECT id FROM t_scheduled_transfers " +
+            "               WHERE status = 'ACTIVE' AND next_run_at <= ? AND (locked_until IS NULL OR locked_until <= ?) " +
+            "               ORDER BY next_run_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "AND u.id = s.user_id " +
+            "RETURNING s.id, u.username, s.from_card_id, s.to_card_id, s.amount, s.description, " +
+            "s.cron_expression, s.interval_seconds, s.next_run_at, s.attempts";
+
+    private static final String COMPLETE =
+            "UPDATE t_scheduled_transfers SET next_run_at = ?, locked_until = ?, attempts = ?, last_run_at = ?, " +
+            "last_transfer_id = COALESCE(?, last_transfer_id), last_error = ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claims up to {@code limit} active orders that are due and not claimed or waiting for a retry.
+     * Claimed orders are hidden from other workers until {@code lockedUntil}, so a crashed worker's
+     * batch is picked up again once the lease expires.
+     *
+     * @param now The current time.
+     * @param lockedUntil The end of the lease.
+     * @param limit The maximum number of orders to claim.
+     * @return The claimed orders.
+     */
+    public List<DueTransfer> claimDue(LocalDateTime now, LocalDateTime lockedUntil, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE, (rs, rowNum) -> {
+            long intervalSeconds = rs.getLong("interval_seconds");
+            return new DueTransfer(rs.getLong("id"), rs.getString("username"),
+                    rs.getLong("from_card_id"), rs.getLong("to_card_id"),
+                    rs.getBigDecimal("amount"), rs.getString("description"),
+                    rs.getString("cron_expression"), rs.wasNull() ? null : intervalSeconds,
+                    rs.getTimestamp("next_run_at").toLocalDateTime(), rs.getInt("attempts"));
+        }, Timestamp.valueOf(lockedUntil), Timestamp.valueOf(now), Timestamp.valueOf(now), limit);
+    }
+
+    /**
+     * Writes the outcomes of executed orders in a single JDBC batch and releases their leases
+     * (or turns them into retry delays).
+     *
+     * @param outcomes The outcomes, one per claimed order.
+     */
+    public void complete(List<RunOutcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(COMPLETE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                RunOutcome outcome = outcomes.get(i);
+                ps.setTimestamp(1, Timestamp.valueOf(outcome.nextRunAt()));
+                if (outcome.lockedUntil() != null) {
+                    ps.setTimestamp(2, Timestamp.valueOf(outcome.lockedUntil()));
+                } else {
+                    ps.setNull(2, Types.TIMESTAMP);
+                }
+                ps.setInt(3, outcome.attempts());
+                ps.setTimestamp(4, Timestamp.valueOf(outcome.ranAt()));
+                if (outcome.transferId() != null) {
+                    ps.setLong(5, outcome.transferId());
+                } else {
+                    ps.setNull(5, Types.BIGINT);
+                }
+                ps.setString(6, outcome.error());
+                ps.setTimestamp(7, now);
+                ps.setLong(8, outcome.id());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return outcomes.size();
+            }
+        });
+    }
+
+    /**
+     * A claimed order; {@code nextRunAt} identifies the occurrence being executed.
+     */
+    public record DueTransfer(Long id, String username, Long fromCardId, Long toCardId, BigDecimal amount,
+                              String description, String cronExpression, Long intervalSeconds,
+                              LocalDateTime nextRunAt, int attempts) {
+    }
+
+    /**
+     * The result of one execution attempt: the new schedule state of the order.
+     * {@code lockedUntil} is {@code null} unless the occurrence waits for a retry.
+     */
+    public record RunOutcome(Long id, LocalDateTime nextRunAt, LocalDateTime lockedUntil, int attempts,
+                             LocalDateTime ranAt, Long transferId, String error) {
+    }
+}
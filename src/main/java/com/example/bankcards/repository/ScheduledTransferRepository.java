@@ -0,0 +1,35 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.model.entity.ScheduledTransfer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for {@link com.example.bankcards.model.entity.ScheduledTransfer} entities.
+ * Used for managing standing orders; the scheduler itself claims due orders through {@link ScheduledTransferJdbcRepository}.
+ */
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+
+    /**
+     * Loads the user's orders together with both cards in a single query.
+     *
+     * @param username The username of the owner.
+     * @return The orders, soonest due first.
+     */
+    @Query("SELECT s FROM ScheduledTransfer s JOIN FETCH s.fromCard JOIN FETCH s.toCard " +
+            "WHERE s.user.username = :username ORDER BY s.nextRunAt, s.id")
+    List<ScheduledTransfer> findAllWithCardsByUserUsername(@Param("username") String username);
+
+    /**
+     * Finds an order owned by the given user.
+     *
+     * @param id The ID of the order.
+     * @param username The username of the owner.
+     * @return The order, or empty if it does not exist or belongs to another user.
+     */
+    Optional<ScheduledTransfer> findByIdAndUserUsername(Long id, String username);
+}
@@ -0,0 +1,70 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.model.entity.enums.SpendCounterScope;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * JDBC repository for per-period spend counters ({@code t_spend_counters}).
+ * A limited increment is a single conditional upsert on one primary-key row: the check and the update happen
+ * atomically in the database, so a limit check costs the same no matter how much history the owner has.
+ * It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SpendCounterJdbcRepository {
+
+    private static final String INCREMENT_WITHIN_LIMIT =
+            "INSERT INTO t_spend_counters (scope, owner_id, period_start, amount, updated_at) VALUES (?, ?, ?, ?, now()) " +
+            "ON CONFLICT (scope, owner_id, period_start) DO UPDATE " +
+            "SET amount = t_spend_counters.amount + EXCLUDED.amount, updated_at = now() " +
+            "WHERE t_spend_counters.amount + EXCLUDED.amount <= ?";
+
+    private static final String DECREMENT =
+            "UPDATE t_spend_counters SET amount = amount - ?, updated_at = now() " +
+            "WHERE scope = ? AND owner_id = ? AND period_start = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds an amount to a counter unless the new total would exceed the limit. The counter row stays locked
+     * until the transaction ends, so concurrent spends of the same owner are checked one after another.
+     *
+     * @param scope The counter scope.
+     * @param ownerId The ID of the user or card.
+     * @param periodStart The first day of the period.
+     * @param amount The amount to add; must not exceed {@code limit} on its own.
+     * @param limit The maximum total for the period.
+     * @return {@code true} if the counter was incremented, {@code false} if the limit would be exceeded.
+     */
+    public boolean incrementWithinLimit(SpendCounterScope scope, Long ownerId, LocalDate periodStart,
+                                        BigDecimal amount, BigDecimal limit) {
+        return jdbcTemplate.update(INCREMENT_WITHIN_LIMIT, scope.name(), ownerId, periodStart, amount, limit) > 0;
+    }
+
+    /**
+     * Subtracts an amount from a counter, e.g., to undo an increment when a later check of the same operation fails.
+     *
+     * @param scope The counter scope.
+     * @param ownerId The ID of the user or card.
+     * @param periodStart The first day of the period.
+     * @param amount The amount to subtract.
+     */
+    public void decrement(SpendCounterScope scope, Long ownerId, LocalDate periodStart, BigDecimal amount) {
+        jdbcTemplate.update(DECREMENT, amount, scope.name(), ownerId, periodStart);
+    }
+
+    /**
+     * Deletes the counters of periods that started before the given day.
+     *
+     * @param before The exclusive upper bound of {@code period_start}.
+     * @return The number of deleted counters.
+     */
+    public int deleteOlderThan(LocalDate before) {
+        return jdbcTemplate.update("DELETE FROM t_spend_counters WHERE period_start < ?", before);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.model.entity.enums.RollupScope;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC repository for daily and monthly spending rollups ({@code t_spending_rollups}).
+ * Rollups are maintained incrementally with upserts in the transaction that records the underlying
+ * {@code Transaction}, so reading a chart is a range scan over a few pre-aggregated rows.
+ * It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SpendingRollupJdbcRepository {
+
+    private static final String APPLY_DELTA =
+            "INSERT INTO t_spending_rollups (scope, owner_id, period_start, credits, debits, fees, tx_count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, now()) " +
+            "ON CONFLICT (scope, owner_id, period_start) DO UPDATE SET " +
+            "credits = t_spending_rollups.credits + EXCLUDED.credits, " +
+            "debits = t_spending_rollups.debits + EXCLUDED.debits, " +
+            "fees = t_spending_rollups.fees + EXCLUDED.fees, " +
+            "tx_count = t_spending_rollups.tx_count + EXCLUDED.tx_count, " +
+            "updated_at = now()";
+
+    private static final String FIND_SERIES =
+            "SELECT period_start, SUM(credits) AS credits, SUM(debits) AS debits, SUM(fees) AS fees, SUM(tx_count) AS tx_count " +
+            "FROM t_spending_rollups " +
+            "WHERE scope = ? AND owner_id = ANY (?) AND period_start >= ? AND period_start <= ? " +
+            "GROUP BY period_start ORDER BY period_start";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the deltas to their rollup rows in one JDBC batch, creating missing rows.
+     * Callers should pass the deltas sorted by scope, owner and period so that concurrent
+     * transactions lock shared rows in the same order.
+     *
+     * @param deltas The deltas to apply, at most one per row.
+     */
+    public void applyDeltas(List<RollupDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(APPLY_DELTA, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                RollupDelta delta = deltas.get(i);
+                ps.setString(1, delta.scope().name());
+                ps.setLong(2, delta.ownerId());
+                ps.setDate(3, Date.valueOf(delta.periodStart()));
+                ps.setBigDecimal(4, delta.credits());
+                ps.setBigDecimal(5, delta.debits());
+                ps.setBigDecimal(6, delta.fees());
+                ps.setInt(7, delta.count());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return deltas.size();
+            }
+        });
+    }
+
+    /**
+     * Returns the rollups of several owners summed per period, oldest first.
+     *
+     * @param scope The scope of the rollups.
+     * @param ownerIds The IDs of the accounts or cards; must not be empty.
+     * @param from The first period start to include.
+     * @param to The last period start to include.
+     * @return One row per period that has any activity.
+     */
+    public List<RollupRow> findSeries(RollupScope scope, Collection<Long> ownerIds, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FIND_SERIES);
+            ps.setString(1, scope.name());
+            ps.setArray(2, con.createArrayOf("bigint", ownerIds.toArray()));
+            ps.setDate(3, Date.valueOf(from));
+            ps.setDate(4, Date.valueOf(to));
+            return ps;
+        }, (rs, rowNum) -> new RollupRow(rs.getDate("period_start").toLocalDate(),
+                rs.getBigDecimal("credits"), rs.getBigDecimal("debits"), rs.getBigDecimal("fees"), rs.getInt("tx_count")));
+    }
+
+    /**
+     * An increment of one rollup row.
+     */
+    public record RollupDelta(RollupScope scope, Long ownerId, LocalDate periodStart,
+                              BigDecimal credits, BigDecimal debits, BigDecimal fees, int count) {
+    }
+
+    /**
+     * The totals of one period.
+     */
+    public record RollupRow(LocalDate periodStart, BigDecimal credits, BigDecimal debits, BigDecimal fees, int count) {
+    }
+}
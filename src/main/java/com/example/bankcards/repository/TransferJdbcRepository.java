@@ -0,0 +1,201 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.model.entity.Notification;
+import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.Transfer;
+import lombok.RequiredArgsConstructor;
+import com.example.bankcards.util.KeysetCursor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC repository for bulk inserts on the transfer write path.
+ * Hibernate cannot batch inserts of entities with {@code IDENTITY} IDs, so high-volume callers
+ * (e.g., bulk transfers) write {@link Transfer}, {@link Transaction} and {@link Notification}
+ * rows through JDBC batches instead. Keyset queries over transfer history live here as well, since they
+ * need SQL (per-card {@code UNION} branches) that JPQL cannot express.
+ * It participates in the current Spring-managed transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferJdbcRepository {
+
+    private static final String INSERT_TRANSFER =
+            "INSERT INTO t_transfers (from_card_id, to_card_id, amount, fee_amount, fee_collected_amount, transfer_date, status, " +
+            "hold_reason, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO t_transactions (account_id, card_id, amount, type, transaction_date, description, status, transfer_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_NOTIFICATION =
+            "INSERT INTO t_notifications (user_id, message, type, is_read, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts transfers in a single JDBC batch and assigns the generated IDs back to the entities.
+     *
+     * @param transfers The transfers to insert. {@code fromCard} and {@code toCard} must have IDs.
+     * @return The generated IDs, in the same order as {@code transfers}.
+     */
+    public List<Long> batchInsertTransfers(List<Transfer> transfers) {
+        if (transfers.isEmpty()) {
+            return List.of();
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_TRANSFER, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Transfer transfer = transfers.get(i);
+                        LocalDateTime now = LocalDateTime.now();
+                        ps.setLong(1, transfer.getFromCard().getId());
+                        ps.setLong(2, transfer.getToCard().getId());
+                        ps.setBigDecimal(3, transfer.getAmount());
+                        ps.setBigDecimal(4, transfer.getFeeAmount());
+                        ps.setBigDecimal(5, transfer.getFeeCollectedAmount());
+                        ps.setTimestamp(6, Timestamp.valueOf(transfer.getTransferDate()));
+                        ps.setString(7, transfer.getStatus().name());
+                        ps.setString(8, transfer.getHoldReason());
+                        ps.setTimestamp(9, Timestamp.valueOf(now));
+                        ps.setTimestamp(10, Timestamp.valueOf(now));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return transfers.size();
+                    }
+                }, keyHolder);
+
+        List<Long> ids = new ArrayList<>(transfers.size());
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < keys.size(); i++) {
+            Long id = ((Number) keys.get(i).get("id")).longValue();
+            transfers.get(i).setId(id);
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Inserts transactions in a single JDBC batch.
+     *
+     * @param transactions The transactions to insert. {@code account} must have an ID; {@code card} may be null.
+     */
+    public void batchInsertTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Transaction transaction = transactions.get(i);
+                LocalDateTime now = LocalDateTime.now();
+                ps.setLong(1, transaction.getAccount().getId());
+                if (transaction.getCard() != null) {
+                    ps.setLong(2, transaction.getCard().getId());
+                } else {
+                    ps.setNull(2, Types.BIGINT);
+                }
+                ps.setBigDecimal(3, transaction.getAmount());
+                ps.setString(4, transaction.getType().name());
+                ps.setTimestamp(5, Timestamp.valueOf(transaction.getTransactionDate()));
+                ps.setString(6, transaction.getDescription());
+                ps.setString(7, transaction.getStatus().name());
+                if (transaction.getTransferId() != null) {
+                    ps.setLong(8, transaction.getTransferId());
+                } else {
+                    ps.setNull(8, Types.BIGINT);
+                }
+                ps.setTimestamp(9, Timestamp.valueOf(now));
+                ps.setTimestamp(10, Timestamp.valueOf(now));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return transactions.size();
+            }
+        });
+    }
+
+    /**
+     * Inserts notifications in a single JDBC batch.
+     *
+     * @param notifications The notifications to insert. {@code user} must have an ID.
+     */
+    public void batchInsertNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Notification notification = notifications.get(i);
+                LocalDateTime now = LocalDateTime.now();
+                ps.setLong(1, notification.getUser().getId());
+                ps.setString(2, notification.getMessage());
+                ps.setString(3, notification.getType().name());
+                ps.setBoolean(4, Boolean.TRUE.equals(notification.getIsRead()));
+                ps.setTimestamp(5, Timestamp.valueOf(now));
+                ps.setTimestamp(6, Timestamp.valueOf(now));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return notifications.size();
+            }
+        });
+    }
+
+    /**
+     * Returns the keys of the newest transfers touching any of the given cards, strictly after the cursor,
+     * ordered by {@code (created_at DESC, id DESC)}.
+     * Each card contributes two branches (outgoing and incoming) that are range scans on the
+     * {@code (card_id, created_at, id)} indexes limited to {@code limit} rows, so the cost does not grow
+     * with the size of the history.
+     *
+     * @param cardIds The cards whose transfers are listed; must not be empty.
+     * @param after The cursor of the previous page, or {@code null} for the first page.
+     * @param limit The maximum number of keys to return.
+     * @return The keys of the page, newest first.
+     */
+    public List<KeysetCursor> findPageKeys(List<Long> cardIds, KeysetCursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        List<String> branches = new ArrayList<>(cardIds.size() * 2);
+        for (Long cardId : cardIds) {
+            for (String column : new String[]{"from_card_id", "to_card_id"}) {
+                StringBuilder branch = new StringBuilder("(SELECT id, created_at FROM t_transfers WHERE ")
+                        .append(column).append(" = ?");
+                params.add(cardId);
+                if (after != null) {
+                    branch.append(" AND (created_at, id) < (?, ?)");
+                    params.add(Timestamp.valueOf(after.createdAt()));
+                    params.add(after.id());
+                }
+                branch.append(" ORDER BY created_at DESC, id DESC LIMIT ?)");
+                params.add(limit);
+                branches.add(branch.toString());
+            }
+        }
+        // UNION, а не UNION ALL: перевод между своими картами попадает в обе ветки
+        String sql = "SELECT id, created_at FROM (" + String.join(" UNION ", branches) + ") page " +
+                "ORDER BY created_at DESC, id DESC LIMIT ?";
+        params.add(limit);
+        return jdbcTemplate.query(sql, (rs, rowNum) ->
+                new KeysetCursor(rs.getTimestamp("created_at").toLocalDateTime(), rs.getLong("id")), params.toArray());
+    }
+}
@@ -1,11 +1,19 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.model.entity.Transfer;
+import com.example.bankcards.model.entity.enums.TransferStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for {@link com.example.bankcards.model.entity.Transfer} entities.
@@ -14,23 +22,76 @@ import java.util.List;
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
 
     /**
-     * Finds all transfers where the given username is either the sender or receiver.
-     * Transfers are ordered by creation date in descending order.
+     * Loads transfers by ID together with both cards in a single query.
+     * Used to materialize a page whose order was determined by a keyset query.
      *
-     * @param username The username of the user to find transfers for.
-     * @return A {@link List} of {@link Transfer} entities associated with the specified user.
+     * @param ids The transfer IDs.
+     * @return The transfers, in no particular order.
      */
-    @Query("SELECT t FROM Transfer t WHERE t.fromCard.account.user.username = :username OR t.toCard.account.user.username = :username ORDER BY t.createdAt DESC")
-    List<Transfer> findByUserUsername(@Param("username") String username);
+    @Query("SELECT t FROM Transfer t JOIN FETCH t.fromCard JOIN FETCH t.toCard WHERE t.id IN :ids")
+    List<Transfer> findAllWithCardsByIdIn(@Param("ids") Collection<Long> ids);
 
     /**
-     * Finds all transfers associated with a specific card ID, either as a source or destination card.
-     * Transfers are ordered by creation date in descending order.
+     * Reads the card IDs of several transfers without loading or locking the transfers.
+     * Used by reversals to lock the cards before the transfer rows.
      *
-     * @param cardId The ID of the card to find transfers for.
-     * @return A {@link List} of {@link Transfer} entities associated with the specified card.
+     * @param ids The transfer IDs.
+     * @return The card IDs of every transfer that exists.
      */
-    @Query("SELECT t FROM Transfer t WHERE t.fromCard.id = :cardId OR t.toCard.id = :cardId ORDER BY t.createdAt DESC")
-    List<Transfer> findByCardId(@Param("cardId") Long cardId);
+    @Query("SELECT t.fromCard.id AS fromCardId, t.toCard.id AS toCardId FROM Transfer t WHERE t.id IN :ids")
+    List<TransferCardsView> findCardIdsByIdIn(@Param("ids") Collection<Long> ids);
 
-}
\ No newline at end of file
+    /**
+     * Loads and locks several transfers at once ({@code SELECT ... ORDER BY id FOR UPDATE}).
+     * Used by reversals, which lock the cards and accounts first and the transfers last, as transfers do.
+     *
+     * @param ids The transfer IDs.
+     * @return The locked transfers, in ascending ID order; missing IDs are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transfer t WHERE t.id IN :ids ORDER BY t.id")
+    List<Transfer> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Returns transfers in a status with both cards fetched, ordered by ID.
+     *
+     * @param status The status of the transfers.
+     * @param pageable The page to return.
+     * @return The transfers.
+     */
+    @Query("SELECT t FROM Transfer t JOIN FETCH t.fromCard JOIN FETCH t.toCard WHERE t.status = :status ORDER BY t.id")
+    List<Transfer> findWithCardsByStatus(@Param("status") TransferStatus status, Pageable pageable);
+
+    /**
+     * Loads and locks a transfer ({@code SELECT ... FOR UPDATE}).
+     * Used to apply an asynchronously admitted transfer exactly once.
+     *
+     * @param id The transfer ID.
+     * @return The locked transfer, or empty if it does not exist.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transfer t WHERE t.id = :id")
+    Optional<Transfer> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Fails pending transfers admitted before the given time; rows being applied right now are waited for and skipped.
+     *
+     * @param before The admission time before which pending transfers are abandoned.
+     * @param reason The failure reason to record.
+     * @return The number of transfers failed.
+     */
+    @Modifying
+    @Query("UPDATE Transfer t SET t.status = com.example.bankcards.model.entity.enums.TransferStatus.FAILED, " +
+            "t.failureReason = :reason WHERE t.status = com.example.bankcards.model.entity.enums.TransferStatus.PENDING " +
+            "AND t.createdAt < :before")
+    int failPendingCreatedBefore(@Param("before") LocalDateTime before, @Param("reason") String reason);
+
+    /**
+     * Projection with the card IDs of a transfer.
+     */
+    interface TransferCardsView {
+        Long getFromCardId();
+
+        Long getToCardId();
+    }
+}
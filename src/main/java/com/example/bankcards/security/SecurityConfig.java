@@ -3,6 +3,7 @@ package com.example.bankcards.security;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.ObjectPostProcessor;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -11,6 +12,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.header.HeaderWriterFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -32,6 +34,16 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
+                // Заголовки безопасности пишутся до обработки запроса, в потоке запроса. По умолчанию они
+                // добавляются при коммите ответа, а потоковый экспорт истории (StreamingResponseBody) коммитит
+                // ответ из асинхронного потока, параллельно с контейнером, что дает ConcurrentModificationException
+                .headers(headers -> headers.withObjectPostProcessor(new ObjectPostProcessor<HeaderWriterFilter>() {
+                    @Override
+                    public <O extends HeaderWriterFilter> O postProcess(O filter) {
+                        filter.setShouldWriteHeadersEagerly(true);
+                        return filter;
+                    }
+                }))
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
                         // Статика (CSS, JS) доступна всем
@@ -42,7 +54,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**", "/v3/**", "/swagger-ui/**").permitAll()
 
                         // Админская зона
-                        .requestMatchers("/admin/**", "/api/admin/**").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers("/admin/**", "/api/admin/**", "/actuator/**").hasAuthority("ROLE_ADMIN")
 
                         // Пользовательская зона (Дашборд доступен и юзеру, и админу)
                         .requestMatchers("/dashboard", "/api/user/**").hasAnyAuthority("ROLE_USER", "ROLE_ADMIN")
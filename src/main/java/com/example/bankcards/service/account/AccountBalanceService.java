@@ -0,0 +1,93 @@
+package com.example.bankcards.service.account;
+
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.repository.AccountBucketJdbcRepository;
+import com.example.bankcards.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service for account balances, including bucketed (hot) accounts.
+ * A bucketed account receives credits into one of {@code app.account-buckets.count} sub-balance rows chosen
+ * at random, so concurrent credits do not serialize on the account row. Its effective balance is
+ * {@code balance} plus the sum of its buckets; debits fold the buckets into {@code balance} first, and a
+ * periodic compaction does the same for every account with pending buckets. Balances shown to users are read
+ * from the journal ({@link com.example.bankcards.service.ledger.LedgerService#getBalances}), which already includes
+ * bucketed credits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class AccountBalanceService {
+
+    private final AccountRepository accountRepository;
+    private final AccountBucketJdbcRepository accountBucketJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Number of sub-balance rows per bucketed account.
+     */
+    @Value("${app.account-buckets.count:16}")
+    private int bucketCount;
+
+    /**
+     * Credits a random bucket of an account without locking its row, within the caller's transaction.
+     * Used for bucketed accounts and for book accounts that are never debited by transfers, such as the fee
+     * collection account; buckets of an account not marked bucketed are folded only by the periodic compaction.
+     *
+     * @param accountId The ID of the account.
+     * @param amount The amount to credit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void creditBucket(Long accountId, BigDecimal amount) {
+        accountBucketJdbcRepository.credit(accountId, ThreadLocalRandom.current().nextInt(bucketCount), amount);
+    }
+
+    /**
+     * Folds the buckets of a bucketed account into its {@code balance}.
+     * The caller must hold the account row lock; this is done before debiting a bucketed account.
+     *
+     * @param account The locked account. Non-bucketed accounts are left untouched.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void foldBuckets(Account account) {
+        if (account.isBucketed()) {
+            drainInto(account);
+        }
+    }
+
+    /**
+     * Periodically folds the buckets of every bucketed account into its main balance,
+     * one short transaction per account.
+     */
+    @Scheduled(fixedDelayString = "${app.account-buckets.compaction-interval-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void compactBuckets() {
+        for (Long accountId : accountBucketJdbcRepository.findAccountIdsWithBuckets()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> accountRepository.findByIdForUpdate(accountId)
+                        .ifPresent(this::drainInto));
+            } catch (Exception e) {
+                log.warn("Failed to compact balance buckets of account {}: {}", accountId, e.getMessage());
+            }
+        }
+    }
+
+    private void drainInto(Account account) {
+        BigDecimal pending = accountBucketJdbcRepository.drain(account.getId());
+        if (pending.signum() != 0) {
+            account.setBalance(account.getBalance().add(pending));
+            log.debug("Folded {} from balance buckets into account {}", pending, account.getId());
+        }
+    }
+}
@@ -6,8 +6,11 @@ import com.example.bankcards.model.dto.account.AccountResponseDto;
 import com.example.bankcards.model.entity.Account;
 import com.example.bankcards.model.entity.User;
 import com.example.bankcards.model.entity.enums.AccountType;
+import com.example.bankcards.model.entity.enums.Currency;
 import com.example.bankcards.repository.AccountRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.ledger.LedgerService;
 import com.example.bankcards.util.mapper.AccountMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -31,6 +35,8 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
     private final AccountMapper accountMapper;
+    private final LedgerService ledgerService;
+    private final FxRateService fxRateService;
 
     /**
      * Creates a new bank account for a specified user.
@@ -46,6 +52,7 @@ public class AccountService {
 
         Account account = new Account();
         account.setAccountType(request.getAccountType());
+        account.setCurrency(request.getCurrency() != null ? request.getCurrency() : Currency.BYN);
         account.setBalance(BigDecimal.ZERO);
         account.setUser(user);
         account.setAccountNumber(generateUniqueAccountNumber()); // Генерация уникального номера счета
@@ -64,20 +71,32 @@ public class AccountService {
      */
     public List<AccountResponseDto> getMyAccounts(String username) {
         List<Account> accounts = accountRepository.findByUserUsername(username);
+        // Баланс читается из снимка журнала и хвоста проводок после него
+        Map<Long, BigDecimal> balances = ledgerService.getBalances(accounts.stream().map(Account::getId).toList());
         return accounts.stream()
-                .map(accountMapper::toAccountResponseDto)
+                .map(account -> {
+                    AccountResponseDto dto = accountMapper.toAccountResponseDto(account);
+                    dto.setBalance(balances.get(account.getId()));
+                    return dto;
+                })
                 .collect(Collectors.toList());
     }
 
     /**
-     * Retrieves the total balance across all accounts for a user.
+     * Retrieves the total balance across all accounts for a user, converted to BYN at the current rates.
      *
      * @param username The username of the owner.
-     * @return Total balance.
+     * @return Total balance in BYN.
+     * @throws com.example.bankcards.exception.fx.FxRateUnavailableException if an account is not in BYN
+     *                                                                       and there is no up-to-date rate for it.
      */
     public BigDecimal getTotalBalanceAcrossAccounts(String username) {
-        return accountRepository.findByUserUsername(username).stream()
-                .map(Account::getBalance)
+        List<Account> accounts = accountRepository.findByUserUsername(username);
+        Map<Long, BigDecimal> balances = ledgerService.getBalances(accounts.stream().map(Account::getId).toList());
+        // Счета бывают в разных валютах, поэтому складываем их эквиваленты в BYN
+        return accounts.stream()
+                .map(account -> fxRateService.toBaseCurrency(
+                        balances.getOrDefault(account.getId(), BigDecimal.ZERO), account.getCurrency()))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
@@ -90,22 +109,35 @@ public class AccountService {
      */
     @Transactional
     public Account findOrCreateDefaultAccount(User user) {
+        return findOrCreateDefaultAccount(user, Currency.BYN);
+    }
+
+    /**
+     * Finds an existing CHECKING account of the user in the given currency or creates a new one if none exists.
+     *
+     * @param user The user entity.
+     * @param currency The currency of the account.
+     * @return An existing or newly created CHECKING account in {@code currency}.
+     */
+    @Transactional
+    public Account findOrCreateDefaultAccount(User user, Currency currency) {
         // Try to find an existing CHECKING account
         // Используем список accounts, который загружается лениво, но MapStruct его не использует,
         // поэтому для этой операции нам нужно убедиться, что список доступен или использовать репозиторий.
         // Поскольку User уже загружен, используем его список:
 
         return user.getAccounts().stream()
-                .filter(a -> a.getAccountType() == AccountType.CHECKING)
+                .filter(a -> a.getAccountType() == AccountType.CHECKING && a.getCurrency() == currency)
                 .findFirst()
                 .orElseGet(() -> {
                     // If no CHECKING account exists, create one
                     Account account = new Account();
                     account.setAccountType(AccountType.CHECKING);
+                    account.setCurrency(currency);
                     account.setBalance(BigDecimal.ZERO);
                     account.setUser(user);
                     account.setAccountNumber(generateUniqueAccountNumber());
-                    log.info("Creating default CHECKING account {} for user {}", account.getAccountNumber(), user.getUsername());
+                    log.info("Creating default {} CHECKING account {} for user {}", currency, account.getAccountNumber(), user.getUsername());
                     return accountRepository.save(account);
                 });
     }
@@ -0,0 +1,15 @@
+package com.example.bankcards.service.analytics;
+
+/**
+ * Period length of an analytics series.
+ */
+public enum Granularity {
+    /**
+     * One point per calendar day.
+     */
+    DAY,
+    /**
+     * One point per calendar month.
+     */
+    MONTH
+}
@@ -0,0 +1,181 @@
+package com.example.bankcards.service.analytics;
+
+import com.example.bankcards.exception.analytics.InvalidAnalyticsRangeException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.CardOwnershipException;
+import com.example.bankcards.model.dto.analytics.SpendingAnalyticsResponseDto;
+import com.example.bankcards.model.dto.analytics.SpendingPointDto;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.enums.RollupScope;
+import com.example.bankcards.model.entity.enums.TransactionType;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.SpendingRollupJdbcRepository;
+import com.example.bankcards.repository.SpendingRollupJdbcRepository.RollupDelta;
+import com.example.bankcards.repository.SpendingRollupJdbcRepository.RollupRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service for spending analytics backed by pre-aggregated rollups.
+ * Every recorded {@link Transaction} adds its amount to the daily and monthly rollups of its account and card
+ * in the same transaction, so charts read a handful of rows instead of the full history.
+ * Transfers between a user's own cards are not passed here: they are neither income nor spending.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class SpendingAnalyticsService {
+
+    private static final Comparator<RollupKey> LOCK_ORDER = Comparator
+            .comparing(RollupKey::scope)
+            .thenComparing(RollupKey::ownerId)
+            .thenComparing(RollupKey::periodStart);
+
+    private final SpendingRollupJdbcRepository spendingRollupJdbcRepository;
+    private final AccountRepository accountRepository;
+    private final CardRepository cardRepository;
+
+    /**
+     * Maximum number of days a daily series may span.
+     */
+    @Value("${app.analytics.max-days:366}")
+    private int maxDays;
+
+    /**
+     * Maximum number of months a monthly series may span.
+     */
+    @Value("${app.analytics.max-months:120}")
+    private int maxMonths;
+
+    /**
+     * Adds recorded transactions to their rollups within the caller's transaction.
+     * Transactions hitting the same rollup row are merged first, and rows are written in a fixed order,
+     * so a bulk transfer issues one upsert per touched row and concurrent writers cannot deadlock on rollups.
+     *
+     * @param transactions The transactions just recorded; {@code account} must have an ID, {@code card} may be null.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Collection<Transaction> transactions) {
+        Map<RollupKey, Totals> deltas = new TreeMap<>(LOCK_ORDER);
+        for (Transaction transaction : transactions) {
+            LocalDate day = transaction.getTransactionDate().toLocalDate();
+            LocalDate month = day.withDayOfMonth(1);
+            Long accountId = transaction.getAccount().getId();
+            add(deltas, new RollupKey(RollupScope.ACCOUNT_DAY, accountId, day), transaction);
+            add(deltas, new RollupKey(RollupScope.ACCOUNT_MONTH, accountId, month), transaction);
+            if (transaction.getCard() != null) {
+                Long cardId = transaction.getCard().getId();
+                add(deltas, new RollupKey(RollupScope.CARD_DAY, cardId, day), transaction);
+                add(deltas, new RollupKey(RollupScope.CARD_MONTH, cardId, month), transaction);
+            }
+        }
+        List<RollupDelta> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, totals) -> rows.add(new RollupDelta(key.scope(), key.ownerId(), key.periodStart(),
+                totals.credits, totals.debits, totals.fees, totals.count)));
+        spendingRollupJdbcRepository.applyDeltas(rows);
+    }
+
+    /**
+     * Returns the spending series of the user's accounts, or of one of the user's cards.
+     *
+     * @param username The username of the user.
+     * @param from The first day to include, or {@code null} for the default window.
+     * @param to The last day to include, or {@code null} for today.
+     * @param granularity Whether to return one point per day or per month.
+     * @param cardId The card to restrict the series to, or {@code null} for all of the user's accounts.
+     * @return The series with its overall totals.
+     * @throws InvalidAnalyticsRangeException if {@code from} is after {@code to} or the range is too long.
+     * @throws CardNotFoundException if the card does not exist.
+     * @throws CardOwnershipException if the card does not belong to the user.
+     */
+    public SpendingAnalyticsResponseDto getSpending(String username, LocalDate from, LocalDate to,
+                                                    Granularity granularity, Long cardId) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start;
+        RollupScope scope;
+        if (granularity == Granularity.MONTH) {
+            start = (from != null ? from : end.minusMonths(11)).withDayOfMonth(1);
+            scope = cardId != null ? RollupScope.CARD_MONTH : RollupScope.ACCOUNT_MONTH;
+            validateRange(start, end, ChronoUnit.MONTHS.between(start, end.withDayOfMonth(1)) + 1, maxMonths, "months");
+        } else {
+            start = from != null ? from : end.minusDays(29);
+            scope = cardId != null ? RollupScope.CARD_DAY : RollupScope.ACCOUNT_DAY;
+            validateRange(start, end, ChronoUnit.DAYS.between(start, end) + 1, maxDays, "days");
+        }
+
+        List<Long> ownerIds;
+        if (cardId != null) {
+            Card card = cardRepository.findById(cardId).orElseThrow(() -> new CardNotFoundException("Card not found"));
+            if (!card.getAccount().getUser().getUsername().equals(username)) {
+                throw new CardOwnershipException("Access denied: Card doesn't belong to user");
+            }
+            ownerIds = List.of(cardId);
+        } else {
+            ownerIds = accountRepository.findIdsByUserUsername(username);
+        }
+
+        List<RollupRow> rows = ownerIds.isEmpty() ? List.of()
+                : spendingRollupJdbcRepository.findSeries(scope, ownerIds, start, end);
+        List<SpendingPointDto> points = new ArrayList<>(rows.size());
+        SpendingPointDto total = new SpendingPointDto(start, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0);
+        for (RollupRow row : rows) {
+            points.add(new SpendingPointDto(row.periodStart(), row.credits(), row.debits(), row.fees(), row.count()));
+            total.setCredits(total.getCredits().add(row.credits()));
+            total.setDebits(total.getDebits().add(row.debits()));
+            total.setFees(total.getFees().add(row.fees()));
+            total.setCount(total.getCount() + row.count());
+        }
+        return new SpendingAnalyticsResponseDto(granularity, start, end, total, points);
+    }
+
+    private static void validateRange(LocalDate start, LocalDate end, long length, int max, String unit) {
+        if (start.isAfter(end)) {
+            throw new InvalidAnalyticsRangeException("'from' must not be after 'to'.");
+        }
+        if (length > max) {
+            throw new InvalidAnalyticsRangeException("Range must not exceed " + max + " " + unit + ".");
+        }
+    }
+
+    private static void add(Map<RollupKey, Totals> deltas, RollupKey key, Transaction transaction) {
+        Totals totals = deltas.computeIfAbsent(key, k -> new Totals());
+        BigDecimal amount = transaction.getAmount().abs();
+        switch (transaction.getType()) {
+            case CREDIT, TRANSFER_IN -> totals.credits = totals.credits.add(amount);
+            case FEE -> totals.fees = totals.fees.add(amount);
+            case DEBIT, PURCHASE, ATM_WITHDRAWAL, TRANSFER_OUT -> totals.debits = totals.debits.add(amount);
+            // Сторнирование вычитает отмененный перевод из расходов отправителя и доходов получателя
+            case REVERSAL_IN -> totals.debits = totals.debits.subtract(amount);
+            case REVERSAL_OUT -> totals.credits = totals.credits.subtract(amount);
+        }
+        boolean reversal = transaction.getType() == TransactionType.REVERSAL_IN || transaction.getType() == TransactionType.REVERSAL_OUT;
+        totals.count += reversal ? -1 : 1;
+    }
+
+    private record RollupKey(RollupScope scope, Long ownerId, LocalDate periodStart) {
+    }
+
+    private static final class Totals {
+        private BigDecimal credits = BigDecimal.ZERO;
+        private BigDecimal debits = BigDecimal.ZERO;
+        private BigDecimal fees = BigDecimal.ZERO;
+        private int count;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.bankcards.service.card;
+
+import com.example.bankcards.exception.card.InvalidCardNumberException;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.enums.CardBrand;
+import com.example.bankcards.model.entity.enums.CardType;
+import com.example.bankcards.util.BinTable;
+import com.example.bankcards.util.BinTable.BinInfo;
+import com.example.bankcards.util.BinTable.Range;
+import com.example.bankcards.util.CardNumber;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service that answers which network, card type and issuer a card number belongs to.
+ * The BIN table is read from a CSV file ({@code app.bin.table}) once at startup into a {@link BinTable},
+ * so lookups are served from memory without touching the database.
+ * Used to validate and describe new cards and to route transfers to numbers that are not cards of this bank.
+ */
+@Service
+@Slf4j
+public class BinLookupService {
+
+    /**
+     * Location of the BIN table CSV file.
+     */
+    @Value("${app.bin.table:classpath:bin/bin-ranges.csv}")
+    private Resource tableResource;
+
+    /**
+     * Whether cards whose BIN belongs to no known network are rejected.
+     */
+    @Value("${app.bin.reject-unknown:true}")
+    private boolean rejectUnknown;
+
+    /**
+     * Issuer name of this bank's own BINs in the table.
+     */
+    @Value("${app.bin.own-issuer:CyberBank}")
+    private String ownIssuer;
+
+    private volatile BinTable table = BinTable.of(List.of());
+
+    /**
+     * Reads the BIN table. Called automatically by Spring after dependency injection is complete.
+     *
+     * @throws UncheckedIOException if the file cannot be read.
+     * @throws IllegalArgumentException if a line of the file is malformed.
+     */
+    @PostConstruct
+    public void load() {
+        List<Range> ranges = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(tableResource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                ranges.add(parseLine(line, lineNumber));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read BIN table from " + tableResource, e);
+        }
+        this.table = BinTable.of(ranges);
+        log.info("Loaded BIN table from {}: {} ranges", tableResource, table.size());
+    }
+
+    /**
+     * Looks up the BIN of a card number.
+     *
+     * @param cardNumber The card number.
+     * @return What the BIN table knows about it; {@link BinTable#UNKNOWN} if nothing.
+     */
+    public BinInfo lookup(CardNumber cardNumber) {
+        return table.lookup(cardNumber);
+    }
+
+    /**
+     * Checks that a card number can be issued as a card of this bank: it passes the length and Luhn check
+     * and, unless {@code app.bin.reject-unknown} is off, its BIN belongs to a known network.
+     *
+     * @param cardNumber The card number.
+     * @return What the BIN table knows about it.
+     * @throws InvalidCardNumberException if the number fails either check.
+     */
+    public BinInfo validate(CardNumber cardNumber) {
+        if (!cardNumber.isValid()) {
+            throw new InvalidCardNumberException("Card number fails the length or checksum validation");
+        }
+        BinInfo bin = lookup(cardNumber);
+        if (!bin.isKnown() && rejectUnknown) {
+            throw new InvalidCardNumberException("Card number does not belong to a supported payment system");
+        }
+        return bin;
+    }
+
+    /**
+     * Returns whether a BIN is one of this bank's own, i.e. a transfer to it can be completed internally.
+     *
+     * @param bin The result of a lookup.
+     * @return {@code true} if the BIN has no issuer in the table or the issuer is this bank.
+     */
+    public boolean isOnUs(BinInfo bin) {
+        return bin.issuer() == null || bin.issuer().equalsIgnoreCase(ownIssuer);
+    }
+
+    /**
+     * Stores the BIN metadata (network, card type, issuer and its country) on a card.
+     *
+     * @param card The card to update.
+     * @param bin The result of a lookup of the card's number.
+     */
+    public void applyBinFields(Card card, BinInfo bin) {
+        card.setBrand(bin.network());
+        card.setCardType(bin.type());
+        card.setIssuer(bin.issuer());
+        card.setIssuerCountry(bin.country());
+    }
+
+    private static Range parseLine(String line, int lineNumber) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("BIN table line " + lineNumber + " must have 6 fields: " + line);
+        }
+        try {
+            CardBrand network = CardBrand.valueOf(fields[2].strip());
+            CardType type = fields[3].isBlank() ? CardType.UNKNOWN : CardType.valueOf(fields[3].strip());
+            String issuer = fields[4].isBlank() ? null : fields[4].strip();
+            String country = fields[5].isBlank() ? null : fields[5].strip();
+            return new Range(fields[0].strip(), fields[1].strip(), new BinInfo(network, type, issuer, country));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("BIN table line " + lineNumber + " is malformed: " + line, e);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.bankcards.service.card;
 
+import com.example.bankcards.model.entity.Card;
 import com.example.bankcards.util.CardMaskingUtil;
+import com.example.bankcards.util.CardNumber;
 import com.example.bankcards.util.EncryptionUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+
 /**
  * Service class responsible for encrypting, decrypting, and masking card numbers.
  * It utilizes {@link EncryptionUtil} for cryptographic operations and {@link CardMaskingUtil} for masking.
@@ -30,19 +34,32 @@ public class CardEncryptionService {
             throw new IllegalArgumentException("Card number cannot be null or empty");
         }
 
-        String cleanedCardNumber = plainCardNumber.replaceAll("[\\s-]", "");
+        return encryptCardNumber(CardNumber.parse(plainCardNumber));
+    }
 
-        if (!CardMaskingUtil.isValidCardNumber(cleanedCardNumber)) {
+    /**
+     * Encrypts a parsed card number.
+     *
+     * @param cardNumber The card number.
+     * @return The encrypted card number string.
+     * @throws IllegalArgumentException if the card number fails the length or Luhn check.
+     * @throws RuntimeException if the encryption process fails.
+     */
+    public String encryptCardNumber(CardNumber cardNumber) {
+        if (!cardNumber.isValid()) {
             throw new IllegalArgumentException("Invalid card number format");
         }
 
+        byte[] digits = cardNumber.toAsciiBytes();
         try {
-            String encrypted = encryptionUtil.encrypt(cleanedCardNumber);
+            String encrypted = encryptionUtil.encrypt(digits);
             log.debug("Card number encrypted successfully");
             return encrypted;
         } catch (Exception e) {
             log.error("Failed to encrypt card number", e);
             throw new RuntimeException("Failed to encrypt card number", e);
+        } finally {
+            Arrays.fill(digits, (byte) 0);
         }
     }
 
@@ -77,15 +94,65 @@ public class CardEncryptionService {
      * @return The masked card number string (e.g., "************1234"). Returns "****" if decryption fails.
      */
     public String getMaskedCardNumber(String encryptedCardNumber) {
+        if (encryptedCardNumber == null || encryptedCardNumber.trim().isEmpty()) {
+            log.error("Failed to get masked card number: encrypted card number is empty");
+            return "****";
+        }
         try {
-            String plainCardNumber = decryptCardNumber(encryptedCardNumber);
-            return CardMaskingUtil.maskCardNumber(plainCardNumber);
+            // Номер расшифровывается в байты и маскируется без промежуточной строки с полным номером
+            byte[] plainCardNumber = encryptionUtil.decryptToBytes(encryptedCardNumber);
+            try {
+                return CardMaskingUtil.maskCardNumber(CardNumber.tryParse(plainCardNumber));
+            } finally {
+                Arrays.fill(plainCardNumber, (byte) 0);
+            }
         } catch (Exception e) {
             log.error("Failed to get masked card number", e);
             return "****";
         }
     }
 
+    /**
+     * Retrieves a masked version of a card's number from its stored display fields.
+     * No decryption happens unless the card predates the display fields and has not been backfilled yet.
+     *
+     * @param card The card.
+     * @return The masked card number string (e.g., "4111 **** **** 1111").
+     */
+    public String getMaskedCardNumber(Card card) {
+        if (card.getFirstDigits() != null && card.getLastDigits() != null) {
+            return CardMaskingUtil.maskCardNumber(card.getFirstDigits(), card.getLastDigits());
+        }
+        return getMaskedCardNumber(card.getCardNumber());
+    }
+
+    /**
+     * Stores the non-sensitive display fields (first and last four digits) of a plain card number on the card.
+     * The brand comes from the BIN table, see {@link BinLookupService#applyBinFields}.
+     *
+     * @param card The card to update.
+     * @param plainCardNumber The plain card number; spaces and dashes are ignored.
+     * @throws IllegalArgumentException if the card number is shorter than eight digits.
+     */
+    public void applyDisplayFields(Card card, String plainCardNumber) {
+        applyDisplayFields(card, CardNumber.parse(plainCardNumber));
+    }
+
+    /**
+     * Stores the non-sensitive display fields (first and last four digits) of a parsed card number on the card.
+     *
+     * @param card The card to update.
+     * @param cardNumber The card number.
+     * @throws IllegalArgumentException if the card number is shorter than eight digits.
+     */
+    public void applyDisplayFields(Card card, CardNumber cardNumber) {
+        if (cardNumber.length() < 8) {
+            throw new IllegalArgumentException("Invalid card number format");
+        }
+        card.setFirstDigits(cardNumber.firstDigits());
+        card.setLastDigits(cardNumber.lastDigits());
+    }
+
     /**
      * Compares a plain card number with an encrypted card number to check if they match.
      * The encrypted card number is decrypted internally for comparison.
@@ -99,12 +166,78 @@ public class CardEncryptionService {
             return false;
         }
 
+        CardNumber cardNumber = CardNumber.tryParse(plainCardNumber);
+        if (cardNumber == null) {
+            return false;
+        }
         try {
-            String cleanedPlainNumber = plainCardNumber.replaceAll("[\\s-]", "");
-            return encryptionUtil.matches(cleanedPlainNumber, encryptedCardNumber);
+            byte[] decrypted = encryptionUtil.decryptToBytes(encryptedCardNumber);
+            try {
+                return cardNumber.equals(CardNumber.tryParse(decrypted));
+            } finally {
+                Arrays.fill(decrypted, (byte) 0);
+            }
         } catch (Exception e) {
             log.error("Failed to match card numbers", e);
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Computes the blind index of a plain card number.
+     * The number is normalized (spaces and dashes removed) before hashing, so formatted
+     * and unformatted inputs map to the same value.
+     *
+     * @param plainCardNumber The plain card number string.
+     * @return The hex encoded keyed hash used for equality lookups on {@code t_cards.card_number_hash}.
+     * @throws IllegalArgumentException if the plain card number is null or empty.
+     */
+    public String hashCardNumber(String plainCardNumber) {
+        if (plainCardNumber == null || plainCardNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Card number cannot be null or empty");
+        }
+        CardNumber cardNumber = CardNumber.tryParse(plainCardNumber);
+        // Строки, не являющиеся номером карты, хэшируются как прежде — поиск по ним просто ничего не найдет
+        byte[] digits = cardNumber != null ? cardNumber.toAsciiBytes() : normalize(plainCardNumber);
+        try {
+            return encryptionUtil.hmac(digits);
+        } finally {
+            Arrays.fill(digits, (byte) 0);
+        }
+    }
+
+    /**
+     * Computes the blind index of a parsed card number.
+     *
+     * @param cardNumber The card number.
+     * @return The hex encoded keyed hash used for equality lookups on {@code t_cards.card_number_hash}.
+     */
+    public String hashCardNumber(CardNumber cardNumber) {
+        byte[] digits = cardNumber.toAsciiBytes();
+        try {
+            return encryptionUtil.hmac(digits);
+        } finally {
+            Arrays.fill(digits, (byte) 0);
+        }
+    }
+
+    /**
+     * Encodes a card number as ASCII bytes with spaces and dashes removed, in one pass.
+     */
+    private static byte[] normalize(String cardNumber) {
+        byte[] buffer = new byte[cardNumber.length()];
+        int length = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c != '-' && !Character.isWhitespace(c)) {
+                buffer[length++] = (byte) c;
+            }
+        }
+        if (length == buffer.length) {
+            return buffer;
+        }
+        byte[] digits = Arrays.copyOf(buffer, length);
+        Arrays.fill(buffer, (byte) 0);
+        return digits;
+    }
+}
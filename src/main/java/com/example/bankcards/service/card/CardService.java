@@ -1,26 +1,50 @@
 package com.example.bankcards.service.card;
 
 import com.example.bankcards.exception.card.CardStatusException;
+import com.example.bankcards.exception.card.DuplicateCardNumberException;
+import com.example.bankcards.exception.card.InvalidCardNumberException;
+import com.example.bankcards.exception.limit.SpendingLimitExceededException;
 import com.example.bankcards.exception.user.UserNotFoundException;
 import com.example.bankcards.model.dto.card.CardCreateRequest;
 import com.example.bankcards.model.dto.card.CardResponseDto;
 import com.example.bankcards.model.dto.card.CardUpdateRequest;
 import com.example.bankcards.model.entity.Account;
 import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.Transaction;
 import com.example.bankcards.model.entity.User;
 import com.example.bankcards.model.entity.enums.CardStatus;
+import com.example.bankcards.model.entity.enums.Currency;
+import com.example.bankcards.model.entity.enums.LedgerBook;
+import com.example.bankcards.model.entity.enums.MovementType;
+import com.example.bankcards.model.entity.enums.TransactionType;
+import com.example.bankcards.model.entity.enums.TransferStatus;
 import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.repository.AccountRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransactionRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
 import com.example.bankcards.service.account.AccountService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.ledger.LedgerService.Leg;
+import com.example.bankcards.service.ledger.LedgerService.Movement;
+import com.example.bankcards.service.limit.SpendingLimitService;
+import com.example.bankcards.service.transfer.TransferRetryExecutor;
+import com.example.bankcards.util.BinTable.BinInfo;
+import com.example.bankcards.util.CardNumber;
 import com.example.bankcards.util.mapper.CardMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * Service class for managing bank card operations.
  * This service handles the creation, retrieval, updating, deletion,
@@ -36,17 +60,33 @@ public class CardService {
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final CardEncryptionService cardEncryptionService;
+    private final CardTokenService cardTokenService;
+    private final BinLookupService binLookupService;
     private final CardMapper cardMapper;
     private final AccountService accountService; // Injected AccountService
+    private final AccountRepository accountRepository;
+    private final CardLockManager cardLockManager;
+    private final TransferRetryExecutor transferRetryExecutor;
+    private final SpendingLimitService spendingLimitService;
+    private final TransactionRepository transactionRepository;
+    private final SpendingAnalyticsService spendingAnalyticsService;
+    private final LedgerService ledgerService;
+    private final AccountBalanceService accountBalanceService;
 
     /**
      * Creates a new bank card for a specified user.
-     * The card number is encrypted before saving.
+     * The card number is encrypted before saving, and its blind index is stored
+     * alongside it so the card can later be found without decryption. The number is also
+     * tokenized, and the token is returned for clients to refer to the card.
+     * The number must pass the Luhn check and belong to a known network in the BIN table, which also supplies
+     * the card's network, type and issuer.
      *
      * @param request The {@link CardCreateRequest} containing details for the new card.
      * @return A {@link CardResponseDto} representing the newly created card with its number masked.
      * @throws UserNotFoundException if the user specified by {@code userId} in the request is not found.
-     * @throws IllegalArgumentException if the card number in the request is invalid.
+     * @throws IllegalArgumentException if the card number in the request is malformed.
+     * @throws InvalidCardNumberException if the card number fails the Luhn check or its BIN is not supported.
+     * @throws DuplicateCardNumberException if a card with the same number already exists.
      * @throws RuntimeException if card number encryption fails.
      */
     @Transactional
@@ -54,23 +94,38 @@ public class CardService {
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
 
+        // Номер разбирается один раз; проверка BIN, шифрование, blind index, поля отображения и токен работают с CardNumber
+        CardNumber cardNumber = CardNumber.parse(request.getCardNumber());
+        BinInfo bin = binLookupService.validate(cardNumber);
+
         // Find or create a default account for the user
-        Account account = accountService.findOrCreateDefaultAccount(user);
+        Account account = accountService.findOrCreateDefaultAccount(user,
+                request.getCurrency() != null ? request.getCurrency() : Currency.BYN);
 
-        String encryptedCardNumber = cardEncryptionService.encryptCardNumber(request.getCardNumber());
+        String encryptedCardNumber = cardEncryptionService.encryptCardNumber(cardNumber);
+        String cardNumberHash = cardEncryptionService.hashCardNumber(cardNumber);
+        if (cardRepository.existsByCardNumberHash(cardNumberHash)) {
+            throw new DuplicateCardNumberException("Card with this number already exists");
+        }
 
         Card card = new Card();
         card.setCardNumber(encryptedCardNumber);
+        card.setCardNumberHash(cardNumberHash);
+        cardEncryptionService.applyDisplayFields(card, cardNumber);
+        // Платёжная система из таблицы BIN точнее эвристики по первым цифрам
+        binLookupService.applyBinFields(card, bin);
         card.setCardHolder(request.getCardHolder());
         card.setExpiryDate(request.getExpiryDate());
         card.setBalance(request.getBalance());
         card.setCardStatus(CardStatus.ACTIVE);
+        card.setCurrency(account.getCurrency());
         card.setAccount(account); // Link card to account
 
         Card savedCard = cardRepository.save(card);
+        savedCard.setCardToken(cardTokenService.tokenize(cardNumber, savedCard.getId()));
         log.info("Created card with ID: {}", savedCard.getId());
         CardResponseDto dto = cardMapper.toCardResponseDto(savedCard);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard));
         return dto;
     }
 
@@ -85,7 +140,7 @@ public class CardService {
         Page<Card> cards = cardRepository.findAll(pageable);
         return cards.map(card -> {
             CardResponseDto dto = cardMapper.toCardResponseDto(card);
-            dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(card.getCardNumber()));
+            dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(card));
             return dto;
         });
     }
@@ -102,7 +157,7 @@ public class CardService {
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new CardNotFoundException("Card not found"));
         CardResponseDto dto = cardMapper.toCardResponseDto(card);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(card.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(card));
         return dto;
     }
 
@@ -133,11 +188,14 @@ public class CardService {
         if (request.getBalance() != null) {
             card.setBalance(request.getBalance());
         }
+        if (request.getDailyLimit() != null) {
+            card.setDailyLimit(request.getDailyLimit());
+        }
 
         Card savedCard = cardRepository.save(card);
         log.info("Updated card with ID: {}", savedCard.getId());
         CardResponseDto dto = cardMapper.toCardResponseDto(savedCard);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard));
         return dto;
     }
 
@@ -152,6 +210,7 @@ public class CardService {
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new CardNotFoundException("Card not found"));
         cardRepository.delete(card);
+        cardTokenService.evictCard(id);
         log.info("Deleted card with ID: {}", id);
     }
 
@@ -177,7 +236,7 @@ public class CardService {
         Card savedCard = cardRepository.save(card);
         log.info("Blocked card with ID: {}", id);
         CardResponseDto dto = cardMapper.toCardResponseDto(savedCard);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard));
         return dto;
     }
 
@@ -203,7 +262,7 @@ public class CardService {
         Card savedCard = cardRepository.save(card);
         log.info("Activated card with ID: {}", id);
         CardResponseDto dto = cardMapper.toCardResponseDto(savedCard);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard));
         return dto;
     }
 
@@ -233,7 +292,7 @@ public class CardService {
         Card savedCard = cardRepository.save(card);
         log.info("Successfully approved block request for card ID: {}. New status: BLOCKED", id);
         CardResponseDto dto = cardMapper.toCardResponseDto(savedCard);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard));
         return dto;
     }
 
@@ -263,16 +322,31 @@ public class CardService {
         Card savedCard = cardRepository.save(card);
         log.info("Successfully approved unblock request for card ID: {}. New status: ACTIVE", id);
         CardResponseDto dto = cardMapper.toCardResponseDto(savedCard);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard));
         return dto;
     }
 
     // ... (внутри CardService)
 
-    @Transactional
+    /**
+     * Deposits money to a card. Runs under the card's in-process lock and then in its own transaction,
+     * like transfers, so deposits to a hot card do not hold pooled connections while queued.
+     *
+     * @param id The ID of the card.
+     * @param amount The amount to deposit; must be positive.
+     * @return The updated card with its number masked.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CardResponseDto deposit(Long id, java.math.BigDecimal amount) {
-        Card card = cardRepository.findById(id)
+        return cardLockManager.withCardLocks(List.of(id), () ->
+                transferRetryExecutor.executeInTransaction(() -> applyDeposit(id, amount), "deposit to card " + id));
+    }
+
+    private CardResponseDto applyDeposit(Long id, java.math.BigDecimal amount) {
+        // Тот же порядок блокировок, что и в TransferService: карта, затем счет
+        Card card = cardRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new CardNotFoundException("Card not found"));
+        accountRepository.findByIdForUpdate(card.getAccount().getId());
 
         if (amount.compareTo(java.math.BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
@@ -283,17 +357,35 @@ public class CardService {
         card.getAccount().setBalance(card.getAccount().getBalance().add(amount));
 
         Card savedCard = cardRepository.save(card);
+        recordTransaction(savedCard, amount, TransactionType.CREDIT, "Deposit to card");
+        ledgerService.post(List.of(Movement.of(MovementType.DEPOSIT, Leg.book(LedgerBook.CASH),
+                Leg.customer(savedCard.getAccount(), savedCard), amount)));
         log.info("Deposited {} to card {}", amount, id);
 
         CardResponseDto dto = cardMapper.toCardResponseDto(savedCard);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard));
         return dto;
     }
 
-    @Transactional
+    /**
+     * Withdraws money from a card. Runs under the card's in-process lock and then in its own transaction.
+     *
+     * @param id The ID of the card.
+     * @param amount The amount to withdraw; must be positive and not exceed the card balance.
+     * @return The updated card with its number masked.
+     * @throws SpendingLimitExceededException if the withdrawal would exceed the card's daily or the owner's monthly limit.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CardResponseDto withdraw(Long id, java.math.BigDecimal amount) {
-        Card card = cardRepository.findById(id)
+        return cardLockManager.withCardLocks(List.of(id), () ->
+                transferRetryExecutor.executeInTransaction(() -> applyWithdrawal(id, amount), "withdrawal from card " + id));
+    }
+
+    private CardResponseDto applyWithdrawal(Long id, java.math.BigDecimal amount) {
+        // Тот же порядок блокировок, что и в TransferService: карта, затем счет
+        Card card = cardRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new CardNotFoundException("Card not found"));
+        accountRepository.findByIdForUpdate(card.getAccount().getId());
 
         if (amount.compareTo(java.math.BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
@@ -301,15 +393,20 @@ public class CardService {
         if (card.getBalance().compareTo(amount) < 0) {
             throw new com.example.bankcards.exception.card.InsufficientFundsException("Insufficient funds");
         }
+        spendingLimitService.recordSpend(card, amount);
 
+        accountBalanceService.foldBuckets(card.getAccount());
         card.setBalance(card.getBalance().subtract(amount));
         card.getAccount().setBalance(card.getAccount().getBalance().subtract(amount));
 
         Card savedCard = cardRepository.save(card);
+        recordTransaction(savedCard, amount, TransactionType.DEBIT, "Withdrawal from card");
+        ledgerService.post(List.of(Movement.of(MovementType.WITHDRAWAL,
+                Leg.customer(savedCard.getAccount(), savedCard), Leg.book(LedgerBook.CASH), amount)));
         log.info("Withdrew {} from card {}", amount, id);
 
         CardResponseDto dto = cardMapper.toCardResponseDto(savedCard);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard));
         return dto;
     }
 
@@ -334,7 +431,19 @@ public class CardService {
 
         Card savedCard = cardRepository.save(card);
         CardResponseDto dto = cardMapper.toCardResponseDto(savedCard);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(savedCard));
         return dto;
     }
-}
\ No newline at end of file
+
+    private void recordTransaction(Card card, java.math.BigDecimal amount, TransactionType type, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(card.getAccount());
+        transaction.setCard(card);
+        transaction.setAmount(amount);
+        transaction.setType(type);
+        transaction.setTransactionDate(LocalDateTime.now());
+        transaction.setDescription(description + " ID " + card.getId());
+        transaction.setStatus(TransferStatus.SUCCESS);
+        spendingAnalyticsService.record(List.of(transactionRepository.save(transaction)));
+    }
+}
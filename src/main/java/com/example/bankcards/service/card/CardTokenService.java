@@ -0,0 +1,162 @@
+package com.example.bankcards.service.card;
+
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTokenJdbcRepository;
+import com.example.bankcards.repository.CardTokenJdbcRepository.TokenRow;
+import com.example.bankcards.util.CardMaskingUtil;
+import com.example.bankcards.util.CardNumber;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service for the card token vault.
+ * A card number is stored once, encrypted, under a random token that reveals nothing about it; the rest of the
+ * system (cards, saved recipients, transfer requests) refers to the token. Resolving a token to its card is
+ * served from a bounded in-memory LRU cache, so the transfer path neither hashes nor decrypts card numbers.
+ * Recovering the number itself ({@link #detokenize}) is an audited, administrator-only operation.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardTokenService {
+
+    private static final Logger AUDIT = LoggerFactory.getLogger("audit");
+    private static final String TOKEN_PREFIX = "tok_";
+    private static final int TOKEN_BYTES = 16;
+
+    private final CardTokenJdbcRepository cardTokenJdbcRepository;
+    private final CardRepository cardRepository;
+    private final CardEncryptionService cardEncryptionService;
+    private final SecureRandom tokenGenerator = new SecureRandom();
+
+    /**
+     * Maximum number of token-to-card entries kept in the in-memory cache.
+     */
+    @Value("${app.tokenization.cache-size:10000}")
+    private int cacheSize;
+
+    // LRU по порядку доступа: токен -> ID карты; токены без карты не кэшируются
+    private final Map<String, Long> cardIdCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+
+    /**
+     * Returns the token of a card number, storing the number in the vault on first use.
+     * The same number always yields the same token. A number of another bank's card is bound to the bank's card
+     * with that number if one exists.
+     *
+     * @param plainCardNumber The plain card number; spaces and dashes are ignored.
+     * @param cardId The card with this number, or {@code null} if the caller does not know it.
+     * @return The token.
+     * @throws IllegalArgumentException if the card number is empty or invalid.
+     */
+    public String tokenize(String plainCardNumber, Long cardId) {
+        if (plainCardNumber == null || plainCardNumber.isBlank()) {
+            throw new IllegalArgumentException("Card number cannot be null or empty");
+        }
+        return tokenize(CardNumber.parse(plainCardNumber), cardId);
+    }
+
+    /**
+     * Returns the token of a parsed card number, storing the number in the vault on first use.
+     *
+     * @param cardNumber The card number.
+     * @param cardId The card with this number, or {@code null} if the caller does not know it.
+     * @return The token.
+     * @throws IllegalArgumentException if the card number fails the length or Luhn check.
+     */
+    public String tokenize(CardNumber cardNumber, Long cardId) {
+        String panHash = cardEncryptionService.hashCardNumber(cardNumber);
+        Optional<TokenRow> existing = cardTokenJdbcRepository.findByPanHash(panHash);
+        if (existing.isPresent() && (cardId == null || cardId.equals(existing.get().cardId()))) {
+            return existing.get().token();
+        }
+
+        // Новый номер (или привязка известного номера к карте): шифруем один раз, дальше работаем с токеном
+        String encryptedPan = cardEncryptionService.encryptCardNumber(cardNumber);
+        Long boundCardId = cardId != null ? cardId : cardRepository.findIdByCardNumberHash(panHash).orElse(null);
+        return cardTokenJdbcRepository.upsert(newToken(), panHash, encryptedPan,
+                cardNumber.firstDigits(), cardNumber.lastDigits(), boundCardId);
+    }
+
+    /**
+     * Resolves a token to the bank card it stands for, looking at the in-memory cache first.
+     *
+     * @param token The token.
+     * @return The ID of the card, or empty if the token is unknown or belongs to another bank's card.
+     */
+    public Optional<Long> resolveCardId(String token) {
+        Long cached = cardIdCache.get(token);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Long> cardId = cardTokenJdbcRepository.findByToken(token).map(TokenRow::cardId);
+        cardId.ifPresent(id -> cardIdCache.put(token, id));
+        return cardId;
+    }
+
+    /**
+     * Returns the masked card numbers of several tokens from their stored display digits, without decryption.
+     *
+     * @param tokens The tokens.
+     * @return The masked number by token; unknown tokens are absent.
+     */
+    public Map<String, String> getMaskedCardNumbers(Collection<String> tokens) {
+        Map<String, String> masks = new HashMap<>();
+        for (TokenRow row : cardTokenJdbcRepository.findByTokens(tokens)) {
+            masks.put(row.token(), CardMaskingUtil.maskCardNumber(row.firstDigits(), row.lastDigits()));
+        }
+        return masks;
+    }
+
+    /**
+     * Recovers the plain card number of a token. Every call is written to the audit log.
+     *
+     * @param token The token.
+     * @param actor The user recovering the number.
+     * @param reason Why the number is needed.
+     * @return The plain card number.
+     * @throws CardNotFoundException if the token does not exist.
+     */
+    public String detokenize(String token, String actor, String reason) {
+        TokenRow row = cardTokenJdbcRepository.findByToken(token)
+                .orElseThrow(() -> new CardNotFoundException("Card token not found"));
+        AUDIT.info("PAN_DETOKENIZED token={} card={} by={} reason={}", token, row.cardId(), actor, reason);
+        return cardEncryptionService.decryptCardNumber(row.encryptedPan());
+    }
+
+    /**
+     * Drops the cached tokens of a deleted card, so they no longer resolve to it.
+     *
+     * @param cardId The ID of the card.
+     */
+    public void evictCard(Long cardId) {
+        synchronized (cardIdCache) {
+            cardIdCache.values().removeIf(cardId::equals);
+        }
+    }
+
+    private String newToken() {
+        byte[] random = new byte[TOKEN_BYTES];
+        tokenGenerator.nextBytes(random);
+        return TOKEN_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+    }
+}
@@ -5,8 +5,10 @@ import com.example.bankcards.exception.card.CardStatusException;
 import com.example.bankcards.model.dto.card.CardResponseDto;
 import com.example.bankcards.model.entity.Card;
 import com.example.bankcards.model.entity.enums.CardStatus;
+import com.example.bankcards.model.entity.enums.Currency;
 import com.example.bankcards.exception.card.CardNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.fx.FxRateService;
 import com.example.bankcards.util.mapper.CardMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,19 +34,21 @@ public class UserCardService {
     private final CardMapper cardMapper;
     private final CardRepository cardRepository;
     private final CardEncryptionService cardEncryptionService;
+    private final FxRateService fxRateService;
 
     /**
      * Calculates the total balance across all active bank cards owned by a specific user.
+     * Balances in other currencies are converted to BYN at the cached exchange rates.
      *
      * @param username The username of the user whose total balance is to be calculated.
-     * @return A {@link BigDecimal} representing the sum of balances of all active cards.
+     * @return A {@link BigDecimal} representing the sum of balances of all active cards, in BYN.
      */
     public BigDecimal getTotalBalance(String username) {
         // Использование нового метода репозитория
         List<Card> cards = cardRepository.findByAccount_User_Username(username);
         return cards.stream()
                 .filter(card -> card.getCardStatus() == CardStatus.ACTIVE)
-                .map(Card::getBalance)
+                .map(card -> fxRateService.toBaseCurrency(card.getBalance(), card.getCurrency()))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
@@ -70,7 +74,7 @@ public class UserCardService {
         if (card.getCardStatus() != CardStatus.BLOCKED) {
             throw new CardStatusException("Card is not blocked");
         }
-        log.info("User {} requested unblock for card {}", username, cardEncryptionService.getMaskedCardNumber(card.getCardNumber()));
+        log.info("User {} requested unblock for card {}", username, cardEncryptionService.getMaskedCardNumber(card));
         card.setCardStatus(CardStatus.PENDING_UNBLOCK);
     }
 
@@ -96,7 +100,7 @@ public class UserCardService {
         if (card.getCardStatus() == CardStatus.BLOCKED) {
             throw new CardStatusException("Card is already blocked");
         }
-        log.info("User {} requested block for card {}", username, cardEncryptionService.getMaskedCardNumber(card.getCardNumber()));
+        log.info("User {} requested block for card {}", username, cardEncryptionService.getMaskedCardNumber(card));
         card.setCardStatus(CardStatus.PENDING_BLOCK);
     }
 
@@ -113,7 +117,7 @@ public class UserCardService {
         Page<Card> cardsPage = cardRepository.findByUserUsernamePageable(username, pageable);
         return cardsPage.map(card -> {
             CardResponseDto dto = cardMapper.toCardResponseDto(card);
-            dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(card.getCardNumber()));
+            dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(card));
             return dto;
         });
     }
@@ -137,7 +141,7 @@ public class UserCardService {
             throw new CardOwnershipException("Access denied: Card doesn't belong to user");
         }
         CardResponseDto dto = cardMapper.toCardResponseDto(card);
-        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(card.getCardNumber()));
+        dto.setCardNumber(cardEncryptionService.getMaskedCardNumber(card));
         return dto;
     }
 }
\ No newline at end of file
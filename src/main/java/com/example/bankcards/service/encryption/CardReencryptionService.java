@@ -0,0 +1,469 @@
+package com.example.bankcards.service.encryption;
+
+import com.example.bankcards.exception.encryption.ReencryptionInProgressException;
+import com.example.bankcards.exception.encryption.ReencryptionRunNotFoundException;
+import com.example.bankcards.model.dto.encryption.ReencryptionRunResponseDto;
+import com.example.bankcards.model.entity.enums.ReencryptionStatus;
+import com.example.bankcards.repository.CardReencryptionJdbcRepository;
+import com.example.bankcards.repository.CardReencryptionJdbcRepository.CardCiphertext;
+import com.example.bankcards.repository.CardReencryptionJdbcRepository.RunRow;
+import com.example.bankcards.repository.CardReencryptionJdbcRepository.TokenCiphertext;
+import com.example.bankcards.util.EncryptionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service for the online re-encryption of card numbers with the active data key.
+ * A run splits the card ID space into ranges of {@code app.encryption.reencryption.range-size} IDs, which
+ * {@code app.encryption.reencryption.parallelism} workers claim in order. Every range is one short transaction that
+ * locks the range's cards with {@code SKIP LOCKED}, re-encrypts those still on an older key and stores them in one
+ * batch; cards held by transfers are left for a retry pass at the end of the run. The card numbers in the token vault
+ * are then re-encrypted the same way, in batches of {@code range-size} entries in token order, with retry passes
+ * for entries that were locked. Workers are throttled to {@code app.encryption.reencryption.max-cards-per-second}
+ * in total.
+ * <p>
+ * After every range the run records a checkpoint, the number of leading ranges that are done. A run whose instance
+ * stops is taken over by another instance and resumed from its checkpoint; ranges past the checkpoint are simply
+ * processed again, which is harmless because cards already on the target key are not touched. The vault pass has no
+ * checkpoint of its own: it runs after the last range and only selects entries still on an older key.
+ * A run starts automatically once a rotated key becomes active; at most one is {@code RUNNING} across all instances.
+ * <p>
+ * Metrics: {@code encryption.reencryption.cards} and {@code encryption.reencryption.progress}
+ * (the fraction of ranges of the current run up to its checkpoint).
+ */
+@Service
+@Slf4j
+@Transactional(readOnly = true)
+public class CardReencryptionService {
+
+    private final CardReencryptionJdbcRepository cardReencryptionJdbcRepository;
+    private final EncryptionUtil encryptionUtil;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService launcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicReference<RunProgress> current = new AtomicReference<>();
+
+    private final Counter cardsCounter;
+
+    /**
+     * Number of card IDs re-encrypted per range (one transaction each); keeps the time transfers may wait short.
+     */
+    @Value("${app.encryption.reencryption.range-size:500}")
+    private long rangeSize;
+
+    /**
+     * Number of ranges processed concurrently; each holds a pooled connection, so keep it below the pool size.
+     */
+    @Value("${app.encryption.reencryption.parallelism:2}")
+    private int parallelism;
+
+    /**
+     * Upper bound on the card numbers re-encrypted per second by all workers; 0 disables throttling.
+     */
+    @Value("${app.encryption.reencryption.max-cards-per-second:5000}")
+    private int maxCardsPerSecond;
+
+    /**
+     * Number of passes over the ranges whose cards were locked by transfers.
+     */
+    @Value("${app.encryption.reencryption.retry-attempts:3}")
+    private int retryAttempts;
+
+    /**
+     * Pause before each retry pass.
+     */
+    @Value("${app.encryption.reencryption.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    /**
+     * Runs that reported no progress for this long are taken over and resumed from their checkpoint.
+     */
+    @Value("${app.encryption.reencryption.stale-after-minutes:10}")
+    private long staleAfterMinutes;
+
+    /**
+     * Maximum number of runs returned per page.
+     */
+    @Value("${app.encryption.reencryption.max-page-size:100}")
+    private int maxPageSize;
+
+    public CardReencryptionService(CardReencryptionJdbcRepository cardReencryptionJdbcRepository,
+                                   EncryptionUtil encryptionUtil,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry) {
+        this.cardReencryptionJdbcRepository = cardReencryptionJdbcRepository;
+        this.encryptionUtil = encryptionUtil;
+        this.transactionTemplate = transactionTemplate;
+        this.cardsCounter = Counter.builder("encryption.reencryption.cards")
+                .description("Card numbers re-encrypted with the active data key")
+                .register(meterRegistry);
+        Gauge.builder("encryption.reencryption.progress", current, ref -> {
+                    RunProgress progress = ref.get();
+                    return progress == null ? 0 : progress.fraction();
+                })
+                .description("Fraction of card ranges processed by the current re-encryption run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resumes an abandoned run, or starts a run once a newer key than the last run's target is active.
+     */
+    @Scheduled(fixedDelayString = "${app.encryption.reencryption.check-interval-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void checkPending() {
+        if (current.get() != null) {
+            return;
+        }
+        Optional<RunRow> stale = transactionTemplate.execute(status ->
+                cardReencryptionJdbcRepository.claimStaleRun(LocalDateTime.now().minusMinutes(staleAfterMinutes)));
+        if (stale != null && stale.isPresent()) {
+            RunRow run = stale.get();
+            log.warn("Resuming re-encryption run {} from range {} of {}", run.id(), run.checkpointRange(), run.totalRanges());
+            launcher.execute(() -> execute(run.id(), run.targetVersion(), run.minCardId(), run.totalRanges(), run.checkpointRange()));
+            return;
+        }
+        int active = encryptionUtil.getActiveKeyVersion();
+        if (active == EncryptionUtil.LEGACY_KEY_VERSION) {
+            return;
+        }
+        List<RunRow> latest = cardReencryptionJdbcRepository.findRecentRuns(1);
+        if (!latest.isEmpty() && latest.get(0).targetVersion() >= active) {
+            return;
+        }
+        try {
+            start(null);
+        } catch (ReencryptionInProgressException e) {
+            log.debug("Re-encryption not started: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a run that re-encrypts every card number with the active key and starts it in the background.
+     *
+     * @param triggeredBy The administrator who started the run, or {@code null} if it is started automatically.
+     * @return The new run.
+     * @throws ReencryptionInProgressException if another run is in progress.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReencryptionRunResponseDto start(String triggeredBy) {
+        int targetVersion = encryptionUtil.getActiveKeyVersion();
+        long[] bounds = transactionTemplate.execute(status -> cardReencryptionJdbcRepository.findCardIdBounds().orElse(null));
+        long minCardId = bounds == null ? 0 : bounds[0];
+        int totalRanges = bounds == null ? 0 : (int) ((bounds[1] - bounds[0]) / rangeSize + 1);
+        Long runId;
+        try {
+            runId = transactionTemplate.execute(status ->
+                    cardReencryptionJdbcRepository.createRun(targetVersion, triggeredBy, minCardId, totalRanges));
+        } catch (DuplicateKeyException e) {
+            throw new ReencryptionInProgressException("Another re-encryption run is in progress.");
+        }
+        log.info("Re-encryption run {} to key version {} started by {}: {} ranges",
+                runId, targetVersion, triggeredBy != null ? triggeredBy : "key activation", totalRanges);
+        launcher.execute(() -> execute(runId, targetVersion, minCardId, totalRanges, 0));
+        return getRun(runId);
+    }
+
+    /**
+     * Returns a run with its progress.
+     *
+     * @param runId The ID of the run.
+     * @return The run.
+     * @throws ReencryptionRunNotFoundException if the run does not exist.
+     */
+    public ReencryptionRunResponseDto getRun(Long runId) {
+        return cardReencryptionJdbcRepository.findRun(runId)
+                .map(CardReencryptionService::toDto)
+                .orElseThrow(() -> new ReencryptionRunNotFoundException("Re-encryption run not found with ID: " + runId));
+    }
+
+    /**
+     * Returns the most recent runs, newest first.
+     *
+     * @param limit The maximum number of runs; capped at {@code app.encryption.reencryption.max-page-size}.
+     * @return The runs.
+     */
+    public List<ReencryptionRunResponseDto> getRecentRuns(int limit) {
+        return cardReencryptionJdbcRepository.findRecentRuns(Math.max(1, Math.min(limit, maxPageSize))).stream()
+                .map(CardReencryptionService::toDto)
+                .toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        launcher.shutdownNow();
+    }
+
+    /**
+     * Processes the ranges of a run from its checkpoint on, retries the ranges with locked cards, re-encrypts the
+     * token vault and moves the run to its final state: {@code COMPLETED} if no card number, in the cards or in the
+     * vault, is left on an older key.
+     *
+     * @param runId The ID of the run.
+     * @param targetVersion The key version card numbers are re-encrypted with.
+     * @param minCardId The lowest card ID; range {@code i} starts at {@code minCardId + i * rangeSize}.
+     * @param totalRanges The number of ranges.
+     * @param checkpoint The number of leading ranges already done.
+     */
+    void execute(Long runId, int targetVersion, long minCardId, int totalRanges, int checkpoint) {
+        RunProgress progress = new RunProgress(runId, targetVersion, minCardId, totalRanges, checkpoint,
+                maxCardsPerSecond > 0 ? new Throttle(maxCardsPerSecond) : null);
+        current.set(progress);
+        long start = System.nanoTime();
+        ReencryptionStatus status = ReencryptionStatus.FAILED;
+        long left = 0;
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(workers.submit(() -> {
+                    int index;
+                    while ((index = progress.next.getAndIncrement()) < totalRanges) {
+                        processRange(progress, index, false);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            // Повторные проходы по диапазонам, где карты были заблокированы переводами или диапазон не удался
+            for (int attempt = 1; attempt <= retryAttempts && !progress.retry.isEmpty(); attempt++) {
+                TimeUnit.MILLISECONDS.sleep(retryDelayMs);
+                List<Integer> ranges = new ArrayList<>(progress.retry);
+                progress.retry.clear();
+                for (int index : ranges) {
+                    processRange(progress, index, true);
+                }
+            }
+            String prefix = EncryptionUtil.versionPrefix(targetVersion);
+            long maxCardId = minCardId + totalRanges * rangeSize - 1;
+            Integer remaining = totalRanges == 0 ? Integer.valueOf(0) : transactionTemplate.execute(tx ->
+                    cardReencryptionJdbcRepository.countCardsToReencrypt(minCardId, maxCardId, prefix));
+            left = (remaining != null ? remaining : 0) + reencryptVault(progress);
+            status = left == 0 ? ReencryptionStatus.COMPLETED : ReencryptionStatus.FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Re-encryption run {} interrupted", runId);
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("Re-encryption run {} aborted", runId, e);
+        } finally {
+            workers.shutdownNow();
+            ReencryptionStatus finalStatus = status;
+            long finalLeft = left;
+            transactionTemplate.execute(tx -> {
+                cardReencryptionJdbcRepository.finishRun(runId, finalStatus, finalLeft);
+                return null;
+            });
+            current.compareAndSet(progress, null);
+        }
+        log.info("Re-encryption run {} to key version {} {} in {} s: {} ranges, {} card numbers left on older keys",
+                runId, targetVersion, status, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), totalRanges, left);
+    }
+
+    private void processRange(RunProgress progress, int index, boolean retry) {
+        long fromId = progress.minCardId + index * rangeSize;
+        long toId = fromId + rangeSize - 1;
+        String prefix = EncryptionUtil.versionPrefix(progress.targetVersion);
+        try {
+            int[] result = transactionTemplate.execute(status -> {
+                List<CardCiphertext> cards = cardReencryptionJdbcRepository.lockCardsToReencrypt(fromId, toId, prefix);
+                List<CardCiphertext> reencrypted = new ArrayList<>(cards.size());
+                for (CardCiphertext card : cards) {
+                    // Карта, уже зашифрованная более новым ключом, не откатывается на целевой
+                    if (EncryptionUtil.keyVersion(card.cardNumber()) < progress.targetVersion) {
+                        reencrypted.add(new CardCiphertext(card.id(),
+                                encryptionUtil.reencrypt(card.cardNumber(), progress.targetVersion)));
+                    }
+                }
+                if (!reencrypted.isEmpty()) {
+                    cardReencryptionJdbcRepository.updateCardNumbers(reencrypted);
+                }
+                int left = cardReencryptionJdbcRepository.countCardsToReencrypt(fromId, toId, prefix)
+                        - (cards.size() - reencrypted.size());
+                return new int[]{reencrypted.size(), left};
+            });
+            cardsCounter.increment(result[0]);
+            if (result[1] > 0) {
+                progress.retry.add(index);
+            }
+            int checkpoint = retry ? progress.checkpoint() : progress.complete(index);
+            transactionTemplate.execute(status -> {
+                cardReencryptionJdbcRepository.addProgress(progress.runId, result[0], checkpoint);
+                return null;
+            });
+            if (progress.throttle != null) {
+                progress.throttle.acquire(result[0]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Re-encryption run " + progress.runId + " interrupted", e);
+        } catch (RuntimeException e) {
+            log.error("Re-encryption run {}: failed to process cards {}-{}", progress.runId, fromId, toId, e);
+            progress.retry.add(index);
+            if (!retry) {
+                progress.complete(index);
+            }
+        }
+    }
+
+    /**
+     * Re-encrypts the card numbers of the token vault in batches, with retry passes for entries that were locked.
+     *
+     * @return The number of vault entries left on an older key.
+     */
+    private int reencryptVault(RunProgress progress) throws InterruptedException {
+        String prefix = EncryptionUtil.versionPrefix(progress.targetVersion);
+        int batchSize = (int) rangeSize;
+        for (int attempt = 0; ; attempt++) {
+            // Каждый проход выбирает только записи на старом ключе, поэтому повтор начинается с начала
+            String after = "";
+            int locked;
+            do {
+                String fromToken = after;
+                TokenBatch batch = transactionTemplate.execute(status -> {
+                    List<TokenCiphertext> tokens = cardReencryptionJdbcRepository.lockTokensToReencrypt(fromToken, prefix, batchSize);
+                    List<TokenCiphertext> reencrypted = new ArrayList<>(tokens.size());
+                    for (TokenCiphertext token : tokens) {
+                        if (EncryptionUtil.keyVersion(token.encryptedPan()) < progress.targetVersion) {
+                            reencrypted.add(new TokenCiphertext(token.token(),
+                                    encryptionUtil.reencrypt(token.encryptedPan(), progress.targetVersion)));
+                        }
+                    }
+                    if (!reencrypted.isEmpty()) {
+                        cardReencryptionJdbcRepository.updateEncryptedPans(reencrypted);
+                    }
+                    return new TokenBatch(tokens.isEmpty() ? fromToken : tokens.get(tokens.size() - 1).token(),
+                            tokens.size(), reencrypted.size());
+                });
+                if (batch.reencrypted() > 0) {
+                    cardsCounter.increment(batch.reencrypted());
+                    transactionTemplate.execute(status -> {
+                        cardReencryptionJdbcRepository.addProgress(progress.runId, batch.reencrypted(), progress.checkpoint());
+                        return null;
+                    });
+                    if (progress.throttle != null) {
+                        progress.throttle.acquire(batch.reencrypted());
+                    }
+                }
+                after = batch.lastToken();
+                locked = batch.locked();
+            } while (locked == batchSize);
+
+            Integer remaining = transactionTemplate.execute(status -> cardReencryptionJdbcRepository.countTokensToReencrypt(prefix));
+            int left = remaining != null ? remaining : 0;
+            if (left == 0 || attempt >= retryAttempts) {
+                return left;
+            }
+            TimeUnit.MILLISECONDS.sleep(retryDelayMs);
+        }
+    }
+
+    private static ReencryptionRunResponseDto toDto(RunRow run) {
+        double percent = run.totalRanges() == 0 ? 100.0 : run.checkpointRange() * 100.0 / run.totalRanges();
+        LocalDateTime end = run.finishedAt() != null ? run.finishedAt() : run.updatedAt();
+        double seconds = Duration.between(run.startedAt(), end).toMillis() / 1000.0;
+        double throughput = seconds > 0 ? run.cardsReencrypted() / seconds : 0;
+        return new ReencryptionRunResponseDto(run.id(), run.status(), run.targetVersion(), run.triggeredBy(),
+                run.totalRanges(), run.checkpointRange(), percent, run.cardsReencrypted(), run.cardsSkipped(),
+                throughput, run.startedAt(), run.finishedAt());
+    }
+
+    /**
+     * Paces all workers of a run to a fixed number of cards per second.
+     */
+    private static final class Throttle {
+
+        private final long nanosPerCard;
+        private long nextFreeNanos = System.nanoTime();
+
+        Throttle(int cardsPerSecond) {
+            this.nanosPerCard = TimeUnit.SECONDS.toNanos(1) / cardsPerSecond;
+        }
+
+        void acquire(int cards) throws InterruptedException {
+            long wakeUp;
+            synchronized (this) {
+                long now = System.nanoTime();
+                // Простой накапливается не больше чем на секунду вперед
+                nextFreeNanos = Math.max(nextFreeNanos, now - TimeUnit.SECONDS.toNanos(1)) + cards * nanosPerCard;
+                wakeUp = nextFreeNanos;
+            }
+            long delay = wakeUp - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * The result of one vault batch: where the next batch starts, how many entries were locked and re-encrypted.
+     */
+    private record TokenBatch(String lastToken, int locked, int reencrypted) {
+    }
+
+    private static final class RunProgress {
+
+        private final Long runId;
+        private final int targetVersion;
+        private final long minCardId;
+        private final int totalRanges;
+        private final Throttle throttle;
+        private final AtomicInteger next;
+        private final BitSet done = new BitSet();
+        private final Queue<Integer> retry = new ConcurrentLinkedQueue<>();
+        private int checkpoint;
+
+        RunProgress(Long runId, int targetVersion, long minCardId, int totalRanges, int checkpoint, Throttle throttle) {
+            this.runId = runId;
+            this.targetVersion = targetVersion;
+            this.minCardId = minCardId;
+            this.totalRanges = totalRanges;
+            this.throttle = throttle;
+            this.next = new AtomicInteger(checkpoint);
+            this.checkpoint = checkpoint;
+        }
+
+        /**
+         * Marks a range as processed and returns the new checkpoint.
+         */
+        synchronized int complete(int index) {
+            done.set(index);
+            while (done.get(checkpoint)) {
+                checkpoint++;
+            }
+            return checkpoint;
+        }
+
+        synchronized int checkpoint() {
+            return checkpoint;
+        }
+
+        synchronized double fraction() {
+            return totalRanges == 0 ? 1.0 : (double) checkpoint / totalRanges;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.bankcards.service.encryption;
+
+import com.example.bankcards.exception.encryption.KeyRotationConflictException;
+import com.example.bankcards.model.dto.encryption.DataKeyResponseDto;
+import com.example.bankcards.repository.DataKeyJdbcRepository;
+import com.example.bankcards.repository.DataKeyJdbcRepository.DataKeyRow;
+import com.example.bankcards.util.EncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for the versioned data-encryption keys of {@link EncryptionUtil}.
+ * Every instance polls {@code t_data_keys} and installs the keys it finds. A rotated key becomes active only
+ * {@code app.encryption.activation-delay-seconds} after it is created, so every instance has loaded it for
+ * decryption before any instance encrypts with it; the delay must be longer than the refresh interval.
+ * Card numbers encrypted with older keys are moved to the active key by {@link CardReencryptionService}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DataKeyService {
+
+    private static final int DATA_KEY_LENGTH = 32;
+
+    private final DataKeyJdbcRepository dataKeyJdbcRepository;
+    private final EncryptionUtil encryptionUtil;
+    private final SecureRandom keyGenerator = new SecureRandom();
+
+    // Развернутые ключи по версии: мастер-ключ применяется к каждому ключу один раз
+    private final Map<Integer, byte[]> unwrapped = new ConcurrentHashMap<>();
+
+    /**
+     * Time a rotated key only decrypts before new data is encrypted with it.
+     */
+    @Value("${app.encryption.activation-delay-seconds:120}")
+    private long activationDelaySeconds;
+
+    /**
+     * Periodically loads new keys and switches to the newest active one, starting at application startup.
+     * Until the first refresh, data is encrypted with the legacy key, which every instance can decrypt.
+     */
+    @Scheduled(fixedDelayString = "${app.encryption.key-refresh-interval-ms:30000}")
+    public synchronized void refresh() {
+        List<DataKeyRow> rows;
+        try {
+            rows = dataKeyJdbcRepository.findAll();
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh data keys, keeping key version {}: {}", encryptionUtil.getActiveKeyVersion(), e.getMessage());
+            return;
+        }
+        int active = EncryptionUtil.LEGACY_KEY_VERSION;
+        boolean added = false;
+        for (DataKeyRow row : rows) {
+            if (!unwrapped.containsKey(row.version())) {
+                unwrapped.put(row.version(), encryptionUtil.unwrapKey(row.wrappedKey()));
+                added = true;
+            }
+            if (row.active()) {
+                active = Math.max(active, row.version());
+            }
+        }
+        if (added || active != encryptionUtil.getActiveKeyVersion()) {
+            encryptionUtil.installDataKeys(new HashMap<>(unwrapped), active);
+            log.info("Installed data keys {}, encrypting with version {}", unwrapped.keySet(), active);
+        }
+    }
+
+    /**
+     * Generates a new data key, stores it wrapped with the master key and loads it.
+     * New data is encrypted with it once its activation time has passed.
+     *
+     * @param adminUsername The administrator rotating the key.
+     * @return The new key.
+     * @throws KeyRotationConflictException if another rotation stored a key at the same time.
+     */
+    public DataKeyResponseDto rotate(String adminUsername) {
+        byte[] dataKey = new byte[DATA_KEY_LENGTH];
+        keyGenerator.nextBytes(dataKey);
+        int version;
+        try {
+            version = dataKeyJdbcRepository.insertNext(encryptionUtil.wrapKey(dataKey), adminUsername, activationDelaySeconds);
+        } catch (DuplicateKeyException e) {
+            throw new KeyRotationConflictException("Another key rotation is in progress.", e);
+        }
+        log.info("Data key version {} created by {}, active in {} s", version, adminUsername, activationDelaySeconds);
+        refresh();
+        return getKeys().stream()
+                .filter(key -> key.getVersion() == version)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Returns every data key, oldest first, without the key material.
+     *
+     * @return The keys.
+     */
+    public List<DataKeyResponseDto> getKeys() {
+        int current = encryptionUtil.getActiveKeyVersion();
+        return dataKeyJdbcRepository.findAll().stream()
+                .map(row -> new DataKeyResponseDto(row.version(), row.createdBy(), row.createdAt(), row.activeFrom(),
+                        row.version() == current))
+                .toList();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.service.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * File formats supported by history exports.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    /**
+     * Comma-separated values with a header row (RFC 4180 quoting).
+     */
+    CSV("text/csv", "csv"),
+    /**
+     * Newline-delimited JSON: one object per line.
+     */
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String mediaType;
+    private final String extension;
+}
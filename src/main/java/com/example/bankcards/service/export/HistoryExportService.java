@@ -0,0 +1,242 @@
+package com.example.bankcards.service.export;
+
+import com.example.bankcards.exception.export.InvalidExportRangeException;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.HistoryExportJdbcRepository;
+import com.example.bankcards.repository.HistoryExportJdbcRepository.CardRef;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.util.CardMaskingUtil;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service for streaming exports of a user's transfer and transaction history.
+ * Rows are read through a JDBC cursor and written to the response as they arrive, so an export holds
+ * one row in memory regardless of the size of the history. Card numbers are masked from their stored display fields.
+ * Validation and ownership lookups happen before the response is committed; the returned body then runs in
+ * its own read-only transaction on the async request thread.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class HistoryExportService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String[] TRANSFER_COLUMNS =
+            {"id", "fromCardId", "fromCardNumber", "toCardId", "toCardNumber", "amount", "status", "transferDate"};
+
+    private static final String[] TRANSACTION_COLUMNS =
+            {"id", "accountId", "cardId", "cardNumber", "amount", "type", "transactionDate", "description", "status"};
+
+    private final CardRepository cardRepository;
+    private final AccountRepository accountRepository;
+    private final HistoryExportJdbcRepository historyExportJdbcRepository;
+    private final CardEncryptionService cardEncryptionService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Prepares an export of the transfers initiated by or received by the user's cards, oldest first.
+     *
+     * @param username The username of the user.
+     * @param format The output format.
+     * @param from The first day to include, or {@code null} for no lower bound.
+     * @param to The last day to include, or {@code null} for no upper bound.
+     * @param gzip Whether to gzip the output.
+     * @return A body that streams the export when written.
+     * @throws InvalidExportRangeException if {@code from} is after {@code to}.
+     */
+    public StreamingResponseBody exportTransfers(String username, ExportFormat format, LocalDate from, LocalDate to, boolean gzip) {
+        LocalDateTime start = start(from, to);
+        LocalDateTime end = end(to);
+        List<Long> cardIds = cardRepository.findIdsByUserUsername(username);
+        return out -> stream(out, format, gzip, TRANSFER_COLUMNS, sink -> {
+            if (cardIds.isEmpty()) {
+                return;
+            }
+            Map<Long, String> masks = new HashMap<>();
+            historyExportJdbcRepository.streamTransfers(cardIds, start, end, row -> sink.accept(new Object[]{
+                    row.id(), row.fromCard().id(), mask(masks, row.fromCard()),
+                    row.toCard().id(), mask(masks, row.toCard()),
+                    row.amount(), row.status(), row.transferDate()}));
+        });
+    }
+
+    /**
+     * Prepares an export of the transactions on the user's accounts, oldest first.
+     *
+     * @param username The username of the user.
+     * @param format The output format.
+     * @param from The first day to include, or {@code null} for no lower bound.
+     * @param to The last day to include, or {@code null} for no upper bound.
+     * @param gzip Whether to gzip the output.
+     * @return A body that streams the export when written.
+     * @throws InvalidExportRangeException if {@code from} is after {@code to}.
+     */
+    public StreamingResponseBody exportTransactions(String username, ExportFormat format, LocalDate from, LocalDate to, boolean gzip) {
+        LocalDateTime start = start(from, to);
+        LocalDateTime end = end(to);
+        List<Long> accountIds = accountRepository.findIdsByUserUsername(username);
+        return out -> stream(out, format, gzip, TRANSACTION_COLUMNS, sink -> {
+            if (accountIds.isEmpty()) {
+                return;
+            }
+            Map<Long, String> masks = new HashMap<>();
+            historyExportJdbcRepository.streamTransactions(accountIds, start, end, row -> sink.accept(new Object[]{
+                    row.id(), row.accountId(),
+                    row.card() == null ? null : row.card().id(),
+                    row.card() == null ? null : mask(masks, row.card()),
+                    row.amount(), row.type(), row.transactionDate(), row.description(), row.status()}));
+        });
+    }
+
+    private void stream(OutputStream out, ExportFormat format, boolean gzip, String[] columns,
+                        Consumer<Consumer<Object[]>> rows) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+        RowWriter writer = format == ExportFormat.NDJSON ? new NdjsonWriter(JSON_FACTORY, target, columns) : new CsvWriter(target, columns);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        try {
+            readOnly.executeWithoutResult(status -> rows.accept(values -> {
+                try {
+                    writer.write(values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            // клиент оборвал соединение: курсор уже закрыт откатом транзакции
+            log.debug("History export aborted: {}", e.getMessage());
+            throw e.getCause();
+        }
+        writer.finish();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+    }
+
+    private String mask(Map<Long, String> masks, CardRef card) {
+        if (card.firstDigits() != null && card.lastDigits() != null) {
+            return CardMaskingUtil.maskCardNumber(card.firstDigits(), card.lastDigits());
+        }
+        // карта ещё не прошла backfill: расшифровываем её один раз за выгрузку, а не на каждой строке
+        return masks.computeIfAbsent(card.id(), id -> cardEncryptionService.getMaskedCardNumber(card.cardNumber()));
+    }
+
+    private static LocalDateTime start(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidExportRangeException("'from' must not be after 'to'.");
+        }
+        return from != null ? from.atStartOfDay() : LocalDate.EPOCH.atStartOfDay();
+    }
+
+    private static LocalDateTime end(LocalDate to) {
+        return to != null ? to.plusDays(1).atStartOfDay() : LocalDate.now().plusDays(1).atStartOfDay();
+    }
+
+    private interface RowWriter {
+        void write(Object[] values) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out, String[] columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            write(columns);
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] instanceof BigDecimal amount) {
+                    writer.write(amount.toPlainString());
+                } else if (values[i] != null) {
+                    writer.write(escape(values[i].toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private final String[] columns;
+
+        NdjsonWriter(JsonFactory jsonFactory, OutputStream out, String[] columns) throws IOException {
+            this.generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // строки разделяем переводом строки сами, без пробела между корневыми объектами
+            this.generator.setRootValueSeparator(null);
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    generator.writeNullField(columns[i]);
+                } else if (value instanceof BigDecimal amount) {
+                    generator.writeNumberField(columns[i], amount);
+                } else if (value instanceof Long number) {
+                    generator.writeNumberField(columns[i], number);
+                } else {
+                    generator.writeStringField(columns[i], value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -4,20 +4,32 @@ import com.example.bankcards.exception.account.AccountNotFoundException;
 import com.example.bankcards.exception.dto.ForbiddenException;
 import com.example.bankcards.model.dto.fee.ServiceFeeResponseDto;
 import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
 import com.example.bankcards.model.entity.ServiceFee;
 import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.enums.Currency;
 import com.example.bankcards.model.entity.enums.FeeType;
+import com.example.bankcards.model.entity.enums.LedgerBook;
+import com.example.bankcards.model.entity.enums.MovementType;
 import com.example.bankcards.model.entity.enums.NotificationType;
 import com.example.bankcards.model.entity.enums.TransferStatus;
 import com.example.bankcards.model.entity.enums.TransactionType;
 import com.example.bankcards.repository.AccountRepository;
 import com.example.bankcards.repository.ServiceFeeRepository;
 import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.ledger.LedgerService.Leg;
+import com.example.bankcards.service.ledger.LedgerService.Movement;
 import com.example.bankcards.service.notification.NotificationService;
 import com.example.bankcards.util.mapper.ServiceFeeMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -27,6 +39,11 @@ import java.util.stream.Collectors;
 
 /**
  * Service class for managing service fees and charging them to accounts.
+ * The fee collection account is always credited through its balance buckets
+ * ({@link AccountBalanceService#creditBucket}) and never locked, whether or not it is marked bucketed: fees are
+ * collected inside transfers that already hold card and account locks in ascending ID order, and locking the
+ * collection account after them, whatever its ID, could deadlock. The buckets are folded into its balance
+ * by the periodic compaction.
  */
 @Service
 @RequiredArgsConstructor
@@ -39,6 +56,16 @@ public class ServiceFeeService {
     private final TransactionRepository transactionRepository;
     private final ServiceFeeMapper serviceFeeMapper;
     private final NotificationService notificationService;
+    private final AccountBalanceService accountBalanceService;
+    private final SpendingAnalyticsService spendingAnalyticsService;
+    private final LedgerService ledgerService;
+    private final FxRateService fxRateService;
+
+    /**
+     * Account that collects paid fees; if not set, fees are only debited.
+     */
+    @Value("${app.fees.collection-account-id:#{null}}")
+    private Long feeCollectionAccountId;
 
     /**
      * Retrieves all fees associated with the authenticated user's accounts.
@@ -62,7 +89,8 @@ public class ServiceFeeService {
      */
     @Transactional
     public ServiceFee chargeFee(Long accountId, BigDecimal amount, FeeType feeType) {
-        Account account = accountRepository.findById(accountId)
+        // Счет блокируется сразу: немедленное списание меняет его баланс
+        Account account = accountRepository.findByIdForUpdate(accountId)
                 .orElseThrow(() -> new AccountNotFoundException("Account not found with ID: " + accountId));
 
         ServiceFee fee = new ServiceFee();
@@ -92,9 +120,100 @@ public class ServiceFeeService {
     }
 
     /**
-     * Processes the payment for a specific fee, debiting the account balance.
+     * Converts a fee to the currency of the fee collection account, without moving any money.
+     * Used to fail an operation that carries a fee before any balance is touched.
+     *
+     * @param amount The fee in the payer's currency.
+     * @param currency The payer's currency.
+     * @return The fee in the currency of the collection account, or {@code null} if no conversion is needed
+     *         (no collection account is configured or it is in the payer's currency).
+     * @throws com.example.bankcards.exception.fx.FxRateUnavailableException if there is no up-to-date rate.
+     * @throws AccountNotFoundException if the configured collection account does not exist.
+     *                                  Neither exception marks the caller's transaction rollback-only.
+     */
+    @Transactional(readOnly = true, noRollbackFor = RuntimeException.class)
+    public BigDecimal convertToCollectionCurrency(BigDecimal amount, Currency currency) {
+        if (feeCollectionAccountId == null) {
+            return null;
+        }
+        Currency collectionCurrency = accountRepository.findById(feeCollectionAccountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found with ID: " + feeCollectionAccountId))
+                .getCurrency();
+        return collectionCurrency == currency ? null : fxRateService.convert(amount, currency, collectionCurrency).amount();
+    }
+
+    /**
+     * Books a fee the caller has already debited from a card and its account as part of a transfer, within the
+     * caller's transaction: credits the fee collection account (or the fee income book), posts the journal
+     * movement on the card and records a paid fee and a {@code FEE} transaction.
+     * An exception thrown by this method does not mark the caller's transaction rollback-only.
+     *
+     * @param account The account the fee was debited from.
+     * @param card The card the fee was debited from.
+     * @param amount The fee in the currency of the account.
+     * @param converted The fee in the currency of the collection account, or {@code null} if it needs no conversion;
+     *                  see {@link #convertToCollectionCurrency(BigDecimal, Currency)}.
+     * @param feeType The type of fee.
+     * @param transferId The transfer the fee was charged for.
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public void collectTransferFee(Account account, Card card, BigDecimal amount, BigDecimal converted, FeeType feeType,
+                                   Long transferId) {
+        ServiceFee fee = new ServiceFee();
+        fee.setAccount(account);
+        fee.setAmount(amount);
+        fee.setFeeType(feeType);
+        fee.setDateCharged(LocalDateTime.now());
+        fee.setIsPaid(true);
+        serviceFeeRepository.save(fee);
+
+        Leg payer = Leg.customer(account, card);
+        if (feeCollectionAccountId != null) {
+            // Счет сбора не блокируется: его ID может нарушить порядок блокировок перевода
+            accountBalanceService.creditBucket(feeCollectionAccountId, converted != null ? converted : amount);
+            ledgerService.post(Movement.exchange(MovementType.FEE, payer, amount, Leg.customer(feeCollectionAccountId),
+                    converted, transferId));
+        } else {
+            ledgerService.post(List.of(new Movement(MovementType.FEE, payer, Leg.book(LedgerBook.FEE_INCOME), amount, transferId)));
+        }
+        recordFeeTransaction(account, card, amount, feeType);
+        log.info("Fee of {} for transfer {} collected from account {} (Type: {})", amount, transferId, account.getId(), feeType);
+    }
+
+    /**
+     * Takes back a fee collected by {@link #collectTransferFee} when its transfer is reversed, within the caller's
+     * transaction. The caller credits the card and its account; this method debits the collection account
+     * (or the fee income book) by the amount it received and posts the journal movement.
+     *
+     * @param account The account the fee is returned to.
+     * @param card The card the fee is returned to.
+     * @param amount The fee in the currency of the account.
+     * @param converted The fee in the currency of the collection account as it was collected, or {@code null}
+     *                  if it was not converted.
+     * @param transferId The reversed transfer.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refundTransferFee(Account account, Card card, BigDecimal amount, BigDecimal converted, Long transferId) {
+        Leg payer = Leg.customer(account, card);
+        if (feeCollectionAccountId != null) {
+            BigDecimal collected = converted != null ? converted : amount;
+            // Как и при сборе, горячий счет не блокируется: возврат проводится отрицательным зачислением в бакет
+            accountBalanceService.creditBucket(feeCollectionAccountId, collected.negate());
+            ledgerService.post(Movement.exchange(MovementType.REVERSAL, Leg.customer(feeCollectionAccountId), collected,
+                    payer, converted != null ? amount : null, transferId));
+        } else {
+            ledgerService.post(List.of(new Movement(MovementType.REVERSAL, Leg.book(LedgerBook.FEE_INCOME), payer, amount, transferId)));
+        }
+        log.info("Fee of {} for transfer {} returned to account {}", amount, transferId, account.getId());
+    }
+
+    /**
+     * Processes the payment for a specific fee, debiting the account balance and crediting the fee collection
+     * account, converted to its currency if needed.
      *
      * @param fee The ServiceFee entity to process.
+     * @throws com.example.bankcards.exception.fx.FxRateUnavailableException if the fee has to be converted and there
+     *                                                                        is no up-to-date rate; nothing is debited.
      */
     @Transactional
     public void processFeePayment(ServiceFee fee) {
@@ -104,14 +223,30 @@ public class ServiceFeeService {
 
         Account account = fee.getAccount();
         BigDecimal amount = fee.getAmount();
+        // Зачисления на горячий счет лежат в бакетах: до проверки и списания они сворачиваются в баланс под блокировкой
+        accountRepository.findByIdForUpdate(account.getId());
+        accountBalanceService.foldBuckets(account);
 
         if (account.getBalance().compareTo(amount) >= 0) {
+            // Комиссия в валюте счета плательщика; счет сбора может быть в другой — курс берется до списания
+            BigDecimal converted = convertToCollectionCurrency(amount, account.getCurrency());
+
             // 1. Списание с баланса счета
             account.setBalance(account.getBalance().subtract(amount));
             accountRepository.save(account);
 
+            // 1a. Зачисление на счет сбора комиссий — в бакет, без блокировки, как в collectTransferFee
+            Leg payer = Leg.customer(account, null);
+            if (feeCollectionAccountId != null) {
+                accountBalanceService.creditBucket(feeCollectionAccountId, converted != null ? converted : amount);
+                ledgerService.post(Movement.exchange(MovementType.FEE, payer, amount, Leg.customer(feeCollectionAccountId),
+                        converted, null));
+            } else {
+                ledgerService.post(List.of(Movement.of(MovementType.FEE, payer, Leg.book(LedgerBook.FEE_INCOME), amount)));
+            }
+
             // 2. Запись детальной транзакции
-            recordFeeTransaction(account, amount, fee.getFeeType());
+            recordFeeTransaction(account, null, amount, fee.getFeeType());
 
             // 3. Обновление статуса комиссии
             fee.setIsPaid(true);
@@ -141,16 +276,16 @@ public class ServiceFeeService {
     /**
      * Helper method to record the fee transaction.
      */
-    private void recordFeeTransaction(Account account, BigDecimal amount, FeeType feeType) {
+    private void recordFeeTransaction(Account account, Card card, BigDecimal amount, FeeType feeType) {
         Transaction transaction = new Transaction();
         transaction.setAccount(account);
-        transaction.setCard(null); // Комиссия обычно не привязана к конкретной карте
+        transaction.setCard(card); // Комиссия обычно не привязана к конкретной карте, кроме комиссии за перевод
         transaction.setAmount(amount);
         transaction.setType(TransactionType.FEE);
         transaction.setTransactionDate(LocalDateTime.now());
         transaction.setDescription("Service Fee: " + feeType.name());
         transaction.setStatus(TransferStatus.SUCCESS);
-        transactionRepository.save(transaction);
+        spendingAnalyticsService.record(List.of(transactionRepository.save(transaction)));
     }
 
     /**
@@ -0,0 +1,466 @@
+package com.example.bankcards.service.fraud;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory fraud screening of outgoing transfers.
+ * Scores a transfer without any database query, from state kept per source card and per sender:
+ * <ul>
+ *     <li>sliding-window counters of the card's transfers in the last minute and hour (ring buffers of
+ *     one-second and one-minute buckets) and the distinct recipients it paid within the hour;</li>
+ *     <li>streaming statistics of the sender's transfer amounts (Welford's running mean and variance),
+ *     from which the z-score of the new amount is computed.</li>
+ * </ul>
+ * Velocity rules reject a transfer; a burst of new recipients or an anomalous amount holds it for review.
+ * Scoring does not change the state: the caller {@linkplain #record records} a transfer once it has been executed
+ * or held, and the state is updated only after the caller's transaction commits. So a transfer retried after
+ * a deadlock or re-applied after a failed group commit counts once, and one rolled back by a later check
+ * (insufficient funds, a spending limit) does not count at all. Until then, transfers recorded in a transaction count
+ * towards the velocity and recipient rules of later transfers scored in the same transaction (a batch chunk,
+ * a group commit). Executed and held transfers count towards velocity, while only executed amounts update
+ * the statistics.
+ * The state is local to the instance and lost on restart, so the rules are a first line of defence rather than
+ * a guarantee.
+ * State of cards idle for an hour and of senders idle for {@code app.fraud.stats-ttl-hours} is evicted periodically.
+ * <p>
+ * Metrics: {@code transfer.risk.decisions} (tagged by {@code action}) and {@code transfer.risk.duration}.
+ */
+@Service
+@Slf4j
+public class TransferRiskService {
+
+    private static final int WINDOW_BUCKETS = 60;
+
+    private final ConcurrentHashMap<Long, CardActivity> cards = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AmountStats> senders = new ConcurrentHashMap<>();
+    private final Counter allowedCounter;
+    private final Counter heldCounter;
+    private final Counter rejectedCounter;
+    private final Timer durationTimer;
+
+    /**
+     * Whether transfers are screened at all.
+     */
+    @Value("${app.fraud.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Transfers from one card within a minute above which further transfers are rejected.
+     */
+    @Value("${app.fraud.max-transfers-per-card-per-minute:10}")
+    private int maxPerMinute;
+
+    /**
+     * Transfers from one card within an hour above which further transfers are rejected.
+     */
+    @Value("${app.fraud.max-transfers-per-card-per-hour:100}")
+    private int maxPerHour;
+
+    /**
+     * Distinct recipients of one card within an hour above which further transfers are held.
+     */
+    @Value("${app.fraud.max-distinct-recipients-per-hour:20}")
+    private int maxDistinctRecipients;
+
+    /**
+     * Z-score of the amount against the sender's history above which a transfer is held.
+     */
+    @Value("${app.fraud.z-score-threshold:4.0}")
+    private double zScoreThreshold;
+
+    /**
+     * Number of previous transfers of the sender needed before amounts are scored.
+     */
+    @Value("${app.fraud.min-samples:20}")
+    private long minSamples;
+
+    /**
+     * Amount statistics of senders without transfers for this long are dropped.
+     */
+    @Value("${app.fraud.stats-ttl-hours:72}")
+    private long statsTtlHours;
+
+    public TransferRiskService(MeterRegistry meterRegistry) {
+        this.allowedCounter = decisionCounter(meterRegistry, Action.ALLOW);
+        this.heldCounter = decisionCounter(meterRegistry, Action.HOLD);
+        this.rejectedCounter = decisionCounter(meterRegistry, Action.REJECT);
+        this.durationTimer = Timer.builder("transfer.risk.duration")
+                .description("Time spent scoring a transfer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scores a transfer against the activity recorded so far, including transfers recorded earlier in the current
+     * transaction, without recording it.
+     *
+     * @param fromCardId The ID of the source card.
+     * @param toCardId The ID of the destination card.
+     * @param senderId The ID of the user who owns the source card.
+     * @param amount The amount of the transfer in BYN, so that the sender's statistics do not mix currencies.
+     * @return The decision; {@link RiskDecision#ALLOW} if screening is disabled.
+     */
+    public RiskDecision assess(long fromCardId, long toCardId, long senderId, BigDecimal amount) {
+        if (!enabled) {
+            return RiskDecision.ALLOW;
+        }
+        long start = System.nanoTime();
+        RiskDecision decision = assess(fromCardId, toCardId, senderId, amount.doubleValue(), nowSeconds(), pendingRecords(false));
+        durationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        switch (decision.action()) {
+            case ALLOW -> allowedCounter.increment();
+            case HOLD -> heldCounter.increment();
+            case REJECT -> rejectedCounter.increment();
+        }
+        return decision;
+    }
+
+    /**
+     * Records a screened transfer that was executed or held: after the current transaction commits if one is active,
+     * otherwise immediately. A transfer that is rolled back is never recorded; until the commit, it counts only
+     * for transfers scored later in the same transaction.
+     *
+     * @param fromCardId The ID of the source card.
+     * @param toCardId The ID of the destination card.
+     * @param senderId The ID of the user who owns the source card.
+     * @param amount The amount of the transfer in BYN, as passed to {@link #assess(long, long, long, BigDecimal)}.
+     * @param decision The decision the transfer was screened with; only executed amounts update the statistics.
+     */
+    public void record(long fromCardId, long toCardId, long senderId, BigDecimal amount, RiskDecision decision) {
+        if (!enabled) {
+            return;
+        }
+        double value = amount.doubleValue();
+        boolean executed = decision.action() == Action.ALLOW;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingRecords(true).add(new PendingRecord(fromCardId, toCardId, senderId, value, executed));
+        } else {
+            record(fromCardId, toCardId, senderId, value, executed, nowSeconds());
+        }
+    }
+
+    RiskDecision assess(long fromCardId, long toCardId, long senderId, double amount, long nowSeconds) {
+        return assess(fromCardId, toCardId, senderId, amount, nowSeconds, List.of());
+    }
+
+    RiskDecision assess(long fromCardId, long toCardId, long senderId, double amount, long nowSeconds,
+                        List<PendingRecord> pending) {
+        // Оцениваемый перевод и переводы этой же транзакции еще не записаны, поэтому учитываем их сверх накопленного
+        int pendingCount = 0;
+        Set<Long> pendingRecipients = null;
+        for (PendingRecord record : pending) {
+            if (record.fromCardId() == fromCardId) {
+                pendingCount++;
+                if (record.toCardId() != toCardId) {
+                    if (pendingRecipients == null) {
+                        pendingRecipients = new HashSet<>();
+                    }
+                    pendingRecipients.add(record.toCardId());
+                }
+            }
+        }
+        CardActivity activity = cards.get(fromCardId);
+        int lastMinute = 1 + pendingCount;
+        int lastHour = 1 + pendingCount;
+        int recipients = 1 + (pendingRecipients != null ? pendingRecipients.size() : 0);
+        if (activity != null) {
+            synchronized (activity) {
+                lastMinute += activity.lastMinute(nowSeconds);
+                lastHour += activity.lastHour(nowSeconds);
+                recipients = activity.recipientsWith(nowSeconds, toCardId);
+                if (pendingRecipients != null) {
+                    for (long recipientId : pendingRecipients) {
+                        if (!activity.paidRecently(nowSeconds, recipientId)) {
+                            recipients++;
+                        }
+                    }
+                }
+            }
+        }
+        if (lastMinute > maxPerMinute) {
+            return RiskDecision.reject(lastMinute + " transfers from the card within a minute");
+        }
+        if (lastHour > maxPerHour) {
+            return RiskDecision.reject(lastHour + " transfers from the card within an hour");
+        }
+        if (recipients > maxDistinctRecipients) {
+            return RiskDecision.hold("Transfers to " + recipients + " recipients within an hour");
+        }
+
+        AmountStats stats = senders.get(senderId);
+        if (stats != null) {
+            synchronized (stats) {
+                if (stats.count >= minSamples) {
+                    double zScore = stats.zScore(amount);
+                    if (zScore > zScoreThreshold) {
+                        return RiskDecision.hold(String.format("Amount is %.1f standard deviations above the sender's usual transfers", zScore));
+                    }
+                }
+            }
+        }
+        return RiskDecision.ALLOW;
+    }
+
+    void record(long fromCardId, long toCardId, long senderId, double amount, boolean executed, long nowSeconds) {
+        CardActivity activity = cards.computeIfAbsent(fromCardId, id -> new CardActivity(maxDistinctRecipients + 1));
+        synchronized (activity) {
+            activity.record(nowSeconds, toCardId);
+        }
+        AmountStats stats = senders.computeIfAbsent(senderId, id -> new AmountStats());
+        synchronized (stats) {
+            if (executed) {
+                stats.add(amount, nowSeconds);
+            } else {
+                // Задержанная сумма не сдвигает статистику, но отправитель остается активным
+                stats.lastSeen = nowSeconds;
+            }
+        }
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    // Записи текущей транзакции; при create регистрируются в ней, если еще не были
+    private List<PendingRecord> pendingRecords(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return List.of();
+        }
+        PendingRecords pending = (PendingRecords) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            if (!create) {
+                return List.of();
+            }
+            pending = new PendingRecords();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending.records;
+    }
+
+    /**
+     * Periodically drops the state of idle cards and senders, keeping memory proportional to recent activity.
+     */
+    @Scheduled(fixedDelayString = "${app.fraud.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        evictIdle(nowSeconds());
+    }
+
+    void evictIdle(long nowSeconds) {
+        // Окна карт покрывают один час — более старое состояние уже ни на что не влияет
+        cards.values().removeIf(activity -> activity.idleSince(nowSeconds) >= 3600);
+        long statsTtlSeconds = TimeUnit.HOURS.toSeconds(statsTtlHours);
+        senders.values().removeIf(stats -> stats.idleSince(nowSeconds) >= statsTtlSeconds);
+        log.debug("Fraud screening state: {} cards, {} senders", cards.size(), senders.size());
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, Action action) {
+        return Counter.builder("transfer.risk.decisions")
+                .description("Fraud screening decisions")
+                .tag("action", action.name())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Transfers of one card: per-second buckets for the last minute, per-minute buckets for the last hour
+     * and the last time each recipient was paid. Guarded by its own monitor.
+     */
+    private static final class CardActivity {
+
+        private final int[] secondCounts = new int[WINDOW_BUCKETS];
+        private final long[] secondStamps = new long[WINDOW_BUCKETS];
+        private final int[] minuteCounts = new int[WINDOW_BUCKETS];
+        private final long[] minuteStamps = new long[WINDOW_BUCKETS];
+        // Хранится не больше порога + 1 получателей: этого достаточно, чтобы узнать о превышении
+        private final long[] recipientIds;
+        private final long[] recipientSeen;
+        private int recipientCount;
+        private long lastSeen;
+
+        CardActivity(int recipientCapacity) {
+            this.recipientIds = new long[recipientCapacity];
+            this.recipientSeen = new long[recipientCapacity];
+        }
+
+        void record(long nowSeconds, long recipientId) {
+            lastSeen = nowSeconds;
+            increment(secondCounts, secondStamps, nowSeconds);
+            increment(minuteCounts, minuteStamps, nowSeconds / 60);
+
+            int stalest = -1;
+            for (int i = 0; i < recipientCount; i++) {
+                if (recipientIds[i] == recipientId) {
+                    recipientSeen[i] = nowSeconds;
+                    return;
+                }
+                if (stalest < 0 || recipientSeen[i] < recipientSeen[stalest]) {
+                    stalest = i;
+                }
+            }
+            if (recipientCount < recipientIds.length) {
+                stalest = recipientCount++;
+            } else if (nowSeconds - recipientSeen[stalest] < 3600) {
+                // Все места заняты получателями этого часа — порог уже превышен
+                return;
+            }
+            recipientIds[stalest] = recipientId;
+            recipientSeen[stalest] = nowSeconds;
+        }
+
+        int lastMinute(long nowSeconds) {
+            return sum(secondCounts, secondStamps, nowSeconds);
+        }
+
+        int lastHour(long nowSeconds) {
+            return sum(minuteCounts, minuteStamps, nowSeconds / 60);
+        }
+
+        /**
+         * Returns whether the recipient was paid within the last hour.
+         */
+        boolean paidRecently(long nowSeconds, long recipientId) {
+            for (int i = 0; i < recipientCount; i++) {
+                if (recipientIds[i] == recipientId && nowSeconds - recipientSeen[i] < 3600) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Counts the distinct recipients of the last hour, including the given one.
+         */
+        int recipientsWith(long nowSeconds, long recipientId) {
+            int count = 0;
+            boolean known = false;
+            for (int i = 0; i < recipientCount; i++) {
+                if (nowSeconds - recipientSeen[i] < 3600) {
+                    count++;
+                    known |= recipientIds[i] == recipientId;
+                }
+            }
+            return known ? count : count + 1;
+        }
+
+        synchronized long idleSince(long nowSeconds) {
+            return nowSeconds - lastSeen;
+        }
+
+        private static void increment(int[] counts, long[] stamps, long slot) {
+            int index = (int) Math.floorMod(slot, (long) WINDOW_BUCKETS);
+            if (stamps[index] != slot) {
+                stamps[index] = slot;
+                counts[index] = 0;
+            }
+            counts[index]++;
+        }
+
+        private static int sum(int[] counts, long[] stamps, long slot) {
+            int total = 0;
+            for (int i = 0; i < WINDOW_BUCKETS; i++) {
+                if (slot - stamps[i] < WINDOW_BUCKETS) {
+                    total += counts[i];
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * A transfer recorded in a transaction that has not committed yet.
+     */
+    record PendingRecord(long fromCardId, long toCardId, long senderId, double amount, boolean executed) {
+    }
+
+    /**
+     * The transfers recorded in one transaction; applied to the shared state after it commits and dropped otherwise.
+     */
+    private final class PendingRecords implements TransactionSynchronization {
+
+        private final List<PendingRecord> records = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            long nowSeconds = nowSeconds();
+            for (PendingRecord record : records) {
+                record(record.fromCardId(), record.toCardId(), record.senderId(), record.amount(), record.executed(), nowSeconds);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransferRiskService.this);
+        }
+    }
+
+    /**
+     * Running count, mean and sum of squared deviations of a sender's amounts (Welford's algorithm).
+     * Guarded by its own monitor.
+     */
+    private static final class AmountStats {
+
+        private long count;
+        private double mean;
+        private double m2;
+        private long lastSeen;
+
+        void add(double amount, long nowSeconds) {
+            count++;
+            double delta = amount - mean;
+            mean += delta / count;
+            m2 += delta * (amount - mean);
+            lastSeen = nowSeconds;
+        }
+
+        double zScore(double amount) {
+            // Нижняя граница отклонения: у отправителя с одинаковыми суммами любая другая сумма иначе была бы аномалией
+            double deviation = Math.max(Math.sqrt(m2 / (count - 1)), mean * 0.1);
+            return deviation > 0 ? (amount - mean) / deviation : 0;
+        }
+
+        synchronized long idleSince(long nowSeconds) {
+            return nowSeconds - lastSeen;
+        }
+    }
+
+    /**
+     * What to do with a screened transfer.
+     */
+    public enum Action {
+        ALLOW, HOLD, REJECT
+    }
+
+    /**
+     * The outcome of screening a transfer.
+     *
+     * @param action Whether the transfer is executed, held for review or rejected.
+     * @param reason Which rule triggered, or {@code null} for {@link Action#ALLOW}.
+     */
+    public record RiskDecision(Action action, String reason) {
+
+        public static final RiskDecision ALLOW = new RiskDecision(Action.ALLOW, null);
+
+        public static RiskDecision hold(String reason) {
+            return new RiskDecision(Action.HOLD, reason);
+        }
+
+        public static RiskDecision reject(String reason) {
+            return new RiskDecision(Action.REJECT, reason);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.service.fx;
+
+import com.example.bankcards.model.entity.enums.Currency;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads rates from a properties file ({@code USD=3.2500}, one line per currency, BYN per unit).
+ * A stand-in for offline environments and tests ({@code app.fx.source=file}); the file is re-read on every refresh.
+ */
+@Component
+@ConditionalOnProperty(name = "app.fx.source", havingValue = "file")
+public class FileFxRateSource implements FxRateSource {
+
+    private final Path file;
+
+    public FileFxRateSource(@Value("${app.fx.file}") Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public Map<Currency, BigDecimal> loadRates() {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read exchange rates from " + file, e);
+        }
+        Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+        for (String code : properties.stringPropertyNames()) {
+            rates.put(Currency.valueOf(code.trim()), new BigDecimal(properties.getProperty(code).trim()));
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.bankcards.service.fx;
+
+import com.example.bankcards.exception.fx.FxRateUnavailableException;
+import com.example.bankcards.model.dto.fx.FxRatesResponseDto;
+import com.example.bankcards.model.entity.enums.Currency;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Server-side cache of exchange rates.
+ * A scheduled loader polls the configured {@link FxRateSource} and publishes an immutable rate table with
+ * every cross rate precomputed, so a conversion on the transfer path is an array lookup and one multiplication,
+ * without any I/O or locking. A failed refresh keeps the previous table; a table older than
+ * {@code app.fx.max-age-hours} is no longer used, and cross-currency operations fail until rates are loaded again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FxRateService {
+
+    private static final int RATE_SCALE = 8;
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private final FxRateSource fxRateSource;
+
+    private volatile RateTable rateTable;
+
+    /**
+     * Age after which loaded rates are considered out of date.
+     */
+    @Value("${app.fx.max-age-hours:48}")
+    private long maxAgeHours;
+
+    /**
+     * Periodically reloads the rates from the source, starting at application startup.
+     */
+    @Scheduled(fixedDelayString = "${app.fx.refresh-interval-ms:3600000}")
+    public void refresh() {
+        refresh(Instant.now());
+    }
+
+    void refresh(Instant now) {
+        Map<Currency, BigDecimal> loaded;
+        try {
+            loaded = fxRateSource.loadRates();
+        } catch (RuntimeException e) {
+            RateTable current = rateTable;
+            log.warn("Failed to refresh exchange rates, keeping rates loaded at {}: {}",
+                    current != null ? current.loadedAt() : null, e.getMessage());
+            return;
+        }
+        rateTable = RateTable.of(loaded, now);
+        log.info("Loaded exchange rates: {}", loaded);
+    }
+
+    /**
+     * Converts an amount between currencies at the cached rate, rounding half-even to cents.
+     *
+     * @param amount The amount in {@code from}.
+     * @param from The currency of the amount.
+     * @param to The target currency.
+     * @return The converted amount and the applied rate; the amount itself and a rate of one if the currencies match.
+     * @throws FxRateUnavailableException if the rate is missing or out of date.
+     */
+    public Conversion convert(BigDecimal amount, Currency from, Currency to) {
+        BigDecimal rate = getRate(from, to);
+        return new Conversion(amount.multiply(rate).setScale(2, RoundingMode.HALF_EVEN), rate);
+    }
+
+    /**
+     * Converts an amount to {@link Currency#BYN}, the currency user-level limits, totals and statistics are kept in.
+     *
+     * @param amount The amount in {@code from}.
+     * @param from The currency of the amount.
+     * @return The amount in BYN, rounded half-even to cents; the amount itself if it already is in BYN.
+     * @throws FxRateUnavailableException if the rate is missing or out of date.
+     */
+    public BigDecimal toBaseCurrency(BigDecimal amount, Currency from) {
+        return from == Currency.BYN ? amount : convert(amount, from, Currency.BYN).amount();
+    }
+
+    /**
+     * Returns the cached cross rate between two currencies.
+     *
+     * @param from The source currency.
+     * @param to The target currency.
+     * @return Units of {@code to} per unit of {@code from}.
+     * @throws FxRateUnavailableException if the rate is missing or out of date.
+     */
+    public BigDecimal getRate(Currency from, Currency to) {
+        if (from == to) {
+            return BigDecimal.ONE;
+        }
+        BigDecimal rate = currentTable().cross()[from.ordinal()][to.ordinal()];
+        if (rate == null) {
+            throw new FxRateUnavailableException("No exchange rate for " + from + "/" + to);
+        }
+        return rate;
+    }
+
+    /**
+     * Returns the cached official rates against {@link Currency#BYN}.
+     *
+     * @return The rates and the time they were loaded.
+     * @throws FxRateUnavailableException if no up-to-date rates are loaded.
+     */
+    public FxRatesResponseDto getRates() {
+        RateTable table = currentTable();
+        Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+        for (Currency currency : CURRENCIES) {
+            if (currency != Currency.BYN && table.perUnit()[currency.ordinal()] != null) {
+                rates.put(currency, table.perUnit()[currency.ordinal()]);
+            }
+        }
+        return new FxRatesResponseDto(Currency.BYN, table.loadedAt(), rates);
+    }
+
+    private RateTable currentTable() {
+        RateTable table = rateTable;
+        if (table == null) {
+            throw new FxRateUnavailableException("Exchange rates have not been loaded yet");
+        }
+        if (table.loadedAt().isBefore(Instant.now().minus(maxAgeHours, ChronoUnit.HOURS))) {
+            throw new FxRateUnavailableException("Exchange rates are out of date (loaded at " + table.loadedAt() + ")");
+        }
+        return table;
+    }
+
+    /**
+     * An immutable snapshot of the rates: the BYN price of each currency and every cross rate, indexed by ordinal.
+     */
+    private record RateTable(BigDecimal[] perUnit, BigDecimal[][] cross, Instant loadedAt) {
+
+        static RateTable of(Map<Currency, BigDecimal> loaded, Instant loadedAt) {
+            BigDecimal[] perUnit = new BigDecimal[CURRENCIES.length];
+            loaded.forEach((currency, rate) -> {
+                if (rate != null && rate.signum() > 0) {
+                    perUnit[currency.ordinal()] = rate;
+                }
+            });
+            perUnit[Currency.BYN.ordinal()] = BigDecimal.ONE;
+
+            BigDecimal[][] cross = new BigDecimal[CURRENCIES.length][CURRENCIES.length];
+            for (int from = 0; from < perUnit.length; from++) {
+                for (int to = 0; to < perUnit.length; to++) {
+                    if (perUnit[from] != null && perUnit[to] != null) {
+                        cross[from][to] = perUnit[from].divide(perUnit[to], RATE_SCALE, RoundingMode.HALF_EVEN);
+                    }
+                }
+            }
+            return new RateTable(perUnit, cross, loadedAt);
+        }
+    }
+
+    /**
+     * The result of a conversion.
+     *
+     * @param amount The converted amount, rounded to cents.
+     * @param rate The applied rate, units of the target currency per unit of the source currency.
+     */
+    public record Conversion(BigDecimal amount, BigDecimal rate) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.service.fx;
+
+import com.example.bankcards.model.entity.enums.Currency;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * A provider of official exchange rates, polled by {@link FxRateService}.
+ * The implementation is selected with {@code app.fx.source}.
+ */
+public interface FxRateSource {
+
+    /**
+     * Loads the current rates.
+     * Currencies the source does not quote are left out; {@link Currency#BYN} may be left out.
+     *
+     * @return The price of one unit of each currency in {@link Currency#BYN}.
+     * @throws RuntimeException if the rates cannot be loaded; the previously loaded rates are kept.
+     */
+    Map<Currency, BigDecimal> loadRates();
+}
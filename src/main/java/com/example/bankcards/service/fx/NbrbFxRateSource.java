@@ -0,0 +1,65 @@
+package com.example.bankcards.service.fx;
+
+import com.example.bankcards.model.entity.enums.Currency;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the daily official rates of the National Bank of the Republic of Belarus.
+ * The default source ({@code app.fx.source=nbrb}).
+ */
+@Component
+@ConditionalOnProperty(name = "app.fx.source", havingValue = "nbrb", matchIfMissing = true)
+public class NbrbFxRateSource implements FxRateSource {
+
+    private final RestClient restClient;
+    private final String ratesUrl;
+
+    public NbrbFxRateSource(@Value("${app.fx.nbrb.url:https://api.nbrb.by/exrates/rates?periodicity=0}") String ratesUrl,
+                            @Value("${app.fx.nbrb.timeout-ms:5000}") long timeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(timeoutMs));
+        requestFactory.setReadTimeout(Duration.ofMillis(timeoutMs));
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+        this.ratesUrl = ratesUrl;
+    }
+
+    @Override
+    public Map<Currency, BigDecimal> loadRates() {
+        List<NbrbRate> quotes = restClient.get().uri(ratesUrl).retrieve().body(new ParameterizedTypeReference<>() {
+        });
+        Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+        if (quotes == null) {
+            return rates;
+        }
+        for (NbrbRate quote : quotes) {
+            for (Currency currency : Currency.values()) {
+                if (currency.name().equals(quote.abbreviation()) && quote.rate() != null && quote.scale() > 0) {
+                    // Курс публикуется за Cur_Scale единиц (например, за 100 RUB)
+                    rates.put(currency, quote.rate().divide(BigDecimal.valueOf(quote.scale()), MathContext.DECIMAL64));
+                }
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * One quote of the NBRB rates API.
+     */
+    private record NbrbRate(@JsonProperty("Cur_Abbreviation") String abbreviation,
+                            @JsonProperty("Cur_Scale") int scale,
+                            @JsonProperty("Cur_OfficialRate") BigDecimal rate) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.bankcards.service.idempotency;
+
+import com.example.bankcards.exception.idempotency.IdempotencyKeyMismatchException;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.model.entity.IdempotencyKey;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service for {@code Idempotency-Key} handling on transfer creation.
+ * Processed keys are stored in {@code t_idempotency_keys} (unique per user and key) together with
+ * the serialized response. The most recent keys are also kept in a bounded in-memory LRU cache,
+ * so a typical client retry is answered without a database round trip and without touching card rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final CardEncryptionService cardEncryptionService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * How long a key is honoured after the original request completed.
+     */
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    /**
+     * Maximum number of keys kept in the in-memory cache.
+     */
+    @Value("${app.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    // LRU по порядку доступа; самая старая запись вытесняется при превышении cacheSize
+    private final Map<String, CachedResponse> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+
+    /**
+     * Computes a fingerprint of the transfer request, used to detect reuse of a key for a different payload.
+     * The destination card number enters the fingerprint only through its blind index.
+     *
+     * @param request The transfer request.
+     * @return The hex-encoded SHA-256 of the normalized request fields.
+     */
+    public String fingerprint(TransferRequest request) {
+        String toCardNumberHash = request.getToCardNumber() == null || request.getToCardNumber().isBlank()
+                ? "" : cardEncryptionService.hashCardNumber(request.getToCardNumber());
+        String amount = request.getAmount() == null ? "" : request.getAmount().stripTrailingZeros().toPlainString();
+        String canonical = request.getFromCardId() + "|" + request.getToCardId() + "|" + toCardNumberHash + "|" + amount;
+        if (request.getToCardToken() != null && !request.getToCardToken().isBlank()) {
+            // Добавляется только при наличии, чтобы отпечатки ранее сохранённых ключей не изменились
+            canonical += "|" + request.getToCardToken();
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the stored response for a key that was already processed, looking at the in-memory cache first.
+     *
+     * @param username The username the key belongs to.
+     * @param key The client-supplied key.
+     * @param requestHash The fingerprint of the current request (see {@link #fingerprint(TransferRequest)}).
+     * @return The stored response, or empty if the key has not been used (or has expired).
+     * @throws IdempotencyKeyMismatchException if the key is malformed or was used for a different request.
+     */
+    public Optional<TransferResponseDto> findStoredResponse(String username, String key, String requestHash) {
+        validateKey(key);
+        String cacheKey = cacheKey(username, key);
+        LocalDateTime now = LocalDateTime.now();
+
+        CachedResponse cached = cache.get(cacheKey);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return Optional.of(toResponse(cached, requestHash));
+        }
+
+        Optional<IdempotencyKey> stored = idempotencyKeyRepository.findByUsernameAndIdempotencyKey(username, key)
+                .filter(k -> k.getExpiresAt().isAfter(now));
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        CachedResponse loaded = new CachedResponse(stored.get().getRequestHash(), stored.get().getResponseBody(),
+                stored.get().getExpiresAt());
+        cache.put(cacheKey, loaded);
+        return Optional.of(toResponse(loaded, requestHash));
+    }
+
+    /**
+     * Stores the response for a key within the caller's transaction, so the key is committed atomically
+     * with the transfer it describes. The row is flushed immediately: if a concurrent request with the same key
+     * has already committed, the unique constraint fails here and the caller's transaction is rolled back.
+     * An expired row for the same key that has not been purged yet is replaced, since
+     * {@link #findStoredResponse} already treats the key as unused.
+     * The cache is populated only after the commit.
+     *
+     * @param username The username the key belongs to.
+     * @param key The client-supplied key.
+     * @param requestHash The fingerprint of the request.
+     * @param response The response to return on replays.
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key was stored concurrently.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void store(String username, String key, String requestHash, TransferResponseDto response) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize idempotent response", e);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // Истекший, но еще не удаленный ключ иначе нарушил бы уникальность (username, idempotency_key)
+        idempotencyKeyRepository.deleteExpiredKey(username, key, now);
+        IdempotencyKey entity = new IdempotencyKey();
+        entity.setUsername(username);
+        entity.setIdempotencyKey(key);
+        entity.setRequestHash(requestHash);
+        entity.setTransferId(response.getId());
+        entity.setResponseBody(body);
+        entity.setExpiresAt(now.plusHours(ttlHours));
+        idempotencyKeyRepository.saveAndFlush(entity);
+
+        CachedResponse cached = new CachedResponse(requestHash, body, entity.getExpiresAt());
+        String cacheKey = cacheKey(username, key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(cacheKey, cached);
+                }
+            });
+        } else {
+            cache.put(cacheKey, cached);
+        }
+    }
+
+    /**
+     * Periodically deletes expired keys from the database and the in-memory cache.
+     */
+    @Scheduled(cron = "${app.idempotency.cleanup-cron:0 0 * * * *}")
+    @Transactional
+    public void purgeExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = idempotencyKeyRepository.deleteExpired(now);
+        synchronized (cache) {
+            cache.values().removeIf(cached -> !cached.expiresAt().isAfter(now));
+        }
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private TransferResponseDto toResponse(CachedResponse cached, String requestHash) {
+        if (!cached.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            return objectMapper.readValue(cached.body(), TransferResponseDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize idempotent response", e);
+        }
+    }
+
+    private void validateKey(String key) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+    }
+
+    private static String cacheKey(String username, String key) {
+        return username + '\n' + key;
+    }
+
+    private record CachedResponse(String requestHash, String body, LocalDateTime expiresAt) {
+    }
+}
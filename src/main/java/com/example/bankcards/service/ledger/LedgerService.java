@@ -0,0 +1,160 @@
+package com.example.bankcards.service.ledger;
+
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.enums.EntrySide;
+import com.example.bankcards.model.entity.enums.LedgerBook;
+import com.example.bankcards.model.entity.enums.MovementType;
+import com.example.bankcards.repository.JournalJdbcRepository;
+import com.example.bankcards.repository.JournalJdbcRepository.JournalLeg;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for the append-only double-entry journal.
+ * Every movement of money is posted as one debit and one credit leg of the same amount, in the same
+ * transaction as the balance columns it mirrors, so the journal always sums to zero and can be replayed
+ * to rebuild any account balance. The balance columns remain the write-side state that overdraft checks
+ * lock; the journal is what account balances are read from, as the latest snapshot plus the journal tail after it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class LedgerService {
+
+    private final JournalJdbcRepository journalJdbcRepository;
+
+    /**
+     * How far behind the current time snapshots are taken, in seconds.
+     * Must exceed the longest transaction that posts to the journal.
+     */
+    @Value("${app.ledger.snapshot-lag-seconds:60}")
+    private long snapshotLagSeconds;
+
+    /**
+     * Posts movements to the journal within the caller's transaction with one sequence query and one insert batch.
+     *
+     * @param movements The movements to post.
+     * @throws IllegalArgumentException if a movement has a non-positive amount or a customer leg without an account.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void post(List<Movement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        List<Long> movementIds = journalJdbcRepository.nextMovementIds(movements.size());
+        List<JournalLeg> legs = new ArrayList<>(movements.size() * 2);
+        for (int i = 0; i < movements.size(); i++) {
+            Movement movement = movements.get(i);
+            if (movement.amount().signum() <= 0) {
+                throw new IllegalArgumentException("Journal amount must be positive");
+            }
+            Long movementId = movementIds.get(i);
+            legs.add(leg(movementId, movement, movement.from(), EntrySide.DEBIT));
+            legs.add(leg(movementId, movement, movement.to(), EntrySide.CREDIT));
+        }
+        journalJdbcRepository.insertLegs(legs);
+    }
+
+    /**
+     * Returns the journal balances of several accounts: each snapshot plus the legs posted after it.
+     *
+     * @param accountIds The IDs of the accounts.
+     * @return The balance per account ID.
+     */
+    public Map<Long, BigDecimal> getBalances(Collection<Long> accountIds) {
+        if (accountIds.isEmpty()) {
+            return Map.of();
+        }
+        return journalJdbcRepository.findBalances(accountIds);
+    }
+
+    /**
+     * Periodically advances the balance snapshots, keeping the journal tail read per balance short.
+     */
+    @Scheduled(fixedDelayString = "${app.ledger.snapshot-interval-ms:60000}")
+    @Transactional
+    public void refreshSnapshots() {
+        int refreshed = journalJdbcRepository.refreshSnapshots(snapshotLagSeconds);
+        if (refreshed > 0) {
+            log.debug("Refreshed {} balance snapshots", refreshed);
+        }
+    }
+
+    private static JournalLeg leg(Long movementId, Movement movement, Leg leg, EntrySide side) {
+        if (leg.book() == LedgerBook.CUSTOMER && leg.accountId() == null) {
+            throw new IllegalArgumentException("Customer journal leg requires an account");
+        }
+        return new JournalLeg(movementId, movement.type(), leg.book(), leg.accountId(), leg.cardId(),
+                side, movement.amount(), movement.transferId());
+    }
+
+    /**
+     * A movement of {@code amount} from one leg to another.
+     *
+     * @param type The business operation behind the movement.
+     * @param from The leg that is debited.
+     * @param to The leg that is credited.
+     * @param amount The positive amount moved.
+     * @param transferId The transfer behind the movement, or {@code null}.
+     */
+    public record Movement(MovementType type, Leg from, Leg to, BigDecimal amount, Long transferId) {
+
+        public static Movement of(MovementType type, Leg from, Leg to, BigDecimal amount) {
+            return new Movement(type, from, to, amount, null);
+        }
+
+        /**
+         * The movements of a transfer that may cross currencies: one movement if nothing was converted,
+         * otherwise the debited amount into the bank's currency position and the credited amount out of it,
+         * so each movement stays in a single currency.
+         *
+         * @param type The business operation behind the movement.
+         * @param from The leg that is debited.
+         * @param debited The amount debited, in the currency of {@code from}.
+         * @param to The leg that is credited.
+         * @param credited The amount credited, in the currency of {@code to}, or {@code null} if nothing was converted.
+         * @param transferId The transfer behind the movement.
+         * @return The movements to post.
+         */
+        public static List<Movement> exchange(MovementType type, Leg from, BigDecimal debited, Leg to, BigDecimal credited,
+                                              Long transferId) {
+            if (credited == null) {
+                return List.of(new Movement(type, from, to, debited, transferId));
+            }
+            Leg position = Leg.book(LedgerBook.FX_POSITION);
+            return List.of(new Movement(type, from, position, debited, transferId),
+                    new Movement(type, position, to, credited, transferId));
+        }
+    }
+
+    /**
+     * One side of a movement: a customer account (optionally through one of its cards) or a bank-side book.
+     */
+    public record Leg(LedgerBook book, Long accountId, Long cardId) {
+
+        public static Leg customer(Account account, Card card) {
+            return new Leg(LedgerBook.CUSTOMER, account.getId(), card != null ? card.getId() : null);
+        }
+
+        public static Leg customer(Long accountId) {
+            return new Leg(LedgerBook.CUSTOMER, accountId, null);
+        }
+
+        public static Leg book(LedgerBook book) {
+            return new Leg(book, null, null);
+        }
+    }
+}
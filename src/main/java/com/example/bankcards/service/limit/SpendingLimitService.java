@@ -0,0 +1,131 @@
+package com.example.bankcards.service.limit;
+
+import com.example.bankcards.exception.fx.FxRateUnavailableException;
+import com.example.bankcards.exception.limit.SpendingLimitExceededException;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.SpendCounterScope;
+import com.example.bankcards.repository.SpendCounterJdbcRepository;
+import com.example.bankcards.service.fx.FxRateService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Service that enforces spending limits on outgoing operations (transfers to other users and withdrawals).
+ * Two limits apply: the monthly limit of the card owner ({@link User#getMonthlyLimit()}) and the optional
+ * daily limit of the card ({@link Card#getDailyLimit()}). The daily limit is in the card's currency; the monthly
+ * limit covers cards in different currencies and is kept in BYN, so amounts are converted at the current rate
+ * before they are counted against it. Spend is tracked in per-period counters that are
+ * incremented in the same transaction as the operation, so a check is one or two primary-key upserts instead
+ * of a sum over the transaction history, and a rolled-back operation leaves the counters untouched.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class SpendingLimitService {
+
+    private final SpendCounterJdbcRepository spendCounterJdbcRepository;
+    private final FxRateService fxRateService;
+
+    /**
+     * Records an outgoing amount against the card's limits within the caller's transaction.
+     *
+     * @param card The card the money leaves; its account and user must be loaded.
+     * @param amount The amount spent, in the card's currency.
+     * @throws SpendingLimitExceededException if the amount would exceed the daily card or monthly user limit.
+     * @throws FxRateUnavailableException if the amount is not in BYN and there is no up-to-date rate for it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSpend(Card card, BigDecimal amount) {
+        String violation = tryRecordSpend(card, amount);
+        if (violation != null) {
+            throw new SpendingLimitExceededException(violation);
+        }
+    }
+
+    /**
+     * Records an outgoing amount against the card's limits within the caller's transaction,
+     * reporting a violation instead of throwing. Nothing is recorded if a limit would be exceeded,
+     * so callers applying several operations in one transaction (e.g., bulk transfers) can skip the item.
+     *
+     * @param card The card the money leaves; its account and user must be loaded.
+     * @param amount The amount spent, in the card's currency.
+     * @return {@code null} if the spend was recorded, otherwise the reason it was rejected.
+     * @throws FxRateUnavailableException if the amount is not in BYN and there is no up-to-date rate for it;
+     *                                    nothing is recorded then and the caller's transaction is not marked
+     *                                    rollback-only.
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = FxRateUnavailableException.class)
+    public String tryRecordSpend(Card card, BigDecimal amount) {
+        LocalDate today = LocalDate.now();
+        LocalDate month = today.withDayOfMonth(1);
+        User user = card.getAccount().getUser();
+        BigDecimal monthlyLimit = user.getMonthlyLimit();
+        // Курс берем до обновления счетчиков, чтобы при его отсутствии ничего не было учтено
+        BigDecimal baseAmount = monthlyLimit != null ? fxRateService.toBaseCurrency(amount, card.getCurrency()) : null;
+
+        BigDecimal dailyLimit = card.getDailyLimit();
+        if (dailyLimit != null && !increment(SpendCounterScope.CARD_DAY, card.getId(), today, amount, dailyLimit)) {
+            return "Daily card spending limit exceeded.";
+        }
+        if (monthlyLimit != null && !increment(SpendCounterScope.USER_MONTH, user.getId(), month, baseAmount, monthlyLimit)) {
+            if (dailyLimit != null) {
+                // откатываем уже учтенную дневную трату карты, чтобы отклоненная операция не съела лимит
+                spendCounterJdbcRepository.decrement(SpendCounterScope.CARD_DAY, card.getId(), today, amount);
+            }
+            return "Monthly spending limit exceeded.";
+        }
+        return null;
+    }
+
+    /**
+     * Gives back an amount recorded earlier (e.g., when the transfer is reversed) within the caller's transaction.
+     * Only counters of periods that are still current are touched; a spend from yesterday no longer affects the daily limit.
+     * The monthly counter is given back the BYN equivalent at the current rate, which may differ slightly from
+     * the amount recorded if the rate has changed since.
+     *
+     * @param card The card the money originally left.
+     * @param amount The amount to give back, in the card's currency.
+     * @param spentOn The day the amount was originally recorded.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseSpend(Card card, BigDecimal amount, LocalDate spentOn) {
+        LocalDate today = LocalDate.now();
+        LocalDate month = today.withDayOfMonth(1);
+        if (spentOn.equals(today)) {
+            spendCounterJdbcRepository.decrement(SpendCounterScope.CARD_DAY, card.getId(), today, amount);
+        }
+        if (spentOn.withDayOfMonth(1).equals(month)) {
+            spendCounterJdbcRepository.decrement(SpendCounterScope.USER_MONTH, card.getAccount().getUser().getId(), month,
+                    fxRateService.toBaseCurrency(amount, card.getCurrency()));
+        }
+    }
+
+    /**
+     * Periodically deletes counters of past periods; those of the current and previous month are kept.
+     */
+    @Scheduled(cron = "${app.spending-limits.cleanup-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeOldCounters() {
+        int deleted = spendCounterJdbcRepository.deleteOlderThan(LocalDate.now().withDayOfMonth(1).minusMonths(1));
+        if (deleted > 0) {
+            log.info("Purged {} old spend counters", deleted);
+        }
+    }
+
+    private boolean increment(SpendCounterScope scope, Long ownerId, LocalDate periodStart, BigDecimal amount, BigDecimal limit) {
+        // Первая трата за период вставляет строку без проверки в SQL, поэтому сумму сверяем с лимитом заранее
+        if (amount.compareTo(limit) > 0) {
+            return false;
+        }
+        return spendCounterJdbcRepository.incrementWithinLimit(scope, ownerId, periodStart, amount, limit);
+    }
+}
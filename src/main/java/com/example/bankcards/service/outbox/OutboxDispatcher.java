@@ -0,0 +1,226 @@
+package com.example.bankcards.service.outbox;
+
+import com.example.bankcards.model.dto.outbox.TransferCompletedEvent;
+import com.example.bankcards.model.dto.outbox.TransferReversedEvent;
+import com.example.bankcards.model.entity.Notification;
+import com.example.bankcards.model.entity.OutboxEvent;
+import com.example.bankcards.model.entity.enums.NotificationType;
+import com.example.bankcards.repository.OutboxEventRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Background dispatcher of the transactional outbox.
+ * On every poll it starts a fixed number of workers on virtual threads. Each worker repeatedly claims a batch
+ * of ready events with {@code FOR UPDATE SKIP LOCKED}, inserts their user notifications with one batch statement
+ * and deletes the handled events — all in one transaction — until the outbox is drained. Audit records are written
+ * only after that transaction has committed, so an event is audited once however many attempts it takes.
+ * <p>
+ * An event whose payload cannot be handled, or whose notifications cannot be inserted, is retried with backoff
+ * and dropped after {@code app.outbox.max-attempts}. The batch insert runs under a savepoint: if it fails, the
+ * notifications are inserted event by event, each under its own savepoint, so one bad event costs only its own
+ * attempt and cannot hold back the rest of the batch or roll back the attempt counters.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final Logger AUDIT = LoggerFactory.getLogger("audit");
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Number of concurrent workers per poll.
+     */
+    @Value("${app.outbox.workers:4}")
+    private int workerCount;
+
+    /**
+     * Maximum number of events claimed by a worker in one transaction.
+     */
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Number of attempts after which an unprocessable event is dropped.
+     */
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    /**
+     * Polls the outbox and drains it with {@code app.outbox.workers} virtual-thread workers.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        List<Future<?>> running = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            running.add(workers.submit(this::drain));
+        }
+        for (Future<?> future : running) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Outbox worker failed", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    private void drain() {
+        int processed;
+        do {
+            processed = dispatchBatch();
+        } while (processed == batchSize);
+    }
+
+    /**
+     * Claims and processes one batch of events in a single transaction.
+     *
+     * @return The number of claimed events.
+     */
+    int dispatchBatch() {
+        List<Handled> committed = new ArrayList<>();
+        Integer claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> events = outboxEventRepository.lockNextBatch(now, batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+
+            List<Handled> handled = new ArrayList<>(events.size());
+            for (OutboxEvent event : events) {
+                try {
+                    handled.add(handle(event));
+                } catch (Exception e) {
+                    reschedule(event, now, e);
+                }
+            }
+            List<Handled> done = insertNotifications(status, handled, now);
+            outboxEventRepository.deleteAllInBatch(done.stream().map(Handled::event).toList());
+            committed.addAll(done);
+            return events.size();
+        });
+        // Аудит пишем только после фиксации: откатанная попытка не должна оставить запись
+        committed.forEach(handled -> handled.audit().run());
+        return claimed == null ? 0 : claimed;
+    }
+
+    // Вставляет уведомления одной пачкой, а если она не прошла — по событию, и возвращает события, чьи уведомления вставлены
+    private List<Handled> insertNotifications(TransactionStatus status, List<Handled> handled, LocalDateTime now) {
+        Object batch = status.createSavepoint();
+        try {
+            transferJdbcRepository.batchInsertNotifications(
+                    handled.stream().flatMap(item -> item.notifications().stream()).toList());
+            status.releaseSavepoint(batch);
+            return handled;
+        } catch (DataAccessException e) {
+            status.rollbackToSavepoint(batch);
+            log.warn("Batch insert of {} outbox notifications failed, inserting them one event at a time: {}",
+                    handled.size(), e.getMessage());
+        }
+
+        List<Handled> done = new ArrayList<>(handled.size());
+        for (Handled item : handled) {
+            Object savepoint = status.createSavepoint();
+            try {
+                transferJdbcRepository.batchInsertNotifications(item.notifications());
+                status.releaseSavepoint(savepoint);
+                done.add(item);
+            } catch (DataAccessException e) {
+                status.rollbackToSavepoint(savepoint);
+                reschedule(item.event(), now, e);
+            }
+        }
+        return done;
+    }
+
+    private Handled handle(OutboxEvent event) throws Exception {
+        switch (event.getEventType()) {
+            case TRANSFER_COMPLETED -> {
+                TransferCompletedEvent transfer = objectMapper.readValue(event.getPayload(), TransferCompletedEvent.class);
+                BigDecimal credited = transfer.getCreditedAmount() != null ? transfer.getCreditedAmount() : transfer.getAmount();
+                return new Handled(event, List.of(
+                        notification(transfer.getFromUserId(),
+                                "Списание: -" + transfer.getAmount() + " (Перевод)", NotificationType.INFO),
+                        notification(transfer.getToUserId(),
+                                "Пополнение: +" + credited + " (Входящий перевод)", NotificationType.SUCCESS)),
+                        () -> AUDIT.info("TRANSFER_COMPLETED transfer={} fromCard={} toCard={} amount={}",
+                                transfer.getTransferId(), transfer.getFromCardId(), transfer.getToCardId(), transfer.getAmount()));
+            }
+            case TRANSFER_REVERSED -> {
+                TransferReversedEvent reversal = objectMapper.readValue(event.getPayload(), TransferReversedEvent.class);
+                return new Handled(event, List.of(
+                        notification(reversal.getFromUserId(),
+                                "Возврат: +" + reversal.getRefundedAmount() + " (Отмена перевода)", NotificationType.SUCCESS),
+                        notification(reversal.getToUserId(),
+                                "Списание: -" + reversal.getDebitedAmount() + " (Отмена перевода)", NotificationType.ALERT)),
+                        () -> AUDIT.info("TRANSFER_REVERSED transfer={} fromCard={} toCard={} amount={} by={} reason={}",
+                                reversal.getTransferId(), reversal.getFromCardId(), reversal.getToCardId(),
+                                reversal.getAmount(), reversal.getReversedBy(), reversal.getReason()));
+            }
+            default -> throw new IllegalStateException("Unsupported outbox event type " + event.getEventType());
+        }
+    }
+
+    private void reschedule(OutboxEvent event, LocalDateTime now, Exception e) {
+        event.setAttempts(event.getAttempts() + 1);
+        if (event.getAttempts() >= maxAttempts) {
+            log.error("Dropping outbox event {} ({}) after {} attempts", event.getId(), event.getEventType(), event.getAttempts(), e);
+            outboxEventRepository.delete(event);
+            return;
+        }
+        // Экспоненциальная задержка: 2, 4, 8 ... секунд, но не больше 10 минут
+        event.setAvailableAt(now.plusSeconds(Math.min(600L, 1L << event.getAttempts())));
+        log.warn("Outbox event {} ({}) failed, attempt {}: {}", event.getId(), event.getEventType(), event.getAttempts(), e.getMessage());
+    }
+
+    private Notification notification(Long userId, String message, NotificationType type) {
+        Notification notification = new Notification();
+        // Ссылка без запроса: для вставки нужен только ID пользователя
+        notification.setUser(userRepository.getReferenceById(userId));
+        notification.setMessage(message);
+        notification.setType(type);
+        notification.setIsRead(false);
+        return notification;
+    }
+
+    /**
+     * An event whose side effects are ready: the notifications to insert and the audit record to write after commit.
+     */
+    private record Handled(OutboxEvent event, List<Notification> notifications, Runnable audit) {
+    }
+}
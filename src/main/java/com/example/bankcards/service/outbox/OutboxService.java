@@ -0,0 +1,45 @@
+package com.example.bankcards.service.outbox;
+
+import com.example.bankcards.model.entity.OutboxEvent;
+import com.example.bankcards.model.entity.enums.OutboxEventType;
+import com.example.bankcards.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for writing events to the transactional outbox.
+ * An event is a single insert in the caller's transaction: it commits or rolls back together with
+ * the business change, and its side effects run later in {@link OutboxDispatcher}.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Appends an event to the outbox within the caller's transaction.
+     *
+     * @param eventType The kind of event.
+     * @param aggregateId The ID of the entity the event is about.
+     * @param payload The event body; serialized as JSON.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OutboxEventType eventType, Long aggregateId, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize outbox event " + eventType, e);
+        }
+        outboxEventRepository.save(event);
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.bankcards.service.reconciliation;
+
+import com.example.bankcards.exception.reconciliation.ReconciliationInProgressException;
+import com.example.bankcards.exception.reconciliation.ReconciliationRunNotFoundException;
+import com.example.bankcards.model.dto.reconciliation.ReconciliationDiscrepancyDto;
+import com.example.bankcards.model.dto.reconciliation.ReconciliationRunResponseDto;
+import com.example.bankcards.model.entity.enums.ReconciliationStatus;
+import com.example.bankcards.repository.ReconciliationJdbcRepository;
+import com.example.bankcards.repository.ReconciliationJdbcRepository.RunRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service for the balance reconciliation job.
+ * A run splits the account ID space into ranges of {@code app.reconciliation.range-size} IDs and checks them on a
+ * {@link ForkJoinPool} of {@code app.reconciliation.parallelism} threads. Every range is one transaction with one
+ * set-based statement that compares each account with the sum of its cards, its journal balance and the replay of its
+ * transactions, and writes the mismatches to the report table together with the run's progress counters.
+ * Runs execute in the background; at most one is {@code RUNNING} across all instances.
+ * <p>
+ * Metrics: {@code reconciliation.accounts.checked}, {@code reconciliation.discrepancies},
+ * {@code reconciliation.ranges.failed}, {@code reconciliation.range.duration} and {@code reconciliation.progress}
+ * (the fraction of ranges processed by the current run).
+ */
+@Service
+@Slf4j
+@Transactional(readOnly = true)
+public class ReconciliationService {
+
+    private final ReconciliationJdbcRepository reconciliationJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService launcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicReference<RunProgress> current = new AtomicReference<>();
+
+    private final Counter accountsCounter;
+    private final Counter discrepanciesCounter;
+    private final Counter failedRangesCounter;
+    private final Timer rangeTimer;
+
+    /**
+     * Number of account IDs checked per range (one transaction each).
+     */
+    @Value("${app.reconciliation.range-size:10000}")
+    private long rangeSize;
+
+    /**
+     * Number of ranges checked concurrently; each holds a pooled connection, so keep it below the pool size.
+     */
+    @Value("${app.reconciliation.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * Runs that reported no progress for this long are considered dead and no longer block new runs.
+     */
+    @Value("${app.reconciliation.stale-after-minutes:30}")
+    private long staleAfterMinutes;
+
+    /**
+     * Maximum number of discrepancies returned per page.
+     */
+    @Value("${app.reconciliation.max-page-size:1000}")
+    private int maxPageSize;
+
+    public ReconciliationService(ReconciliationJdbcRepository reconciliationJdbcRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry) {
+        this.reconciliationJdbcRepository = reconciliationJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.accountsCounter = Counter.builder("reconciliation.accounts.checked")
+                .description("Accounts checked by balance reconciliation")
+                .register(meterRegistry);
+        this.discrepanciesCounter = Counter.builder("reconciliation.discrepancies")
+                .description("Discrepancies found by balance reconciliation")
+                .register(meterRegistry);
+        this.failedRangesCounter = Counter.builder("reconciliation.ranges.failed")
+                .description("Account ranges that could not be reconciled")
+                .register(meterRegistry);
+        this.rangeTimer = Timer.builder("reconciliation.range.duration")
+                .description("Time spent reconciling one account range")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.progress", current, ref -> {
+                    RunProgress progress = ref.get();
+                    return progress == null ? 0 : progress.fraction();
+                })
+                .description("Fraction of account ranges processed by the current reconciliation run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the nightly reconciliation run. Skipped if a run is already in progress.
+     */
+    @Scheduled(cron = "${app.reconciliation.cron:0 0 2 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void startNightly() {
+        try {
+            start(null);
+        } catch (ReconciliationInProgressException e) {
+            log.warn("Nightly reconciliation skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a reconciliation run and starts it in the background.
+     *
+     * @param triggeredBy The administrator who started the run, or {@code null} for the schedule.
+     * @return The new run.
+     * @throws ReconciliationInProgressException if another run is in progress.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReconciliationRunResponseDto start(String triggeredBy) {
+        long[] bounds = transactionTemplate.execute(status -> {
+            int stale = reconciliationJdbcRepository.failStaleRuns(LocalDateTime.now().minusMinutes(staleAfterMinutes));
+            if (stale > 0) {
+                log.warn("Marked {} stale reconciliation runs as failed", stale);
+            }
+            return reconciliationJdbcRepository.findAccountIdBounds().orElse(null);
+        });
+        int totalRanges = bounds == null ? 0 : (int) ((bounds[1] - bounds[0]) / rangeSize + 1);
+        Long runId;
+        try {
+            runId = transactionTemplate.execute(status -> reconciliationJdbcRepository.createRun(triggeredBy, totalRanges));
+        } catch (DuplicateKeyException e) {
+            throw new ReconciliationInProgressException("Another reconciliation run is in progress.");
+        }
+        log.info("Reconciliation run {} started by {}: {} ranges", runId, triggeredBy != null ? triggeredBy : "schedule", totalRanges);
+        launcher.execute(() -> execute(runId, bounds == null ? 0 : bounds[0], totalRanges));
+        return getRun(runId);
+    }
+
+    /**
+     * Returns a run with its progress.
+     *
+     * @param runId The ID of the run.
+     * @return The run.
+     * @throws ReconciliationRunNotFoundException if the run does not exist.
+     */
+    public ReconciliationRunResponseDto getRun(Long runId) {
+        return reconciliationJdbcRepository.findRun(runId)
+                .map(ReconciliationService::toDto)
+                .orElseThrow(() -> new ReconciliationRunNotFoundException("Reconciliation run not found with ID: " + runId));
+    }
+
+    /**
+     * Returns the most recent runs, newest first.
+     *
+     * @param limit The maximum number of runs; capped at {@code app.reconciliation.max-page-size}.
+     * @return The runs.
+     */
+    public List<ReconciliationRunResponseDto> getRecentRuns(int limit) {
+        return reconciliationJdbcRepository.findRecentRuns(Math.max(1, Math.min(limit, maxPageSize))).stream()
+                .map(ReconciliationService::toDto)
+                .toList();
+    }
+
+    /**
+     * Returns a page of a run's discrepancies, ordered by ID.
+     *
+     * @param runId The ID of the run.
+     * @param afterId The ID of the last discrepancy already received, or {@code null} for the first page.
+     * @param limit The maximum number of discrepancies; capped at {@code app.reconciliation.max-page-size}.
+     * @return The discrepancies.
+     * @throws ReconciliationRunNotFoundException if the run does not exist.
+     */
+    public List<ReconciliationDiscrepancyDto> getDiscrepancies(Long runId, Long afterId, int limit) {
+        if (reconciliationJdbcRepository.findRun(runId).isEmpty()) {
+            throw new ReconciliationRunNotFoundException("Reconciliation run not found with ID: " + runId);
+        }
+        return reconciliationJdbcRepository.findDiscrepancies(runId, afterId, Math.max(1, Math.min(limit, maxPageSize))).stream()
+                .map(row -> new ReconciliationDiscrepancyDto(row.id(), row.accountId(), row.check(),
+                        row.expected(), row.actual(), row.difference(), row.detectedAt()))
+                .toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        launcher.shutdownNow();
+    }
+
+    /**
+     * Checks every range of a run on a fork-join pool and moves the run to its final state.
+     *
+     * @param runId The ID of the run.
+     * @param minAccountId The lowest account ID; range {@code i} starts at {@code minAccountId + i * rangeSize}.
+     * @param totalRanges The number of ranges.
+     */
+    void execute(Long runId, long minAccountId, int totalRanges) {
+        RunProgress progress = new RunProgress(runId, minAccountId, totalRanges);
+        current.set(progress);
+        long start = System.nanoTime();
+        ReconciliationStatus status = ReconciliationStatus.FAILED;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            if (totalRanges > 0) {
+                pool.invoke(new RangeTask(progress, 0, totalRanges));
+            }
+            status = progress.failed.get() == 0 ? ReconciliationStatus.COMPLETED : ReconciliationStatus.FAILED;
+        } catch (RuntimeException e) {
+            log.error("Reconciliation run {} aborted", runId, e);
+        } finally {
+            pool.shutdownNow();
+            ReconciliationStatus finalStatus = status;
+            transactionTemplate.execute(tx -> {
+                reconciliationJdbcRepository.finishRun(runId, finalStatus);
+                return null;
+            });
+            current.compareAndSet(progress, null);
+        }
+        log.info("Reconciliation run {} {} in {} s: {} ranges, {} failed",
+                runId, status, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), totalRanges, progress.failed.get());
+    }
+
+    private void checkRange(RunProgress progress, int index) {
+        long fromId = progress.minAccountId + index * rangeSize;
+        long toId = fromId + rangeSize - 1;
+        long start = System.nanoTime();
+        try {
+            int[] result = transactionTemplate.execute(status -> {
+                int accounts = reconciliationJdbcRepository.countAccounts(fromId, toId);
+                int found = reconciliationJdbcRepository.reconcileRange(progress.runId, fromId, toId);
+                // прогресс фиксируется в той же транзакции, что и найденные расхождения
+                reconciliationJdbcRepository.addProgress(progress.runId, accounts, found, false);
+                return new int[]{accounts, found};
+            });
+            accountsCounter.increment(result[0]);
+            discrepanciesCounter.increment(result[1]);
+            if (result[1] > 0) {
+                log.warn("Reconciliation run {}: {} discrepancies in accounts {}-{}", progress.runId, result[1], fromId, toId);
+            }
+        } catch (RuntimeException e) {
+            log.error("Reconciliation run {}: failed to check accounts {}-{}", progress.runId, fromId, toId, e);
+            progress.failed.incrementAndGet();
+            failedRangesCounter.increment();
+            transactionTemplate.execute(status -> {
+                reconciliationJdbcRepository.addProgress(progress.runId, 0, 0, true);
+                return null;
+            });
+        } finally {
+            progress.completed.incrementAndGet();
+            rangeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static ReconciliationRunResponseDto toDto(RunRow run) {
+        double percent = run.totalRanges() == 0 ? 100.0 : run.completedRanges() * 100.0 / run.totalRanges();
+        LocalDateTime end = run.finishedAt() != null ? run.finishedAt() : run.updatedAt();
+        double seconds = Duration.between(run.startedAt(), end).toMillis() / 1000.0;
+        double throughput = seconds > 0 ? run.accountsChecked() / seconds : 0;
+        return new ReconciliationRunResponseDto(run.id(), run.status(), run.triggeredBy(), run.totalRanges(),
+                run.completedRanges(), run.failedRanges(), percent, run.accountsChecked(), run.discrepancies(),
+                throughput, run.startedAt(), run.finishedAt());
+    }
+
+    /**
+     * Splits a run's ranges in halves until a single range is left, then checks it.
+     */
+    private final class RangeTask extends RecursiveAction {
+
+        private final RunProgress progress;
+        private final int fromIndex;
+        private final int toIndex;
+
+        RangeTask(RunProgress progress, int fromIndex, int toIndex) {
+            this.progress = progress;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        protected void compute() {
+            if (toIndex - fromIndex == 1) {
+                checkRange(progress, fromIndex);
+                return;
+            }
+            int middle = (fromIndex + toIndex) >>> 1;
+            invokeAll(new RangeTask(progress, fromIndex, middle), new RangeTask(progress, middle, toIndex));
+        }
+    }
+
+    private static final class RunProgress {
+
+        private final Long runId;
+        private final long minAccountId;
+        private final int totalRanges;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        RunProgress(Long runId, long minAccountId, int totalRanges) {
+            this.runId = runId;
+            this.minAccountId = minAccountId;
+            this.totalRanges = totalRanges;
+        }
+
+        double fraction() {
+            return totalRanges == 0 ? 1.0 : (double) completed.get() / totalRanges;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.service.schedule;
+
+import com.example.bankcards.exception.schedule.InvalidScheduleException;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.LocalDateTime;
+
+/**
+ * The recurrence rule of a standing order: either a Spring cron expression or a fixed interval.
+ */
+public final class ScheduleRule {
+
+    private final CronExpression cron;
+    private final Long intervalSeconds;
+
+    private ScheduleRule(CronExpression cron, Long intervalSeconds) {
+        this.cron = cron;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    /**
+     * Builds a rule from the stored or requested fields.
+     *
+     * @param cronExpression The cron expression, or {@code null}.
+     * @param intervalSeconds The interval in seconds, or {@code null}.
+     * @return The rule.
+     * @throws InvalidScheduleException if neither or both are set, or the cron expression is malformed.
+     */
+    public static ScheduleRule of(String cronExpression, Long intervalSeconds) {
+        boolean hasCron = cronExpression != null && !cronExpression.isBlank();
+        if (hasCron == (intervalSeconds != null)) {
+            throw new InvalidScheduleException("Exactly one of 'cronExpression' and 'intervalSeconds' is required.");
+        }
+        if (!hasCron) {
+            return new ScheduleRule(null, intervalSeconds);
+        }
+        try {
+            return new ScheduleRule(CronExpression.parse(cronExpression.trim()), null);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidScheduleException("Invalid cron expression: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the first occurrence strictly after the given time.
+     *
+     * @param after The reference time.
+     * @return The next occurrence.
+     * @throws InvalidScheduleException if a cron rule never fires again (e.g., February 30th).
+     */
+    public LocalDateTime next(LocalDateTime after) {
+        if (cron == null) {
+            return after.plusSeconds(intervalSeconds);
+        }
+        LocalDateTime next = cron.next(after);
+        if (next == null) {
+            throw new InvalidScheduleException("Cron expression never fires.");
+        }
+        return next;
+    }
+
+    /**
+     * Returns the occurrence that follows the one just executed. Occurrences missed while the scheduler
+     * was behind are skipped rather than replayed back to back, so an order never fires twice in a row.
+     *
+     * @param occurrence The due time of the executed occurrence.
+     * @param now The current time.
+     * @return The next due time, always after {@code now}.
+     */
+    public LocalDateTime nextAfterRun(LocalDateTime occurrence, LocalDateTime now) {
+        LocalDateTime next = next(occurrence);
+        return next.isAfter(now) ? next : next(now);
+    }
+
+    /**
+     * @return The interval in seconds, or {@code null} for cron rules.
+     */
+    public Long intervalSeconds() {
+        return intervalSeconds;
+    }
+}
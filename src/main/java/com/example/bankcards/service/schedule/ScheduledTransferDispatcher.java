@@ -0,0 +1,171 @@
+package com.example.bankcards.service.schedule;
+
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.repository.ScheduledTransferJdbcRepository;
+import com.example.bankcards.repository.ScheduledTransferJdbcRepository.DueTransfer;
+import com.example.bankcards.repository.ScheduledTransferJdbcRepository.RunOutcome;
+import com.example.bankcards.service.transfer.TransferService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Background executor of standing orders.
+ * On every poll it starts a fixed number of workers on virtual threads. Each worker repeatedly claims a chunk
+ * of due orders (a short transaction with {@code FOR UPDATE SKIP LOCKED} that leases them), executes every
+ * order through {@link TransferService} — card lock queueing, deadlock retries and spending limits included —
+ * and writes the outcomes back in one batch, until no due orders remain.
+ * Every occurrence is executed with an idempotency key derived from the order and its due time, so an
+ * occurrence re-claimed after an expired lease or a crash is never transferred twice.
+ * A failed occurrence is retried with exponential backoff and skipped after {@code app.scheduled-transfers.max-attempts}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledTransferDispatcher {
+
+    private final ScheduledTransferJdbcRepository scheduledTransferJdbcRepository;
+    private final TransferService transferService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Number of chunks executed concurrently.
+     */
+    @Value("${app.scheduled-transfers.workers:8}")
+    private int workerCount;
+
+    /**
+     * Maximum number of orders claimed by a worker at once.
+     */
+    @Value("${app.scheduled-transfers.chunk-size:200}")
+    private int chunkSize;
+
+    /**
+     * How long a claimed chunk is hidden from other workers; must exceed the time to execute a chunk.
+     */
+    @Value("${app.scheduled-transfers.lease-seconds:300}")
+    private long leaseSeconds;
+
+    /**
+     * Number of attempts after which an occurrence is skipped.
+     */
+    @Value("${app.scheduled-transfers.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Delay before the first retry; doubled on every further attempt.
+     */
+    @Value("${app.scheduled-transfers.retry-backoff-seconds:60}")
+    private long retryBackoffSeconds;
+
+    /**
+     * Polls for due orders and drains them with {@code app.scheduled-transfers.workers} virtual-thread workers.
+     */
+    @Scheduled(fixedDelayString = "${app.scheduled-transfers.poll-interval-ms:5000}")
+    public void dispatch() {
+        List<Future<?>> running = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            running.add(workers.submit(this::drain));
+        }
+        for (Future<?> future : running) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Scheduled transfer worker failed", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    private void drain() {
+        int processed;
+        do {
+            processed = runChunk();
+        } while (processed == chunkSize);
+    }
+
+    /**
+     * Claims one chunk of due orders, executes them and records the outcomes.
+     *
+     * @return The number of claimed orders.
+     */
+    int runChunk() {
+        LocalDateTime claimedAt = LocalDateTime.now();
+        List<DueTransfer> due = transactionTemplate.execute(status ->
+                scheduledTransferJdbcRepository.claimDue(claimedAt, claimedAt.plusSeconds(leaseSeconds), chunkSize));
+        if (due == null || due.isEmpty()) {
+            return 0;
+        }
+        List<RunOutcome> outcomes = new ArrayList<>(due.size());
+        for (DueTransfer order : due) {
+            outcomes.add(execute(order));
+        }
+        transactionTemplate.executeWithoutResult(status -> scheduledTransferJdbcRepository.complete(outcomes));
+        return due.size();
+    }
+
+    private RunOutcome execute(DueTransfer order) {
+        TransferRequest request = new TransferRequest(order.fromCardId(), null, null, order.toCardId(), order.amount(), order.description());
+        // Ключ привязан к конкретному наступлению поручения: повторный захват после сбоя вернет уже созданный перевод
+        String idempotencyKey = "scheduled-" + order.id() + "-" + order.nextRunAt();
+        ScheduleRule rule;
+        try {
+            rule = ScheduleRule.of(order.cronExpression(), order.intervalSeconds());
+        } catch (RuntimeException e) {
+            // правило проверяется при создании; сюда попадают только испорченные вручную строки
+            log.error("Scheduled transfer {} has an invalid rule, postponing it by a day", order.id(), e);
+            LocalDateTime now = LocalDateTime.now();
+            return new RunOutcome(order.id(), now.plusDays(1), null, 0, now, null, truncate(e.getMessage()));
+        }
+        try {
+            TransferResponseDto transfer = transferService.createTransfer(request, order.username(), idempotencyKey);
+            LocalDateTime now = LocalDateTime.now();
+            return new RunOutcome(order.id(), rule.nextAfterRun(order.nextRunAt(), now), null, 0, now, transfer.getId(), null);
+        } catch (RuntimeException e) {
+            LocalDateTime now = LocalDateTime.now();
+            String error = truncate(rootMessage(e));
+            int attempts = order.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                log.warn("Scheduled transfer {} skipped occurrence {} after {} attempts: {}", order.id(), order.nextRunAt(), attempts, error);
+                return new RunOutcome(order.id(), rule.nextAfterRun(order.nextRunAt(), now), null, 0, now, null, error);
+            }
+            // Экспоненциальная задержка: backoff, 2*backoff, 4*backoff ... но не больше часа
+            long delay = Math.min(3600L, retryBackoffSeconds << (attempts - 1));
+            log.info("Scheduled transfer {} failed, attempt {}, retry in {}s: {}", order.id(), attempts, delay, error);
+            return new RunOutcome(order.id(), order.nextRunAt(), now.plusSeconds(delay), attempts, now, null, error);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= 255 ? message : message.substring(0, 255);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.bankcards.service.schedule;
+
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.CardOwnershipException;
+import com.example.bankcards.exception.dto.BadRequestException;
+import com.example.bankcards.exception.schedule.InvalidScheduleException;
+import com.example.bankcards.exception.schedule.ScheduledTransferNotFoundException;
+import com.example.bankcards.exception.transfer.InvalidTransferException;
+import com.example.bankcards.exception.user.UserNotFoundException;
+import com.example.bankcards.model.dto.schedule.ScheduledTransferRequest;
+import com.example.bankcards.model.dto.schedule.ScheduledTransferResponseDto;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.ScheduledTransfer;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.ScheduledTransferStatus;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.ScheduledTransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.service.card.CardTokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service for managing a user's standing orders (scheduled and recurring transfers).
+ * Orders are only stored here; {@link ScheduledTransferDispatcher} executes them when due.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ScheduledTransferService {
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final CardEncryptionService cardEncryptionService;
+    private final CardTokenService cardTokenService;
+
+    /**
+     * Shortest allowed interval between two runs of an interval order.
+     */
+    @Value("${app.scheduled-transfers.min-interval-seconds:3600}")
+    private long minIntervalSeconds;
+
+    /**
+     * Creates a standing order for the user.
+     *
+     * @param request The order; exactly one of the cron expression and the interval must be set.
+     * @param username The username of the owner, who must own the source card.
+     * @return The created order.
+     * @throws InvalidScheduleException if the rule is missing, ambiguous, malformed or too frequent.
+     * @throws InvalidTransferException if the source and destination card are the same.
+     * @throws CardOwnershipException if the source card does not belong to the user.
+     * @throws CardNotFoundException if the source or destination card is not found.
+     */
+    @Transactional
+    public ScheduledTransferResponseDto create(ScheduledTransferRequest request, String username) {
+        ScheduleRule rule = ScheduleRule.of(request.getCronExpression(), request.getIntervalSeconds());
+        if (rule.intervalSeconds() != null && rule.intervalSeconds() < minIntervalSeconds) {
+            throw new InvalidScheduleException("Interval must be at least " + minIntervalSeconds + " seconds.");
+        }
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        Card fromCard = cardRepository.findById(request.getFromCardId())
+                .orElseThrow(() -> new CardNotFoundException("Source card not found with ID: " + request.getFromCardId()));
+        if (!fromCard.getAccount().getUser().getId().equals(user.getId())) {
+            throw new CardOwnershipException("Access denied: Source card doesn't belong to user");
+        }
+        Long toCardId = resolveToCardId(request);
+        if (fromCard.getId().equals(toCardId)) {
+            throw new InvalidTransferException("Cannot transfer to the same card");
+        }
+        Card toCard = cardRepository.findById(toCardId)
+                .orElseThrow(() -> new CardNotFoundException("Destination card not found with ID: " + toCardId));
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startAt = request.getStartAt();
+        ScheduledTransfer order = new ScheduledTransfer();
+        order.setUser(user);
+        order.setFromCard(fromCard);
+        order.setToCard(toCard);
+        order.setAmount(request.getAmount());
+        order.setDescription(request.getDescription());
+        order.setCronExpression(rule.intervalSeconds() == null ? request.getCronExpression().trim() : null);
+        order.setIntervalSeconds(rule.intervalSeconds());
+        order.setStatus(ScheduledTransferStatus.ACTIVE);
+        order.setNextRunAt(startAt != null && startAt.isAfter(now) ? startAt : rule.next(now));
+
+        ScheduledTransfer saved = scheduledTransferRepository.save(order);
+        log.info("Scheduled transfer {} created: {} -> {} amount: {} next run: {}",
+                saved.getId(), fromCard.getId(), toCard.getId(), saved.getAmount(), saved.getNextRunAt());
+        return toDto(saved);
+    }
+
+    /**
+     * Returns the user's standing orders, soonest due first.
+     *
+     * @param username The username of the owner.
+     * @return The orders.
+     */
+    public List<ScheduledTransferResponseDto> getUserScheduledTransfers(String username) {
+        return scheduledTransferRepository.findAllWithCardsByUserUsername(username).stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    /**
+     * Pauses or resumes an order. A resumed order whose due time has passed runs at its next occurrence
+     * instead of immediately.
+     *
+     * @param id The ID of the order.
+     * @param status The new status.
+     * @param username The username of the owner.
+     * @return The updated order.
+     * @throws ScheduledTransferNotFoundException if the order does not exist or belongs to another user.
+     */
+    @Transactional
+    public ScheduledTransferResponseDto updateStatus(Long id, ScheduledTransferStatus status, String username) {
+        ScheduledTransfer order = findOwned(id, username);
+        LocalDateTime now = LocalDateTime.now();
+        if (status == ScheduledTransferStatus.ACTIVE && order.getStatus() != ScheduledTransferStatus.ACTIVE
+                && !order.getNextRunAt().isAfter(now)) {
+            order.setNextRunAt(ScheduleRule.of(order.getCronExpression(), order.getIntervalSeconds()).next(now));
+            order.setAttempts(0);
+            order.setLockedUntil(null);
+        }
+        order.setStatus(status);
+        return toDto(order);
+    }
+
+    /**
+     * Deletes an order. An occurrence already being executed still completes.
+     *
+     * @param id The ID of the order.
+     * @param username The username of the owner.
+     * @throws ScheduledTransferNotFoundException if the order does not exist or belongs to another user.
+     */
+    @Transactional
+    public void delete(Long id, String username) {
+        scheduledTransferRepository.delete(findOwned(id, username));
+        log.info("Scheduled transfer {} deleted by {}", id, username);
+    }
+
+    private ScheduledTransfer findOwned(Long id, String username) {
+        return scheduledTransferRepository.findByIdAndUserUsername(id, username)
+                .orElseThrow(() -> new ScheduledTransferNotFoundException("Scheduled transfer not found with ID: " + id));
+    }
+
+    private Long resolveToCardId(ScheduledTransferRequest request) {
+        if (request.getToCardId() != null) {
+            return request.getToCardId();
+        }
+        if (request.getToCardToken() != null && !request.getToCardToken().isBlank()) {
+            return cardTokenService.resolveCardId(request.getToCardToken())
+                    .orElseThrow(() -> new CardNotFoundException("Destination card not found"));
+        }
+        if (request.getToCardNumber() != null && !request.getToCardNumber().trim().isEmpty()) {
+            return cardRepository.findIdByCardNumberHash(cardEncryptionService.hashCardNumber(request.getToCardNumber()))
+                    .orElseThrow(() -> new CardNotFoundException("Destination card not found"));
+        }
+        throw new BadRequestException("Destination card info (ID, token or Number) is missing");
+    }
+
+    private ScheduledTransferResponseDto toDto(ScheduledTransfer order) {
+        return new ScheduledTransferResponseDto(order.getId(),
+                order.getFromCard().getId(), cardEncryptionService.getMaskedCardNumber(order.getFromCard()),
+                order.getToCard().getId(), cardEncryptionService.getMaskedCardNumber(order.getToCard()),
+                order.getAmount(), order.getDescription(), order.getCronExpression(), order.getIntervalSeconds(),
+                order.getStatus(), order.getNextRunAt(), order.getLastRunAt(), order.getLastTransferId(), order.getLastError());
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.CardOwnershipException;
+import com.example.bankcards.exception.idempotency.IdempotencyKeyMismatchException;
+import com.example.bankcards.exception.transfer.InvalidTransferException;
+import com.example.bankcards.exception.transfer.TransferQueueFullException;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.service.transfer.TransferService.AdmittedTransfer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for asynchronous transfers.
+ * A submission is admitted by storing the transfer as {@code PENDING} and handing it to a fixed pool of
+ * {@code app.transfer.async.workers} threads through a queue of {@code app.transfer.async.queue-capacity} entries.
+ * Admission is bounded up front: when every worker is busy and the queue is full, the submission is rejected with
+ * {@link TransferQueueFullException} before anything is written, so overload turns into fast HTTP 429 responses
+ * instead of growing latency for everyone. Clients poll the transfer by its ID for the final status.
+ * <p>
+ * The queue lives in memory, so transfers admitted by an instance that stops before executing them stay
+ * {@code PENDING}; they are failed by a periodic sweep after {@code app.transfer.async.stale-seconds}.
+ * <p>
+ * Metrics: {@code transfer.async.queue.depth} and {@code transfer.async.rejected}.
+ */
+@Service
+@Slf4j
+public class AsyncTransferService {
+
+    private static final String STALE_REASON = "Transfer was not processed in time";
+
+    private final TransferService transferService;
+    private final ThreadPoolExecutor workers;
+    private final Semaphore admissions;
+    private final Counter rejectedCounter;
+
+    /**
+     * Pending transfers older than this are considered lost and failed by the sweep.
+     * Must exceed the time a full queue takes to drain.
+     */
+    @Value("${app.transfer.async.stale-seconds:300}")
+    private long staleSeconds;
+
+    public AsyncTransferService(TransferService transferService,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.transfer.async.workers:16}") int workerCount,
+                                @Value("${app.transfer.async.queue-capacity:1000}") int queueCapacity) {
+        this.transferService = transferService;
+        // Разрешения покрывают и очередь, и исполняемые задачи, поэтому execute() никогда не отклоняет задачу
+        this.admissions = new Semaphore(workerCount + queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "transfer-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rejectedCounter = Counter.builder("transfer.async.rejected")
+                .description("Asynchronous transfers rejected because the admission queue was full")
+                .register(meterRegistry);
+        Gauge.builder("transfer.async.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("Admitted transfers waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a transfer for asynchronous execution.
+     *
+     * @param request The transfer request.
+     * @param username The username of the sender, who must own the source card.
+     * @param idempotencyKey The client-supplied key, or {@code null} if the client did not send one.
+     * @return The {@code PENDING} transfer, or the previously admitted one for a repeated idempotency key.
+     * @throws TransferQueueFullException if the admission queue is full.
+     * @throws InvalidTransferException if attempting to transfer to the same card.
+     * @throws CardOwnershipException if the source card does not belong to the user.
+     * @throws CardNotFoundException if the source or destination card is not found.
+     * @throws IdempotencyKeyMismatchException if the key was already used for a different request.
+     */
+    public TransferResponseDto submit(TransferRequest request, String username, String idempotencyKey) {
+        if (!admissions.tryAcquire()) {
+            rejectedCounter.increment();
+            throw new TransferQueueFullException("Too many transfers in progress, retry later.");
+        }
+        boolean enqueued = false;
+        try {
+            AdmittedTransfer admitted = transferService.createPendingTransfer(request, username, idempotencyKey);
+            if (admitted.created()) {
+                Long transferId = admitted.transfer().getId();
+                workers.execute(() -> {
+                    try {
+                        transferService.completePendingTransfer(transferId, request, admitted.toCardId(), username);
+                    } catch (RuntimeException e) {
+                        log.error("Asynchronous transfer {} could not be completed", transferId, e);
+                    } finally {
+                        admissions.release();
+                    }
+                });
+                enqueued = true;
+            }
+            return admitted.transfer();
+        } finally {
+            if (!enqueued) {
+                admissions.release();
+            }
+        }
+    }
+
+    /**
+     * Periodically fails transfers that stayed {@code PENDING} for too long.
+     */
+    @Scheduled(fixedDelayString = "${app.transfer.async.sweep-interval-ms:60000}")
+    public void failStalePendingTransfers() {
+        int failed = transferService.failStalePendingTransfers(LocalDateTime.now().minusSeconds(staleSeconds), STALE_REASON);
+        if (failed > 0) {
+            log.warn("Failed {} transfers that stayed pending for more than {} s", failed, staleSeconds);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workers.shutdown();
+        // Незавершенные переводы остаются PENDING и будут списаны очисткой
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.dto.BadRequestException;
+import com.example.bankcards.exception.fx.FxRateUnavailableException;
+import com.example.bankcards.model.dto.transfer.BatchTransferItemResultDto;
+import com.example.bankcards.model.dto.transfer.BatchTransferResponseDto;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.Notification;
+import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.Transfer;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.CardStatus;
+import com.example.bankcards.model.entity.enums.FeeType;
+import com.example.bankcards.model.entity.enums.MovementType;
+import com.example.bankcards.model.entity.enums.NotificationType;
+import com.example.bankcards.model.entity.enums.TransactionType;
+import com.example.bankcards.model.entity.enums.TransferStatus;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.service.card.CardTokenService;
+import com.example.bankcards.service.fee.ServiceFeeService;
+import com.example.bankcards.service.fraud.TransferRiskService;
+import com.example.bankcards.service.fraud.TransferRiskService.Action;
+import com.example.bankcards.service.fraud.TransferRiskService.RiskDecision;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.ledger.LedgerService.Leg;
+import com.example.bankcards.service.ledger.LedgerService.Movement;
+import com.example.bankcards.service.limit.SpendingLimitService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for bulk money transfers (payroll, refunds).
+ * All items are validated up front; valid items are then applied in chunks, one transaction per chunk.
+ * Inside a chunk every involved card and account is locked once (cards first, then accounts, ascending ID,
+ * as in {@link TransferService}), balances are updated in memory and flushed once per row,
+ * and transfer, transaction and notification rows are written with JDBC batches.
+ * An item that fails validation is reported as FAILED without affecting the other items. Items of user-initiated
+ * batches that go to another user are also screened by {@link TransferRiskService} and count against spending limits,
+ * as single transfers do: an item rejected by screening or over a limit fails on its own, and an item held by
+ * screening is saved ON_HOLD without moving money. Items screened earlier in a chunk count towards the velocity
+ * rules of later ones. Administrator batches are neither screened nor limited.
+ * A cross-border item is charged the same fee as a single transfer: the balance must cover the amount and the fee,
+ * and the fee is collected through {@link ServiceFeeService} once the transfer rows are written.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchTransferService {
+
+    private final CardRepository cardRepository;
+    private final AccountRepository accountRepository;
+    private final CardEncryptionService cardEncryptionService;
+    private final CardTokenService cardTokenService;
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final TransferRetryExecutor transferRetryExecutor;
+    private final SpendingLimitService spendingLimitService;
+    private final SpendingAnalyticsService spendingAnalyticsService;
+    private final LedgerService ledgerService;
+    private final AccountBalanceService accountBalanceService;
+    private final TransferRiskService transferRiskService;
+    private final FxRateService fxRateService;
+    private final ServiceFeeService serviceFeeService;
+
+    /**
+     * Maximum number of transfers accepted in one request.
+     */
+    @Value("${app.transfer.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    /**
+     * Number of transfers applied per database transaction.
+     */
+    @Value("${app.transfer.batch.chunk-size:100}")
+    private int chunkSize;
+
+    /**
+     * Fee, in percent of the amount, for a transfer between cards issued in different countries; 0 disables it.
+     */
+    @Value("${app.fees.cross-border-percent:0}")
+    private BigDecimal crossBorderFeePercent = BigDecimal.ZERO;
+
+    /**
+     * Executes a list of transfers on behalf of a user. Every source card must belong to the user.
+     *
+     * @param requests The transfers to execute.
+     * @param username The username of the sender.
+     * @return The per-item results, in request order.
+     * @throws BadRequestException if the batch exceeds the configured maximum size.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchTransferResponseDto createTransfers(List<TransferRequest> requests, String username) {
+        return process(requests, username);
+    }
+
+    /**
+     * Executes a list of transfers as an administrator. Source card ownership is not checked.
+     *
+     * @param requests The transfers to execute.
+     * @return The per-item results, in request order.
+     * @throws BadRequestException if the batch exceeds the configured maximum size.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchTransferResponseDto createTransfersAsAdmin(List<TransferRequest> requests) {
+        return process(requests, null);
+    }
+
+    private BatchTransferResponseDto process(List<TransferRequest> requests, String username) {
+        if (requests.size() > maxBatchSize) {
+            throw new BadRequestException("A batch may contain at most " + maxBatchSize + " transfers");
+        }
+        BatchTransferItemResultDto[] results = new BatchTransferItemResultDto[requests.size()];
+        List<PreparedTransfer> prepared = prepare(requests, results);
+
+        for (int from = 0; from < prepared.size(); from += chunkSize) {
+            List<PreparedTransfer> chunk = prepared.subList(from, Math.min(from + chunkSize, prepared.size()));
+            try {
+                transferRetryExecutor.executeInTransaction(() -> applyChunk(chunk, username, results),
+                        "batch transfer chunk of " + chunk.size());
+            } catch (RuntimeException e) {
+                log.error("Batch transfer chunk of {} items failed", chunk.size(), e);
+                for (PreparedTransfer item : chunk) {
+                    results[item.index()] = failed(item.index(), "Transfer processing failed: " + e.getMessage());
+                }
+            }
+        }
+
+        List<BatchTransferItemResultDto> resultList = Arrays.asList(results);
+        int succeeded = (int) resultList.stream().filter(r -> r.getStatus() == TransferStatus.SUCCESS).count();
+        int failed = (int) resultList.stream().filter(r -> r.getStatus() == TransferStatus.FAILED).count();
+        log.info("Batch transfer completed: {} of {} succeeded, {} held", succeeded, requests.size(),
+                requests.size() - succeeded - failed);
+        return new BatchTransferResponseDto(requests.size(), succeeded, failed, resultList);
+    }
+
+    /**
+     * Validates request-level rules and resolves destination card numbers to IDs with a single query;
+     * destination tokens are resolved from the token cache.
+     * Items that cannot be executed get a FAILED result immediately.
+     */
+    private List<PreparedTransfer> prepare(List<TransferRequest> requests, BatchTransferItemResultDto[] results) {
+        Map<Integer, String> hashByIndex = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            if (request.getToCardId() == null && request.getToCardNumber() != null && !request.getToCardNumber().trim().isEmpty()) {
+                try {
+                    hashByIndex.put(i, cardEncryptionService.hashCardNumber(request.getToCardNumber()));
+                } catch (IllegalArgumentException e) {
+                    results[i] = failed(i, e.getMessage());
+                }
+            }
+        }
+        Map<String, Long> cardIdByHash = hashByIndex.isEmpty() ? Map.of() :
+                cardRepository.findByCardNumberHashIn(hashByIndex.values()).stream()
+                        .collect(Collectors.toMap(CardRepository.CardIdView::getCardNumberHash, CardRepository.CardIdView::getId));
+
+        List<PreparedTransfer> prepared = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            TransferRequest request = requests.get(i);
+            Long toCardId = request.getToCardId() != null ? request.getToCardId() : cardIdByHash.get(hashByIndex.get(i));
+            boolean hasToCardToken = request.getToCardToken() != null && !request.getToCardToken().isBlank();
+            if (toCardId == null && hasToCardToken) {
+                toCardId = cardTokenService.resolveCardId(request.getToCardToken()).orElse(null);
+            }
+            if (request.getFromCardId() == null || request.getAmount() == null || request.getAmount().signum() <= 0) {
+                results[i] = failed(i, "Source card and a positive amount are required");
+            } else if (toCardId == null) {
+                results[i] = failed(i, hashByIndex.containsKey(i) || hasToCardToken
+                        ? "Destination card not found" : "Destination card info (ID, token or Number) is missing");
+            } else if (request.getFromCardId().equals(toCardId)) {
+                results[i] = failed(i, "Cannot transfer to the same card");
+            } else {
+                prepared.add(new PreparedTransfer(i, request.getFromCardId(), toCardId, request.getAmount()));
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * Applies one chunk inside the current transaction and records the per-item results.
+     */
+    private Void applyChunk(List<PreparedTransfer> chunk, String username, BatchTransferItemResultDto[] results) {
+        // 0. Блокировки: сначала все карты, затем все счета — по возрастанию ID
+        Set<Long> cardIds = new TreeSet<>();
+        for (PreparedTransfer item : chunk) {
+            cardIds.add(item.fromCardId());
+            cardIds.add(item.toCardId());
+        }
+        Map<Long, Card> cards = cardRepository.findAllByIdInForUpdate(cardIds).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        Set<Long> accountIds = cards.values().stream()
+                .map(card -> card.getAccount().getId())
+                .collect(Collectors.toCollection(TreeSet::new));
+        accountRepository.findAllByIdInForUpdate(accountIds);
+
+        List<PreparedTransfer> applied = new ArrayList<>();
+        List<Transfer> transfers = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        List<Transaction> analytics = new ArrayList<>();
+        Map<Long, UserTotals> debits = new LinkedHashMap<>();
+        Map<Long, UserTotals> credits = new LinkedHashMap<>();
+        Set<Long> folded = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (PreparedTransfer item : chunk) {
+            Card fromCard = cards.get(item.fromCardId());
+            Card toCard = cards.get(item.toCardId());
+            String error = validate(fromCard, toCard, item, username);
+            // Комиссия списывается вместе с суммой, поэтому баланс проверяется на их сумму
+            BigDecimal fee = BigDecimal.ZERO;
+            BigDecimal convertedFee = null;
+            if (error == null) {
+                fee = TransferService.crossBorderFee(fromCard, toCard, item.amount(), crossBorderFeePercent);
+                if (fromCard.getBalance().compareTo(item.amount().add(fee)) < 0) {
+                    error = "Insufficient funds.";
+                } else if (fee.signum() > 0) {
+                    try {
+                        convertedFee = serviceFeeService.convertToCollectionCurrency(fee, fromCard.getCurrency());
+                    } catch (FxRateUnavailableException e) {
+                        error = e.getMessage();
+                    }
+                }
+            }
+            boolean external = error == null
+                    && !fromCard.getAccount().getUser().getId().equals(toCard.getAccount().getUser().getId());
+            Long senderId = error == null ? fromCard.getAccount().getUser().getId() : null;
+            RiskDecision decision = null;
+            BigDecimal screenedAmount = null;
+            if (external && username != null) {
+                // Скоринг как у одиночного перевода; записанные ранее переводы пакета учитываются до коммита
+                try {
+                    screenedAmount = fxRateService.toBaseCurrency(item.amount(), fromCard.getCurrency());
+                    decision = transferRiskService.assess(item.fromCardId(), item.toCardId(), senderId, screenedAmount);
+                } catch (FxRateUnavailableException e) {
+                    error = e.getMessage();
+                }
+                if (decision != null && decision.action() == Action.REJECT) {
+                    error = "Transfer rejected by fraud screening: " + decision.reason();
+                } else if (decision != null && decision.action() == Action.HOLD) {
+                    // Задержанный перевод сохраняется без движения денег
+                    transfers.add(heldTransfer(fromCard, toCard, item.amount(), decision.reason(), now));
+                    applied.add(item);
+                    transferRiskService.record(item.fromCardId(), item.toCardId(), senderId, screenedAmount, decision);
+                    continue;
+                } else if (error == null) {
+                    // Лимит проверяется последним: счетчик увеличивается только для перевода, который точно будет применен
+                    error = spendingLimitService.tryRecordSpend(fromCard, item.amount());
+                }
+            }
+            if (error != null) {
+                results[item.index()] = failed(item.index(), error);
+                continue;
+            }
+            Account fromAccount = fromCard.getAccount();
+            Account toAccount = toCard.getAccount();
+            BigDecimal amount = item.amount();
+            BigDecimal debited = amount.add(fee);
+
+            // 1. Балансы карт и счетов (одно UPDATE на строку при flush); бакеты горячего счета
+            // сворачиваются перед списанием, один раз за пакет — счета уже заблокированы
+            if (folded.add(fromAccount.getId())) {
+                accountBalanceService.foldBuckets(fromAccount);
+            }
+            fromCard.setBalance(fromCard.getBalance().subtract(debited));
+            toCard.setBalance(toCard.getBalance().add(amount));
+            fromAccount.setBalance(fromAccount.getBalance().subtract(debited));
+            toAccount.setBalance(toAccount.getBalance().add(amount));
+
+            // 2. Перевод и транзакции (JDBC batch)
+            Transfer transfer = new Transfer();
+            transfer.setFromCard(fromCard);
+            transfer.setToCard(toCard);
+            transfer.setAmount(amount);
+            transfer.setTransferDate(now);
+            transfer.setStatus(TransferStatus.SUCCESS);
+            transfer.setFeeAmount(fee.signum() > 0 ? fee : null);
+            transfer.setFeeCollectedAmount(convertedFee);
+            transfers.add(transfer);
+            Transaction outgoing = transaction(fromAccount, fromCard, amount, TransactionType.TRANSFER_OUT,
+                    "Transfer to card ID " + toCard.getId(), now);
+            Transaction incoming = transaction(toAccount, toCard, amount, TransactionType.TRANSFER_IN,
+                    "Transfer from card ID " + fromCard.getId(), now);
+            transactions.add(outgoing);
+            transactions.add(incoming);
+            if (external) {
+                analytics.add(outgoing);
+                analytics.add(incoming);
+            }
+
+            debits.computeIfAbsent(fromAccount.getUser().getId(), id -> new UserTotals(fromAccount.getUser())).add(debited);
+            credits.computeIfAbsent(toAccount.getUser().getId(), id -> new UserTotals(toAccount.getUser())).add(amount);
+            applied.add(item);
+            if (decision != null) {
+                transferRiskService.record(item.fromCardId(), item.toCardId(), senderId, screenedAmount, decision);
+            }
+        }
+
+        if (applied.isEmpty()) {
+            return null;
+        }
+        cardRepository.flush();
+        List<Long> transferIds = transferJdbcRepository.batchInsertTransfers(transfers);
+        transferJdbcRepository.batchInsertTransactions(transactions);
+        spendingAnalyticsService.record(analytics);
+        ledgerService.post(transfers.stream()
+                .filter(t -> t.getStatus() == TransferStatus.SUCCESS)
+                .map(t -> new Movement(MovementType.TRANSFER, Leg.customer(t.getFromCard().getAccount(), t.getFromCard()),
+                        Leg.customer(t.getToCard().getAccount(), t.getToCard()), t.getAmount(), t.getId()))
+                .toList());
+        // Комиссии уже списаны с карт и счетов — зачисляем их на счет сбора, когда у переводов есть ID
+        for (Transfer transfer : transfers) {
+            if (transfer.getFeeAmount() != null) {
+                serviceFeeService.collectTransferFee(transfer.getFromCard().getAccount(), transfer.getFromCard(),
+                        transfer.getFeeAmount(), transfer.getFeeCollectedAmount(), FeeType.TRANSFER_FEE, transfer.getId());
+            }
+        }
+
+        // 3. Уведомления: одно сводное на пользователя вместо двух на каждый перевод
+        List<Notification> notifications = new ArrayList<>(debits.size() + credits.size());
+        debits.values().forEach(t -> notifications.add(notification(t.user,
+                "Списание: -" + t.amount + " (Пакетный перевод, операций: " + t.count + ")", NotificationType.INFO)));
+        credits.values().forEach(t -> notifications.add(notification(t.user,
+                "Пополнение: +" + t.amount + " (Входящие переводы, операций: " + t.count + ")", NotificationType.SUCCESS)));
+        transferJdbcRepository.batchInsertNotifications(notifications);
+
+        for (int i = 0; i < applied.size(); i++) {
+            int index = applied.get(i).index();
+            results[index] = new BatchTransferItemResultDto(index, transferIds.get(i), transfers.get(i).getStatus(), null);
+        }
+        return null;
+    }
+
+    private String validate(Card fromCard, Card toCard, PreparedTransfer item, String username) {
+        if (fromCard == null) {
+            return "Source card not found with ID: " + item.fromCardId();
+        }
+        if (toCard == null) {
+            return "Destination card not found with ID: " + item.toCardId();
+        }
+        if (username != null && !fromCard.getAccount().getUser().getUsername().equals(username)) {
+            return "Access denied: Source card doesn't belong to user";
+        }
+        if (fromCard.getCardStatus() != CardStatus.ACTIVE) {
+            return "Source card is not active.";
+        }
+        if (toCard.getCardStatus() != CardStatus.ACTIVE) {
+            return "Destination card is not active.";
+        }
+        if (fromCard.getCurrency() != toCard.getCurrency()) {
+            // Пакет проводится без конвертации: межвалютные переводы выполняются по одному
+            return "Cross-currency transfers are not supported in a batch.";
+        }
+        return null;
+    }
+
+    private static Transfer heldTransfer(Card fromCard, Card toCard, BigDecimal amount, String reason, LocalDateTime date) {
+        Transfer transfer = new Transfer();
+        transfer.setFromCard(fromCard);
+        transfer.setToCard(toCard);
+        transfer.setAmount(amount);
+        transfer.setTransferDate(date);
+        transfer.setStatus(TransferStatus.ON_HOLD);
+        transfer.setHoldReason(reason);
+        log.warn("Transfer from card {} to card {} held by fraud screening: {}", fromCard.getId(), toCard.getId(), reason);
+        return transfer;
+    }
+
+    private static Transaction transaction(Account account, Card card, BigDecimal amount, TransactionType type,
+                                           String description, LocalDateTime date) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setCard(card);
+        transaction.setAmount(amount.abs());
+        transaction.setType(type);
+        transaction.setTransactionDate(date);
+        transaction.setDescription(description);
+        transaction.setStatus(TransferStatus.SUCCESS);
+        return transaction;
+    }
+
+    private static Notification notification(User user, String message, NotificationType type) {
+        Notification notification = new Notification();
+        notification.setUser(user);
+        notification.setMessage(message);
+        notification.setType(type);
+        notification.setIsRead(false);
+        return notification;
+    }
+
+    private static BatchTransferItemResultDto failed(int index, String error) {
+        return new BatchTransferItemResultDto(index, null, TransferStatus.FAILED, error);
+    }
+
+    /**
+     * A validated transfer item with the destination card resolved to an ID.
+     */
+    private record PreparedTransfer(int index, Long fromCardId, Long toCardId, BigDecimal amount) {
+    }
+
+    /**
+     * Running total of the amounts moved for one user within a chunk.
+     */
+    private static final class UserTotals {
+        private final User user;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private int count;
+
+        private UserTotals(User user) {
+            this.user = user;
+        }
+
+        private void add(BigDecimal value) {
+            amount = amount.add(value);
+            count++;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.idempotency.IdempotencyKeyMismatchException;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.service.card.CardLockManager;
+import com.example.bankcards.service.idempotency.IdempotencyService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional group-commit path for synchronous transfers ({@code app.transfer.group-commit.enabled}).
+ * Transfers that arrive within {@code app.transfer.group-commit.linger-ms} of each other are collected by a committer
+ * thread, up to {@code app.transfer.group-commit.max-batch-size} at a time, applied in one database transaction and
+ * acknowledged together after its single commit, so the cost of the commit (the WAL flush) is shared by the whole batch.
+ * <p>
+ * Every transfer runs under its own savepoint and is flushed before the next one starts: a transfer rejected by
+ * a business rule (insufficient funds, a spending limit, an inactive card) is rolled back to its savepoint and reported
+ * to its caller alone, while the rest of the batch commits. The card locks of the whole batch are taken up front,
+ * in the global stripe order of {@link CardLockManager}. A database error (a deadlock, a concurrent request with
+ * the same idempotency key) leaves the JPA transaction rollback-only, so it aborts the batch; then, as for any batch
+ * that cannot be committed, every caller falls back to {@link TransferService#createTransfer(TransferRequest, String, String)}
+ * with its own locking and retries.
+ * <p>
+ * Metrics: {@code transfer.group-commit.batch.size} and {@code transfer.group-commit.fallbacks}.
+ */
+@Service
+@Slf4j
+public class GroupCommitTransferExecutor {
+
+    private final TransferService transferService;
+    private final IdempotencyService idempotencyService;
+    private final CardLockManager cardLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final BlockingQueue<PendingTransfer> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> committers = new ArrayList<>();
+    private final DistributionSummary batchSizeSummary;
+    private final Counter fallbackCounter;
+
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private volatile boolean running;
+
+    public GroupCommitTransferExecutor(TransferService transferService,
+                                       IdempotencyService idempotencyService,
+                                       CardLockManager cardLockManager,
+                                       TransactionTemplate transactionTemplate,
+                                       JdbcTemplate jdbcTemplate,
+                                       EntityManager entityManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.transfer.group-commit.enabled:false}") boolean enabled,
+                                       @Value("${app.transfer.group-commit.max-batch-size:64}") int maxBatchSize,
+                                       @Value("${app.transfer.group-commit.linger-ms:2}") long lingerMs,
+                                       @Value("${app.transfer.group-commit.committers:2}") int committerCount) {
+        this.transferService = transferService;
+        this.idempotencyService = idempotencyService;
+        this.cardLockManager = cardLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.batchSizeSummary = DistributionSummary.builder("transfer.group-commit.batch.size")
+                .description("Transfers committed per group-commit transaction")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("transfer.group-commit.fallbacks")
+                .description("Transfers re-executed on their own after failing in a group commit")
+                .register(meterRegistry);
+        if (enabled) {
+            running = true;
+            for (int i = 1; i <= committerCount; i++) {
+                Thread committer = new Thread(this::runCommitter, "transfer-group-commit-" + i);
+                committer.setDaemon(true);
+                committer.start();
+                committers.add(committer);
+            }
+        }
+    }
+
+    /**
+     * Whether synchronous transfers should be sent through this executor.
+     *
+     * @return {@code true} if group commit is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Executes a transfer as part of the next group commit and waits for the commit.
+     * Has the same contract as {@link TransferService#createTransfer(TransferRequest, String, String)}.
+     *
+     * @param request The transfer request.
+     * @param username The username of the sender, who must own the source card.
+     * @param idempotencyKey The client-supplied key, or {@code null} if the client did not send one.
+     * @return The created (or previously created) transfer.
+     * @throws IdempotencyKeyMismatchException if the key was already used for a different request.
+     */
+    public TransferResponseDto submit(TransferRequest request, String username, String idempotencyKey) {
+        if (!running) {
+            return transferService.createTransfer(request, username, idempotencyKey);
+        }
+        if (idempotencyKey != null) {
+            Optional<TransferResponseDto> stored = idempotencyService.findStoredResponse(
+                    username, idempotencyKey, idempotencyService.fingerprint(request));
+            if (stored.isPresent()) {
+                log.info("Replaying transfer {} for idempotency key of user {}", stored.get().getId(), username);
+                return stored.get();
+            }
+        }
+        PendingTransfer pending = new PendingTransfer(request, transferService.resolveToCardId(request), username,
+                idempotencyKey, new CompletableFuture<>());
+        queue.add(pending);
+
+        TransferResponseDto response;
+        try {
+            response = pending.result().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        if (response != null) {
+            return response;
+        }
+        // Перевод не был применен в группе — выполняется отдельно, со своими блокировками и повторами
+        fallbackCounter.increment();
+        return transferService.createTransfer(request, username, idempotencyKey);
+    }
+
+    private void runCommitter() {
+        List<PendingTransfer> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingTransfer next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commitBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                // Незавершенные ожидающие (например, при прерывании) уходят на отдельное исполнение
+                batch.forEach(item -> item.result().complete(null));
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Applies a batch in one transaction and completes the callers' futures after the commit.
+     * A {@code null} result tells the caller to execute its transfer on its own.
+     */
+    void commitBatch(List<PendingTransfer> batch) {
+        List<Long> cardIds = new ArrayList<>(batch.size() * 2);
+        for (PendingTransfer item : batch) {
+            cardIds.add(item.request().getFromCardId());
+            cardIds.add(item.toCardId());
+        }
+        Outcome[] outcomes = new Outcome[batch.size()];
+        try {
+            cardLockManager.withCardLocks(cardIds, () -> transactionTemplate.execute(status -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    outcomes[i] = applyItem(batch.get(i));
+                }
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            // Откатана вся группа, поэтому каждый перевод можно безопасно выполнить заново
+            log.warn("Group commit of {} transfers failed, executing them one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(item -> item.result().complete(null));
+            return;
+        }
+        batchSizeSummary.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Outcome outcome = outcomes[i];
+            if (outcome.error() != null) {
+                batch.get(i).result().completeExceptionally(outcome.error());
+            } else {
+                batch.get(i).result().complete(outcome.response());
+            }
+        }
+    }
+
+    private Outcome applyItem(PendingTransfer item) {
+        jdbcTemplate.execute("SAVEPOINT group_commit_item");
+        try {
+            TransferResponseDto response = transferService.applyTransfer(
+                    item.request(), item.toCardId(), item.username(), item.idempotencyKey());
+            // Ошибки записи должны проявиться до следующего перевода, пока их можно откатить до savepoint
+            entityManager.flush();
+            jdbcTemplate.execute("RELEASE SAVEPOINT group_commit_item");
+            return new Outcome(response, null);
+        } catch (RuntimeException e) {
+            if (e instanceof DataAccessException || e.getCause() instanceof DataAccessException) {
+                // Ошибка БД помечает JPA-транзакцию только для отката — группа прерывается целиком
+                throw e;
+            }
+            jdbcTemplate.execute("ROLLBACK TO SAVEPOINT group_commit_item");
+            // Контекст содержит изменения откатанного перевода; изменения предыдущих уже записаны в БД
+            entityManager.clear();
+            return new Outcome(null, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread committer : committers) {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        // Оставшиеся в очереди выполняются отдельно своими отправителями
+        PendingTransfer item;
+        while ((item = queue.poll()) != null) {
+            item.result().complete(null);
+        }
+    }
+
+    /**
+     * A transfer waiting for the next group commit.
+     */
+    record PendingTransfer(TransferRequest request, Long toCardId, String username, String idempotencyKey,
+                           CompletableFuture<TransferResponseDto> result) {
+    }
+
+    /**
+     * The result of one transfer in a batch: its response or the business error that rejected it.
+     */
+    private record Outcome(TransferResponseDto response, RuntimeException error) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.transfer.TransferConflictException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs money-movement work in its own transaction and retries it when the database aborts
+ * the transaction because of a deadlock or serialization failure.
+ * The number of attempts is bounded, and the delay between attempts grows linearly and is jittered
+ * so that conflicting transactions do not keep colliding in lock-step.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransferRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Maximum number of attempts for work aborted by a deadlock or serialization failure.
+     */
+    @Value("${app.transfer.lock-retry.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Base delay between retry attempts; grows linearly with the attempt number and is jittered.
+     */
+    @Value("${app.transfer.lock-retry.backoff-ms:20}")
+    private long backoffMs;
+
+    /**
+     * Executes the given action in a new transaction, retrying on lock conflicts.
+     * Any other exception rolls the transaction back and is rethrown unchanged.
+     *
+     * @param action The transactional work. It is invoked again from scratch on every retry.
+     * @param operation A short description of the work, used in log messages.
+     * @param <T> The result type.
+     * @return The result of the first successful attempt.
+     * @throws TransferConflictException if the action still conflicts after all attempts.
+     */
+    public <T> T executeInTransaction(Supplier<T> action, String operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("{} failed after {} attempts due to lock conflicts", operation, attempt);
+                    throw new TransferConflictException("Transfer could not be completed due to concurrent operations, please retry", e);
+                }
+                log.warn("Lock conflict on {} (attempt {}/{}): {}", operation, attempt, maxAttempts, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        try {
+            long delay = backoffMs * attempt;
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferConflictException("Transfer retry interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.dto.BadRequestException;
+import com.example.bankcards.exception.transfer.TransferConflictException;
+import com.example.bankcards.exception.transfer.TransferNotFoundException;
+import com.example.bankcards.exception.transfer.TransferNotReversibleException;
+import com.example.bankcards.model.dto.outbox.TransferReversedEvent;
+import com.example.bankcards.model.dto.transfer.BatchTransferItemResultDto;
+import com.example.bankcards.model.dto.transfer.BatchTransferResponseDto;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.Transfer;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.MovementType;
+import com.example.bankcards.model.entity.enums.OutboxEventType;
+import com.example.bankcards.model.entity.enums.TransactionType;
+import com.example.bankcards.model.entity.enums.TransferStatus;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.service.fee.ServiceFeeService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.ledger.LedgerService.Leg;
+import com.example.bankcards.service.ledger.LedgerService.Movement;
+import com.example.bankcards.service.limit.SpendingLimitService;
+import com.example.bankcards.service.outbox.OutboxDispatcher;
+import com.example.bankcards.service.outbox.OutboxService;
+import com.example.bankcards.util.mapper.TransferMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Service for reversing completed transfers (refunds, fraud and incident clean-up) by administrators.
+ * A reversal moves the amount back from the recipient to the sender, posts a pair of compensating
+ * {@code REVERSAL_OUT}/{@code REVERSAL_IN} transactions linked to the original transfer and marks it
+ * {@link TransferStatus#REVERSED} — all in one transaction. A fee charged for the transfer is returned to the sender
+ * together with the amount. Notifications and the audit record are published through the outbox in the same transaction
+ * and sent by {@link OutboxDispatcher} only after it commits. Locks are taken in the same order as
+ * {@link TransferService}: cards, then accounts, then the transfer rows, each by ascending ID, so reversals can run
+ * alongside live traffic; the status of a transfer is checked only once its row is locked.
+ * The bulk variant applies reversals in chunks, one transaction per chunk, with JDBC batches for the new rows;
+ * an item that cannot be reversed is reported as FAILED without affecting the others.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class TransferReversalService {
+
+    private final TransferRepository transferRepository;
+    private final CardRepository cardRepository;
+    private final AccountRepository accountRepository;
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final TransferRetryExecutor transferRetryExecutor;
+    private final AccountBalanceService accountBalanceService;
+    private final SpendingLimitService spendingLimitService;
+    private final SpendingAnalyticsService spendingAnalyticsService;
+    private final LedgerService ledgerService;
+    private final TransferMapper transferMapper;
+    private final CardEncryptionService cardEncryptionService;
+    private final ServiceFeeService serviceFeeService;
+    private final OutboxService outboxService;
+
+    /**
+     * Maximum number of transfers accepted in one bulk reversal request.
+     */
+    @Value("${app.transfer.reversal.max-batch-size:5000}")
+    private int maxBatchSize;
+
+    /**
+     * Number of reversals applied per database transaction.
+     */
+    @Value("${app.transfer.reversal.chunk-size:100}")
+    private int chunkSize;
+
+    /**
+     * Reverses a single transfer.
+     *
+     * @param transferId The ID of the transfer.
+     * @param reason Why the transfer is reversed; may be {@code null}.
+     * @param adminUsername The administrator performing the reversal.
+     * @return The reversed transfer.
+     * @throws TransferNotFoundException if the transfer does not exist.
+     * @throws TransferNotReversibleException if the transfer failed or was already reversed.
+     * @throws InsufficientFundsException if the recipient card no longer holds the amount.
+     * @throws TransferConflictException if the reversal still conflicts after all retry attempts.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransferResponseDto reverse(Long transferId, String reason, String adminUsername) {
+        return transferRetryExecutor.executeInTransaction(() -> {
+            Outcome outcome = applyChunk(List.of(transferId), reason, adminUsername).get(transferId);
+            if (outcome.failure() != null) {
+                throw outcome.failure();
+            }
+            Transfer transfer = outcome.transfer();
+            TransferResponseDto dto = transferMapper.toTransferResponseDto(transfer);
+            dto.setFromCardNumber(cardEncryptionService.getMaskedCardNumber(transfer.getFromCard()));
+            dto.setToCardNumber(cardEncryptionService.getMaskedCardNumber(transfer.getToCard()));
+            return dto;
+        }, "reversal of transfer " + transferId);
+    }
+
+    /**
+     * Reverses many transfers, e.g., after an incident. Duplicate IDs are reversed once.
+     *
+     * @param transferIds The IDs of the transfers.
+     * @param reason Why the transfers are reversed; may be {@code null}.
+     * @param adminUsername The administrator performing the reversals.
+     * @return The per-item results, in request order; successful items have status {@code REVERSED}.
+     * @throws BadRequestException if the request exceeds the configured maximum size.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchTransferResponseDto reverseAll(List<Long> transferIds, String reason, String adminUsername) {
+        if (transferIds.size() > maxBatchSize) {
+            throw new BadRequestException("A bulk reversal may contain at most " + maxBatchSize + " transfers");
+        }
+        List<Long> distinct = new ArrayList<>(new TreeSet<>(transferIds));
+        Map<Long, String> errors = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+            try {
+                Map<Long, Outcome> outcomes = transferRetryExecutor.executeInTransaction(
+                        () -> applyChunk(chunk, reason, adminUsername), "bulk reversal chunk of " + chunk.size());
+                outcomes.forEach((id, outcome) -> {
+                    if (outcome.failure() != null) {
+                        errors.put(id, outcome.failure().getMessage());
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("Bulk reversal chunk of {} items failed", chunk.size(), e);
+                chunk.forEach(id -> errors.put(id, "Reversal processing failed: " + e.getMessage()));
+            }
+        }
+
+        List<BatchTransferItemResultDto> results = new ArrayList<>(transferIds.size());
+        Set<Long> seen = new TreeSet<>();
+        int succeeded = 0;
+        for (int i = 0; i < transferIds.size(); i++) {
+            Long id = transferIds.get(i);
+            String error = seen.add(id) ? errors.get(id) : "Duplicate transfer ID in request";
+            if (error == null) {
+                succeeded++;
+                results.add(new BatchTransferItemResultDto(i, id, TransferStatus.REVERSED, null));
+            } else {
+                results.add(new BatchTransferItemResultDto(i, id, TransferStatus.FAILED, error));
+            }
+        }
+        log.info("Bulk reversal by {} completed: {} of {} reversed", adminUsername, succeeded, transferIds.size());
+        return new BatchTransferResponseDto(transferIds.size(), succeeded, transferIds.size() - succeeded, results);
+    }
+
+    /**
+     * Reverses one chunk of transfers inside the current transaction.
+     * A transfer that cannot be reversed gets a failure instead of aborting the chunk.
+     */
+    private Map<Long, Outcome> applyChunk(List<Long> transferIds, String reason, String adminUsername) {
+        // 0. Блокировки в порядке переводов: карты, счета, затем строки переводов — по возрастанию ID.
+        // Карты перевода не меняются, поэтому их ID читаются без блокировки и без загрузки сущностей
+        Set<Long> cardIds = new TreeSet<>();
+        for (TransferRepository.TransferCardsView view : transferRepository.findCardIdsByIdIn(transferIds)) {
+            cardIds.add(view.getFromCardId());
+            cardIds.add(view.getToCardId());
+        }
+        List<Card> cards = cardIds.isEmpty() ? List.of() : cardRepository.findAllByIdInForUpdate(cardIds);
+        Set<Long> accountIds = new TreeSet<>();
+        cards.forEach(card -> accountIds.add(card.getAccount().getId()));
+        if (!accountIds.isEmpty()) {
+            accountRepository.findAllByIdInForUpdate(accountIds);
+        }
+        // Статус проверяется ниже, уже под блокировкой строки перевода
+        List<Transfer> transfers = cardIds.isEmpty() ? List.of() : transferRepository.findAllByIdInForUpdate(transferIds);
+
+        Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+        transferIds.forEach(id -> outcomes.put(id,
+                new Outcome(null, new TransferNotFoundException("Transfer not found with ID: " + id))));
+        List<Transaction> transactions = new ArrayList<>(transfers.size() * 2);
+        List<Transaction> analytics = new ArrayList<>();
+        List<Movement> movements = new ArrayList<>(transfers.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Transfer transfer : transfers) {
+            Card fromCard = transfer.getFromCard();
+            Card toCard = transfer.getToCard();
+            BigDecimal amount = transfer.getAmount();
+            // Межвалютный перевод отменяется по курсу исходного перевода: получатель возвращает зачисленную сумму
+            BigDecimal credited = transfer.getCreditedAmount() != null ? transfer.getCreditedAmount() : amount;
+            if (transfer.getStatus() != TransferStatus.SUCCESS) {
+                outcomes.put(transfer.getId(), new Outcome(null, new TransferNotReversibleException(
+                        "Transfer " + transfer.getId() + " is " + transfer.getStatus() + " and cannot be reversed.")));
+                continue;
+            }
+            if (toCard.getBalance().compareTo(credited) < 0) {
+                outcomes.put(transfer.getId(), new Outcome(null, new InsufficientFundsException(
+                        "Insufficient funds on the recipient card to reverse transfer " + transfer.getId() + ".")));
+                continue;
+            }
+            Account fromAccount = fromCard.getAccount();
+            Account toAccount = toCard.getAccount();
+            // Комиссия за перевод возвращается отправителю вместе с суммой
+            BigDecimal fee = transfer.getFeeAmount();
+            BigDecimal refunded = fee != null ? amount.add(fee) : amount;
+
+            // 1. Балансы: сумма возвращается с карты получателя на карту отправителя
+            toCard.setBalance(toCard.getBalance().subtract(credited));
+            fromCard.setBalance(fromCard.getBalance().add(refunded));
+            accountBalanceService.foldBuckets(toAccount);
+            toAccount.setBalance(toAccount.getBalance().subtract(credited));
+            fromAccount.setBalance(fromAccount.getBalance().add(refunded));
+            if (fee != null) {
+                serviceFeeService.refundTransferFee(fromAccount, fromCard, fee, transfer.getFeeCollectedAmount(), transfer.getId());
+            }
+
+            // 2. Исходный перевод помечается отмененным
+            transfer.setStatus(TransferStatus.REVERSED);
+            transfer.setReversedAt(now);
+            transfer.setReversedBy(adminUsername);
+            transfer.setReversalReason(reason);
+
+            // 3. Компенсирующие транзакции со ссылкой на исходный перевод
+            Transaction outgoing = transaction(toAccount, toCard, credited, TransactionType.REVERSAL_OUT, transfer, now);
+            Transaction incoming = transaction(fromAccount, fromCard, refunded, TransactionType.REVERSAL_IN, transfer, now);
+            transactions.add(outgoing);
+            transactions.add(incoming);
+            movements.addAll(Movement.exchange(MovementType.REVERSAL, Leg.customer(toAccount, toCard), credited,
+                    Leg.customer(fromAccount, fromCard), transfer.getCreditedAmount() != null ? amount : null, transfer.getId()));
+            User sender = fromAccount.getUser();
+            User recipient = toAccount.getUser();
+            if (!sender.getId().equals(recipient.getId())) {
+                // Перевод другому пользователю учитывался в лимитах и аналитике — возвращаем его оттуда
+                spendingLimitService.releaseSpend(fromCard, amount, transfer.getTransferDate().toLocalDate());
+                analytics.add(outgoing);
+                analytics.add(incoming);
+            }
+            // 4. Событие в outbox: уведомления и аудит — только после коммита; откатанный чанк их не оставит
+            outboxService.publish(OutboxEventType.TRANSFER_REVERSED, transfer.getId(), new TransferReversedEvent(
+                    transfer.getId(), fromCard.getId(), toCard.getId(), sender.getId(), recipient.getId(),
+                    amount, refunded, credited, adminUsername, reason));
+            outcomes.put(transfer.getId(), new Outcome(transfer, null));
+        }
+
+        if (transactions.isEmpty()) {
+            return outcomes;
+        }
+        transferRepository.flush();
+        transferJdbcRepository.batchInsertTransactions(transactions);
+        spendingAnalyticsService.record(analytics);
+        ledgerService.post(movements);
+        return outcomes;
+    }
+
+    private static Transaction transaction(Account account, Card card, BigDecimal amount, TransactionType type,
+                                           Transfer transfer, LocalDateTime date) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setCard(card);
+        transaction.setAmount(amount);
+        transaction.setType(type);
+        transaction.setTransactionDate(date);
+        transaction.setDescription("Reversal of transfer ID " + transfer.getId());
+        transaction.setStatus(TransferStatus.SUCCESS);
+        transaction.setTransferId(transfer.getId());
+        return transaction;
+    }
+
+    /**
+     * The result of reversing one transfer: the reversed transfer, or why it was not reversed.
+     */
+    private record Outcome(Transfer transfer, RuntimeException failure) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.bankcards.service.transfer;
 
+import com.example.bankcards.exception.card.CardLockTimeoutException;
 import com.example.bankcards.exception.card.CardNotFoundException;
 import com.example.bankcards.exception.card.CardOwnershipException;
 import com.example.bankcards.exception.card.CardStatusException;
@@ -7,7 +8,16 @@ import com.example.bankcards.exception.card.InsufficientFundsException;
 import com.example.bankcards.exception.dto.BadRequestException;
 import com.example.bankcards.exception.dto.ForbiddenException;
 import com.example.bankcards.exception.dto.ResourceNotFoundException;
+import com.example.bankcards.exception.fraud.TransferRejectedException;
+import com.example.bankcards.exception.fx.FxRateUnavailableException;
+import com.example.bankcards.exception.idempotency.IdempotencyKeyMismatchException;
+import com.example.bankcards.exception.limit.SpendingLimitExceededException;
 import com.example.bankcards.exception.transfer.InvalidTransferException;
+import com.example.bankcards.exception.transfer.TransferConflictException;
+import com.example.bankcards.exception.transfer.TransferNotFoundException;
+import com.example.bankcards.exception.transfer.TransferNotOnHoldException;
+import com.example.bankcards.model.dto.outbox.TransferCompletedEvent;
+import com.example.bankcards.model.dto.transfer.TransferPageResponseDto;
 import com.example.bankcards.model.dto.transfer.TransferRequest;
 import com.example.bankcards.model.dto.transfer.TransferResponseDto;
 import com.example.bankcards.model.entity.Account;
@@ -15,23 +25,55 @@ import com.example.bankcards.model.entity.Card;
 import com.example.bankcards.model.entity.Transfer;
 import com.example.bankcards.model.entity.Transaction;
 import com.example.bankcards.model.entity.enums.CardStatus;
-import com.example.bankcards.model.entity.enums.NotificationType;
+import com.example.bankcards.model.entity.enums.FeeType;
+import com.example.bankcards.model.entity.enums.MovementType;
+import com.example.bankcards.model.entity.enums.OutboxEventType;
 import com.example.bankcards.model.entity.enums.TransferStatus;
 import com.example.bankcards.model.entity.enums.TransactionType;
+import com.example.bankcards.repository.AccountRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
 import com.example.bankcards.repository.TransferRepository;
 import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.card.BinLookupService;
 import com.example.bankcards.service.card.CardEncryptionService;
-import com.example.bankcards.service.notification.NotificationService;
+import com.example.bankcards.service.card.CardLockManager;
+import com.example.bankcards.service.card.CardTokenService;
+import com.example.bankcards.service.fee.ServiceFeeService;
+import com.example.bankcards.service.fraud.TransferRiskService;
+import com.example.bankcards.service.fraud.TransferRiskService.Action;
+import com.example.bankcards.service.fraud.TransferRiskService.RiskDecision;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.fx.FxRateService.Conversion;
+import com.example.bankcards.service.idempotency.IdempotencyService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.ledger.LedgerService.Leg;
+import com.example.bankcards.service.ledger.LedgerService.Movement;
+import com.example.bankcards.service.limit.SpendingLimitService;
+import com.example.bankcards.service.outbox.OutboxService;
+import com.example.bankcards.util.BinTable;
+import com.example.bankcards.util.BinTable.BinInfo;
+import com.example.bankcards.util.CardNumber;
+import com.example.bankcards.util.KeysetCursor;
 import com.example.bankcards.util.mapper.TransferMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,79 +83,249 @@ import java.util.stream.Collectors;
 public class TransferService {
 
     private final CardEncryptionService cardEncryptionService;
+    private final CardTokenService cardTokenService;
     private final TransferRepository transferRepository;
     private final CardRepository cardRepository;
     private final TransferMapper transferMapper;
     private final TransactionRepository transactionRepository;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
+    private final AccountRepository accountRepository;
+    private final TransferRetryExecutor transferRetryExecutor;
+    private final IdempotencyService idempotencyService;
+    private final CardLockManager cardLockManager;
+    private final AccountBalanceService accountBalanceService;
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final SpendingLimitService spendingLimitService;
+    private final SpendingAnalyticsService spendingAnalyticsService;
+    private final LedgerService ledgerService;
+    private final TransferRiskService transferRiskService;
+    private final FxRateService fxRateService;
+    private final BinLookupService binLookupService;
+    private final ServiceFeeService serviceFeeService;
 
-    @Transactional
+    /**
+     * Maximum page size of the transfer history endpoints.
+     */
+    @Value("${app.transfer.history.max-page-size:200}")
+    private int maxHistoryPageSize;
+
+    /**
+     * Fee, in percent of the amount, for a transfer between cards issued in different countries; 0 disables it.
+     */
+    @Value("${app.fees.cross-border-percent:0}")
+    private BigDecimal crossBorderFeePercent = BigDecimal.ZERO;
+
+    /**
+     * Creates a transfer between two cards.
+     * Concurrent operations on the same cards are first queued in {@link CardLockManager}; only then
+     * the transfer runs in its own transaction with both cards and both accounts locked
+     * ({@code PESSIMISTIC_WRITE}). If the database aborts the transaction because of a deadlock
+     * or serialization failure, the whole transfer is retried a bounded number of times.
+     *
+     * @param request The transfer request.
+     * @param username The username of the sender, who must own the source card.
+     * @return The created transfer.
+     * @throws TransferConflictException if the transfer still conflicts after all retry attempts.
+     * @throws CardLockTimeoutException if one of the cards stays busy longer than the lock timeout.
+     * @throws SpendingLimitExceededException if a transfer to another user exceeds the card's daily or the sender's monthly limit.
+     * @throws FxRateUnavailableException if the cards are in different currencies and no up-to-date rate is cached.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransferResponseDto createTransfer(TransferRequest request, String username) {
-        Card fromCard = getAndValidateFromCard(request.getFromCardId(), username);
+        return createTransfer(request, username, null);
+    }
 
-        Card toCard;
-        // Логика выбора получателя: ID или Номер
-        if (request.getToCardId() != null) {
-            toCard = cardRepository.findById(request.getToCardId())
-                    .orElseThrow(() -> new CardNotFoundException("Destination card not found with ID: " + request.getToCardId()));
-            // Проверяем статус, даже если по ID нашли
-            if (toCard.getCardStatus() != CardStatus.ACTIVE) {
-                throw new CardStatusException("Destination card is not active.");
+    /**
+     * Creates a transfer, honouring a client-supplied {@code Idempotency-Key}.
+     * If the key was already used for the same request, the stored response is returned without
+     * touching the card rows. Otherwise the key is stored in the same transaction as the transfer,
+     * so a retry can never produce a second transfer.
+     *
+     * @param request The transfer request.
+     * @param username The username of the sender, who must own the source card.
+     * @param idempotencyKey The client-supplied key, or {@code null} if the client did not send one.
+     * @return The created (or previously created) transfer.
+     * @throws IdempotencyKeyMismatchException if the key was already used for a different request.
+     * @throws TransferConflictException if the transfer still conflicts after all retry attempts.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransferResponseDto createTransfer(TransferRequest request, String username, String idempotencyKey) {
+        String requestHash = null;
+        if (idempotencyKey != null) {
+            requestHash = idempotencyService.fingerprint(request);
+            Optional<TransferResponseDto> stored = idempotencyService.findStoredResponse(username, idempotencyKey, requestHash);
+            if (stored.isPresent()) {
+                log.info("Replaying transfer {} for idempotency key of user {}", stored.get().getId(), username);
+                return stored.get();
             }
-        } else if (request.getToCardNumber() != null && !request.getToCardNumber().trim().isEmpty()) {
-            toCard = getAndValidateToCard(request.getToCardNumber(), fromCard);
-        } else {
-            throw new BadRequestException("Destination card info (ID or Number) is missing");
         }
 
-        if (fromCard.getId().equals(toCard.getId())) {
+        Long toCardId = resolveToCardId(request);
+        String fingerprint = requestHash;
+        try {
+            // Конкурирующие операции с теми же картами ждут в очереди внутри JVM, не занимая соединение из пула
+            return cardLockManager.withCardLocks(List.of(request.getFromCardId(), toCardId), () ->
+                    transferRetryExecutor.executeInTransaction(() -> {
+                        TransferResponseDto response = executeTransfer(request, toCardId, username, null, true);
+                        if (idempotencyKey != null) {
+                            idempotencyService.store(username, idempotencyKey, fingerprint, response);
+                        }
+                        return response;
+                    }, "transfer from card " + request.getFromCardId()));
+        } catch (DataIntegrityViolationException e) {
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            // Параллельный запрос с тем же ключом зафиксировался первым — наш перевод откатан, отдаем его результат
+            return idempotencyService.findStoredResponse(username, idempotencyKey, fingerprint).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Executes a transfer inside the current transaction.
+     * Rows are locked in a fixed global order — cards first, then accounts, each in ascending ID order —
+     * so two transfers in opposite directions can never wait on each other's locks.
+     * A bucketed destination account is not locked at all; it is credited through one of its balance buckets.
+     * An asynchronously admitted transfer is completed in place of creating a new row.
+     * Transfers to another user are screened by {@link TransferRiskService} unless an administrator released them.
+     * Between cards in different currencies the amount is debited in the source currency and credited converted
+     * at the rate cached by {@link FxRateService}.
+     * Between cards whose issuers, as recorded from the BIN table, are in different countries a cross-border
+     * fee is debited from the source card and its account together with the amount, and collected through
+     * {@link ServiceFeeService} in the currency of the fee collection account.
+     */
+    private TransferResponseDto executeTransfer(TransferRequest request, Long toCardId, String username, Transfer pending,
+                                                boolean screen) {
+        if (request.getFromCardId().equals(toCardId)) {
             throw new InvalidTransferException("Cannot transfer to the same card");
         }
+        return executeTransfer(request, username, pending, screen, lockCards(request.getFromCardId(), toCardId));
+    }
 
-        validateTransferConditions(fromCard, request.getAmount());
+    /**
+     * Executes a transfer whose cards and accounts are already locked by {@link #lockCards(Long, Long)}.
+     * A stored transfer is locked by the caller only after them, so its row never precedes the card rows
+     * in the lock order.
+     */
+    private TransferResponseDto executeTransfer(TransferRequest request, String username, Transfer pending, boolean screen,
+                                                LockedCards locked) {
+        Long fromCardId = request.getFromCardId();
+        Card fromCard = locked.fromCard();
+        Card toCard = locked.toCard();
+        Long toCardId = toCard.getId();
+        Long toAccountId = toCard.getAccount().getId();
+        boolean creditToBucket = locked.creditToBucket();
+
+        validateFromCard(fromCard, username);
+        if (toCard.getCardStatus() != CardStatus.ACTIVE) {
+            throw new CardStatusException("Destination card is not active.");
+        }
+
+        // Комиссия за трансграничный перевод списывается вместе с суммой, поэтому входит в проверку средств
+        BigDecimal fee = crossBorderFee(fromCard, toCard, request.getAmount(), crossBorderFeePercent);
+        BigDecimal debited = request.getAmount().add(fee);
+        validateTransferConditions(fromCard, debited);
+        BigDecimal convertedFee = fee.signum() > 0
+                ? serviceFeeService.convertToCollectionCurrency(fee, fromCard.getCurrency()) : null;
+        // Межвалютный перевод: курс берется из кеша в памяти, без обращения к источнику курсов
+        Conversion conversion = null;
+        if (fromCard.getCurrency() != toCard.getCurrency()) {
+            conversion = fxRateService.convert(request.getAmount(), fromCard.getCurrency(), toCard.getCurrency());
+            if (conversion.amount().signum() <= 0) {
+                throw new InvalidTransferException("Amount is too small to convert to " + toCard.getCurrency());
+            }
+        }
+        BigDecimal credited = conversion != null ? conversion.amount() : request.getAmount();
+        // Лимиты трат и аналитика учитывают только переводы другим пользователям, не между своими картами
+        boolean external = !fromCard.getAccount().getUser().getId().equals(toCard.getAccount().getUser().getId());
+        // Скоринг в памяти, без запросов к БД, и без записи: перевод учитывается в скоринге только после коммита,
+        // поэтому повтор после дедлока или откат не искажают счетчики и статистику отправителя
+        RiskDecision decision = null;
+        BigDecimal screenedAmount = null;
+        Long senderId = fromCard.getAccount().getUser().getId();
+        if (external && screen) {
+            // Статистика отправителя ведется в BYN: у одного пользователя бывают карты в разных валютах
+            screenedAmount = fxRateService.toBaseCurrency(request.getAmount(), fromCard.getCurrency());
+            decision = transferRiskService.assess(fromCardId, toCardId, senderId, screenedAmount);
+            if (decision.action() == Action.REJECT) {
+                throw new TransferRejectedException("Transfer rejected by fraud screening: " + decision.reason());
+            }
+            if (decision.action() == Action.HOLD) {
+                // Задержанный перевод сохраняется без движения денег
+                TransferResponseDto held = holdTransfer(pending, fromCard, toCard, request.getAmount(), decision.reason());
+                transferRiskService.record(fromCardId, toCardId, senderId, screenedAmount, decision);
+                return held;
+            }
+        }
+        if (external) {
+            // tryRecordSpend не бросает исключение через прокси: иначе общая транзакция группового коммита
+            // была бы помечена только для отката
+            String violation = spendingLimitService.tryRecordSpend(fromCard, request.getAmount());
+            if (violation != null) {
+                throw new SpendingLimitExceededException(violation);
+            }
+        }
 
         Account fromAccount = fromCard.getAccount();
         Account toAccount = toCard.getAccount();
 
-        Transfer transfer = new Transfer();
+        Transfer transfer = pending != null ? pending : new Transfer();
         transfer.setFromCard(fromCard);
         transfer.setToCard(toCard);
         transfer.setAmount(request.getAmount());
+        transfer.setCreditedAmount(conversion != null ? conversion.amount() : null);
+        transfer.setExchangeRate(conversion != null ? conversion.rate() : null);
+        transfer.setFeeAmount(fee.signum() > 0 ? fee : null);
+        transfer.setFeeCollectedAmount(convertedFee);
         transfer.setTransferDate(LocalDateTime.now());
 
         try {
             // 1. Балансы
-            fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
-            toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+            fromCard.setBalance(fromCard.getBalance().subtract(debited));
+            toCard.setBalance(toCard.getBalance().add(credited));
 
             // 2. Счета
-            fromAccount.setBalance(fromAccount.getBalance().subtract(request.getAmount()));
-            toAccount.setBalance(toAccount.getBalance().add(request.getAmount()));
+            accountBalanceService.foldBuckets(fromAccount);
+            fromAccount.setBalance(fromAccount.getBalance().subtract(debited));
+            if (creditToBucket) {
+                accountBalanceService.creditBucket(toAccountId, credited);
+            } else {
+                toAccount.setBalance(toAccount.getBalance().add(credited));
+            }
 
             cardRepository.save(fromCard);
             cardRepository.save(toCard);
 
             // 3. Транзакции
-            recordTransaction(fromAccount, fromCard, request.getAmount().negate(), TransactionType.TRANSFER_OUT,
+            Transaction outgoing = recordTransaction(fromAccount, fromCard, request.getAmount().negate(), TransactionType.TRANSFER_OUT,
                     "Transfer to card ID " + toCard.getId());
-            recordTransaction(toAccount, toCard, request.getAmount(), TransactionType.TRANSFER_IN,
+            Transaction incoming = recordTransaction(toAccount, toCard, credited, TransactionType.TRANSFER_IN,
                     "Transfer from card ID " + fromCard.getId());
+            if (external) {
+                spendingAnalyticsService.record(List.of(outgoing, incoming));
+            }
 
             // 4. Сохранение перевода
             transfer.setStatus(TransferStatus.SUCCESS);
             Transfer savedTransfer = transferRepository.save(transfer);
+            ledgerService.post(Movement.exchange(MovementType.TRANSFER, Leg.customer(fromAccount, fromCard), request.getAmount(),
+                    Leg.customer(toAccount, toCard), savedTransfer.getCreditedAmount(), savedTransfer.getId()));
 
-            // 5. Уведомления (Колокольчик)
-            notificationService.createNotification(
-                    fromAccount.getUser().getUsername(),
-                    "Списание: -" + request.getAmount() + " (Перевод)",
-                    NotificationType.INFO
-            );
-            notificationService.createNotification(
-                    toAccount.getUser().getUsername(),
-                    "Пополнение: +" + request.getAmount() + " (Входящий перевод)",
-                    NotificationType.SUCCESS
-            );
+            // 4a. Комиссия за трансграничный перевод уже списана с карты и счета — зачисляем ее на счет сбора
+            if (fee.signum() > 0) {
+                serviceFeeService.collectTransferFee(fromAccount, fromCard, fee, convertedFee, FeeType.TRANSFER_FEE,
+                        savedTransfer.getId());
+            }
+
+            // 5. Событие в outbox: уведомления и аудит рассылаются после коммита, вне блокировок карт
+            outboxService.publish(OutboxEventType.TRANSFER_COMPLETED, savedTransfer.getId(), new TransferCompletedEvent(
+                    savedTransfer.getId(), fromCard.getId(), toCard.getId(),
+                    fromAccount.getUser().getId(), toAccount.getUser().getId(), request.getAmount(),
+                    savedTransfer.getCreditedAmount()));
+
+            if (decision != null) {
+                transferRiskService.record(fromCardId, toCardId, senderId, screenedAmount, decision);
+            }
 
             log.info("Transfer completed: {} -> {} amount: {}", fromCard.getId(), toCard.getId(), request.getAmount());
 
@@ -127,7 +339,239 @@ public class TransferService {
         }
     }
 
-    private void recordTransaction(Account account, Card card, BigDecimal amount, TransactionType type, String description) {
+    /**
+     * Executes a transfer inside the caller's transaction and, if a key is given, stores it for replays.
+     * Used by {@link GroupCommitTransferExecutor} to apply many transfers with a single commit; the caller
+     * is responsible for the card locks and for isolating failures of individual transfers.
+     * An exception thrown by this method does not mark the caller's transaction rollback-only: the caller
+     * rolls back to its savepoint and decides whether the transaction can still commit.
+     *
+     * @param request The transfer request.
+     * @param toCardId The resolved destination card ID.
+     * @param username The username of the sender, who must own the source card.
+     * @param idempotencyKey The client-supplied key, or {@code null} if the client did not send one.
+     * @return The created transfer.
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public TransferResponseDto applyTransfer(TransferRequest request, Long toCardId, String username, String idempotencyKey) {
+        TransferResponseDto response = executeTransfer(request, toCardId, username, null, true);
+        if (idempotencyKey != null) {
+            idempotencyService.store(username, idempotencyKey, idempotencyService.fingerprint(request), response);
+        }
+        return response;
+    }
+
+    /**
+     * Admits a transfer for asynchronous execution: validates what can be checked without locking the cards
+     * and stores the transfer as {@code PENDING}. Balances are not touched until
+     * {@link #completePendingTransfer(Long, TransferRequest, Long, String)} runs.
+     * The idempotency key, if any, is bound to the pending transfer, so a retried submission is not admitted twice.
+     *
+     * @param request The transfer request.
+     * @param username The username of the sender, who must own the source card.
+     * @param idempotencyKey The client-supplied key, or {@code null} if the client did not send one.
+     * @return The pending (or previously admitted) transfer and whether it was created by this call.
+     * @throws InvalidTransferException if attempting to transfer to the same card.
+     * @throws CardOwnershipException if the source card does not belong to the user.
+     * @throws CardNotFoundException if the source or destination card is not found.
+     * @throws IdempotencyKeyMismatchException if the key was already used for a different request.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AdmittedTransfer createPendingTransfer(TransferRequest request, String username, String idempotencyKey) {
+        String requestHash = null;
+        if (idempotencyKey != null) {
+            requestHash = idempotencyService.fingerprint(request);
+            Optional<TransferResponseDto> stored = idempotencyService.findStoredResponse(username, idempotencyKey, requestHash);
+            if (stored.isPresent()) {
+                log.info("Replaying transfer {} for idempotency key of user {}", stored.get().getId(), username);
+                return new AdmittedTransfer(stored.get(), null, false);
+            }
+        }
+
+        Long toCardId = resolveToCardId(request);
+        if (request.getFromCardId().equals(toCardId)) {
+            throw new InvalidTransferException("Cannot transfer to the same card");
+        }
+        String fingerprint = requestHash;
+        try {
+            TransferResponseDto response = transferRetryExecutor.executeInTransaction(() -> {
+                Card fromCard = cardRepository.findById(request.getFromCardId())
+                        .orElseThrow(() -> new CardNotFoundException("Source card not found with ID: " + request.getFromCardId()));
+                if (!fromCard.getAccount().getUser().getUsername().equals(username)) {
+                    throw new CardOwnershipException("Access denied: Source card doesn't belong to user");
+                }
+                Card toCard = cardRepository.findById(toCardId)
+                        .orElseThrow(() -> new CardNotFoundException("Destination card not found with ID: " + toCardId));
+
+                // Статус, баланс и лимиты проверяются при исполнении под блокировкой карт
+                Transfer transfer = new Transfer();
+                transfer.setFromCard(fromCard);
+                transfer.setToCard(toCard);
+                transfer.setAmount(request.getAmount());
+                transfer.setTransferDate(LocalDateTime.now());
+                transfer.setStatus(TransferStatus.PENDING);
+                TransferResponseDto pending = mapTransferToDto(transferRepository.save(transfer));
+                if (idempotencyKey != null) {
+                    idempotencyService.store(username, idempotencyKey, fingerprint, pending);
+                }
+                return pending;
+            }, "admission of transfer from card " + request.getFromCardId());
+            return new AdmittedTransfer(response, toCardId, true);
+        } catch (DataIntegrityViolationException e) {
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            // Параллельная отправка с тем же ключом уже поставила перевод в очередь
+            return idempotencyService.findStoredResponse(username, idempotencyKey, fingerprint)
+                    .map(stored -> new AdmittedTransfer(stored, null, false))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Executes a transfer admitted by {@link #createPendingTransfer(TransferRequest, String, String)}.
+     * The transfer row is locked after the cards and accounts, in the same order as every other transfer takes
+     * them, and only a {@code PENDING} transfer is applied, so a transfer is never executed twice. If it cannot be executed, it is marked {@code FAILED}
+     * with the reason in a separate transaction.
+     *
+     * @param transferId The ID of the pending transfer.
+     * @param request The original transfer request.
+     * @param toCardId The resolved destination card ID.
+     * @param username The username of the sender.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void completePendingTransfer(Long transferId, TransferRequest request, Long toCardId, String username) {
+        try {
+            cardLockManager.withCardLocks(List.of(request.getFromCardId(), toCardId), () ->
+                    transferRetryExecutor.executeInTransaction(() -> {
+                        // Строка перевода блокируется после карт и счетов, как и при их списании в других операциях;
+                        // статус проверяется уже под блокировкой
+                        LockedCards locked = lockCards(request.getFromCardId(), toCardId);
+                        Optional<Transfer> pending = transferRepository.findByIdForUpdate(transferId)
+                                .filter(transfer -> transfer.getStatus() == TransferStatus.PENDING);
+                        // Перевод уже исполнен или списан как просроченный
+                        return pending.map(transfer -> executeTransfer(request, username, transfer, true, locked)).orElse(null);
+                    }, "pending transfer " + transferId));
+        } catch (RuntimeException e) {
+            String reason = e.getCause() != null && "Transfer processing failed".equals(e.getMessage())
+                    ? e.getCause().getMessage() : e.getMessage();
+            log.warn("Pending transfer {} failed: {}", transferId, reason);
+            failPendingTransfer(transferId, reason);
+        }
+    }
+
+    /**
+     * Fails the transfers that stayed {@code PENDING} since before the given time, e.g. because the instance
+     * that admitted them stopped before executing them.
+     *
+     * @param before The admission time before which pending transfers are abandoned.
+     * @param reason The failure reason to record.
+     * @return The number of transfers failed.
+     */
+    @Transactional
+    public int failStalePendingTransfers(LocalDateTime before, String reason) {
+        return transferRepository.failPendingCreatedBefore(before, reason);
+    }
+
+    private void failPendingTransfer(Long transferId, String reason) {
+        String failureReason = reason == null ? "Transfer processing failed"
+                : reason.length() > 500 ? reason.substring(0, 500) : reason;
+        transferRetryExecutor.executeInTransaction(() -> {
+            transferRepository.findByIdForUpdate(transferId)
+                    .filter(transfer -> transfer.getStatus() == TransferStatus.PENDING)
+                    .ifPresent(transfer -> {
+                        transfer.setStatus(TransferStatus.FAILED);
+                        transfer.setFailureReason(failureReason);
+                    });
+            return null;
+        }, "failing transfer " + transferId);
+    }
+
+    private TransferResponseDto holdTransfer(Transfer pending, Card fromCard, Card toCard, BigDecimal amount, String reason) {
+        Transfer transfer = pending != null ? pending : new Transfer();
+        transfer.setFromCard(fromCard);
+        transfer.setToCard(toCard);
+        transfer.setAmount(amount);
+        transfer.setTransferDate(LocalDateTime.now());
+        transfer.setStatus(TransferStatus.ON_HOLD);
+        transfer.setHoldReason(reason);
+        log.warn("Transfer from card {} to card {} held by fraud screening: {}", fromCard.getId(), toCard.getId(), reason);
+        return mapTransferToDto(transferRepository.save(transfer));
+    }
+
+    /**
+     * Returns the transfers held by fraud screening, oldest first.
+     *
+     * @param limit The maximum number of transfers; clamped to {@code 1..app.transfer.history.max-page-size}.
+     * @return The held transfers.
+     */
+    public List<TransferResponseDto> getHeldTransfers(int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxHistoryPageSize));
+        return transferRepository.findWithCardsByStatus(TransferStatus.ON_HOLD, PageRequest.of(0, pageSize)).stream()
+                .map(this::mapTransferToDto)
+                .toList();
+    }
+
+    /**
+     * Executes a transfer held by fraud screening, as if the sender had just made it, without screening it again.
+     * Balances, card statuses and spending limits are checked as usual; if they fail, the transfer stays on hold.
+     *
+     * @param transferId The ID of the held transfer.
+     * @return The completed transfer.
+     * @throws TransferNotFoundException if the transfer does not exist.
+     * @throws TransferNotOnHoldException if the transfer is not on hold.
+     * @throws InsufficientFundsException if the source card no longer holds the amount.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransferResponseDto releaseHeldTransfer(Long transferId) {
+        Transfer held = transferRepository.findById(transferId)
+                .orElseThrow(() -> new TransferNotFoundException("Transfer not found with ID: " + transferId));
+        // getId() у ленивого прокси не требует загрузки карты
+        Long fromCardId = held.getFromCard().getId();
+        Long toCardId = held.getToCard().getId();
+        return cardLockManager.withCardLocks(List.of(fromCardId, toCardId), () ->
+                transferRetryExecutor.executeInTransaction(() -> {
+                    // Сначала карты и счета, затем строка перевода; статус проверяется уже под блокировкой
+                    LockedCards locked = lockCards(fromCardId, toCardId);
+                    Transfer transfer = lockHeldTransfer(transferId);
+                    TransferRequest request = new TransferRequest();
+                    request.setFromCardId(fromCardId);
+                    request.setToCardId(toCardId);
+                    request.setAmount(transfer.getAmount());
+                    String sender = transfer.getFromCard().getAccount().getUser().getUsername();
+                    log.info("Releasing held transfer {}", transferId);
+                    return executeTransfer(request, sender, transfer, false, locked);
+                }, "release of transfer " + transferId));
+    }
+
+    /**
+     * Declines a transfer held by fraud screening; it becomes {@code FAILED} and no money moves.
+     *
+     * @param transferId The ID of the held transfer.
+     * @param reason Why the transfer is declined, or {@code null}.
+     * @return The declined transfer.
+     * @throws TransferNotFoundException if the transfer does not exist.
+     * @throws TransferNotOnHoldException if the transfer is not on hold.
+     */
+    @Transactional
+    public TransferResponseDto declineHeldTransfer(Long transferId, String reason) {
+        Transfer transfer = lockHeldTransfer(transferId);
+        transfer.setStatus(TransferStatus.FAILED);
+        transfer.setFailureReason(reason != null && !reason.isBlank() ? reason : "Declined after fraud review");
+        log.info("Declined held transfer {}", transferId);
+        return mapTransferToDto(transfer);
+    }
+
+    private Transfer lockHeldTransfer(Long transferId) {
+        Transfer transfer = transferRepository.findByIdForUpdate(transferId)
+                .orElseThrow(() -> new TransferNotFoundException("Transfer not found with ID: " + transferId));
+        if (transfer.getStatus() != TransferStatus.ON_HOLD) {
+            throw new TransferNotOnHoldException("Transfer " + transferId + " is " + transfer.getStatus() + " and not on hold.");
+        }
+        return transfer;
+    }
+
+    private Transaction recordTransaction(Account account, Card card, BigDecimal amount, TransactionType type, String description) {
         Transaction transaction = new Transaction();
         transaction.setAccount(account);
         transaction.setCard(card);
@@ -136,32 +580,110 @@ public class TransferService {
         transaction.setTransactionDate(LocalDateTime.now());
         transaction.setDescription(description);
         transaction.setStatus(TransferStatus.SUCCESS);
-        transactionRepository.save(transaction);
+        return transactionRepository.save(transaction);
     }
 
-    private Card getAndValidateFromCard(Long fromCardId, String username) {
-        Card fromCard = cardRepository.findById(fromCardId)
-                .orElseThrow(() -> new CardNotFoundException("Source card not found with ID: " + fromCardId));
+    /**
+     * Resolves the destination card of a request: its ID, the card its token stands for,
+     * or the card found by the blind index of its number.
+     *
+     * @param request The transfer request.
+     * @return The ID of the destination card.
+     * @throws CardNotFoundException if no card has the given token or number.
+     * @throws InvalidTransferException if the number is not a card of this bank but its BIN names another issuer.
+     * @throws BadRequestException if the request names no destination card.
+     */
+    public Long resolveToCardId(TransferRequest request) {
+        // Логика выбора получателя: ID, токен или Номер
+        if (request.getToCardId() != null) {
+            return request.getToCardId();
+        }
+        if (request.getToCardToken() != null && !request.getToCardToken().isBlank()) {
+            // Токен разрешается из кэша хранилища — номер карты не хэшируется и не расшифровывается
+            return cardTokenService.resolveCardId(request.getToCardToken())
+                    .orElseThrow(() -> new CardNotFoundException("Destination card not found"));
+        }
+        if (request.getToCardNumber() != null && !request.getToCardNumber().trim().isEmpty()) {
+            // Поиск по blind index (HMAC номера) — один индексированный запрос без расшифровки карт
+            return cardRepository.findIdByCardNumberHash(cardEncryptionService.hashCardNumber(request.getToCardNumber()))
+                    .orElseThrow(() -> destinationNotFound(request.getToCardNumber()));
+        }
+        throw new BadRequestException("Destination card info (ID, token or Number) is missing");
+    }
 
-        if (!fromCard.getAccount().getUser().getUsername().equals(username)) {
-            throw new CardOwnershipException("Access denied: Source card doesn't belong to user");
+    // Номера нет среди карт банка: по таблице BIN отличаем карту другого банка (маршрут не поддерживается) от опечатки
+    private RuntimeException destinationNotFound(String toCardNumber) {
+        CardNumber cardNumber = CardNumber.tryParse(toCardNumber);
+        BinInfo bin = cardNumber != null ? binLookupService.lookup(cardNumber) : BinTable.UNKNOWN;
+        if (!binLookupService.isOnUs(bin)) {
+            return new InvalidTransferException("Transfers to cards of other banks are not supported: "
+                    + bin.network() + " card issued by " + bin.issuer());
         }
-        if (fromCard.getCardStatus() != CardStatus.ACTIVE) {
-            throw new CardStatusException("Source card is not active.");
+        return new CardNotFoundException("Destination card not found");
+    }
+
+    /**
+     * Computes the fee for a transfer between cards issued in different countries; shared with
+     * {@link BatchTransferService}.
+     *
+     * @return The fee in the currency of the source card; zero if the cards share a country or it is unknown.
+     */
+    static BigDecimal crossBorderFee(Card fromCard, Card toCard, BigDecimal amount, BigDecimal crossBorderFeePercent) {
+        if (crossBorderFeePercent.signum() <= 0 || fromCard.getIssuerCountry() == null
+                || toCard.getIssuerCountry() == null || fromCard.getIssuerCountry().equals(toCard.getIssuerCountry())) {
+            return BigDecimal.ZERO;
         }
-        return fromCard;
+        return amount.multiply(crossBorderFeePercent).movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
     }
 
-    private Card getAndValidateToCard(String toCardNumber, Card fromCard) {
-        Card toCard = cardRepository.findAll().stream()
-                .filter(card -> cardEncryptionService.matchesCardNumber(toCardNumber, card.getCardNumber()))
-                .findFirst()
-                .orElseThrow(() -> new CardNotFoundException("Destination card not found"));
+    /**
+     * Locks the cards of a transfer and their accounts: cards first, then accounts, each in ascending ID order.
+     */
+    private LockedCards lockCards(Long fromCardId, Long toCardId) {
+        Card fromCard;
+        Card toCard;
+        if (fromCardId < toCardId) {
+            fromCard = lockCard(fromCardId, "Source card not found with ID: " + fromCardId);
+            toCard = lockCard(toCardId, "Destination card not found with ID: " + toCardId);
+        } else {
+            toCard = lockCard(toCardId, "Destination card not found with ID: " + toCardId);
+            fromCard = lockCard(fromCardId, "Source card not found with ID: " + fromCardId);
+        }
+        // getId() у ленивого прокси не инициализирует счет, поэтому он загружается уже под блокировкой
+        Long fromAccountId = fromCard.getAccount().getId();
+        Long toAccountId = toCard.getAccount().getId();
+        // Горячий (bucketed) счет получателя не блокируется: зачисление уходит в один из его бакетов
+        boolean creditToBucket = !fromAccountId.equals(toAccountId)
+                && accountRepository.findBucketedById(toAccountId).orElse(false);
+        if (creditToBucket) {
+            accountRepository.findByIdForUpdate(fromAccountId);
+        } else {
+            lockAccounts(fromAccountId, toAccountId);
+        }
+        return new LockedCards(fromCard, toCard, creditToBucket);
+    }
 
-        if (toCard.getCardStatus() != CardStatus.ACTIVE) {
-            throw new CardStatusException("Destination card is not active.");
+    private Card lockCard(Long cardId, String notFoundMessage) {
+        return cardRepository.findByIdForUpdate(cardId)
+                .orElseThrow(() -> new CardNotFoundException(notFoundMessage));
+    }
+
+    private void lockAccounts(Long firstAccountId, Long secondAccountId) {
+        if (firstAccountId.equals(secondAccountId)) {
+            accountRepository.findByIdForUpdate(firstAccountId);
+            return;
+        }
+        accountRepository.findByIdForUpdate(Math.min(firstAccountId, secondAccountId));
+        accountRepository.findByIdForUpdate(Math.max(firstAccountId, secondAccountId));
+    }
+
+    private void validateFromCard(Card fromCard, String username) {
+        if (!fromCard.getAccount().getUser().getUsername().equals(username)) {
+            throw new CardOwnershipException("Access denied: Source card doesn't belong to user");
+        }
+        if (fromCard.getCardStatus() != CardStatus.ACTIVE) {
+            throw new CardStatusException("Source card is not active.");
         }
-        return toCard;
     }
 
     private void validateTransferConditions(Card fromCard, BigDecimal amount) {
@@ -173,25 +695,63 @@ public class TransferService {
     private TransferResponseDto mapTransferToDto(Transfer transfer) {
         TransferResponseDto dto = transferMapper.toTransferResponseDto(transfer);
         if (transfer.getFromCard() != null) {
-            dto.setFromCardNumber(cardEncryptionService.getMaskedCardNumber(transfer.getFromCard().getCardNumber()));
+            dto.setFromCardNumber(cardEncryptionService.getMaskedCardNumber(transfer.getFromCard()));
         }
         if (transfer.getToCard() != null) {
-            dto.setToCardNumber(cardEncryptionService.getMaskedCardNumber(transfer.getToCard().getCardNumber()));
+            dto.setToCardNumber(cardEncryptionService.getMaskedCardNumber(transfer.getToCard()));
         }
         return dto;
     }
 
-    public List<TransferResponseDto> getUserTransfers(String username) {
-        List<Transfer> transfers = transferRepository.findByUserUsername(username);
-        return transfers.stream().map(this::mapTransferToDto).collect(Collectors.toList());
+    /**
+     * Returns one page of the transfers sent or received by the user's cards, newest first.
+     * Uses keyset pagination on {@code (created_at, id)} and no COUNT query, so response time
+     * does not depend on how much history the user has.
+     *
+     * @param username The username of the card owner.
+     * @param cursor The {@code next} cursor of the previous page, or {@code null} for the first page.
+     * @param limit The page size; clamped to {@code 1..app.transfer.history.max-page-size}.
+     * @return The page and the cursor of the next one.
+     */
+    public TransferPageResponseDto getUserTransfers(String username, String cursor, int limit) {
+        return loadPage(cardRepository.findIdsByUserUsername(username), cursor, limit);
     }
 
-    public List<TransferResponseDto> getCardTransfers(Long cardId, String username) {
+    /**
+     * Returns one page of the transfers of a card owned by the user, newest first.
+     *
+     * @param cardId The ID of the card.
+     * @param username The username of the card owner.
+     * @param cursor The {@code next} cursor of the previous page, or {@code null} for the first page.
+     * @param limit The page size; clamped to {@code 1..app.transfer.history.max-page-size}.
+     * @return The page and the cursor of the next one.
+     */
+    public TransferPageResponseDto getCardTransfers(Long cardId, String username, String cursor, int limit) {
         Card card = cardRepository.findById(cardId).orElseThrow(() -> new CardNotFoundException("Card not found"));
         if (!card.getAccount().getUser().getUsername().equals(username)) {
             throw new ForbiddenException("Access denied");
         }
-        return transferRepository.findByCardId(cardId).stream().map(this::mapTransferToDto).collect(Collectors.toList());
+        return loadPage(List.of(cardId), cursor, limit);
+    }
+
+    private TransferPageResponseDto loadPage(List<Long> cardIds, String cursor, int limit) {
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        if (cardIds.isEmpty()) {
+            return new TransferPageResponseDto(List.of(), null);
+        }
+        int pageSize = Math.max(1, Math.min(limit, maxHistoryPageSize));
+
+        // Берем на одну запись больше, чтобы узнать, есть ли следующая страница, без COUNT
+        List<KeysetCursor> keys = transferJdbcRepository.findPageKeys(cardIds, after, pageSize + 1);
+        boolean hasNext = keys.size() > pageSize;
+        List<KeysetCursor> page = hasNext ? keys.subList(0, pageSize) : keys;
+
+        Map<Long, Transfer> transfers = transferRepository.findAllWithCardsByIdIn(page.stream().map(KeysetCursor::id).toList())
+                .stream().collect(Collectors.toMap(Transfer::getId, Function.identity()));
+        List<TransferResponseDto> items = page.stream()
+                .map(key -> mapTransferToDto(transfers.get(key.id())))
+                .collect(Collectors.toList());
+        return new TransferPageResponseDto(items, hasNext ? page.get(page.size() - 1).encode() : null);
     }
 
     public TransferResponseDto getTransfer(Long transferId, String username) {
@@ -201,4 +761,17 @@ public class TransferService {
         if (!isParticipant) throw new ForbiddenException("Access denied");
         return mapTransferToDto(transfer);
     }
-}
\ No newline at end of file
+
+    /**
+     * A transfer admitted for asynchronous execution.
+     *
+     * @param transfer The pending transfer, or the stored response of a replayed submission.
+     * @param toCardId The resolved destination card ID; {@code null} for a replay.
+     * @param created Whether the transfer was admitted by this call and still has to be executed.
+     */
+    public record AdmittedTransfer(TransferResponseDto transfer, Long toCardId, boolean created) {
+    }
+
+    private record LockedCards(Card fromCard, Card toCard, boolean creditToBucket) {
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.model.entity.enums.CardBrand;
+import com.example.bankcards.model.entity.enums.CardType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable BIN/IIN table: ranges of card number prefixes mapped to the card network, type, issuer and
+ * issuer country.
+ * Ranges of one to eight digits are widened to eight-digit bounds and flattened once, when the table is built,
+ * into sorted non-overlapping ranges; a narrower range takes precedence over a wider one it falls into
+ * (an issuer's BIN inside its network's range). A lookup is a binary search over two {@code int} arrays,
+ * at most about a dozen comparisons for tables of thousands of ranges, and allocates nothing.
+ */
+public final class BinTable {
+
+    /**
+     * Number of leading digits a lookup looks at (eight-digit BINs, ISO/IEC 7812-1:2017).
+     */
+    public static final int KEY_DIGITS = 8;
+
+    /**
+     * The result of a lookup that matched no range.
+     */
+    public static final BinInfo UNKNOWN = new BinInfo(CardBrand.UNKNOWN, CardType.UNKNOWN, null, null);
+
+    private static final int MAX_KEY = 99_999_999;
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+
+    // Границы диапазонов (включительно) в восьмизначном виде, по возрастанию; infos[i] относится к [lows[i], highs[i]]
+    private final int[] lows;
+    private final int[] highs;
+    private final BinInfo[] infos;
+
+    private BinTable(int[] lows, int[] highs, BinInfo[] infos) {
+        this.lows = lows;
+        this.highs = highs;
+        this.infos = infos;
+    }
+
+    /**
+     * What the table knows about a BIN.
+     *
+     * @param network The card network; {@link CardBrand#UNKNOWN} if the BIN is not in the table.
+     * @param type The card type; {@link CardType#UNKNOWN} if the table does not say.
+     * @param issuer The issuing bank, or {@code null} if the table does not say.
+     * @param country The ISO 3166-1 alpha-2 code of the issuer's country, or {@code null} if the table does not say.
+     */
+    public record BinInfo(CardBrand network, CardType type, String issuer, String country) {
+
+        /**
+         * Returns whether the BIN belongs to a known card network.
+         *
+         * @return {@code true} if the network is known.
+         */
+        public boolean isKnown() {
+            return network != CardBrand.UNKNOWN;
+        }
+    }
+
+    /**
+     * A range of card number prefixes, e.g. {@code 2221}–{@code 2720} or a single BIN {@code 411111}–{@code 411111}.
+     *
+     * @param from The first prefix of the range.
+     * @param to The last prefix of the range, of the same length as {@code from}.
+     * @param info What the range maps to.
+     */
+    public record Range(String from, String to, BinInfo info) {
+    }
+
+    /**
+     * Builds a table. Where ranges overlap, the narrower one wins; of two equally wide ones, the later one.
+     *
+     * @param ranges The ranges.
+     * @return The table.
+     * @throws IllegalArgumentException if a bound is not one to eight digits, the bounds differ in length
+     *                                  or {@code from} is greater than {@code to}.
+     */
+    public static BinTable of(List<Range> ranges) {
+        List<Segment> normalized = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            normalized.add(normalize(range));
+        }
+        // Сначала широкие диапазоны, затем узкие: узкий «закрашивает» свою часть широкого; сортировка устойчива
+        normalized.sort(Comparator.comparingLong(Segment::width).reversed());
+
+        TreeMap<Integer, Segment> segments = new TreeMap<>();
+        for (Segment segment : normalized) {
+            splitAt(segments, segment.low());
+            if (segment.high() < MAX_KEY) {
+                splitAt(segments, segment.high() + 1);
+            }
+            segments.subMap(segment.low(), true, segment.high(), true).clear();
+            segments.put(segment.low(), segment);
+        }
+
+        // Соседние диапазоны с одинаковыми данными склеиваются, чтобы массивы были короче
+        List<Segment> merged = new ArrayList<>(segments.size());
+        for (Segment segment : segments.values()) {
+            Segment last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.high() + 1 == segment.low() && last.info().equals(segment.info())) {
+                merged.set(merged.size() - 1, new Segment(last.low(), segment.high(), last.info()));
+            } else {
+                merged.add(segment);
+            }
+        }
+
+        int[] lows = new int[merged.size()];
+        int[] highs = new int[merged.size()];
+        BinInfo[] infos = new BinInfo[merged.size()];
+        for (int i = 0; i < merged.size(); i++) {
+            lows[i] = merged.get(i).low();
+            highs[i] = merged.get(i).high();
+            infos[i] = merged.get(i).info();
+        }
+        return new BinTable(lows, highs, infos);
+    }
+
+    /**
+     * Looks up the BIN of a card number.
+     *
+     * @param cardNumber The card number.
+     * @return What the table knows about its BIN; {@link #UNKNOWN} if no range matches.
+     */
+    public BinInfo lookup(CardNumber cardNumber) {
+        int digits = Math.min(cardNumber.length(), KEY_DIGITS);
+        return lookup(cardNumber.prefix(KEY_DIGITS) * POWERS_OF_TEN[KEY_DIGITS - digits]);
+    }
+
+    /**
+     * Looks up an eight-digit key.
+     *
+     * @param key The first eight digits of a card number as a number.
+     * @return What the table knows about the key; {@link #UNKNOWN} if no range matches.
+     */
+    public BinInfo lookup(int key) {
+        // Последний диапазон с нижней границей <= key; ключ попадает в него, если не выходит за верхнюю
+        int low = 0;
+        int high = lows.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (lows[mid] <= key) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found >= 0 && highs[found] >= key ? infos[found] : UNKNOWN;
+    }
+
+    /**
+     * Returns the number of non-overlapping ranges the table was flattened into.
+     *
+     * @return The number of ranges.
+     */
+    public int size() {
+        return lows.length;
+    }
+
+    private static Segment normalize(Range range) {
+        String from = range.from();
+        String to = range.to();
+        if (from.isEmpty() || from.length() > KEY_DIGITS || from.length() != to.length()
+                || !from.chars().allMatch(Character::isDigit) || !to.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("Invalid BIN range " + from + "-" + to);
+        }
+        int scale = POWERS_OF_TEN[KEY_DIGITS - from.length()];
+        int low = Integer.parseInt(from) * scale;
+        int high = (Integer.parseInt(to) + 1) * scale - 1;
+        if (low > high) {
+            throw new IllegalArgumentException("Invalid BIN range " + from + "-" + to);
+        }
+        return new Segment(low, high, range.info());
+    }
+
+    // Разрезает диапазон, содержащий точку at, на два: [low, at - 1] и [at, high]
+    private static void splitAt(TreeMap<Integer, Segment> segments, int at) {
+        Map.Entry<Integer, Segment> entry = segments.lowerEntry(at);
+        if (entry != null && entry.getValue().high() >= at) {
+            Segment segment = entry.getValue();
+            segments.put(segment.low(), new Segment(segment.low(), at - 1, segment.info()));
+            segments.put(at, new Segment(at, segment.high(), segment.info()));
+        }
+    }
+
+    private record Segment(int low, int high, BinInfo info) {
+
+        long width() {
+            return (long) high - low;
+        }
+    }
+}
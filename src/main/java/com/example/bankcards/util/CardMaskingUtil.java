@@ -3,44 +3,38 @@ package com.example.bankcards.util;
 public class CardMaskingUtil {
 
     public static String maskCardNumber(String cardNumber) {
-        if (cardNumber == null || cardNumber.length() < 8) {
-            return "**** **** **** ****";
-        }
-
-        // Убираем все нецифровые символы
-        String cleaned = cardNumber.replaceAll("\\D", "");
-
-        if (cleaned.length() < 8) {
-            return "**** **** **** " + cleaned;
-        }
-
-        // Берем первые 4 и последние 4
-        String first4 = cleaned.substring(0, 4);
-        String last4 = cleaned.substring(cleaned.length() - 4);
+        // Разбор в CardNumber за один проход, без regex и промежуточных строк
+        return maskCardNumber(CardNumber.tryParse(cardNumber));
+    }
 
-        // Возвращаем красивый формат
-        return first4 + " **** **** " + last4;
+    /**
+     * Masks a parsed card number, e.g. "4111 **** **** 1111".
+     *
+     * @param cardNumber The card number, or {@code null} if it could not be parsed.
+     * @return The masked card number; fully masked for {@code null} and numbers shorter than eight digits.
+     */
+    public static String maskCardNumber(CardNumber cardNumber) {
+        return cardNumber == null ? "**** **** **** ****" : cardNumber.masked();
     }
 
-    public static boolean isValidCardNumber(String cardNumber) {
-        if (cardNumber == null) return false;
-        String cleaned = cardNumber.replaceAll("\\D", "");
-        if (cleaned.length() < 13 || cleaned.length() > 19) return false;
-        return luhnCheck(cleaned);
+    /**
+     * Formats a masked card number from its stored display fields, without touching the full number.
+     *
+     * @param firstDigits The first four digits.
+     * @param lastDigits The last four digits.
+     * @return The masked card number (e.g., "4111 **** **** 1111").
+     */
+    public static String maskCardNumber(String firstDigits, String lastDigits) {
+        return firstDigits + " **** **** " + lastDigits;
     }
 
-    private static boolean luhnCheck(String cardNumber) {
-        int sum = 0;
-        boolean alternate = false;
-        for (int i = cardNumber.length() - 1; i >= 0; i--) {
-            int n = Integer.parseInt(cardNumber.substring(i, i + 1));
-            if (alternate) {
-                n *= 2;
-                if (n > 9) n = (n % 10) + 1;
-            }
-            sum += n;
-            alternate = !alternate;
-        }
-        return (sum % 10 == 0);
+    /**
+     * Checks the length (13 to 19 digits) and the Luhn check digit of a card number without allocating.
+     *
+     * @param cardNumber The plain card number; spaces and dashes are ignored, any other character makes it invalid.
+     * @return {@code true} if the number is valid.
+     */
+    public static boolean isValidCardNumber(String cardNumber) {
+        return CardNumber.isValid(cardNumber);
     }
-}
\ No newline at end of file
+}
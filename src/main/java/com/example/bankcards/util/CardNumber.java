@@ -0,0 +1,318 @@
+package com.example.bankcards.util;
+
+import java.util.Arrays;
+
+/**
+ * A card number (PAN) parsed once into a compact, immutable form: up to 19 digits packed four bits per digit
+ * into a {@code long} and an {@code int}, plus the length.
+ * Parsing, Luhn validation, masking into a caller-supplied buffer and comparison work on the packed digits
+ * and allocate nothing beyond the instance itself; the full number is never held as a {@link String}, and
+ * {@link #toString()} returns the masked form so it cannot leak into logs.
+ * Spaces and dashes in the input are ignored; any other non-digit character makes it invalid.
+ */
+public final class CardNumber implements Comparable<CardNumber> {
+
+    /**
+     * Maximum number of digits of a card number (ISO/IEC 7812).
+     */
+    public static final int MAX_LENGTH = 19;
+
+    /**
+     * Length of the masked form, e.g. {@code 4111 **** **** 1111}.
+     */
+    public static final int MASKED_LENGTH = 19;
+
+    private static final int LEAD_DIGITS = 16;
+    private static final char[] MASK_TEMPLATE = "0000 **** **** 0000".toCharArray();
+
+    // Цифры 1–16 — в lead (первая цифра в старшем полубайте), 17–19 — в tail; недостающие полубайты нулевые
+    private final long lead;
+    private final int tail;
+    private final int length;
+
+    private CardNumber(long lead, int tail, int length) {
+        this.lead = lead;
+        this.tail = tail;
+        this.length = length;
+    }
+
+    /**
+     * Parses a card number.
+     *
+     * @param cardNumber The card number; spaces and dashes are ignored.
+     * @return The parsed number.
+     * @throws IllegalArgumentException if the input is empty, has more than {@value #MAX_LENGTH} digits
+     *                                  or contains other characters.
+     */
+    public static CardNumber parse(CharSequence cardNumber) {
+        CardNumber parsed = tryParse(cardNumber);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Invalid card number format");
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses a card number, returning {@code null} instead of throwing for malformed input.
+     *
+     * @param cardNumber The card number; spaces and dashes are ignored. May be {@code null}.
+     * @return The parsed number, or {@code null} if the input is not a card number.
+     */
+    public static CardNumber tryParse(CharSequence cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        long lead = 0;
+        int tail = 0;
+        int length = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (length == MAX_LENGTH) {
+                    return null;
+                }
+                if (length < LEAD_DIGITS) {
+                    lead |= (long) (c - '0') << (60 - 4 * length);
+                } else {
+                    tail |= (c - '0') << (8 - 4 * (length - LEAD_DIGITS));
+                }
+                length++;
+            } else if (c != ' ' && c != '-' && !Character.isWhitespace(c)) {
+                return null;
+            }
+        }
+        return length == 0 ? null : new CardNumber(lead, tail, length);
+    }
+
+    /**
+     * Parses a card number from ASCII bytes, e.g. a decrypted number, without creating a {@link String}.
+     *
+     * @param ascii The ASCII-encoded card number; spaces and dashes are ignored.
+     * @return The parsed number, or {@code null} if the input is not a card number.
+     */
+    public static CardNumber tryParse(byte[] ascii) {
+        long lead = 0;
+        int tail = 0;
+        int length = 0;
+        for (byte b : ascii) {
+            if (b >= '0' && b <= '9') {
+                if (length == MAX_LENGTH) {
+                    return null;
+                }
+                if (length < LEAD_DIGITS) {
+                    lead |= (long) (b - '0') << (60 - 4 * length);
+                } else {
+                    tail |= (b - '0') << (8 - 4 * (length - LEAD_DIGITS));
+                }
+                length++;
+            } else if (b != ' ' && b != '-') {
+                return null;
+            }
+        }
+        return length == 0 ? null : new CardNumber(lead, tail, length);
+    }
+
+    /**
+     * Checks that a card number has 13 to 19 digits and a valid Luhn check digit, in one pass without allocating.
+     *
+     * @param cardNumber The card number; spaces and dashes are ignored. May be {@code null}.
+     * @return {@code true} if the number is valid.
+     */
+    public static boolean isValid(CharSequence cardNumber) {
+        if (cardNumber == null) {
+            return false;
+        }
+        // Слева направо считаем обе суммы: с удвоением чётных и нечётных позиций; какая нужна, решает длина
+        int sumDoublingEven = 0;
+        int sumDoublingOdd = 0;
+        int length = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int digit = c - '0';
+                int doubled = digit < 5 ? digit * 2 : digit * 2 - 9;
+                if ((length & 1) == 0) {
+                    sumDoublingEven += doubled;
+                    sumDoublingOdd += digit;
+                } else {
+                    sumDoublingEven += digit;
+                    sumDoublingOdd += doubled;
+                }
+                length++;
+            } else if (c != ' ' && c != '-' && !Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        if (length < 13 || length > MAX_LENGTH) {
+            return false;
+        }
+        // Удваивается каждая вторая цифра справа, т.е. позиции той же чётности, что и length - 2
+        return ((length & 1) == 0 ? sumDoublingEven : sumDoublingOdd) % 10 == 0;
+    }
+
+    /**
+     * Returns the number of digits.
+     *
+     * @return The length, between 1 and {@value #MAX_LENGTH}.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns one digit.
+     *
+     * @param index The position from the left, starting at 0.
+     * @return The digit value, 0 to 9.
+     * @throws IndexOutOfBoundsException if the position is outside the number.
+     */
+    public int digit(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return index < LEAD_DIGITS
+                ? (int) (lead >>> (60 - 4 * index)) & 0xF
+                : (tail >>> (8 - 4 * (index - LEAD_DIGITS))) & 0xF;
+    }
+
+    /**
+     * Returns the leading digits as a number, e.g. the BIN/IIN for {@code digits = 6}.
+     *
+     * @param digits The number of leading digits, at most 9; fewer are used if the number is shorter.
+     * @return The value of the leading digits.
+     */
+    public int prefix(int digits) {
+        int count = Math.min(Math.min(digits, 9), length);
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            value = value * 10 + ((int) (lead >>> (60 - 4 * i)) & 0xF);
+        }
+        return value;
+    }
+
+    /**
+     * Checks the length (13 to 19 digits) and the Luhn check digit.
+     *
+     * @return {@code true} if the number is valid.
+     */
+    public boolean isValid() {
+        if (length < 13) {
+            return false;
+        }
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = digit(i);
+            if (doubled) {
+                digit = digit < 5 ? digit * 2 : digit * 2 - 9;
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Writes the masked number, e.g. {@code 4111 **** **** 1111}, into a buffer the caller can reuse.
+     * Numbers shorter than eight digits are written fully masked.
+     *
+     * @param buffer The destination.
+     * @param offset The position of the first character in {@code buffer}.
+     * @return The number of characters written, always {@value #MASKED_LENGTH}.
+     * @throws IndexOutOfBoundsException if the buffer has less than {@value #MASKED_LENGTH} characters after {@code offset}.
+     */
+    public int maskInto(char[] buffer, int offset) {
+        System.arraycopy(MASK_TEMPLATE, 0, buffer, offset, MASKED_LENGTH);
+        if (length < 8) {
+            Arrays.fill(buffer, offset, offset + 4, '*');
+            Arrays.fill(buffer, offset + 15, offset + MASKED_LENGTH, '*');
+            return MASKED_LENGTH;
+        }
+        for (int i = 0; i < 4; i++) {
+            buffer[offset + i] = (char) ('0' + digit(i));
+            buffer[offset + 15 + i] = (char) ('0' + digit(length - 4 + i));
+        }
+        return MASKED_LENGTH;
+    }
+
+    /**
+     * Returns the masked number, e.g. {@code 4111 **** **** 1111}.
+     *
+     * @return The masked number.
+     */
+    public String masked() {
+        char[] buffer = new char[MASKED_LENGTH];
+        maskInto(buffer, 0);
+        return new String(buffer);
+    }
+
+    /**
+     * Returns the first four digits, kept in clear for display.
+     *
+     * @return The first four digits, or all digits if the number is shorter.
+     */
+    public String firstDigits() {
+        return digits(0, Math.min(4, length));
+    }
+
+    /**
+     * Returns the last four digits, kept in clear for display.
+     *
+     * @return The last four digits, or all digits if the number is shorter.
+     */
+    public String lastDigits() {
+        int count = Math.min(4, length);
+        return digits(length - count, count);
+    }
+
+    /**
+     * Encodes the digits as ASCII bytes for hashing and encryption. The caller should zero the array after use.
+     *
+     * @return A new array with one byte per digit.
+     */
+    public byte[] toAsciiBytes() {
+        byte[] ascii = new byte[length];
+        for (int i = 0; i < length; i++) {
+            ascii[i] = (byte) ('0' + digit(i));
+        }
+        return ascii;
+    }
+
+    private String digits(int from, int count) {
+        char[] chars = new char[count];
+        for (int i = 0; i < count; i++) {
+            chars[i] = (char) ('0' + digit(from + i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Orders numbers digit by digit from the left; a number sorts before any longer number it is a prefix of.
+     */
+    @Override
+    public int compareTo(CardNumber other) {
+        int result = Long.compareUnsigned(lead, other.lead);
+        if (result == 0) {
+            result = Integer.compare(tail, other.tail);
+        }
+        return result != 0 ? result : Integer.compare(length, other.length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CardNumber other && lead == other.lead && tail == other.tail && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(lead) + tail) + length;
+    }
+
+    /**
+     * Returns the masked number, so a card number never ends up in a log in clear.
+     */
+    @Override
+    public String toString() {
+        return masked();
+    }
+}
@@ -1,96 +1,304 @@
 package com.example.bankcards.util;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
 
 /**
  * Utility class for performing AES/GCM encryption and decryption.
  * Uses a secret key configured via Spring properties.
  * Provides methods to encrypt, decrypt, and compare plain text with encrypted text.
+ * <p>
+ * Data is encrypted with versioned data-encryption keys: the ciphertext carries the key version as a
+ * {@code v<version>:} prefix, and decryption works with any installed version. Version 0 is the configured
+ * {@code encryption.key} itself and is written without a prefix, as all data was before key versioning.
+ * Newer data keys are generated at runtime, stored wrapped (encrypted) with {@code encryption.key} and installed
+ * through {@link #installDataKeys(Map, int)}; rotating a data key therefore never requires changing the configuration.
+ * <p>
+ * The keys are built once; {@link Cipher} and {@link Mac} instances are not thread-safe
+ * and are confined to the calling thread, each re-initialized per operation instead of being looked up
+ * through the provider again. IVs come from one shared {@link SecureRandom}, which is thread-safe and,
+ * with the default provider, reads {@code /dev/urandom} without blocking.
+ * Internal callers can use the byte-array methods to skip the String round trips.
  */
 @Component
 @Slf4j
 public class EncryptionUtil {
 
+    /**
+     * Version of the configured {@code encryption.key}, used for data encrypted before key versioning.
+     */
+    public static final int LEGACY_KEY_VERSION = 0;
+
     private static final String ALGORITHM = "AES";
     private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 16;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final char VERSION_PREFIX = 'v';
+    private static final char VERSION_SEPARATOR = ':';
+
+    private static final SecureRandom IV_SOURCE = new SecureRandom();
 
     @Value("${encryption.key}")
     private String encryptionKey;
 
+    @Value("${encryption.blind-index-key:${encryption.key}}")
+    private String blindIndexKey;
+
+    private SecretKeySpec masterKeySpec;
+    private SecretKeySpec blindIndexKeySpec;
+
+    private volatile KeyRing keyRing;
+
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM is not available", e);
+        }
+    });
+
+    // Mac инициализируется ключом один раз на поток: doFinal сбрасывает его для следующего вызова
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(blindIndexKeySpec);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    });
+
     /**
-     * Encrypts the given plain text using AES/GCM.
-     * A random IV is generated for each encryption operation and prepended to the ciphertext.
-     * The result is Base64 encoded.
+     * Builds the key material from the configured secrets after the bean has been constructed.
+     * Until data keys are installed, data is encrypted with the legacy key.
+     * This method is called automatically by Spring after dependency injection is complete.
+     */
+    @PostConstruct
+    public void init() {
+        this.masterKeySpec = new SecretKeySpec(encryptionKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.blindIndexKeySpec = new SecretKeySpec(blindIndexKey.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.keyRing = new KeyRing(Map.of(LEGACY_KEY_VERSION, masterKeySpec), LEGACY_KEY_VERSION);
+    }
+
+    /**
+     * Replaces the installed data keys. The legacy key stays installed as version 0.
      *
-     * @param plainText the string to be encrypted.
-     * @return the Base64 encoded encrypted string, including the IV.
-     * @throws RuntimeException if an error occurs during encryption.
+     * @param dataKeys the raw data keys by version; versions must be positive.
+     * @param activeVersion the version new data is encrypted with; must be 0 or one of {@code dataKeys}.
+     * @throws IllegalArgumentException if a version is not positive or the active version is not installed.
      */
-    public String encrypt(String plainText) {
-        try {
-            SecretKeySpec keySpec = new SecretKeySpec(
-                    encryptionKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    public void installDataKeys(Map<Integer, byte[]> dataKeys, int activeVersion) {
+        Map<Integer, SecretKeySpec> keys = new HashMap<>();
+        keys.put(LEGACY_KEY_VERSION, masterKeySpec);
+        dataKeys.forEach((version, key) -> {
+            if (version <= LEGACY_KEY_VERSION) {
+                throw new IllegalArgumentException("Data key versions must be positive: " + version);
+            }
+            keys.put(version, new SecretKeySpec(key, ALGORITHM));
+        });
+        if (!keys.containsKey(activeVersion)) {
+            throw new IllegalArgumentException("Active key version " + activeVersion + " is not installed");
+        }
+        this.keyRing = new KeyRing(Map.copyOf(keys), activeVersion);
+    }
 
-            // Генерируем случайный IV
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            new SecureRandom().nextBytes(iv);
+    /**
+     * Returns the key version new data is encrypted with.
+     *
+     * @return the active key version; 0 if no data keys are installed.
+     */
+    public int getActiveKeyVersion() {
+        return keyRing.activeVersion();
+    }
 
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, gcmParameterSpec);
+    /**
+     * Returns the version of the key the given text was encrypted with, without decrypting it.
+     *
+     * @param encryptedText the encrypted string.
+     * @return the key version; 0 for text without a version prefix.
+     * @throws IllegalArgumentException if the version prefix is malformed.
+     */
+    public static int keyVersion(String encryptedText) {
+        int separator = encryptedText.indexOf(VERSION_SEPARATOR);
+        if (separator < 0) {
+            return LEGACY_KEY_VERSION;
+        }
+        if (separator < 2 || encryptedText.charAt(0) != VERSION_PREFIX) {
+            throw new IllegalArgumentException("Malformed key version prefix");
+        }
+        return Integer.parseInt(encryptedText, 1, separator, 10);
+    }
 
-            byte[] encryptedText = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Returns the prefix that text encrypted with the given key version starts with.
+     *
+     * @param keyVersion the key version.
+     * @return the prefix, e.g. {@code "v3:"}; empty for the legacy key.
+     */
+    public static String versionPrefix(int keyVersion) {
+        return keyVersion == LEGACY_KEY_VERSION ? "" : VERSION_PREFIX + Integer.toString(keyVersion) + VERSION_SEPARATOR;
+    }
 
-            byte[] encryptedWithIv = new byte[iv.length + encryptedText.length];
-            System.arraycopy(iv, 0, encryptedWithIv, 0, iv.length);
-            System.arraycopy(encryptedText, 0, encryptedWithIv, iv.length, encryptedText.length);
+    /**
+     * Encrypts a data key with {@code encryption.key} for storage.
+     *
+     * @param dataKey the raw data key.
+     * @return the Base64 encoded wrapped key.
+     * @throws RuntimeException if an error occurs during encryption.
+     */
+    public String wrapKey(byte[] dataKey) {
+        return Base64.getEncoder().encodeToString(encrypt(masterKeySpec, dataKey));
+    }
 
-            return Base64.getEncoder().encodeToString(encryptedWithIv);
+    /**
+     * Decrypts a data key wrapped by {@link #wrapKey(byte[])}.
+     *
+     * @param wrappedKey the Base64 encoded wrapped key.
+     * @return the raw data key.
+     * @throws RuntimeException if the key cannot be unwrapped, e.g. because it was wrapped with another {@code encryption.key}.
+     */
+    public byte[] unwrapKey(String wrappedKey) {
+        return decrypt(masterKeySpec, Base64.getDecoder().decode(wrappedKey));
+    }
 
-        } catch (Exception e) {
-            log.error("Error during encryption: {}", e.getMessage());
-            throw new RuntimeException("Failed to encrypt data", e);
+    /**
+     * Encrypts the given plain text using AES/GCM with the active key.
+     * A random IV is generated for each encryption operation and prepended to the ciphertext.
+     * The result is Base64 encoded and prefixed with the key version.
+     *
+     * @param plainText the string to be encrypted.
+     * @return the encrypted string, including the key version and the IV.
+     * @throws RuntimeException if an error occurs during encryption.
+     */
+    public String encrypt(String plainText) {
+        return encrypt(plainText.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encrypts the given bytes with the active key; see {@link #encrypt(String)}.
+     *
+     * @param plain the bytes to be encrypted.
+     * @return the encrypted string, including the key version and the IV.
+     * @throws RuntimeException if an error occurs during encryption.
+     */
+    public String encrypt(byte[] plain) {
+        KeyRing ring = keyRing;
+        return encrypt(plain, ring, ring.activeVersion());
+    }
+
+    /**
+     * Re-encrypts text with the given key version. Text already encrypted with that version is returned as is.
+     *
+     * @param encryptedText the encrypted string, with any installed key version.
+     * @param keyVersion the installed key version to encrypt with.
+     * @return the text encrypted with {@code keyVersion}.
+     * @throws RuntimeException if the text cannot be decrypted or the version is not installed.
+     */
+    public String reencrypt(String encryptedText, int keyVersion) {
+        if (keyVersion(encryptedText) == keyVersion) {
+            return encryptedText;
+        }
+        KeyRing ring = keyRing;
+        byte[] plain = decryptToBytes(encryptedText, ring);
+        try {
+            return encrypt(plain, ring, keyVersion);
+        } finally {
+            Arrays.fill(plain, (byte) 0);
         }
     }
 
     /**
-     * Decrypts the given Base64 encoded encrypted text using AES/GCM.
-     * The IV is extracted from the beginning of the decoded data.
+     * Decrypts the given encrypted text using AES/GCM.
+     * The key is selected by the version prefix and the IV is extracted from the beginning of the decoded data.
      *
-     * @param encryptedText the Base64 encoded encrypted string to be decrypted.
+     * @param encryptedText the encrypted string to be decrypted.
      * @return the decrypted plain text string.
      * @throws RuntimeException if an error occurs during decryption.
      */
     public String decrypt(String encryptedText) {
+        return new String(decryptToBytes(encryptedText), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decrypts the given encrypted text into bytes, without building a String.
+     * Callers handling sensitive data can clear the returned array once they are done with it.
+     *
+     * @param encryptedText the encrypted string to be decrypted.
+     * @return the decrypted bytes.
+     * @throws RuntimeException if an error occurs during decryption.
+     */
+    public byte[] decryptToBytes(String encryptedText) {
+        return decryptToBytes(encryptedText, keyRing);
+    }
+
+    private String encrypt(byte[] plain, KeyRing ring, int keyVersion) {
+        SecretKeySpec key = ring.keys().get(keyVersion);
+        if (key == null) {
+            throw new IllegalArgumentException("Key version " + keyVersion + " is not installed");
+        }
+        return versionPrefix(keyVersion) + Base64.getEncoder().encodeToString(encrypt(key, plain));
+    }
+
+    private byte[] decryptToBytes(String encryptedText, KeyRing ring) {
+        SecretKeySpec key;
+        byte[] decodedData;
         try {
-            byte[] decodedData = Base64.getDecoder().decode(encryptedText);
+            int version = keyVersion(encryptedText);
+            key = ring.keys().get(version);
+            if (key == null) {
+                throw new IllegalStateException("Unknown key version " + version);
+            }
+            int separator = encryptedText.indexOf(VERSION_SEPARATOR);
+            decodedData = Base64.getDecoder().decode(separator < 0 ? encryptedText : encryptedText.substring(separator + 1));
+        } catch (RuntimeException e) {
+            log.error("Error during decryption: {}", e.getMessage());
+            throw new RuntimeException("Failed to decrypt data", e);
+        }
+        return decrypt(key, decodedData);
+    }
 
+    private byte[] encrypt(SecretKeySpec key, byte[] plain) {
+        try {
+            Cipher cipher = ciphers.get();
             byte[] iv = new byte[GCM_IV_LENGTH];
-            System.arraycopy(decodedData, 0, iv, 0, iv.length);
-
-            byte[] encrypted = new byte[decodedData.length - GCM_IV_LENGTH];
-            System.arraycopy(decodedData, GCM_IV_LENGTH, encrypted, 0, encrypted.length);
+            IV_SOURCE.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
 
-            SecretKeySpec keySpec = new SecretKeySpec(
-                    encryptionKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+            // IV и шифротекст пишутся в один буфер, без промежуточных копий
+            byte[] encryptedWithIv = new byte[GCM_IV_LENGTH + cipher.getOutputSize(plain.length)];
+            System.arraycopy(iv, 0, encryptedWithIv, 0, GCM_IV_LENGTH);
+            cipher.doFinal(plain, 0, plain.length, encryptedWithIv, GCM_IV_LENGTH);
+            return encryptedWithIv;
 
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, gcmParameterSpec);
+        } catch (Exception e) {
+            log.error("Error during encryption: {}", e.getMessage());
+            throw new RuntimeException("Failed to encrypt data", e);
+        }
+    }
 
-            byte[] decryptedText = cipher.doFinal(encrypted);
-            return new String(decryptedText, StandardCharsets.UTF_8);
+    private byte[] decrypt(SecretKeySpec key, byte[] encryptedWithIv) {
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, key,
+                    new GCMParameterSpec(GCM_TAG_LENGTH * 8, encryptedWithIv, 0, GCM_IV_LENGTH));
+            return cipher.doFinal(encryptedWithIv, GCM_IV_LENGTH, encryptedWithIv.length - GCM_IV_LENGTH);
 
         } catch (Exception e) {
             log.error("Error during decryption: {}", e.getMessage());
@@ -100,7 +308,7 @@ public class EncryptionUtil {
 
     /**
      * Compares a plain text string with an encrypted text string by decrypting the latter
-     * and performing a string equality check.
+     * and performing a constant-time byte comparison.
      *
      * @param plainText the unencrypted string to compare.
      * @param encryptedText the Base64 encoded encrypted string to compare against.
@@ -109,11 +317,49 @@ public class EncryptionUtil {
      */
     public boolean matches(String plainText, String encryptedText) {
         try {
-            String decrypted = decrypt(encryptedText);
-            return plainText.equals(decrypted);
+            byte[] decrypted = decryptToBytes(encryptedText);
+            boolean matches = MessageDigest.isEqual(plainText.getBytes(StandardCharsets.UTF_8), decrypted);
+            Arrays.fill(decrypted, (byte) 0);
+            return matches;
         } catch (Exception e) {
             log.warn("Error during comparison: {}", e.getMessage());
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Computes a deterministic keyed hash (HMAC-SHA256) of the given plain text.
+     * Unlike {@link #encrypt(String)}, the same input always yields the same output,
+     * so the result can be stored in an indexed column and used for equality lookups
+     * without revealing the plain text.
+     *
+     * @param plainText the string to be hashed.
+     * @return the lowercase hex encoded HMAC (64 characters).
+     * @throws RuntimeException if an error occurs during hashing.
+     */
+    public String hmac(String plainText) {
+        return hmac(plainText.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Computes the keyed hash of the given bytes; see {@link #hmac(String)}.
+     *
+     * @param plain the bytes to be hashed.
+     * @return the lowercase hex encoded HMAC (64 characters).
+     * @throws RuntimeException if an error occurs during hashing.
+     */
+    public String hmac(byte[] plain) {
+        try {
+            return HexFormat.of().formatHex(macs.get().doFinal(plain));
+        } catch (Exception e) {
+            log.error("Error during hashing: {}", e.getMessage());
+            throw new RuntimeException("Failed to hash data", e);
+        }
+    }
+
+    /**
+     * The installed keys by version and the version new data is encrypted with, replaced as a whole.
+     */
+    private record KeyRing(Map<Integer, SecretKeySpec> keys, int activeVersion) {
+    }
+}
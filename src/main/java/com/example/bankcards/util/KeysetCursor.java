@@ -0,0 +1,45 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.pagination.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by {@code (created_at DESC, id DESC)}, used for keyset pagination.
+ * Clients receive it as an opaque URL-safe string and send it back to get the next page.
+ *
+ * @param createdAt The creation time of the last row on the previous page.
+ * @param id The ID of the last row on the previous page.
+ */
+public record KeysetCursor(LocalDateTime createdAt, Long id) {
+
+    /**
+     * Encodes the cursor as an opaque URL-safe string.
+     *
+     * @return The encoded cursor.
+     */
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode()}.
+     *
+     * @param cursor The encoded cursor.
+     * @return The decoded cursor.
+     * @throws InvalidCursorException if the cursor is malformed.
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid pagination cursor", e);
+        }
+    }
+}
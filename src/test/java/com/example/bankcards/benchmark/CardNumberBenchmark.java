@@ -0,0 +1,94 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardNumber;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation cost and allocation of {@link CardNumber} parsing, Luhn validation, masking and comparison,
+ * against the previous regex/substring implementation of {@code CardMaskingUtil} ({@code legacy*}).
+ * Run with the {@code gc} profiler, which {@link #main(String[])} enables: {@code gc.alloc.rate.norm} is the
+ * number of bytes allocated per operation and should be 0 for {@link #validate()} and {@link #maskIntoBuffer()}.
+ * Not run by the test suite; start {@link #main(String[])} from the IDE or
+ * {@code mvn test-compile exec:java -Dexec.mainClass=... -Dexec.classpathScope=test}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CardNumberBenchmark {
+
+    private static final String CARD_NUMBER = "4111 1111 1111 1111";
+    private static final String SAME_CARD_NUMBER = "4111-1111-1111-1111";
+
+    private final char[] buffer = new char[CardNumber.MASKED_LENGTH];
+    private CardNumber parsed;
+
+    @Setup
+    public void setUp() {
+        parsed = CardNumber.parse(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return CardNumber.isValid(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public boolean legacyValidate() {
+        String cleaned = CARD_NUMBER.replaceAll("\\D", "");
+        if (cleaned.length() < 13 || cleaned.length() > 19) return false;
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = cleaned.length() - 1; i >= 0; i--) {
+            int n = Integer.parseInt(cleaned.substring(i, i + 1));
+            if (alternate) {
+                n *= 2;
+                if (n > 9) n = (n % 10) + 1;
+            }
+            sum += n;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+
+    @Benchmark
+    public char[] maskIntoBuffer() {
+        parsed.maskInto(buffer, 0);
+        return buffer;
+    }
+
+    @Benchmark
+    public String parseAndMask() {
+        return CardNumber.parse(CARD_NUMBER).masked();
+    }
+
+    @Benchmark
+    public String legacyMask() {
+        String cleaned = CARD_NUMBER.replaceAll("\\D", "");
+        return cleaned.substring(0, 4) + " **** **** " + cleaned.substring(cleaned.length() - 4);
+    }
+
+    @Benchmark
+    public boolean compare() {
+        return parsed.equals(CardNumber.tryParse(SAME_CARD_NUMBER));
+    }
+
+    @Benchmark
+    public boolean legacyCompare() {
+        return CARD_NUMBER.replaceAll("[\\s-]", "").equals(SAME_CARD_NUMBER.replaceAll("[\\s-]", ""));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardNumberBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
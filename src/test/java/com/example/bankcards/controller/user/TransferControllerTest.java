@@ -4,10 +4,21 @@ import com.example.bankcards.exception.card.CardNotFoundException;
 import com.example.bankcards.exception.dto.ForbiddenException;
 import com.example.bankcards.exception.card.InsufficientFundsException; // Assuming this exception
 import com.example.bankcards.exception.transfer.TransferNotFoundException; // Assuming this exception
+import com.example.bankcards.exception.transfer.TransferQueueFullException;
+import com.example.bankcards.model.dto.transfer.BatchTransferItemResultDto;
+import com.example.bankcards.model.dto.transfer.BatchTransferRequest;
+import com.example.bankcards.model.dto.transfer.BatchTransferResponseDto;
+import com.example.bankcards.model.dto.transfer.TransferPageResponseDto;
 import com.example.bankcards.model.dto.transfer.TransferRequest;
 import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.model.entity.enums.TransferStatus;
 import com.example.bankcards.security.JwtUtil;
 import com.example.bankcards.security.SecurityConfig;
+import com.example.bankcards.service.export.ExportFormat;
+import com.example.bankcards.service.export.HistoryExportService;
+import com.example.bankcards.service.transfer.AsyncTransferService;
+import com.example.bankcards.service.transfer.BatchTransferService;
+import com.example.bankcards.service.transfer.GroupCommitTransferExecutor;
 import com.example.bankcards.service.transfer.TransferService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,20 +30,30 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Import(SecurityConfig.class)
@@ -48,6 +69,18 @@ class TransferControllerTest {
     @MockitoBean
     private TransferService transferService;
 
+    @MockitoBean
+    private BatchTransferService batchTransferService;
+
+    @MockitoBean
+    private AsyncTransferService asyncTransferService;
+
+    @MockitoBean
+    private GroupCommitTransferExecutor groupCommitTransferExecutor;
+
+    @MockitoBean
+    private HistoryExportService historyExportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -73,7 +106,7 @@ class TransferControllerTest {
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
     void createTransfer_shouldReturnCreated() throws Exception {
-        given(transferService.createTransfer(any(TransferRequest.class), eq(TEST_USERNAME)))
+        given(transferService.createTransfer(any(TransferRequest.class), eq(TEST_USERNAME), isNull()))
                 .willReturn(testTransferResponseDto);
 
         mockMvc.perform(post("/api/user/transfers")
@@ -84,6 +117,62 @@ class TransferControllerTest {
                 .andExpect(jsonPath("$.amount").value(testTransferResponseDto.getAmount()));
     }
 
+    @Test
+    @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
+    void createTransfer_asyncMode_shouldReturnAcceptedWithPendingTransfer() throws Exception {
+        testTransferResponseDto.setStatus(TransferStatus.PENDING);
+        given(asyncTransferService.submit(any(TransferRequest.class), eq(TEST_USERNAME), isNull()))
+                .willReturn(testTransferResponseDto);
+
+        mockMvc.perform(post("/api/user/transfers").param("mode", "async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validTransferRequest)).with(csrf()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(testTransferResponseDto.getId()))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
+    void createTransfer_asyncModeWithFullQueue_shouldReturnTooManyRequests() throws Exception {
+        given(asyncTransferService.submit(any(TransferRequest.class), eq(TEST_USERNAME), isNull()))
+                .willThrow(new TransferQueueFullException("Too many transfers in progress, retry later."));
+
+        mockMvc.perform(post("/api/user/transfers").param("mode", "async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validTransferRequest)).with(csrf()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
+    void createTransfer_withGroupCommitEnabled_shouldUseGroupCommitExecutor() throws Exception {
+        given(groupCommitTransferExecutor.isEnabled()).willReturn(true);
+        given(groupCommitTransferExecutor.submit(any(TransferRequest.class), eq(TEST_USERNAME), isNull()))
+                .willReturn(testTransferResponseDto);
+
+        mockMvc.perform(post("/api/user/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validTransferRequest)).with(csrf()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(testTransferResponseDto.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
+    void createTransfer_withIdempotencyKey_shouldPassKeyToService() throws Exception {
+        given(transferService.createTransfer(any(TransferRequest.class), eq(TEST_USERNAME), eq("retry-key-1")))
+                .willReturn(testTransferResponseDto);
+
+        mockMvc.perform(post("/api/user/transfers")
+                        .header("Idempotency-Key", "retry-key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validTransferRequest)).with(csrf()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(testTransferResponseDto.getId()));
+    }
+
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
     void createTransfer_withInvalidData_shouldReturnBadRequest() throws Exception {
@@ -100,7 +189,7 @@ class TransferControllerTest {
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
     void createTransfer_whenCardNotFound_shouldReturnNotFound() throws Exception {
-        given(transferService.createTransfer(any(TransferRequest.class), eq(TEST_USERNAME)))
+        given(transferService.createTransfer(any(TransferRequest.class), eq(TEST_USERNAME), isNull()))
                 .willThrow(new CardNotFoundException("Card not found"));
 
         mockMvc.perform(post("/api/user/transfers")
@@ -112,7 +201,7 @@ class TransferControllerTest {
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
     void createTransfer_whenForbidden_shouldReturnForbidden() throws Exception {
-        given(transferService.createTransfer(any(TransferRequest.class), eq(TEST_USERNAME)))
+        given(transferService.createTransfer(any(TransferRequest.class), eq(TEST_USERNAME), isNull()))
                 .willThrow(new ForbiddenException("Access denied"));
 
         mockMvc.perform(post("/api/user/transfers")
@@ -124,7 +213,7 @@ class TransferControllerTest {
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
     void createTransfer_whenInsufficientFunds_shouldReturnBadRequest() throws Exception {
-        given(transferService.createTransfer(any(TransferRequest.class), eq(TEST_USERNAME)))
+        given(transferService.createTransfer(any(TransferRequest.class), eq(TEST_USERNAME), isNull()))
                 .willThrow(new InsufficientFundsException("Insufficient funds"));
 
         mockMvc.perform(post("/api/user/transfers")
@@ -135,32 +224,63 @@ class TransferControllerTest {
 
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
-    void getMyTransfers_shouldReturnOkAndListOfTransfers() throws Exception {
-        List<TransferResponseDto> transfers = Collections.singletonList(testTransferResponseDto);
-        given(transferService.getUserTransfers(eq(TEST_USERNAME))).willReturn(transfers);
+    void createTransferBatch_shouldReturnOkWithPerItemResults() throws Exception {
+        BatchTransferResponseDto response = new BatchTransferResponseDto(2, 1, 1, List.of(
+                new BatchTransferItemResultDto(0, 10L, TransferStatus.SUCCESS, null),
+                new BatchTransferItemResultDto(1, null, TransferStatus.FAILED, "Insufficient funds.")));
+        given(batchTransferService.createTransfers(anyList(), eq(TEST_USERNAME))).willReturn(response);
+
+        BatchTransferRequest request = new BatchTransferRequest(List.of(validTransferRequest, validTransferRequest));
+        mockMvc.perform(post("/api/user/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[0].transferId").value(10))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"));
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
+    void createTransferBatch_withEmptyList_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/user/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchTransferRequest(List.of()))).with(csrf()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
+    void getMyTransfers_shouldReturnOkAndPageOfTransfers() throws Exception {
+        TransferPageResponseDto page = new TransferPageResponseDto(Collections.singletonList(testTransferResponseDto), "next-cursor");
+        given(transferService.getUserTransfers(eq(TEST_USERNAME), eq("cursor-1"), eq(20))).willReturn(page);
 
         mockMvc.perform(get("/api/user/transfers/my")
+                        .param("limit", "20")
+                        .param("cursor", "cursor-1")
                         .contentType(MediaType.APPLICATION_JSON).with(csrf()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(testTransferResponseDto.getId()));
+                .andExpect(jsonPath("$.items[0].id").value(testTransferResponseDto.getId()))
+                .andExpect(jsonPath("$.next").value("next-cursor"));
     }
 
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
-    void getCardTransfers_shouldReturnOkAndListOfTransfers() throws Exception {
-        List<TransferResponseDto> transfers = Collections.singletonList(testTransferResponseDto);
-        given(transferService.getCardTransfers(anyLong(), eq(TEST_USERNAME))).willReturn(transfers);
+    void getCardTransfers_shouldReturnOkAndPageOfTransfers() throws Exception {
+        TransferPageResponseDto page = new TransferPageResponseDto(Collections.singletonList(testTransferResponseDto), null);
+        given(transferService.getCardTransfers(anyLong(), eq(TEST_USERNAME), isNull(), eq(50))).willReturn(page);
 
         mockMvc.perform(get("/api/user/transfers/card/{cardId}", 1L)
                         .contentType(MediaType.APPLICATION_JSON).with(csrf()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(testTransferResponseDto.getId()));
+                .andExpect(jsonPath("$.items[0].id").value(testTransferResponseDto.getId()))
+                .andExpect(jsonPath("$.next").doesNotExist());
     }
 
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
     void getCardTransfers_whenCardNotFound_shouldReturnNotFound() throws Exception {
-        given(transferService.getCardTransfers(anyLong(), eq(TEST_USERNAME)))
+        given(transferService.getCardTransfers(anyLong(), eq(TEST_USERNAME), any(), anyInt()))
                 .willThrow(new CardNotFoundException("Card not found"));
 
         mockMvc.perform(get("/api/user/transfers/card/{cardId}", 99L)
@@ -171,7 +291,7 @@ class TransferControllerTest {
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
     void getCardTransfers_whenForbidden_shouldReturnForbidden() throws Exception {
-        given(transferService.getCardTransfers(anyLong(), eq(TEST_USERNAME)))
+        given(transferService.getCardTransfers(anyLong(), eq(TEST_USERNAME), any(), anyInt()))
                 .willThrow(new ForbiddenException("Access denied"));
 
         mockMvc.perform(get("/api/user/transfers/card/{cardId}", 1L)
@@ -179,6 +299,23 @@ class TransferControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
+    void exportTransfers_shouldStreamCsvAttachment() throws Exception {
+        StreamingResponseBody body = out -> out.write("id\r\n1\r\n".getBytes(StandardCharsets.UTF_8));
+        given(historyExportService.exportTransfers(eq(TEST_USERNAME), eq(ExportFormat.CSV), isNull(), isNull(), eq(false)))
+                .willReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/api/user/transfers/export").with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"transfers.csv\""))
+                .andExpect(content().string("id\r\n1\r\n"));
+    }
+
     @Test
     @WithMockUser(username = TEST_USERNAME, authorities = "ROLE_USER")
     void getTransfer_shouldReturnOkAndTransfer() throws Exception {
@@ -0,0 +1,87 @@
+package com.example.bankcards.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the reconciliation statement against the real schema; skipped where Docker is not available.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(ReconciliationJdbcRepository.class)
+class ReconciliationJdbcRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ReconciliationJdbcRepository reconciliationJdbcRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long runId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO t_users (id, username, email, password, role, created_at, updated_at) " +
+                "VALUES (1, 'alice', 'alice@example.com', 'password', 'ROLE_USER', now(), now())");
+        // Счет клиента с картой: пополнение 100.00 и комиссия 5.00
+        insertAccount(1L, "95.00");
+        jdbcTemplate.update("INSERT INTO t_cards (id, card_number, card_holder, expiry_date, card_status, balance, account_id, " +
+                "created_at, updated_at) VALUES (1, 'encrypted', 'ALICE', '2030-01-01', 'ACTIVE', 95.00, 1, now(), now())");
+        insertTransaction(1L, "CREDIT", "100.00");
+        insertTransaction(1L, "FEE", "5.00");
+        insertJournal(1L, "DEPOSIT", 1L, "CREDIT", "100.00");
+        insertJournal(2L, "FEE", 1L, "DEBIT", "5.00");
+        // Счет сбора комиссий: без карт и транзакций, зачисление лежит в бакете
+        insertAccount(2L, "0.00");
+        jdbcTemplate.update("INSERT INTO t_account_balance_buckets (account_id, bucket, amount) VALUES (2, 0, 5.00)");
+        insertJournal(2L, "FEE", 2L, "CREDIT", "5.00");
+        runId = reconciliationJdbcRepository.createRun(null, 1);
+    }
+
+    @Test
+    void reconcileRange_whenFeeWasCollected_shouldNotReportCardLessCollectionAccount() {
+        assertEquals(0, reconciliationJdbcRepository.reconcileRange(runId, 1, 2));
+    }
+
+    @Test
+    void reconcileRange_whenCardBalanceDrifts_shouldStillReportAccountsWithCards() {
+        jdbcTemplate.update("UPDATE t_cards SET balance = 90.00 WHERE id = 1");
+
+        assertEquals(1, reconciliationJdbcRepository.reconcileRange(runId, 1, 2));
+        List<String> checks = jdbcTemplate.queryForList(
+                "SELECT check_type FROM t_reconciliation_discrepancies WHERE run_id = ? AND account_id = 1", String.class, runId);
+        assertEquals(List.of("CARDS"), checks);
+    }
+
+    private void insertAccount(Long id, String balance) {
+        jdbcTemplate.update("INSERT INTO t_accounts (id, account_number, balance, account_type, user_id, created_at, updated_at) " +
+                "VALUES (?, ?, ?::numeric, 'CHECKING', 1, now(), now())", id, "ACC" + id, balance);
+    }
+
+    private void insertTransaction(Long accountId, String type, String amount) {
+        jdbcTemplate.update("INSERT INTO t_transactions (account_id, amount, type, transaction_date, status, created_at, updated_at) " +
+                "VALUES (?, ?::numeric, ?, now(), 'SUCCESS', now(), now())", accountId, amount, type);
+    }
+
+    private void insertJournal(Long movementId, String movementType, Long accountId, String side, String amount) {
+        jdbcTemplate.update("INSERT INTO t_journal_entries (movement_id, movement_type, book, account_id, side, amount) " +
+                "VALUES (?, ?, 'CUSTOMER', ?, ?, ?::numeric)", movementId, movementType, accountId, side, amount);
+    }
+}
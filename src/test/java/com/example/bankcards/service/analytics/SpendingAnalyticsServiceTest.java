@@ -0,0 +1,112 @@
+package com.example.bankcards.service.analytics;
+
+import com.example.bankcards.exception.analytics.InvalidAnalyticsRangeException;
+import com.example.bankcards.model.dto.analytics.SpendingAnalyticsResponseDto;
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.enums.RollupScope;
+import com.example.bankcards.model.entity.enums.TransactionType;
+import com.example.bankcards.model.entity.enums.TransferStatus;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.SpendingRollupJdbcRepository;
+import com.example.bankcards.repository.SpendingRollupJdbcRepository.RollupDelta;
+import com.example.bankcards.repository.SpendingRollupJdbcRepository.RollupRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpendingAnalyticsServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 14, 12, 0);
+
+    @Mock
+    private SpendingRollupJdbcRepository spendingRollupJdbcRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private CardRepository cardRepository;
+
+    @InjectMocks
+    private SpendingAnalyticsService spendingAnalyticsService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(spendingAnalyticsService, "maxDays", 366);
+        ReflectionTestUtils.setField(spendingAnalyticsService, "maxMonths", 120);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_shouldMergeTransactionsPerRollupRowInLockOrder() {
+        Card card = new Card();
+        card.setId(5L);
+        Account account = new Account();
+        account.setId(9L);
+
+        spendingAnalyticsService.record(List.of(
+                transaction(account, card, "30.00", TransactionType.TRANSFER_OUT),
+                transaction(account, card, "2.00", TransactionType.FEE),
+                transaction(account, null, "100.00", TransactionType.CREDIT)));
+
+        ArgumentCaptor<List<RollupDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(spendingRollupJdbcRepository).applyDeltas(captor.capture());
+        List<RollupDelta> deltas = captor.getValue();
+        assertEquals(List.of(RollupScope.ACCOUNT_DAY, RollupScope.ACCOUNT_MONTH, RollupScope.CARD_DAY, RollupScope.CARD_MONTH),
+                deltas.stream().map(RollupDelta::scope).toList());
+        RollupDelta accountDay = deltas.get(0);
+        assertEquals(NOW.toLocalDate(), accountDay.periodStart());
+        assertEquals(new BigDecimal("100.00"), accountDay.credits());
+        assertEquals(new BigDecimal("30.00"), accountDay.debits());
+        assertEquals(new BigDecimal("2.00"), accountDay.fees());
+        assertEquals(3, accountDay.count());
+        assertEquals(LocalDate.of(2025, 3, 1), deltas.get(3).periodStart());
+        assertEquals(2, deltas.get(3).count());
+    }
+
+    @Test
+    void getSpending_shouldSumRollupRowsIntoTotal() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 2, 28);
+        when(accountRepository.findIdsByUserUsername("alice")).thenReturn(List.of(9L));
+        when(spendingRollupJdbcRepository.findSeries(RollupScope.ACCOUNT_MONTH, List.of(9L), from, to)).thenReturn(List.of(
+                new RollupRow(from, new BigDecimal("500.00"), new BigDecimal("120.00"), new BigDecimal("1.00"), 4),
+                new RollupRow(LocalDate.of(2025, 2, 1), BigDecimal.ZERO, new BigDecimal("80.00"), BigDecimal.ZERO, 2)));
+
+        SpendingAnalyticsResponseDto response = spendingAnalyticsService.getSpending("alice", from, to, Granularity.MONTH, null);
+
+        assertEquals(2, response.getPoints().size());
+        assertEquals(new BigDecimal("500.00"), response.getTotal().getCredits());
+        assertEquals(new BigDecimal("200.00"), response.getTotal().getDebits());
+        assertEquals(6, response.getTotal().getCount());
+    }
+
+    @Test
+    void getSpending_whenRangeTooLong_shouldThrowBeforeQuerying() {
+        assertThrows(InvalidAnalyticsRangeException.class, () -> spendingAnalyticsService.getSpending(
+                "alice", LocalDate.of(2020, 1, 1), LocalDate.of(2025, 1, 1), Granularity.DAY, null));
+        verifyNoInteractions(spendingRollupJdbcRepository, accountRepository);
+    }
+
+    private static Transaction transaction(Account account, Card card, String amount, TransactionType type) {
+        return new Transaction(account, card, new BigDecimal(amount), type, NOW, null, TransferStatus.SUCCESS, null);
+    }
+}
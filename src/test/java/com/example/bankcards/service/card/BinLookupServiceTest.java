@@ -0,0 +1,96 @@
+package com.example.bankcards.service.card;
+
+import com.example.bankcards.exception.card.InvalidCardNumberException;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.enums.CardBrand;
+import com.example.bankcards.model.entity.enums.CardType;
+import com.example.bankcards.util.BinTable;
+import com.example.bankcards.util.BinTable.BinInfo;
+import com.example.bankcards.util.BinTable.Range;
+import com.example.bankcards.util.CardNumber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinLookupServiceTest {
+
+    private BinLookupService binLookupService;
+
+    @BeforeEach
+    void setUp() {
+        binLookupService = new BinLookupService();
+        ReflectionTestUtils.setField(binLookupService, "tableResource", new ClassPathResource("bin/bin-ranges.csv"));
+        ReflectionTestUtils.setField(binLookupService, "rejectUnknown", true);
+        ReflectionTestUtils.setField(binLookupService, "ownIssuer", "CyberBank");
+        binLookupService.load();
+    }
+
+    @Test
+    void lookup_withIssuerBin_shouldReturnIssuerOverNetworkRange() {
+        BinInfo bin = binLookupService.lookup(CardNumber.parse("4012 8888 8888 1881"));
+
+        assertEquals(new BinInfo(CardBrand.VISA, CardType.CREDIT, "Sample Bank UK", "GB"), bin);
+        assertFalse(binLookupService.isOnUs(bin));
+    }
+
+    @Test
+    void lookup_withBinOnlyInNetworkRange_shouldReturnNetworkWithoutIssuer() {
+        BinInfo bin = binLookupService.lookup(CardNumber.parse("2720 9999 9999 9996"));
+
+        assertEquals(CardBrand.MASTERCARD, bin.network());
+        assertEquals(CardType.UNKNOWN, bin.type());
+        assertNull(bin.issuer());
+        assertTrue(binLookupService.isOnUs(bin));
+    }
+
+    @Test
+    void lookup_withMirBin_shouldNotBeTakenForMastercard() {
+        assertEquals(CardBrand.MIR, binLookupService.lookup(CardNumber.parse("2200 0000 0000 0004")).network());
+        assertEquals(CardBrand.UNKNOWN, binLookupService.lookup(CardNumber.parse("2205 0000 0000 0003")).network());
+    }
+
+    @Test
+    void validate_withUnknownNetwork_shouldThrow() {
+        assertThrows(InvalidCardNumberException.class,
+                () -> binLookupService.validate(CardNumber.parse("9999 9999 9999 9995")));
+    }
+
+    @Test
+    void validate_withBadChecksum_shouldThrow() {
+        assertThrows(InvalidCardNumberException.class,
+                () -> binLookupService.validate(CardNumber.parse("4111 1111 1111 1112")));
+    }
+
+    @Test
+    void applyBinFields_shouldStoreNetworkTypeAndIssuerOnCard() {
+        Card card = new Card();
+
+        binLookupService.applyBinFields(card, binLookupService.validate(CardNumber.parse("4111 1111 1111 1111")));
+
+        assertEquals(CardBrand.VISA, card.getBrand());
+        assertEquals(CardType.DEBIT, card.getCardType());
+        assertEquals("CyberBank", card.getIssuer());
+        assertEquals("BY", card.getIssuerCountry());
+    }
+
+    @Test
+    void binTable_withNestedAndAdjacentRanges_shouldFlattenToNarrowestMatch() {
+        BinInfo network = new BinInfo(CardBrand.VISA, CardType.UNKNOWN, null, null);
+        BinInfo issuer = new BinInfo(CardBrand.VISA, CardType.DEBIT, "Bank", "BY");
+        BinTable table = BinTable.of(List.of(
+                new Range("411111", "411111", issuer),
+                new Range("4", "4", network)));
+
+        assertEquals(3, table.size());
+        assertEquals(network, table.lookup(41111099));
+        assertEquals(issuer, table.lookup(41111100));
+        assertEquals(issuer, table.lookup(41111199));
+        assertEquals(network, table.lookup(41111200));
+        assertEquals(BinTable.UNKNOWN, table.lookup(50000000));
+    }
+}
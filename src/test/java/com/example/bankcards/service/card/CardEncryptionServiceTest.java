@@ -0,0 +1,75 @@
+package com.example.bankcards.service.card;
+
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardEncryptionServiceTest {
+
+    private static final String CARD_NUMBER = "4111111111111111";
+
+    private CardEncryptionService cardEncryptionService;
+
+    @BeforeEach
+    void setUp() {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "encryptionKey", "MySecretEncryptionKey12345678901");
+        ReflectionTestUtils.setField(encryptionUtil, "blindIndexKey", "MySecretEncryptionKey12345678901");
+        encryptionUtil.init();
+        cardEncryptionService = new CardEncryptionService(encryptionUtil);
+    }
+
+    @Test
+    void encryptAndDecrypt_shouldRoundTrip() {
+        String encrypted = cardEncryptionService.encryptCardNumber(CARD_NUMBER);
+
+        assertNotEquals(CARD_NUMBER, encrypted);
+        assertEquals(CARD_NUMBER, cardEncryptionService.decryptCardNumber(encrypted));
+        assertEquals("4111 **** **** 1111", cardEncryptionService.getMaskedCardNumber(encrypted));
+    }
+
+    @Test
+    void getMaskedCardNumber_withNineteenDigitNumber_shouldKeepFirstAndLastFourDigits() {
+        String encrypted = cardEncryptionService.encryptCardNumber("6200000000000000612");
+
+        assertEquals("6200 **** **** 0612", cardEncryptionService.getMaskedCardNumber(encrypted));
+        assertEquals("****", cardEncryptionService.getMaskedCardNumber("not-a-ciphertext"));
+    }
+
+    @Test
+    void getMaskedCardNumber_withDisplayFields_shouldNotDecrypt() {
+        Card card = new Card();
+        cardEncryptionService.applyDisplayFields(card, "5500 0000-0000 0004");
+        card.setCardNumber("not-a-ciphertext");
+
+        assertEquals("5500", card.getFirstDigits());
+        assertEquals("0004", card.getLastDigits());
+        assertEquals("5500 **** **** 0004", cardEncryptionService.getMaskedCardNumber(card));
+    }
+
+    @Test
+    void getMaskedCardNumber_withoutDisplayFields_shouldFallBackToDecryption() {
+        Card card = new Card();
+        card.setCardNumber(cardEncryptionService.encryptCardNumber(CARD_NUMBER));
+
+        assertEquals("4111 **** **** 1111", cardEncryptionService.getMaskedCardNumber(card));
+    }
+
+    @Test
+    void hashCardNumber_shouldBeDeterministicAndIgnoreFormatting() {
+        String hash = cardEncryptionService.hashCardNumber(CARD_NUMBER);
+
+        assertEquals(64, hash.length());
+        assertEquals(hash, cardEncryptionService.hashCardNumber("4111 1111-1111 1111"));
+        assertNotEquals(hash, cardEncryptionService.hashCardNumber("5500000000000004"));
+    }
+
+    @Test
+    void hashCardNumber_withEmptyNumber_shouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> cardEncryptionService.hashCardNumber(" "));
+    }
+}
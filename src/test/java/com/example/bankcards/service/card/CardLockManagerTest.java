@@ -0,0 +1,65 @@
+package com.example.bankcards.service.card;
+
+import com.example.bankcards.exception.card.CardLockTimeoutException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardLockManagerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CardLockManager cardLockManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cardLockManager = new CardLockManager(meterRegistry, 64, 100);
+    }
+
+    @Test
+    void withCardLocks_shouldBeReentrantForTheSameCards() {
+        String result = cardLockManager.withCardLocks(List.of(1L, 2L), () ->
+                cardLockManager.withCardLocks(List.of(2L), () -> "done"));
+
+        assertEquals("done", result);
+    }
+
+    @Test
+    void withCardLocks_whenCardIsBusy_shouldTimeOutAndRecordMetrics() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> cardLockManager.withCardLocks(List.of(7L), () -> {
+                locked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            assertThrows(CardLockTimeoutException.class,
+                    () -> cardLockManager.withCardLocks(List.of(7L), () -> "never"));
+            assertEquals(1.0, meterRegistry.counter("card.lock.contended").count());
+            assertEquals(1.0, meterRegistry.counter("card.lock.timeouts").count());
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            assertEquals("free", cardLockManager.withCardLocks(List.of(7L), () -> "free"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bankcards.service.card;
+
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTokenJdbcRepository;
+import com.example.bankcards.repository.CardTokenJdbcRepository.TokenRow;
+import com.example.bankcards.util.CardNumber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CardTokenServiceTest {
+
+    private static final String CARD_NUMBER = "4111111111111111";
+
+    @Mock
+    private CardTokenJdbcRepository cardTokenJdbcRepository;
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private CardEncryptionService cardEncryptionService;
+
+    private CardTokenService cardTokenService;
+
+    @BeforeEach
+    void setUp() {
+        cardTokenService = new CardTokenService(cardTokenJdbcRepository, cardRepository, cardEncryptionService);
+        ReflectionTestUtils.setField(cardTokenService, "cacheSize", 2);
+        when(cardEncryptionService.hashCardNumber(CardNumber.parse(CARD_NUMBER))).thenReturn("hash");
+        when(cardEncryptionService.encryptCardNumber(CardNumber.parse(CARD_NUMBER))).thenReturn("v1:cipher");
+    }
+
+    @Test
+    void tokenize_withKnownNumber_shouldReturnExistingTokenWithoutEncrypting() {
+        when(cardTokenJdbcRepository.findByPanHash("hash"))
+                .thenReturn(Optional.of(new TokenRow("tok_a", "v1:cipher", "4111", "1111", 7L)));
+
+        assertEquals("tok_a", cardTokenService.tokenize(CARD_NUMBER, null));
+        verify(cardEncryptionService, never()).encryptCardNumber(any(CardNumber.class));
+        verify(cardTokenJdbcRepository, never()).upsert(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void tokenize_withNewNumberOfBankCard_shouldStoreEncryptedNumberBoundToCard() {
+        when(cardTokenJdbcRepository.findByPanHash("hash")).thenReturn(Optional.empty());
+        when(cardRepository.findIdByCardNumberHash("hash")).thenReturn(Optional.of(7L));
+        when(cardTokenJdbcRepository.upsert(anyString(), eq("hash"), eq("v1:cipher"), eq("4111"), eq("1111"), eq(7L)))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        String token = cardTokenService.tokenize(CARD_NUMBER, null);
+
+        assertTrue(token.startsWith("tok_"));
+        assertFalse(token.contains("1111"));
+    }
+
+    @Test
+    void resolveCardId_shouldServeRepeatedLookupsFromCache() {
+        when(cardTokenJdbcRepository.findByToken("tok_a"))
+                .thenReturn(Optional.of(new TokenRow("tok_a", "v1:cipher", "4111", "1111", 7L)));
+
+        assertEquals(Optional.of(7L), cardTokenService.resolveCardId("tok_a"));
+        assertEquals(Optional.of(7L), cardTokenService.resolveCardId("tok_a"));
+
+        verify(cardTokenJdbcRepository, times(1)).findByToken("tok_a");
+    }
+
+    @Test
+    void resolveCardId_afterCardDeleted_shouldLookUpAgain() {
+        when(cardTokenJdbcRepository.findByToken("tok_a"))
+                .thenReturn(Optional.of(new TokenRow("tok_a", "v1:cipher", "4111", "1111", 7L)))
+                .thenReturn(Optional.of(new TokenRow("tok_a", "v1:cipher", "4111", "1111", null)));
+
+        cardTokenService.resolveCardId("tok_a");
+        cardTokenService.evictCard(7L);
+
+        assertEquals(Optional.empty(), cardTokenService.resolveCardId("tok_a"));
+    }
+
+    @Test
+    void getMaskedCardNumbers_shouldMaskFromStoredDigitsWithoutDecrypting() {
+        when(cardTokenJdbcRepository.findByTokens(List.of("tok_a")))
+                .thenReturn(List.of(new TokenRow("tok_a", "v1:cipher", "4111", "1111", null)));
+
+        Map<String, String> masks = cardTokenService.getMaskedCardNumbers(List.of("tok_a"));
+
+        assertEquals("4111 **** **** 1111", masks.get("tok_a"));
+        verify(cardEncryptionService, never()).decryptCardNumber(any());
+    }
+
+    @Test
+    void detokenize_withUnknownToken_shouldThrowCardNotFound() {
+        when(cardTokenJdbcRepository.findByToken("tok_x")).thenReturn(Optional.empty());
+
+        assertThrows(CardNotFoundException.class, () -> cardTokenService.detokenize("tok_x", "admin", "audit"));
+        verify(cardEncryptionService, never()).decryptCardNumber(any());
+    }
+}
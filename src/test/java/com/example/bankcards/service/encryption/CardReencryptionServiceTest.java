@@ -0,0 +1,153 @@
+package com.example.bankcards.service.encryption;
+
+import com.example.bankcards.model.entity.enums.ReencryptionStatus;
+import com.example.bankcards.repository.CardReencryptionJdbcRepository;
+import com.example.bankcards.repository.CardReencryptionJdbcRepository.CardCiphertext;
+import com.example.bankcards.repository.CardReencryptionJdbcRepository.TokenCiphertext;
+import com.example.bankcards.util.EncryptionUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CardReencryptionServiceTest {
+
+    private static final String CARD_NUMBER = "4111111111111111";
+
+    @Mock
+    private CardReencryptionJdbcRepository cardReencryptionJdbcRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private EncryptionUtil encryptionUtil;
+    private SimpleMeterRegistry meterRegistry;
+    private CardReencryptionService cardReencryptionService;
+
+    @BeforeEach
+    void setUp() {
+        encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "encryptionKey", "MySecretEncryptionKey12345678901");
+        ReflectionTestUtils.setField(encryptionUtil, "blindIndexKey", "MySecretEncryptionKey12345678901");
+        encryptionUtil.init();
+        meterRegistry = new SimpleMeterRegistry();
+        cardReencryptionService = new CardReencryptionService(cardReencryptionJdbcRepository, encryptionUtil,
+                transactionTemplate, meterRegistry);
+        ReflectionTestUtils.setField(cardReencryptionService, "rangeSize", 100L);
+        ReflectionTestUtils.setField(cardReencryptionService, "parallelism", 2);
+        ReflectionTestUtils.setField(cardReencryptionService, "maxCardsPerSecond", 0);
+        ReflectionTestUtils.setField(cardReencryptionService, "retryAttempts", 2);
+        ReflectionTestUtils.setField(cardReencryptionService, "retryDelayMs", 0L);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(mock(TransactionStatus.class)));
+        when(cardReencryptionJdbcRepository.lockCardsToReencrypt(anyLong(), anyLong(), anyString())).thenReturn(List.of());
+    }
+
+    @Test
+    void execute_shouldReencryptOlderCardsOfEveryRangeAndComplete() {
+        String legacy = encryptionUtil.encrypt(CARD_NUMBER);
+        encryptionUtil.installDataKeys(Map.of(1, new byte[32]), 1);
+        when(cardReencryptionJdbcRepository.lockCardsToReencrypt(101L, 200L, "v1:"))
+                .thenReturn(List.of(new CardCiphertext(150L, legacy)));
+        ArgumentCaptor<List<CardCiphertext>> updated = ArgumentCaptor.forClass(List.class);
+
+        cardReencryptionService.execute(5L, 1, 1L, 3, 0);
+
+        for (long from = 1L; from <= 201L; from += 100) {
+            verify(cardReencryptionJdbcRepository).lockCardsToReencrypt(from, from + 99, "v1:");
+        }
+        verify(cardReencryptionJdbcRepository).updateCardNumbers(updated.capture());
+        CardCiphertext card = updated.getValue().get(0);
+        assertEquals(150L, card.id());
+        assertTrue(card.cardNumber().startsWith("v1:"));
+        assertEquals(CARD_NUMBER, encryptionUtil.decrypt(card.cardNumber()));
+        verify(cardReencryptionJdbcRepository).addProgress(eq(5L), eq(1), anyInt());
+        verify(cardReencryptionJdbcRepository).finishRun(5L, ReencryptionStatus.COMPLETED, 0L);
+        assertEquals(1.0, meterRegistry.counter("encryption.reencryption.cards").count());
+    }
+
+    @Test
+    void execute_whenResumed_shouldStartFromCheckpoint() {
+        encryptionUtil.installDataKeys(Map.of(1, new byte[32]), 1);
+
+        cardReencryptionService.execute(5L, 1, 1L, 4, 2);
+
+        verify(cardReencryptionJdbcRepository, never()).lockCardsToReencrypt(eq(1L), anyLong(), anyString());
+        verify(cardReencryptionJdbcRepository, never()).lockCardsToReencrypt(eq(101L), anyLong(), anyString());
+        verify(cardReencryptionJdbcRepository).lockCardsToReencrypt(201L, 300L, "v1:");
+        verify(cardReencryptionJdbcRepository).lockCardsToReencrypt(301L, 400L, "v1:");
+        verify(cardReencryptionJdbcRepository).addProgress(5L, 0, 4);
+        verify(cardReencryptionJdbcRepository).finishRun(5L, ReencryptionStatus.COMPLETED, 0L);
+    }
+
+    @Test
+    void execute_whenCardStaysLockedByTransfers_shouldRetryRangeAndFailRun() {
+        encryptionUtil.installDataKeys(Map.of(1, new byte[32]), 1);
+        // Карта диапазона 1-100 заблокирована переводом: SKIP LOCKED ее не возвращает, но она остается на старом ключе
+        when(cardReencryptionJdbcRepository.countCardsToReencrypt(1L, 100L, "v1:")).thenReturn(1);
+        when(cardReencryptionJdbcRepository.countCardsToReencrypt(1L, 200L, "v1:")).thenReturn(1);
+
+        cardReencryptionService.execute(5L, 1, 1L, 2, 0);
+
+        // основной проход и две повторные попытки
+        verify(cardReencryptionJdbcRepository, times(3)).lockCardsToReencrypt(1L, 100L, "v1:");
+        verify(cardReencryptionJdbcRepository, times(1)).lockCardsToReencrypt(101L, 200L, "v1:");
+        verify(cardReencryptionJdbcRepository).finishRun(5L, ReencryptionStatus.FAILED, 1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_shouldReencryptTokenVaultInBatches() {
+        String legacy = encryptionUtil.encrypt(CARD_NUMBER);
+        encryptionUtil.installDataKeys(Map.of(1, new byte[32]), 1);
+        ReflectionTestUtils.setField(cardReencryptionService, "rangeSize", 2L);
+        when(cardReencryptionJdbcRepository.lockTokensToReencrypt("", "v1:", 2))
+                .thenReturn(List.of(new TokenCiphertext("tok_a", legacy), new TokenCiphertext("tok_b", legacy)));
+        when(cardReencryptionJdbcRepository.lockTokensToReencrypt("tok_b", "v1:", 2))
+                .thenReturn(List.of(new TokenCiphertext("tok_c", legacy)));
+        ArgumentCaptor<List<TokenCiphertext>> updated = ArgumentCaptor.forClass(List.class);
+
+        cardReencryptionService.execute(5L, 1, 1L, 0, 0);
+
+        verify(cardReencryptionJdbcRepository, times(2)).updateEncryptedPans(updated.capture());
+        List<TokenCiphertext> tokens = updated.getAllValues().stream().flatMap(List::stream).toList();
+        assertEquals(List.of("tok_a", "tok_b", "tok_c"), tokens.stream().map(TokenCiphertext::token).toList());
+        assertTrue(tokens.stream().allMatch(t -> CARD_NUMBER.equals(encryptionUtil.decrypt(t.encryptedPan()))
+                && t.encryptedPan().startsWith("v1:")));
+        verify(cardReencryptionJdbcRepository).finishRun(5L, ReencryptionStatus.COMPLETED, 0L);
+        assertEquals(3.0, meterRegistry.counter("encryption.reencryption.cards").count());
+    }
+
+    @Test
+    void execute_whenVaultEntryStaysLocked_shouldRetryVaultAndFailRun() {
+        encryptionUtil.installDataKeys(Map.of(1, new byte[32]), 1);
+        when(cardReencryptionJdbcRepository.countTokensToReencrypt("v1:")).thenReturn(1);
+
+        cardReencryptionService.execute(5L, 1, 1L, 0, 0);
+
+        // основной проход и две повторные попытки
+        verify(cardReencryptionJdbcRepository, times(3)).lockTokensToReencrypt(eq(""), eq("v1:"), anyInt());
+        verify(cardReencryptionJdbcRepository).finishRun(5L, ReencryptionStatus.FAILED, 1L);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.bankcards.service.encryption;
+
+import com.example.bankcards.model.dto.encryption.DataKeyResponseDto;
+import com.example.bankcards.repository.DataKeyJdbcRepository;
+import com.example.bankcards.repository.DataKeyJdbcRepository.DataKeyRow;
+import com.example.bankcards.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DataKeyServiceTest {
+
+    private static final String CARD_NUMBER = "4111111111111111";
+
+    @Mock
+    private DataKeyJdbcRepository dataKeyJdbcRepository;
+
+    private EncryptionUtil encryptionUtil;
+    private DataKeyService dataKeyService;
+    private final List<DataKeyRow> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "encryptionKey", "MySecretEncryptionKey12345678901");
+        ReflectionTestUtils.setField(encryptionUtil, "blindIndexKey", "MySecretEncryptionKey12345678901");
+        encryptionUtil.init();
+        dataKeyService = new DataKeyService(dataKeyJdbcRepository, encryptionUtil);
+        ReflectionTestUtils.setField(dataKeyService, "activationDelaySeconds", 120L);
+    }
+
+    @Test
+    void refresh_shouldEncryptWithNewestActiveKeyAndStillDecryptOlderVersions() {
+        String legacy = encryptionUtil.encrypt(CARD_NUMBER);
+        rows.add(key(1, true));
+        rows.add(key(2, false));
+        when(dataKeyJdbcRepository.findAll()).thenReturn(rows);
+
+        dataKeyService.refresh();
+        String rotated = encryptionUtil.encrypt(CARD_NUMBER);
+
+        assertEquals(0, EncryptionUtil.keyVersion(legacy));
+        assertTrue(rotated.startsWith("v1:"));
+        assertEquals(CARD_NUMBER, encryptionUtil.decrypt(legacy));
+        assertEquals(CARD_NUMBER, encryptionUtil.decrypt(rotated));
+        // Ключ 2 еще не активен, но уже расшифровывает данные экземпляров, которые перешли на него раньше
+        assertEquals(CARD_NUMBER, encryptionUtil.decrypt(encryptionUtil.reencrypt(rotated, 2)));
+        assertEquals(1, encryptionUtil.getActiveKeyVersion());
+    }
+
+    @Test
+    void refresh_whenRepositoryFails_shouldKeepInstalledKeys() {
+        rows.add(key(1, true));
+        when(dataKeyJdbcRepository.findAll()).thenReturn(rows).thenThrow(new QueryTimeoutException("timeout"));
+        dataKeyService.refresh();
+
+        dataKeyService.refresh();
+
+        assertEquals(1, encryptionUtil.getActiveKeyVersion());
+    }
+
+    @Test
+    void rotate_shouldStoreWrappedKeyThatIsInactiveUntilItsActivationTime() {
+        when(dataKeyJdbcRepository.insertNext(anyString(), eq("admin"), anyLong())).thenAnswer(inv -> {
+            rows.add(new DataKeyRow(1, inv.getArgument(0), "admin", LocalDateTime.now(), LocalDateTime.now().plusMinutes(2), false));
+            return 1;
+        });
+        when(dataKeyJdbcRepository.findAll()).thenReturn(rows);
+
+        DataKeyResponseDto key = dataKeyService.rotate("admin");
+
+        assertEquals(1, key.getVersion());
+        assertFalse(key.isCurrent());
+        assertEquals(32, encryptionUtil.unwrapKey(rows.get(0).wrappedKey()).length);
+        assertEquals(0, EncryptionUtil.keyVersion(encryptionUtil.encrypt(CARD_NUMBER)));
+    }
+
+    private DataKeyRow key(int version, boolean active) {
+        byte[] dataKey = new byte[32];
+        dataKey[0] = (byte) version;
+        LocalDateTime now = LocalDateTime.now();
+        return new DataKeyRow(version, encryptionUtil.wrapKey(dataKey), "admin", now, active ? now : now.plusMinutes(2), active);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bankcards.service.export;
+
+import com.example.bankcards.exception.export.InvalidExportRangeException;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.HistoryExportJdbcRepository;
+import com.example.bankcards.repository.HistoryExportJdbcRepository.CardRef;
+import com.example.bankcards.repository.HistoryExportJdbcRepository.TransactionRow;
+import com.example.bankcards.repository.HistoryExportJdbcRepository.TransferRow;
+import com.example.bankcards.service.card.CardEncryptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class HistoryExportServiceTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 12, 30);
+
+    private CardRepository cardRepository;
+    private AccountRepository accountRepository;
+    private HistoryExportJdbcRepository historyExportJdbcRepository;
+    private CardEncryptionService cardEncryptionService;
+    private HistoryExportService historyExportService;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository = mock(CardRepository.class);
+        accountRepository = mock(AccountRepository.class);
+        historyExportJdbcRepository = mock(HistoryExportJdbcRepository.class);
+        cardEncryptionService = mock(CardEncryptionService.class);
+        historyExportService = new HistoryExportService(cardRepository, accountRepository, historyExportJdbcRepository,
+                cardEncryptionService, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        when(cardEncryptionService.getMaskedCardNumber(anyString())).thenAnswer(inv -> "**** " + inv.getArgument(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportTransfers_asCsv_shouldMaskFromDisplayFieldsAndDecryptLegacyCardsOnce() throws Exception {
+        CardRef card = new CardRef(1L, "enc1", "4111", "1111");
+        CardRef legacyCard = new CardRef(2L, "enc2", null, null);
+        when(cardRepository.findIdsByUserUsername("alice")).thenReturn(List.of(1L));
+        doAnswer(inv -> {
+            Consumer<TransferRow> consumer = inv.getArgument(3);
+            consumer.accept(new TransferRow(10L, card, legacyCard, new BigDecimal("1E+2"), "SUCCESS", DATE));
+            consumer.accept(new TransferRow(11L, legacyCard, card, new BigDecimal("5.50"), "SUCCESS", DATE));
+            return null;
+        }).when(historyExportJdbcRepository).streamTransfers(eq(List.of(1L)), any(), any(), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        historyExportService.exportTransfers("alice", ExportFormat.CSV, null, null, false).writeTo(out);
+
+        assertEquals("id,fromCardId,fromCardNumber,toCardId,toCardNumber,amount,status,transferDate\r\n" +
+                "10,1,4111 **** **** 1111,2,**** enc2,100,SUCCESS,2025-03-01T12:30\r\n" +
+                "11,2,**** enc2,1,4111 **** **** 1111,5.50,SUCCESS,2025-03-01T12:30\r\n", out.toString(StandardCharsets.UTF_8));
+        verify(cardEncryptionService, times(1)).getMaskedCardNumber(anyString());
+    }
+
+    @Test
+    void exportTransactions_asGzippedNdjson_shouldWriteOneObjectPerLine() throws Exception {
+        when(accountRepository.findIdsByUserUsername("alice")).thenReturn(List.of(7L));
+        doAnswer(inv -> {
+            Consumer<TransactionRow> consumer = inv.getArgument(3);
+            consumer.accept(new TransactionRow(1L, 7L, null, new BigDecimal("3.00"), "FEE", DATE, "Fee, \"monthly\"", "SUCCESS"));
+            return null;
+        }).when(historyExportJdbcRepository).streamTransactions(eq(List.of(7L)), any(), any(), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        historyExportService.exportTransactions("alice", ExportFormat.NDJSON, null, null, true).writeTo(out);
+
+        String json = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals("{\"id\":1,\"accountId\":7,\"cardId\":null,\"cardNumber\":null,\"amount\":3.00,\"type\":\"FEE\"," +
+                "\"transactionDate\":\"2025-03-01T12:30\",\"description\":\"Fee, \\\"monthly\\\"\",\"status\":\"SUCCESS\"}\n", json);
+    }
+
+    @Test
+    void exportTransfers_whenFromAfterTo_shouldThrowBeforeStreaming() {
+        assertThrows(InvalidExportRangeException.class, () -> historyExportService.exportTransfers("alice", ExportFormat.CSV,
+                LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1), false));
+        verifyNoInteractions(cardRepository, historyExportJdbcRepository);
+    }
+}
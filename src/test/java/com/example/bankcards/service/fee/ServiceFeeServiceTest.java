@@ -0,0 +1,136 @@
+package com.example.bankcards.service.fee;
+
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.ServiceFee;
+import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.Currency;
+import com.example.bankcards.model.entity.enums.FeeType;
+import com.example.bankcards.model.entity.enums.LedgerBook;
+import com.example.bankcards.model.entity.enums.MovementType;
+import com.example.bankcards.model.entity.enums.Role;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.ServiceFeeRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.fx.FxRateService.Conversion;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.ledger.LedgerService.Leg;
+import com.example.bankcards.service.ledger.LedgerService.Movement;
+import com.example.bankcards.service.notification.NotificationService;
+import com.example.bankcards.util.mapper.ServiceFeeMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ServiceFeeServiceTest {
+
+    private static final Long COLLECTION_ACCOUNT_ID = 500L;
+
+    @Mock
+    private ServiceFeeRepository serviceFeeRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private ServiceFeeMapper serviceFeeMapper;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private AccountBalanceService accountBalanceService;
+    @Mock
+    private SpendingAnalyticsService spendingAnalyticsService;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private FxRateService fxRateService;
+
+    @InjectMocks
+    private ServiceFeeService serviceFeeService;
+
+    private Account payer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(serviceFeeService, "feeCollectionAccountId", COLLECTION_ACCOUNT_ID);
+        User user = new User("alice", "alice@example.com", "password", Role.ROLE_USER);
+        user.setId(10L);
+        payer = new Account();
+        payer.setId(10L);
+        payer.setUser(user);
+        payer.setCurrency(Currency.USD);
+        payer.setBalance(new BigDecimal("100.00"));
+        Account collection = new Account();
+        collection.setId(COLLECTION_ACCOUNT_ID);
+        collection.setCurrency(Currency.BYN);
+
+        when(accountRepository.findById(COLLECTION_ACCOUNT_ID)).thenReturn(Optional.of(collection));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void processFeePayment_whenCollectionAccountIsInAnotherCurrency_shouldCreditConvertedAmount() {
+        when(fxRateService.convert(new BigDecimal("5.00"), Currency.USD, Currency.BYN))
+                .thenReturn(new Conversion(new BigDecimal("16.25"), new BigDecimal("3.25")));
+
+        serviceFeeService.processFeePayment(fee("5.00"));
+
+        assertEquals(new BigDecimal("95.00"), payer.getBalance());
+        verify(accountBalanceService).creditBucket(COLLECTION_ACCOUNT_ID, new BigDecimal("16.25"));
+        Leg position = Leg.book(LedgerBook.FX_POSITION);
+        verify(ledgerService).post(List.of(
+                new Movement(MovementType.FEE, Leg.customer(payer, null), position, new BigDecimal("5.00"), null),
+                new Movement(MovementType.FEE, position, Leg.customer(COLLECTION_ACCOUNT_ID), new BigDecimal("16.25"), null)));
+    }
+
+    @Test
+    void processFeePayment_whenCollectionAccountIsInPayersCurrency_shouldCreditAmountAsIs() {
+        payer.setCurrency(Currency.BYN);
+
+        serviceFeeService.processFeePayment(fee("5.00"));
+
+        verify(accountBalanceService).creditBucket(COLLECTION_ACCOUNT_ID, new BigDecimal("5.00"));
+        verify(ledgerService).post(List.of(new Movement(MovementType.FEE, Leg.customer(payer, null),
+                Leg.customer(COLLECTION_ACCOUNT_ID), new BigDecimal("5.00"), null)));
+        verifyNoInteractions(fxRateService);
+    }
+
+    @Test
+    void collectTransferFee_shouldCreditCollectionAccountWithoutLockingIt() {
+        serviceFeeService.collectTransferFee(payer, null, new BigDecimal("0.15"), new BigDecimal("0.49"),
+                FeeType.TRANSFER_FEE, 100L);
+
+        // Блокировка счета сбора после счетов перевода нарушила бы порядок по возрастанию ID
+        verify(accountBalanceService).creditBucket(COLLECTION_ACCOUNT_ID, new BigDecimal("0.49"));
+        verify(accountRepository, never()).findByIdForUpdate(any());
+    }
+
+    private ServiceFee fee(String amount) {
+        ServiceFee fee = new ServiceFee();
+        fee.setId(1L);
+        fee.setAccount(payer);
+        fee.setAmount(new BigDecimal(amount));
+        fee.setFeeType(FeeType.MONTHLY_MAINTENANCE);
+        fee.setIsPaid(false);
+        return fee;
+    }
+}
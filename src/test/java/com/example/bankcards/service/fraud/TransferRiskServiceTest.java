@@ -0,0 +1,185 @@
+package com.example.bankcards.service.fraud;
+
+import com.example.bankcards.service.fraud.TransferRiskService.Action;
+import com.example.bankcards.service.fraud.TransferRiskService.RiskDecision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferRiskServiceTest {
+
+    private static final long NOW = 1_800_000_000L;
+
+    private TransferRiskService transferRiskService;
+
+    @BeforeEach
+    void setUp() {
+        transferRiskService = new TransferRiskService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(transferRiskService, "enabled", true);
+        ReflectionTestUtils.setField(transferRiskService, "maxPerMinute", 3);
+        ReflectionTestUtils.setField(transferRiskService, "maxPerHour", 5);
+        ReflectionTestUtils.setField(transferRiskService, "maxDistinctRecipients", 2);
+        ReflectionTestUtils.setField(transferRiskService, "zScoreThreshold", 4.0);
+        ReflectionTestUtils.setField(transferRiskService, "minSamples", 5L);
+        ReflectionTestUtils.setField(transferRiskService, "statsTtlHours", 72L);
+    }
+
+    @Test
+    void assess_whenCardExceedsVelocity_shouldRejectUntilWindowSlides() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Action.ALLOW, screen(1L, 2L, 10L, 100, NOW + i).action());
+        }
+
+        assertEquals(Action.REJECT, screen(1L, 2L, 10L, 100, NOW + 3).action());
+        // Через минуту минутное окно пусто; отклоненная попытка не учтена, поэтому часовой лимит (5)
+        // превышается только шестым проведенным переводом
+        assertEquals(Action.ALLOW, screen(1L, 2L, 10L, 100, NOW + 61).action());
+        assertEquals(Action.ALLOW, screen(1L, 2L, 10L, 100, NOW + 62).action());
+        RiskDecision hourly = screen(1L, 2L, 10L, 100, NOW + 63);
+        assertEquals(Action.REJECT, hourly.action());
+        assertEquals("6 transfers from the card within an hour", hourly.reason());
+        assertEquals(Action.ALLOW, screen(1L, 2L, 10L, 100, NOW + 3700).action());
+    }
+
+    @Test
+    void assess_whenTransferIsNotRecorded_shouldNotCountIt() {
+        // Перевод, откатанный после скоринга или повторенный после дедлока, не записывается
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Action.ALLOW, transferRiskService.assess(1L, 2L + i, 10L, 100, NOW + i).action());
+        }
+    }
+
+    @Test
+    void record_withinTransaction_shouldCountForSameTransactionAndApplyAfterCommit() {
+        BigDecimal amount = new BigDecimal("100.00");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (int i = 0; i < 3; i++) {
+                transferRiskService.record(1L, 2L, 10L, amount, RiskDecision.ALLOW);
+            }
+            // Записи еще не закоммиченной транзакции учитываются только в ней самой
+            assertEquals(Action.REJECT, transferRiskService.assess(1L, 2L, 10L, amount).action());
+            assertEquals(Action.ALLOW, transferRiskService.assess(1L, 2L, 10L, 100, NOW).action());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(Action.REJECT, transferRiskService.assess(1L, 2L, 10L, amount).action());
+    }
+
+    @Test
+    void record_whenTransactionRollsBack_shouldDiscardRecords() {
+        BigDecimal amount = new BigDecimal("100.00");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transferRiskService.record(1L, 2L, 10L, amount, RiskDecision.ALLOW);
+            transferRiskService.record(1L, 3L, 10L, amount, RiskDecision.ALLOW);
+            // Два ожидающих получателя плюс новый превышают порог (2)
+            assertEquals(Action.HOLD, transferRiskService.assess(1L, 4L, 10L, amount).action());
+
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(TransactionSynchronizationManager.hasResource(transferRiskService));
+        assertEquals(Action.ALLOW, transferRiskService.assess(1L, 4L, 10L, amount).action());
+    }
+
+    @Test
+    void assess_whenCardPaysTooManyRecipients_shouldHold() {
+        assertEquals(Action.ALLOW, screen(1L, 2L, 10L, 100, NOW).action());
+        assertEquals(Action.ALLOW, screen(1L, 3L, 10L, 100, NOW + 60).action());
+        assertEquals(Action.ALLOW, screen(1L, 2L, 10L, 100, NOW + 120).action());
+
+        RiskDecision decision = screen(1L, 4L, 10L, 100, NOW + 180);
+
+        assertEquals(Action.HOLD, decision.action());
+        assertEquals("Transfers to 3 recipients within an hour", decision.reason());
+        // Получатель, которому платили больше часа назад, не учитывается
+        assertEquals(Action.ALLOW, screen(1L, 5L, 10L, 100, NOW + 3800).action());
+    }
+
+    @Test
+    void assess_whenAmountIsFarAboveSendersUsualAmounts_shouldHold() {
+        double[] usual = {90, 110, 100, 95, 105};
+        for (int i = 0; i < usual.length; i++) {
+            // Разные карты, чтобы не сработали скоростные правила
+            assertEquals(Action.ALLOW, screen(100L + i, 2L, 10L, usual[i], NOW + i * 60L).action());
+        }
+
+        assertEquals(Action.ALLOW, screen(200L, 2L, 10L, 120, NOW + 600).action());
+        RiskDecision decision = screen(201L, 2L, 10L, 5000, NOW + 660);
+        assertEquals(Action.HOLD, decision.action());
+        assertTrue(decision.reason().startsWith("Amount is"));
+        // Задержанная сумма не сдвигает статистику
+        assertEquals(Action.HOLD, screen(202L, 2L, 10L, 5000, NOW + 720).action());
+    }
+
+    @Test
+    void evictIdle_shouldForgetCardsIdleForAnHour() {
+        for (int i = 0; i < 3; i++) {
+            screen(1L, 2L, 10L, 100, NOW + i);
+        }
+
+        transferRiskService.evictIdle(NOW + 3600);
+
+        assertEquals(Action.ALLOW, transferRiskService.assess(1L, 2L, 10L, 100, NOW + 3601).action());
+    }
+
+    /**
+     * Measures the latency added to a transfer by screening, over a realistic spread of cards and senders.
+     * Run with {@code mvn test -Dtest=TransferRiskServiceTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_assessLatency() {
+        ReflectionTestUtils.setField(transferRiskService, "maxPerMinute", 1_000);
+        ReflectionTestUtils.setField(transferRiskService, "maxPerHour", 100_000);
+        ReflectionTestUtils.setField(transferRiskService, "maxDistinctRecipients", 20);
+        BigDecimal amount = new BigDecimal("125.50");
+        int warmup = 200_000;
+        int measured = 1_000_000;
+        long[] samples = new long[measured];
+        for (int i = 0; i < warmup + measured; i++) {
+            long card = i % 50_000;
+            long start = System.nanoTime();
+            RiskDecision decision = transferRiskService.assess(card, card + 1 + i % 7, card / 2, amount);
+            transferRiskService.record(card, card + 1 + i % 7, card / 2, amount, decision);
+            if (i >= warmup) {
+                samples[i - warmup] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(samples);
+        long p50 = samples[measured / 2];
+        long p99 = samples[(int) (measured * 0.99)];
+        System.out.printf("Screening latency: p50 %.2f us, p99 %.2f us%n", p50 / 1000.0, p99 / 1000.0);
+        assertTrue(p99 < 50_000, "p99 must stay under 50 us");
+    }
+
+    // Скоринг и запись, как у перевода, который прошел или задержан и закоммичен
+    private RiskDecision screen(long fromCardId, long toCardId, long senderId, double amount, long nowSeconds) {
+        RiskDecision decision = transferRiskService.assess(fromCardId, toCardId, senderId, amount, nowSeconds);
+        if (decision.action() != Action.REJECT) {
+            transferRiskService.record(fromCardId, toCardId, senderId, amount, decision.action() == Action.ALLOW, nowSeconds);
+        }
+        return decision;
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.example.bankcards.service.fx;
+
+import com.example.bankcards.exception.fx.FxRateUnavailableException;
+import com.example.bankcards.model.entity.enums.Currency;
+import com.example.bankcards.service.fx.FxRateService.Conversion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FxRateServiceTest {
+
+    @TempDir
+    private Path directory;
+
+    private Path ratesFile;
+    private FxRateSource fxRateSource;
+    private FxRateService fxRateService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ratesFile = directory.resolve("rates.properties");
+        Files.writeString(ratesFile, "USD=3.2718\nEUR=3.5412\n");
+        fxRateSource = spy(new FileFxRateSource(ratesFile));
+        fxRateService = new FxRateService(fxRateSource);
+        ReflectionTestUtils.setField(fxRateService, "maxAgeHours", 48L);
+    }
+
+    @Test
+    void convert_shouldUseCachedCrossRatesWithoutCallingTheSource() {
+        fxRateService.refresh();
+        clearInvocations(fxRateSource);
+
+        Conversion toByn = fxRateService.convert(new BigDecimal("10.00"), Currency.USD, Currency.BYN);
+        Conversion toEur = fxRateService.convert(new BigDecimal("100.00"), Currency.USD, Currency.EUR);
+
+        assertEquals(new BigDecimal("32.72"), toByn.amount());
+        assertEquals(new BigDecimal("3.27180000"), toByn.rate());
+        // 3.2718 / 3.5412 = 0.92392409
+        assertEquals(new BigDecimal("0.92392409"), toEur.rate());
+        assertEquals(new BigDecimal("92.39"), toEur.amount());
+        assertEquals(new BigDecimal("5.00"), fxRateService.convert(new BigDecimal("5.00"), Currency.RUB, Currency.RUB).amount());
+        verifyNoInteractions(fxRateSource);
+    }
+
+    @Test
+    void refresh_whenSourceFails_shouldKeepPreviousRates() throws IOException {
+        fxRateService.refresh();
+        Files.delete(ratesFile);
+
+        fxRateService.refresh();
+
+        assertEquals(new BigDecimal("3.27180000"), fxRateService.getRate(Currency.USD, Currency.BYN));
+        assertEquals(new BigDecimal("3.2718"), fxRateService.getRates().getRates().get(Currency.USD));
+    }
+
+    @Test
+    void getRate_whenRatesAreMissingOrOutOfDate_shouldThrow() {
+        assertThrows(FxRateUnavailableException.class, () -> fxRateService.getRate(Currency.USD, Currency.BYN));
+
+        fxRateService.refresh(Instant.now().minus(49, ChronoUnit.HOURS));
+        assertThrows(FxRateUnavailableException.class, () -> fxRateService.getRate(Currency.USD, Currency.BYN));
+
+        fxRateService.refresh();
+        FxRateUnavailableException missing = assertThrows(FxRateUnavailableException.class,
+                () -> fxRateService.getRate(Currency.RUB, Currency.USD));
+        assertEquals("No exchange rate for RUB/USD", missing.getMessage());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.bankcards.service.idempotency;
+
+import com.example.bankcards.exception.idempotency.IdempotencyKeyMismatchException;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.model.entity.IdempotencyKey;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Mock
+    private CardEncryptionService cardEncryptionService;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, cardEncryptionService,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(idempotencyService, "ttlHours", 24L);
+        ReflectionTestUtils.setField(idempotencyService, "cacheSize", 2);
+    }
+
+    @Test
+    void findStoredResponse_afterStore_shouldReplayFromCacheWithoutDatabase() {
+        TransferResponseDto response = new TransferResponseDto();
+        response.setId(7L);
+        response.setAmount(new BigDecimal("10.00"));
+
+        idempotencyService.store("alice", "key-1", "hash", response);
+        Optional<TransferResponseDto> replay = idempotencyService.findStoredResponse("alice", "key-1", "hash");
+
+        assertTrue(replay.isPresent());
+        assertEquals(7L, replay.get().getId());
+        verify(idempotencyKeyRepository).saveAndFlush(any());
+        verify(idempotencyKeyRepository, never()).findByUsernameAndIdempotencyKey(any(), any());
+    }
+
+    @Test
+    void findStoredResponse_withDifferentPayload_shouldThrowMismatch() {
+        idempotencyService.store("alice", "key-1", "hash", new TransferResponseDto());
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> idempotencyService.findStoredResponse("alice", "key-1", "other-hash"));
+    }
+
+    @Test
+    void store_whenKeyExpiredButWasNotPurged_shouldReplaceExpiredRowBeforeInsert() {
+        IdempotencyKey expired = new IdempotencyKey();
+        expired.setRequestHash("old-hash");
+        expired.setResponseBody("{}");
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        when(idempotencyKeyRepository.findByUsernameAndIdempotencyKey("alice", "key-1")).thenReturn(Optional.of(expired));
+
+        // Истекший ключ считается свободным: запрос выполняется заново и сохраняет новый ответ
+        assertTrue(idempotencyService.findStoredResponse("alice", "key-1", "hash").isEmpty());
+        idempotencyService.store("alice", "key-1", "hash", new TransferResponseDto());
+
+        InOrder inOrder = inOrder(idempotencyKeyRepository);
+        inOrder.verify(idempotencyKeyRepository).deleteExpiredKey(eq("alice"), eq("key-1"), any(LocalDateTime.class));
+        inOrder.verify(idempotencyKeyRepository).saveAndFlush(any());
+    }
+
+    @Test
+    void fingerprint_shouldIgnoreAmountScale() {
+        TransferRequest first = new TransferRequest();
+        first.setFromCardId(1L);
+        first.setToCardId(2L);
+        first.setAmount(new BigDecimal("10"));
+        TransferRequest second = new TransferRequest();
+        second.setFromCardId(1L);
+        second.setToCardId(2L);
+        second.setAmount(new BigDecimal("10.00"));
+
+        assertEquals(idempotencyService.fingerprint(first), idempotencyService.fingerprint(second));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.service.ledger;
+
+import com.example.bankcards.model.entity.enums.EntrySide;
+import com.example.bankcards.model.entity.enums.LedgerBook;
+import com.example.bankcards.model.entity.enums.MovementType;
+import com.example.bankcards.repository.JournalJdbcRepository;
+import com.example.bankcards.repository.JournalJdbcRepository.JournalLeg;
+import com.example.bankcards.service.ledger.LedgerService.Leg;
+import com.example.bankcards.service.ledger.LedgerService.Movement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("25.00");
+
+    @Mock
+    private JournalJdbcRepository journalJdbcRepository;
+
+    @InjectMocks
+    private LedgerService ledgerService;
+
+    @Test
+    void post_shouldWriteOneDebitAndOneCreditLegPerMovement() {
+        when(journalJdbcRepository.nextMovementIds(2)).thenReturn(List.of(100L, 101L));
+
+        ledgerService.post(List.of(
+                new Movement(MovementType.TRANSFER, new Leg(LedgerBook.CUSTOMER, 1L, 10L), new Leg(LedgerBook.CUSTOMER, 2L, 20L), AMOUNT, 5L),
+                Movement.of(MovementType.DEPOSIT, Leg.book(LedgerBook.CASH), Leg.customer(2L), AMOUNT)));
+
+        verify(journalJdbcRepository).insertLegs(List.of(
+                new JournalLeg(100L, MovementType.TRANSFER, LedgerBook.CUSTOMER, 1L, 10L, EntrySide.DEBIT, AMOUNT, 5L),
+                new JournalLeg(100L, MovementType.TRANSFER, LedgerBook.CUSTOMER, 2L, 20L, EntrySide.CREDIT, AMOUNT, 5L),
+                new JournalLeg(101L, MovementType.DEPOSIT, LedgerBook.CASH, null, null, EntrySide.DEBIT, AMOUNT, null),
+                new JournalLeg(101L, MovementType.DEPOSIT, LedgerBook.CUSTOMER, 2L, null, EntrySide.CREDIT, AMOUNT, null)));
+    }
+
+    @Test
+    void post_withCustomerLegWithoutAccount_shouldThrowBeforeInserting() {
+        when(journalJdbcRepository.nextMovementIds(1)).thenReturn(List.of(100L));
+
+        assertThrows(IllegalArgumentException.class, () -> ledgerService.post(List.of(
+                Movement.of(MovementType.WITHDRAWAL, Leg.book(LedgerBook.CUSTOMER), Leg.book(LedgerBook.CASH), AMOUNT))));
+        verify(journalJdbcRepository, never()).insertLegs(any());
+    }
+
+    @Test
+    void getBalances_withNoAccounts_shouldNotQuery() {
+        assertEquals(0, ledgerService.getBalances(List.of()).size());
+        verifyNoInteractions(journalJdbcRepository);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.bankcards.service.limit;
+
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.Currency;
+import com.example.bankcards.model.entity.enums.Role;
+import com.example.bankcards.model.entity.enums.SpendCounterScope;
+import com.example.bankcards.repository.SpendCounterJdbcRepository;
+import com.example.bankcards.service.fx.FxRateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpendingLimitServiceTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    @Mock
+    private SpendCounterJdbcRepository spendCounterJdbcRepository;
+    @Mock
+    private FxRateService fxRateService;
+
+    @InjectMocks
+    private SpendingLimitService spendingLimitService;
+
+    private Card card;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("alice", "alice@example.com", "password", Role.ROLE_USER);
+        user.setId(7L);
+        user.setMonthlyLimit(new BigDecimal("1000.00"));
+        Account account = new Account();
+        account.setUser(user);
+        card = new Card();
+        card.setId(3L);
+        card.setAccount(account);
+        card.setDailyLimit(new BigDecimal("500.00"));
+        lenient().when(fxRateService.toBaseCurrency(any(), eq(Currency.BYN))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void tryRecordSpend_withinLimits_shouldIncrementBothCounters() {
+        LocalDate today = LocalDate.now();
+        when(spendCounterJdbcRepository.incrementWithinLimit(SpendCounterScope.CARD_DAY, 3L, today, AMOUNT, card.getDailyLimit()))
+                .thenReturn(true);
+        when(spendCounterJdbcRepository.incrementWithinLimit(SpendCounterScope.USER_MONTH, 7L, today.withDayOfMonth(1), AMOUNT, user.getMonthlyLimit()))
+                .thenReturn(true);
+
+        assertNull(spendingLimitService.tryRecordSpend(card, AMOUNT));
+    }
+
+    @Test
+    void tryRecordSpend_whenMonthlyLimitExceeded_shouldUndoDailyIncrement() {
+        LocalDate today = LocalDate.now();
+        when(spendCounterJdbcRepository.incrementWithinLimit(eq(SpendCounterScope.CARD_DAY), any(), any(), any(), any())).thenReturn(true);
+        when(spendCounterJdbcRepository.incrementWithinLimit(eq(SpendCounterScope.USER_MONTH), any(), any(), any(), any())).thenReturn(false);
+
+        assertEquals("Monthly spending limit exceeded.", spendingLimitService.tryRecordSpend(card, AMOUNT));
+        verify(spendCounterJdbcRepository).decrement(SpendCounterScope.CARD_DAY, 3L, today, AMOUNT);
+    }
+
+    @Test
+    void tryRecordSpend_whenAmountAloneExceedsDailyLimit_shouldRejectWithoutQuery() {
+        assertEquals("Daily card spending limit exceeded.", spendingLimitService.tryRecordSpend(card, new BigDecimal("600.00")));
+        verify(spendCounterJdbcRepository, never()).incrementWithinLimit(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void tryRecordSpend_foreignCurrencyCard_shouldCountMonthlyLimitInByn() {
+        LocalDate today = LocalDate.now();
+        card.setCurrency(Currency.USD);
+        BigDecimal inByn = new BigDecimal("327.50");
+        when(fxRateService.toBaseCurrency(AMOUNT, Currency.USD)).thenReturn(inByn);
+        when(spendCounterJdbcRepository.incrementWithinLimit(SpendCounterScope.CARD_DAY, 3L, today, AMOUNT, card.getDailyLimit()))
+                .thenReturn(true);
+        when(spendCounterJdbcRepository.incrementWithinLimit(SpendCounterScope.USER_MONTH, 7L, today.withDayOfMonth(1), inByn, user.getMonthlyLimit()))
+                .thenReturn(true);
+
+        assertNull(spendingLimitService.tryRecordSpend(card, AMOUNT));
+    }
+
+    @Test
+    void releaseSpend_foreignCurrencyCard_shouldGiveBackBynEquivalentToMonthlyCounter() {
+        LocalDate today = LocalDate.now();
+        card.setCurrency(Currency.USD);
+        when(fxRateService.toBaseCurrency(AMOUNT, Currency.USD)).thenReturn(new BigDecimal("327.50"));
+
+        spendingLimitService.releaseSpend(card, AMOUNT, today);
+
+        verify(spendCounterJdbcRepository).decrement(SpendCounterScope.CARD_DAY, 3L, today, AMOUNT);
+        verify(spendCounterJdbcRepository).decrement(SpendCounterScope.USER_MONTH, 7L, today.withDayOfMonth(1), new BigDecimal("327.50"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankcards.service.outbox;
+
+import com.example.bankcards.model.entity.Notification;
+import com.example.bankcards.model.entity.OutboxEvent;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.OutboxEventType;
+import com.example.bankcards.repository.OutboxEventRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private TransferJdbcRepository transferJdbcRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private OutboxDispatcher outboxDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxDispatcher = new OutboxDispatcher(outboxEventRepository, transferJdbcRepository, userRepository,
+                new ObjectMapper(), transactionTemplate);
+        ReflectionTestUtils.setField(outboxDispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxDispatcher, "maxAttempts", 3);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(transactionStatus));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatchBatch_shouldFanOutNotificationsAndDeleteHandledEvents() {
+        OutboxEvent transfer = event(1L, "{\"transferId\":5,\"fromUserId\":10,\"toUserId\":20,\"amount\":15.00}");
+        OutboxEvent broken = event(2L, "not json");
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(transfer, broken));
+        when(userRepository.getReferenceById(any())).thenAnswer(inv -> new User());
+
+        assertEquals(2, outboxDispatcher.dispatchBatch());
+
+        ArgumentCaptor<List<Notification>> notifications = ArgumentCaptor.forClass(List.class);
+        verify(transferJdbcRepository).batchInsertNotifications(notifications.capture());
+        assertEquals(2, notifications.getValue().size());
+        verify(outboxEventRepository).deleteAllInBatch(List.of(transfer));
+        assertEquals(1, broken.getAttempts());
+        assertTrue(broken.getAvailableAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void dispatchBatch_whenBatchInsertFails_shouldInsertPerEventAndCountAttemptOnlyForFailedOne() {
+        OutboxEvent good = event(1L, "{\"transferId\":5,\"fromUserId\":10,\"toUserId\":20,\"amount\":15.00}");
+        OutboxEvent poison = event(2L, "{\"transferId\":6,\"fromUserId\":10,\"toUserId\":99,\"amount\":15.00}");
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(good, poison));
+        User missing = new User();
+        when(userRepository.getReferenceById(any())).thenAnswer(inv -> inv.<Long>getArgument(0) == 99L ? missing : new User());
+        when(transactionStatus.createSavepoint()).thenReturn(new Object());
+        doAnswer(inv -> {
+            if (inv.<List<Notification>>getArgument(0).stream().anyMatch(n -> n.getUser() == missing)) {
+                throw new DataIntegrityViolationException("fk_notifications_user");
+            }
+            return null;
+        }).when(transferJdbcRepository).batchInsertNotifications(any());
+
+        assertEquals(2, outboxDispatcher.dispatchBatch());
+
+        verify(transactionStatus, times(2)).rollbackToSavepoint(any());
+        verify(outboxEventRepository).deleteAllInBatch(List.of(good));
+        assertEquals(0, good.getAttempts());
+        assertEquals(1, poison.getAttempts());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatchBatch_shouldNotifySenderAndRecipientOfReversal() {
+        OutboxEvent reversal = event(1L, "{\"transferId\":5,\"fromUserId\":10,\"toUserId\":20,\"amount\":15.00,"
+                + "\"refundedAmount\":15.15,\"debitedAmount\":15.00,\"reversedBy\":\"admin\",\"reason\":\"fraud\"}");
+        reversal.setEventType(OutboxEventType.TRANSFER_REVERSED);
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(reversal));
+        when(userRepository.getReferenceById(any())).thenAnswer(inv -> new User());
+
+        assertEquals(1, outboxDispatcher.dispatchBatch());
+
+        ArgumentCaptor<List<Notification>> notifications = ArgumentCaptor.forClass(List.class);
+        verify(transferJdbcRepository).batchInsertNotifications(notifications.capture());
+        assertEquals(List.of("Возврат: +15.15 (Отмена перевода)", "Списание: -15.00 (Отмена перевода)"),
+                notifications.getValue().stream().map(Notification::getMessage).toList());
+        verify(outboxEventRepository).deleteAllInBatch(List.of(reversal));
+    }
+
+    private static OutboxEvent event(Long id, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setEventType(OutboxEventType.TRANSFER_COMPLETED);
+        event.setAggregateId(id);
+        event.setPayload(payload);
+        return event;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bankcards.service.reconciliation;
+
+import com.example.bankcards.exception.reconciliation.ReconciliationInProgressException;
+import com.example.bankcards.model.entity.enums.ReconciliationStatus;
+import com.example.bankcards.repository.ReconciliationJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReconciliationServiceTest {
+
+    @Mock
+    private ReconciliationJdbcRepository reconciliationJdbcRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reconciliationService = new ReconciliationService(reconciliationJdbcRepository, transactionTemplate, meterRegistry);
+        ReflectionTestUtils.setField(reconciliationService, "rangeSize", 100L);
+        ReflectionTestUtils.setField(reconciliationService, "parallelism", 4);
+        ReflectionTestUtils.setField(reconciliationService, "staleAfterMinutes", 30L);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(mock(TransactionStatus.class)));
+        when(reconciliationJdbcRepository.countAccounts(anyLong(), anyLong())).thenReturn(100);
+    }
+
+    @Test
+    void execute_shouldCheckEveryRangeOnceAndComplete() {
+        when(reconciliationJdbcRepository.reconcileRange(eq(7L), anyLong(), anyLong())).thenReturn(0);
+        when(reconciliationJdbcRepository.reconcileRange(7L, 1201L, 1300L)).thenReturn(2);
+
+        reconciliationService.execute(7L, 1001L, 5);
+
+        for (long from = 1001L; from <= 1401L; from += 100) {
+            verify(reconciliationJdbcRepository).reconcileRange(7L, from, from + 99);
+        }
+        verify(reconciliationJdbcRepository).addProgress(7L, 100, 2, false);
+        verify(reconciliationJdbcRepository).finishRun(7L, ReconciliationStatus.COMPLETED);
+        assertEquals(500.0, meterRegistry.counter("reconciliation.accounts.checked").count());
+        assertEquals(2.0, meterRegistry.counter("reconciliation.discrepancies").count());
+    }
+
+    @Test
+    void execute_whenRangeFails_shouldCheckTheRestAndFailRun() {
+        when(reconciliationJdbcRepository.reconcileRange(7L, 1L, 100L)).thenThrow(new QueryTimeoutException("timeout"));
+
+        reconciliationService.execute(7L, 1L, 3);
+
+        verify(reconciliationJdbcRepository).reconcileRange(7L, 101L, 200L);
+        verify(reconciliationJdbcRepository).reconcileRange(7L, 201L, 300L);
+        verify(reconciliationJdbcRepository).addProgress(7L, 0, 0, true);
+        verify(reconciliationJdbcRepository).finishRun(7L, ReconciliationStatus.FAILED);
+    }
+
+    @Test
+    void start_whenAnotherRunIsInProgress_shouldThrowConflict() {
+        when(reconciliationJdbcRepository.findAccountIdBounds()).thenReturn(Optional.of(new long[]{1L, 250L}));
+        when(reconciliationJdbcRepository.createRun("admin", 3)).thenThrow(new DuplicateKeyException("uq_reconciliation_run_running"));
+
+        assertThrows(ReconciliationInProgressException.class, () -> reconciliationService.start("admin"));
+        verify(reconciliationJdbcRepository, never()).reconcileRange(any(), anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.bankcards.service.schedule;
+
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.repository.ScheduledTransferJdbcRepository;
+import com.example.bankcards.repository.ScheduledTransferJdbcRepository.DueTransfer;
+import com.example.bankcards.repository.ScheduledTransferJdbcRepository.RunOutcome;
+import com.example.bankcards.service.transfer.TransferService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ScheduledTransferDispatcherTest {
+
+    private static final LocalDateTime OCCURRENCE = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    @Mock
+    private ScheduledTransferJdbcRepository scheduledTransferJdbcRepository;
+    @Mock
+    private TransferService transferService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ScheduledTransferDispatcher dispatcher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(dispatcher, "chunkSize", 200);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 300L);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "retryBackoffSeconds", 60L);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(mock(TransactionStatus.class)));
+        doAnswer(inv -> {
+            ((Consumer<TransactionStatus>) inv.getArgument(0)).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void runChunk_whenTransferSucceeds_shouldAdvanceToNextOccurrenceWithOccurrenceKey() {
+        claim(due(0));
+        TransferResponseDto transfer = new TransferResponseDto();
+        transfer.setId(77L);
+        when(transferService.createTransfer(any(TransferRequest.class), eq("alice"), eq("scheduled-5-" + OCCURRENCE)))
+                .thenReturn(transfer);
+
+        assertEquals(1, dispatcher.runChunk());
+
+        RunOutcome outcome = completed();
+        assertEquals(77L, outcome.transferId());
+        assertEquals(0, outcome.attempts());
+        assertNull(outcome.lockedUntil());
+        assertNull(outcome.error());
+        assertTrue(outcome.nextRunAt().isAfter(LocalDateTime.now()));
+        assertEquals(1, outcome.nextRunAt().getDayOfMonth());
+    }
+
+    @Test
+    void runChunk_whenTransferFails_shouldKeepOccurrenceAndBackOff() {
+        claim(due(1));
+        when(transferService.createTransfer(any(TransferRequest.class), eq("alice"), any()))
+                .thenThrow(new InsufficientFundsException("Insufficient funds."));
+
+        dispatcher.runChunk();
+
+        RunOutcome outcome = completed();
+        assertEquals(OCCURRENCE, outcome.nextRunAt());
+        assertEquals(2, outcome.attempts());
+        assertEquals("Insufficient funds.", outcome.error());
+        long delay = Duration.between(outcome.ranAt(), outcome.lockedUntil()).getSeconds();
+        assertEquals(120L, delay);
+    }
+
+    @Test
+    void runChunk_whenLastAttemptFails_shouldSkipToNextOccurrence() {
+        claim(due(2));
+        when(transferService.createTransfer(any(TransferRequest.class), eq("alice"), any()))
+                .thenThrow(new InsufficientFundsException("Insufficient funds."));
+
+        dispatcher.runChunk();
+
+        RunOutcome outcome = completed();
+        assertEquals(0, outcome.attempts());
+        assertNull(outcome.lockedUntil());
+        assertTrue(outcome.nextRunAt().isAfter(LocalDateTime.now()));
+        assertEquals("Insufficient funds.", outcome.error());
+    }
+
+    private void claim(DueTransfer order) {
+        when(scheduledTransferJdbcRepository.claimDue(any(), any(), anyInt())).thenReturn(List.of(order));
+    }
+
+    @SuppressWarnings("unchecked")
+    private RunOutcome completed() {
+        ArgumentCaptor<List<RunOutcome>> captor = ArgumentCaptor.forClass(List.class);
+        verify(scheduledTransferJdbcRepository).complete(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        return captor.getValue().get(0);
+    }
+
+    private static DueTransfer due(int attempts) {
+        return new DueTransfer(5L, "alice", 1L, 2L, new BigDecimal("500.00"), "Rent",
+                "0 0 9 1 * *", null, OCCURRENCE, attempts);
+    }
+}
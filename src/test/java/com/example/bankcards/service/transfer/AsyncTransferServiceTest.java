@@ -0,0 +1,97 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.transfer.TransferQueueFullException;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.model.entity.enums.TransferStatus;
+import com.example.bankcards.service.transfer.TransferService.AdmittedTransfer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferServiceTest {
+
+    @Mock
+    private TransferService transferService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AsyncTransferService asyncTransferService;
+    private TransferRequest request;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Один исполнитель и одно место в очереди
+        asyncTransferService = new AsyncTransferService(transferService, meterRegistry, 1, 1);
+
+        request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(BigDecimal.TEN);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        asyncTransferService.shutdown();
+    }
+
+    @Test
+    void submit_whenQueueIsFull_shouldRejectWithoutAdmitting() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transferService.createPendingTransfer(any(), eq("user"), isNull()))
+                .thenReturn(new AdmittedTransfer(pending(10L), 2L, true), new AdmittedTransfer(pending(11L), 2L, true));
+        doAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(transferService).completePendingTransfer(eq(10L), any(), eq(2L), eq("user"));
+
+        assertEquals(TransferStatus.PENDING, asyncTransferService.submit(request, "user", null).getStatus());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        asyncTransferService.submit(request, "user", null);
+
+        assertThrows(TransferQueueFullException.class, () -> asyncTransferService.submit(request, "user", null));
+        verify(transferService, times(2)).createPendingTransfer(any(), any(), any());
+        assertEquals(1.0, meterRegistry.get("transfer.async.rejected").counter().count());
+
+        release.countDown();
+        verify(transferService, timeout(5000)).completePendingTransfer(eq(11L), any(), eq(2L), eq("user"));
+    }
+
+    @Test
+    void submit_whenIdempotencyKeyIsReplayed_shouldNotEnqueueAgain() {
+        when(transferService.createPendingTransfer(any(), eq("user"), eq("key-1")))
+                .thenReturn(new AdmittedTransfer(pending(10L), null, false));
+
+        // Повторы не занимают место в очереди: разрешение возвращается сразу
+        for (int i = 0; i < 3; i++) {
+            assertEquals(10L, asyncTransferService.submit(request, "user", "key-1").getId());
+        }
+
+        verify(transferService, never()).completePendingTransfer(anyLong(), any(), any(), any());
+    }
+
+    private static TransferResponseDto pending(Long id) {
+        TransferResponseDto dto = new TransferResponseDto();
+        dto.setId(id);
+        dto.setStatus(TransferStatus.PENDING);
+        return dto;
+    }
+}
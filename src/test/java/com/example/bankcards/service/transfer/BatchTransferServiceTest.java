@@ -0,0 +1,225 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.model.dto.transfer.BatchTransferItemResultDto;
+import com.example.bankcards.model.dto.transfer.BatchTransferResponseDto;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.Transfer;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.FeeType;
+import com.example.bankcards.model.entity.enums.Role;
+import com.example.bankcards.model.entity.enums.TransferStatus;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.service.card.CardTokenService;
+import com.example.bankcards.service.fee.ServiceFeeService;
+import com.example.bankcards.service.fraud.TransferRiskService;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.limit.SpendingLimitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BatchTransferServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private CardEncryptionService cardEncryptionService;
+    @Mock
+    private CardTokenService cardTokenService;
+    @Mock
+    private TransferJdbcRepository transferJdbcRepository;
+    @Mock
+    private TransferRetryExecutor transferRetryExecutor;
+    @Mock
+    private SpendingLimitService spendingLimitService;
+    @Mock
+    private SpendingAnalyticsService spendingAnalyticsService;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private AccountBalanceService accountBalanceService;
+    @Spy
+    private TransferRiskService transferRiskService = new TransferRiskService(new SimpleMeterRegistry());
+    @Mock
+    private FxRateService fxRateService;
+    @Mock
+    private ServiceFeeService serviceFeeService;
+
+    @InjectMocks
+    private BatchTransferService batchTransferService;
+
+    private Card sender;
+    private Card recipient;
+    private Card secondRecipient;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(batchTransferService, "maxBatchSize", 1000);
+        ReflectionTestUtils.setField(batchTransferService, "chunkSize", 100);
+        ReflectionTestUtils.setField(transferRiskService, "enabled", true);
+        ReflectionTestUtils.setField(transferRiskService, "maxPerMinute", 3);
+        ReflectionTestUtils.setField(transferRiskService, "maxPerHour", 100);
+        ReflectionTestUtils.setField(transferRiskService, "maxDistinctRecipients", 20);
+        ReflectionTestUtils.setField(transferRiskService, "zScoreThreshold", 4.0);
+        ReflectionTestUtils.setField(transferRiskService, "minSamples", 30L);
+        sender = card(1L, 10L, "alice", "1000.00");
+        recipient = card(2L, 20L, "bob", "0.00");
+        secondRecipient = card(3L, 30L, "carol", "0.00");
+
+        // Каждый чанк — отдельная транзакция: записи скоринга применяются после ее коммита
+        when(transferRetryExecutor.executeInTransaction(any(), anyString())).thenAnswer(inv -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                Object result = ((Supplier<?>) inv.getArgument(0)).get();
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+                return result;
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        when(cardRepository.findAllByIdInForUpdate(any())).thenReturn(List.of(sender, recipient, secondRecipient));
+        when(transferJdbcRepository.batchInsertTransfers(any())).thenAnswer(inv -> {
+            List<Transfer> transfers = inv.getArgument(0);
+            List<Long> ids = LongStream.rangeClosed(1, transfers.size()).boxed().toList();
+            for (int i = 0; i < transfers.size(); i++) {
+                transfers.get(i).setId(ids.get(i));
+            }
+            return ids;
+        });
+        when(fxRateService.toBaseCurrency(any(), any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void createTransfers_whenBatchExceedsPerMinuteLimit_shouldRejectItemsOverIt() {
+        // Чанки по два перевода: лимит учитывает и закоммиченные чанки, и переводы текущего
+        ReflectionTestUtils.setField(batchTransferService, "chunkSize", 2);
+        List<TransferRequest> requests = List.of(request(2L), request(2L), request(2L), request(2L), request(2L));
+
+        BatchTransferResponseDto response = batchTransferService.createTransfers(requests, "alice");
+
+        assertEquals(3, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        List<TransferStatus> statuses = response.getResults().stream().map(BatchTransferItemResultDto::getStatus).toList();
+        assertEquals(List.of(TransferStatus.SUCCESS, TransferStatus.SUCCESS, TransferStatus.SUCCESS,
+                TransferStatus.FAILED, TransferStatus.FAILED), statuses);
+        assertEquals("Transfer rejected by fraud screening: 4 transfers from the card within a minute",
+                response.getResults().get(3).getError());
+        assertEquals(new BigDecimal("970.00"), sender.getBalance());
+        assertEquals(new BigDecimal("30.00"), recipient.getBalance());
+        // Отклоненные переводы не расходуют лимит трат
+        verify(spendingLimitService, times(3)).tryRecordSpend(eq(sender), any());
+    }
+
+    @Test
+    void createTransfers_whenItemIsHeld_shouldSaveItOnHoldWithoutMovingMoney() {
+        ReflectionTestUtils.setField(transferRiskService, "maxDistinctRecipients", 1);
+
+        BatchTransferResponseDto response = batchTransferService.createTransfers(List.of(request(2L), request(3L)), "alice");
+
+        assertEquals(TransferStatus.SUCCESS, response.getResults().get(0).getStatus());
+        assertEquals(TransferStatus.ON_HOLD, response.getResults().get(1).getStatus());
+        assertEquals(1, response.getSucceeded());
+        assertEquals(0, response.getFailed());
+        assertEquals(new BigDecimal("990.00"), sender.getBalance());
+        assertEquals(new BigDecimal("0.00"), secondRecipient.getBalance());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transfer>> transfers = ArgumentCaptor.forClass(List.class);
+        verify(transferJdbcRepository).batchInsertTransfers(transfers.capture());
+        Transfer held = transfers.getValue().get(1);
+        assertEquals(TransferStatus.ON_HOLD, held.getStatus());
+        assertEquals("Transfers to 2 recipients within an hour", held.getHoldReason());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LedgerService.Movement>> movements = ArgumentCaptor.forClass(List.class);
+        verify(ledgerService).post(movements.capture());
+        assertEquals(1, movements.getValue().size());
+    }
+
+    @Test
+    void createTransfersAsAdmin_shouldNotScreen() {
+        List<TransferRequest> requests = List.of(request(2L), request(2L), request(2L), request(2L), request(2L));
+
+        BatchTransferResponseDto response = batchTransferService.createTransfersAsAdmin(requests);
+
+        assertEquals(5, response.getSucceeded());
+        verify(transferRiskService, never()).assess(anyLong(), anyLong(), anyLong(), any(BigDecimal.class));
+    }
+
+    @Test
+    void createTransfers_whenCardsAreIssuedInDifferentCountries_shouldChargeAndCollectFee() {
+        ReflectionTestUtils.setField(batchTransferService, "crossBorderFeePercent", new BigDecimal("1.0"));
+        sender.setIssuerCountry("BY");
+        recipient.setIssuerCountry("PL");
+        sender.setBalance(new BigDecimal("20.15"));
+        TransferRequest tooLarge = request(2L);
+        tooLarge.setAmount(new BigDecimal("10.10"));
+
+        BatchTransferResponseDto response = batchTransferService.createTransfers(List.of(request(2L), tooLarge), "alice");
+
+        // 10.00 + 0.10 списано; на 10.10 + 0.10 остатка 10.05 уже не хватает
+        assertEquals(TransferStatus.SUCCESS, response.getResults().get(0).getStatus());
+        assertEquals("Insufficient funds.", response.getResults().get(1).getError());
+        assertEquals(new BigDecimal("10.05"), sender.getBalance());
+        assertEquals(new BigDecimal("10.00"), recipient.getBalance());
+        assertEquals(new BigDecimal("989.90"), sender.getAccount().getBalance());
+        verify(serviceFeeService).collectTransferFee(sender.getAccount(), sender, new BigDecimal("0.10"), null,
+                FeeType.TRANSFER_FEE, 1L);
+    }
+
+    private static TransferRequest request(Long toCardId) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(toCardId);
+        request.setAmount(new BigDecimal("10.00"));
+        return request;
+    }
+
+    private static Card card(Long cardId, Long userId, String username, String balance) {
+        User user = new User(username, username + "@example.com", "password", Role.ROLE_USER);
+        user.setId(userId);
+        Account account = new Account();
+        account.setId(userId);
+        account.setUser(user);
+        account.setBalance(new BigDecimal(balance));
+        Card card = new Card();
+        card.setId(cardId);
+        card.setAccount(account);
+        card.setBalance(new BigDecimal(balance));
+        return card;
+    }
+}
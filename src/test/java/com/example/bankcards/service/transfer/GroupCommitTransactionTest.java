@@ -0,0 +1,261 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.limit.SpendingLimitExceededException;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.Transfer;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.Role;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.SpendCounterJdbcRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.service.card.CardLockManager;
+import com.example.bankcards.service.fraud.TransferRiskService;
+import com.example.bankcards.service.fraud.TransferRiskService.RiskDecision;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.idempotency.IdempotencyService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.limit.SpendingLimitService;
+import com.example.bankcards.service.outbox.OutboxService;
+import com.example.bankcards.service.transfer.GroupCommitTransferExecutor.PendingTransfer;
+import com.example.bankcards.util.mapper.TransferMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs {@link GroupCommitTransferExecutor} against {@link TransferService} and {@link SpendingLimitService} behind
+ * Spring's real transaction interceptor, so exceptions crossing their {@code @Transactional} boundaries have the same
+ * effect on the shared transaction as in the application. The transaction manager is an in-memory stand-in that,
+ * like a JDBC or JPA one, refuses to commit a transaction a participant marked rollback-only.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GroupCommitTransactionTest {
+
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransferRepository transferRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private TransferMapper transferMapper;
+    @Mock
+    private TransferRiskService transferRiskService;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private SpendCounterJdbcRepository spendCounterJdbcRepository;
+    @Mock
+    private CardLockManager cardLockManager;
+    @Mock
+    private AccountBalanceService accountBalanceService;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private SpendingAnalyticsService spendingAnalyticsService;
+    @Mock
+    private CardEncryptionService cardEncryptionService;
+    @Mock
+    private FxRateService fxRateService;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private TransferService transferServiceTarget;
+
+    private final InMemoryTransactionManager transactionManager = new InMemoryTransactionManager();
+    private GroupCommitTransferExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        Card alice = card(1L, 10L, "alice", "100.00");
+        Card aliceSavings = card(4L, 10L, "alice", "0.00");
+        aliceSavings.setAccount(alice.getAccount());
+        when(cardRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(alice));
+        when(cardRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(card(2L, 20L, "bob", "0.00")));
+        when(cardRepository.findByIdForUpdate(4L)).thenReturn(Optional.of(aliceSavings));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(transferMapper.toTransferResponseDto(any(Transfer.class))).thenAnswer(inv -> {
+            TransferResponseDto dto = new TransferResponseDto();
+            dto.setId(inv.<Transfer>getArgument(0).getToCard().getId());
+            return dto;
+        });
+        when(transferRiskService.assess(anyLong(), anyLong(), anyLong(), any())).thenReturn(RiskDecision.ALLOW);
+        when(spendCounterJdbcRepository.incrementWithinLimit(any(), any(), any(), any(), any())).thenReturn(true);
+        when(cardLockManager.withCardLocks(any(), any())).thenAnswer(inv -> ((Supplier<?>) inv.getArgument(1)).get());
+        when(fxRateService.toBaseCurrency(any(), any())).thenAnswer(inv -> inv.getArgument(0));
+
+        ReflectionTestUtils.setField(transferServiceTarget, "spendingLimitService",
+                transactional(new SpendingLimitService(spendCounterJdbcRepository, fxRateService)));
+        executor = new GroupCommitTransferExecutor(transactional(transferServiceTarget), idempotencyService,
+                cardLockManager, new TransactionTemplate(transactionManager), jdbcTemplate, entityManager,
+                new SimpleMeterRegistry(), false, 64, 2, 1);
+    }
+
+    @Test
+    void commitBatch_whenTransferFailsBusinessRule_shouldStillCommitTheOthers() {
+        List<PendingTransfer> batch = List.of(pending(2L, "10.00"), pending(2L, "1000.00"), pending(4L, "10.00"));
+
+        executor.commitBatch(batch);
+
+        assertEquals(1, transactionManager.commits);
+        assertEquals(0, transactionManager.rollbacks);
+        assertEquals(2L, batch.get(0).result().join().getId());
+        assertInstanceOf(InsufficientFundsException.class,
+                assertThrows(Exception.class, () -> batch.get(1).result().join()).getCause());
+        assertEquals(4L, batch.get(2).result().join().getId());
+    }
+
+    @Test
+    void commitBatch_whenSpendingLimitIsExceeded_shouldStillCommitTheOthers() {
+        when(spendCounterJdbcRepository.incrementWithinLimit(any(), any(), any(), any(), any())).thenReturn(false);
+        // Перевод на свою карту лимитом не ограничен
+        List<PendingTransfer> batch = List.of(pending(2L, "10.00"), pending(4L, "10.00"));
+
+        executor.commitBatch(batch);
+
+        assertEquals(1, transactionManager.commits);
+        assertInstanceOf(SpendingLimitExceededException.class,
+                assertThrows(Exception.class, () -> batch.get(0).result().join()).getCause());
+        assertEquals(4L, batch.get(1).result().join().getId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T transactional(T target) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new TransactionInterceptor((TransactionManager) transactionManager,
+                new AnnotationTransactionAttributeSource()));
+        return (T) factory.getProxy();
+    }
+
+    private static PendingTransfer pending(Long toCardId, String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(toCardId);
+        request.setAmount(new BigDecimal(amount));
+        return new PendingTransfer(request, toCardId, "alice", null, new CompletableFuture<>());
+    }
+
+    private static Card card(Long cardId, Long accountId, String username, String balance) {
+        User user = new User(username, username + "@example.com", "password", Role.ROLE_USER);
+        user.setId(accountId);
+        Account account = new Account();
+        account.setId(accountId);
+        account.setUser(user);
+        account.setBalance(new BigDecimal(balance));
+        Card card = new Card();
+        card.setId(cardId);
+        card.setAccount(account);
+        card.setBalance(new BigDecimal(balance));
+        return card;
+    }
+
+    /**
+     * A transaction manager without a resource: one transaction per thread, with the same participation
+     * and rollback-only rules as the JDBC and JPA transaction managers.
+     */
+    private static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+        private final ThreadLocal<InMemoryTransaction> current = new ThreadLocal<>();
+        private int commits;
+        private int rollbacks;
+
+        @Override
+        protected Object doGetTransaction() {
+            InMemoryTransaction transaction = current.get();
+            return transaction != null ? transaction : new InMemoryTransaction();
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return current.get() == transaction;
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            current.set((InMemoryTransaction) transaction);
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+
+        @Override
+        protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+            ((InMemoryTransaction) status.getTransaction()).rollbackOnly = true;
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            current.remove();
+        }
+    }
+
+    private static class InMemoryTransaction implements SmartTransactionObject {
+
+        private boolean rollbackOnly;
+
+        @Override
+        public boolean isRollbackOnly() {
+            return rollbackOnly;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
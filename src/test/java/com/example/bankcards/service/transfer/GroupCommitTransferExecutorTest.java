@@ -0,0 +1,214 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.service.card.CardLockManager;
+import com.example.bankcards.service.idempotency.IdempotencyService;
+import com.example.bankcards.service.transfer.GroupCommitTransferExecutor.PendingTransfer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GroupCommitTransferExecutorTest {
+
+    @Mock
+    private TransferService transferService;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private CardLockManager cardLockManager;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private EntityManager entityManager;
+
+    private final AtomicInteger commits = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(cardLockManager.withCardLocks(any(), any())).thenAnswer(inv -> ((Supplier<?>) inv.getArgument(1)).get());
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> {
+            Object result = ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null);
+            commits.incrementAndGet();
+            return result;
+        });
+        when(transferService.applyTransfer(any(), any(), anyString(), isNull())).thenAnswer(inv -> response(inv.getArgument(1)));
+    }
+
+    @Test
+    void commitBatch_whenOneTransferIsRejected_shouldRollBackOnlyItsSavepoint() {
+        when(transferService.applyTransfer(any(), eq(3L), anyString(), isNull()))
+                .thenThrow(new InsufficientFundsException("Insufficient funds."));
+        List<PendingTransfer> batch = List.of(pending(2L), pending(3L), pending(4L));
+
+        executor(false).commitBatch(batch);
+
+        assertEquals(1, commits.get());
+        assertEquals(2L, batch.get(0).result().join().getId());
+        assertInstanceOf(InsufficientFundsException.class,
+                assertThrows(Exception.class, () -> batch.get(1).result().join()).getCause());
+        assertEquals(4L, batch.get(2).result().join().getId());
+        InOrder inOrder = inOrder(jdbcTemplate, entityManager);
+        inOrder.verify(jdbcTemplate).execute("SAVEPOINT group_commit_item");
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(jdbcTemplate).execute("RELEASE SAVEPOINT group_commit_item");
+        inOrder.verify(jdbcTemplate).execute("SAVEPOINT group_commit_item");
+        inOrder.verify(jdbcTemplate).execute("ROLLBACK TO SAVEPOINT group_commit_item");
+        inOrder.verify(entityManager).clear();
+    }
+
+    @Test
+    void commitBatch_whenDatabaseFails_shouldSendEveryTransferToTheSingleTransferPath() {
+        when(transferService.applyTransfer(any(), eq(3L), anyString(), isNull()))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"));
+        List<PendingTransfer> batch = List.of(pending(2L), pending(3L), pending(4L));
+
+        executor(false).commitBatch(batch);
+
+        // null — сигнал отправителю выполнить перевод отдельно
+        batch.forEach(item -> assertNull(item.result().join()));
+        verify(transferService, never()).applyTransfer(any(), eq(4L), anyString(), any());
+    }
+
+    @Test
+    void submit_shouldAcknowledgeConcurrentTransfersAfterSharedCommits() throws Exception {
+        when(transferService.resolveToCardId(any())).thenAnswer(inv -> inv.<TransferRequest>getArgument(0).getToCardId());
+        GroupCommitTransferExecutor executor = executor(true, 64, 50, 1);
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        try {
+            List<CompletableFuture<TransferResponseDto>> results = new ArrayList<>();
+            for (long i = 0; i < 16; i++) {
+                TransferRequest request = request(i + 100);
+                results.add(CompletableFuture.supplyAsync(() -> executor.submit(request, "alice", null), clients));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i + 100L, results.get(i).get(5, TimeUnit.SECONDS).getId());
+            }
+            assertTrue(commits.get() < 16, "expected shared commits, got " + commits.get());
+            verify(transferService, never()).createTransfer(any(), any(), any());
+        } finally {
+            clients.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Compares transfers per second with one commit per transfer and with group commit, using a simulated
+     * {@code COMMIT_MS} WAL flush and a connection pool of {@code POOL_SIZE}.
+     * Run with {@code mvn test -Dtest=GroupCommitTransferExecutorTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_groupCommitThroughput() throws Exception {
+        final long COMMIT_MS = 5;
+        final int POOL_SIZE = 10;
+        final int CLIENTS = 64;
+        final int TRANSFERS = 4000;
+
+        // Базовый вариант: каждый перевод занимает соединение и платит за свой commit
+        Semaphore pool = new Semaphore(POOL_SIZE);
+        when(transferService.createTransfer(any(), anyString(), isNull())).thenAnswer(inv -> {
+            pool.acquire();
+            try {
+                Thread.sleep(COMMIT_MS);
+                return response(1L);
+            } finally {
+                pool.release();
+            }
+        });
+        double single = throughput(CLIENTS, TRANSFERS, request -> transferService.createTransfer(request, "alice", null));
+
+        doAnswer(inv -> {
+            Object result = ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null);
+            Thread.sleep(COMMIT_MS);
+            return result;
+        }).when(transactionTemplate).execute(any());
+        when(transferService.resolveToCardId(any())).thenReturn(2L);
+        GroupCommitTransferExecutor executor = executor(true, 64, 2, 2);
+        double grouped;
+        try {
+            grouped = throughput(CLIENTS, TRANSFERS, request -> executor.submit(request, "alice", null));
+        } finally {
+            executor.shutdown();
+        }
+
+        System.out.printf("Transfers/s: one commit per transfer %.0f, group commit %.0f (x%.1f)%n",
+                single, grouped, grouped / single);
+        assertTrue(grouped > single);
+    }
+
+    private double throughput(int clients, int transfers, Function<TransferRequest, TransferResponseDto> call)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        for (int i = 0; i < transfers; i++) {
+            pool.execute(() -> call.apply(request(2L)));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+        return transfers / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private GroupCommitTransferExecutor executor(boolean enabled) {
+        return executor(enabled, 64, 2, 1);
+    }
+
+    private GroupCommitTransferExecutor executor(boolean enabled, int maxBatchSize, long lingerMs, int committers) {
+        return new GroupCommitTransferExecutor(transferService, idempotencyService, cardLockManager, transactionTemplate,
+                jdbcTemplate, entityManager, new SimpleMeterRegistry(), enabled, maxBatchSize, lingerMs, committers);
+    }
+
+    private static PendingTransfer pending(Long toCardId) {
+        return new PendingTransfer(request(toCardId), toCardId, "alice", null, new CompletableFuture<>());
+    }
+
+    private static TransferRequest request(Long toCardId) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(toCardId);
+        request.setAmount(BigDecimal.TEN);
+        return request;
+    }
+
+    private static TransferResponseDto response(Long id) {
+        TransferResponseDto dto = new TransferResponseDto();
+        dto.setId(id);
+        return dto;
+    }
+}
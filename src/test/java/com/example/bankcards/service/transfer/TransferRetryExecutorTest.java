@@ -0,0 +1,69 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.transfer.TransferConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferRetryExecutorTest {
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TransferRetryExecutor transferRetryExecutor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transferRetryExecutor, "maxAttempts", 3);
+        ReflectionTestUtils.setField(transferRetryExecutor, "backoffMs", 0L);
+    }
+
+    @Test
+    void executeInTransaction_whenDeadlockedOnce_shouldRetryAndSucceed() {
+        AtomicInteger calls = new AtomicInteger();
+        doThrow(new CannotAcquireLockException("deadlock detected"))
+                .doAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+
+        String result = transferRetryExecutor.executeInTransaction(() -> "done-" + calls.incrementAndGet(), "test");
+
+        assertEquals("done-1", result);
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void executeInTransaction_whenDeadlocksPersist_shouldThrowTransferConflictException() {
+        doThrow(new CannotAcquireLockException("deadlock detected")).when(transactionTemplate).execute(any());
+
+        assertThrows(TransferConflictException.class,
+                () -> transferRetryExecutor.executeInTransaction(() -> "never", "test"));
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    void executeInTransaction_whenBusinessRuleFails_shouldNotRetry() {
+        doAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+
+        assertThrows(InsufficientFundsException.class, () -> transferRetryExecutor.executeInTransaction(() -> {
+            throw new InsufficientFundsException("Insufficient funds.");
+        }, "test"));
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.transfer.TransferNotReversibleException;
+import com.example.bankcards.model.dto.outbox.TransferReversedEvent;
+import com.example.bankcards.model.dto.transfer.BatchTransferResponseDto;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.Transfer;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.OutboxEventType;
+import com.example.bankcards.model.entity.enums.Role;
+import com.example.bankcards.model.entity.enums.TransactionType;
+import com.example.bankcards.model.entity.enums.TransferStatus;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.service.fee.ServiceFeeService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.limit.SpendingLimitService;
+import com.example.bankcards.service.outbox.OutboxService;
+import com.example.bankcards.util.mapper.TransferMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TransferReversalServiceTest {
+
+    @Mock
+    private TransferRepository transferRepository;
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransferJdbcRepository transferJdbcRepository;
+    @Mock
+    private TransferRetryExecutor transferRetryExecutor;
+    @Mock
+    private AccountBalanceService accountBalanceService;
+    @Mock
+    private SpendingLimitService spendingLimitService;
+    @Mock
+    private SpendingAnalyticsService spendingAnalyticsService;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private TransferMapper transferMapper;
+    @Mock
+    private CardEncryptionService cardEncryptionService;
+    @Mock
+    private ServiceFeeService serviceFeeService;
+    @Mock
+    private OutboxService outboxService;
+
+    @InjectMocks
+    private TransferReversalService transferReversalService;
+
+    private Card sender;
+    private Card recipient;
+    private Transfer transfer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transferReversalService, "maxBatchSize", 5000);
+        ReflectionTestUtils.setField(transferReversalService, "chunkSize", 100);
+        sender = card(1L, 10L, "alice", "90.00");
+        recipient = card(2L, 20L, "bob", "60.00");
+        transfer = new Transfer(sender, recipient, new BigDecimal("10.00"), null, null, null, null, LocalDateTime.now(), TransferStatus.SUCCESS, null, null, null, null, null);
+        transfer.setId(100L);
+
+        when(transferRetryExecutor.executeInTransaction(any(), anyString())).thenAnswer(inv ->
+                ((Supplier<?>) inv.getArgument(0)).get());
+        when(transferRepository.findCardIdsByIdIn(any())).thenReturn(List.of(cardsView(1L, 2L)));
+        when(transferRepository.findAllByIdInForUpdate(any())).thenReturn(List.of(transfer));
+        when(cardRepository.findAllByIdInForUpdate(any())).thenReturn(List.of(sender, recipient));
+        when(transferMapper.toTransferResponseDto(any(Transfer.class))).thenReturn(new TransferResponseDto());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reverse_shouldMoveAmountBackAndPostLinkedCompensatingTransactions() {
+        transferReversalService.reverse(100L, "fraud", "admin");
+
+        assertEquals(new BigDecimal("100.00"), sender.getBalance());
+        assertEquals(new BigDecimal("50.00"), recipient.getBalance());
+        assertEquals(new BigDecimal("100.00"), sender.getAccount().getBalance());
+        assertEquals(new BigDecimal("50.00"), recipient.getAccount().getBalance());
+        assertEquals(TransferStatus.REVERSED, transfer.getStatus());
+        assertEquals("admin", transfer.getReversedBy());
+        assertEquals("fraud", transfer.getReversalReason());
+        verify(accountBalanceService).foldBuckets(recipient.getAccount());
+        verify(spendingLimitService).releaseSpend(sender, new BigDecimal("10.00"), transfer.getTransferDate().toLocalDate());
+
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transferJdbcRepository).batchInsertTransactions(captor.capture());
+        assertEquals(List.of(TransactionType.REVERSAL_OUT, TransactionType.REVERSAL_IN),
+                captor.getValue().stream().map(Transaction::getType).toList());
+        assertTrue(captor.getValue().stream().allMatch(t -> t.getTransferId().equals(100L)));
+
+        // Уведомления и аудит уходят через outbox, а не пишутся в транзакции отмены
+        ArgumentCaptor<TransferReversedEvent> event = ArgumentCaptor.forClass(TransferReversedEvent.class);
+        verify(outboxService).publish(eq(OutboxEventType.TRANSFER_REVERSED), eq(100L), event.capture());
+        assertEquals(new BigDecimal("10.00"), event.getValue().getRefundedAmount());
+        assertEquals("admin", event.getValue().getReversedBy());
+        verify(transferJdbcRepository, never()).batchInsertNotifications(any());
+    }
+
+    @Test
+    void reverse_withFee_shouldReturnFeeToSenderCardAndAccount() {
+        transfer.setFeeAmount(new BigDecimal("0.15"));
+        transfer.setFeeCollectedAmount(new BigDecimal("0.05"));
+
+        transferReversalService.reverse(100L, null, "admin");
+
+        assertEquals(new BigDecimal("100.15"), sender.getBalance());
+        assertEquals(new BigDecimal("100.15"), sender.getAccount().getBalance());
+        verify(serviceFeeService).refundTransferFee(sender.getAccount(), sender, new BigDecimal("0.15"),
+                new BigDecimal("0.05"), 100L);
+    }
+
+    @Test
+    void reverse_whenAlreadyReversed_shouldThrowAndKeepBalances() {
+        transfer.setStatus(TransferStatus.REVERSED);
+
+        assertThrows(TransferNotReversibleException.class, () -> transferReversalService.reverse(100L, null, "admin"));
+        assertEquals(new BigDecimal("90.00"), sender.getBalance());
+        verifyNoInteractions(transferJdbcRepository);
+    }
+
+    @Test
+    void reverse_whenRecipientSpentTheMoney_shouldThrowInsufficientFunds() {
+        recipient.setBalance(new BigDecimal("5.00"));
+
+        assertThrows(InsufficientFundsException.class, () -> transferReversalService.reverse(100L, null, "admin"));
+        assertEquals(TransferStatus.SUCCESS, transfer.getStatus());
+    }
+
+    @Test
+    void reverseAll_shouldReportPerItemResultsInRequestOrder() {
+        BatchTransferResponseDto result = transferReversalService.reverseAll(List.of(100L, 999L, 100L), "incident", "admin");
+
+        assertEquals(3, result.getTotal());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(TransferStatus.REVERSED, result.getResults().get(0).getStatus());
+        assertEquals(TransferStatus.FAILED, result.getResults().get(1).getStatus());
+        assertEquals("Transfer not found with ID: 999", result.getResults().get(1).getError());
+        assertEquals("Duplicate transfer ID in request", result.getResults().get(2).getError());
+        verify(transferRepository).findAllByIdInForUpdate(List.of(100L, 999L));
+    }
+
+    @Test
+    void reverse_shouldLockCardsAndAccountsBeforeTransferRow() {
+        transferReversalService.reverse(100L, null, "admin");
+
+        // Тот же порядок, что у перевода: иначе встречные перевод и отмена могут взаимно заблокироваться
+        InOrder inOrder = inOrder(cardRepository, accountRepository, transferRepository);
+        inOrder.verify(cardRepository).findAllByIdInForUpdate(any());
+        inOrder.verify(accountRepository).findAllByIdInForUpdate(any());
+        inOrder.verify(transferRepository).findAllByIdInForUpdate(List.of(100L));
+    }
+
+    private static TransferRepository.TransferCardsView cardsView(Long fromCardId, Long toCardId) {
+        return new TransferRepository.TransferCardsView() {
+            @Override
+            public Long getFromCardId() {
+                return fromCardId;
+            }
+
+            @Override
+            public Long getToCardId() {
+                return toCardId;
+            }
+        };
+    }
+
+    private static Card card(Long cardId, Long userId, String username, String balance) {
+        User user = new User(username, username + "@example.com", "password", Role.ROLE_USER);
+        user.setId(userId);
+        Account account = new Account();
+        account.setId(userId);
+        account.setUser(user);
+        account.setBalance(new BigDecimal(balance));
+        Card card = new Card();
+        card.setId(cardId);
+        card.setAccount(account);
+        card.setBalance(new BigDecimal(balance));
+        return card;
+    }
+}
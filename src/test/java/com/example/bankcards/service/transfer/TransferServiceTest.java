@@ -0,0 +1,488 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.fraud.TransferRejectedException;
+import com.example.bankcards.exception.limit.SpendingLimitExceededException;
+import com.example.bankcards.exception.transfer.InvalidTransferException;
+import com.example.bankcards.model.dto.outbox.TransferCompletedEvent;
+import com.example.bankcards.model.dto.transfer.TransferPageResponseDto;
+import com.example.bankcards.model.dto.transfer.TransferRequest;
+import com.example.bankcards.model.dto.transfer.TransferResponseDto;
+import com.example.bankcards.model.entity.Account;
+import com.example.bankcards.model.entity.Card;
+import com.example.bankcards.model.entity.Transaction;
+import com.example.bankcards.model.entity.Transfer;
+import com.example.bankcards.model.entity.User;
+import com.example.bankcards.model.entity.enums.CardBrand;
+import com.example.bankcards.model.entity.enums.CardType;
+import com.example.bankcards.model.entity.enums.Currency;
+import com.example.bankcards.model.entity.enums.FeeType;
+import com.example.bankcards.model.entity.enums.LedgerBook;
+import com.example.bankcards.model.entity.enums.MovementType;
+import com.example.bankcards.model.entity.enums.OutboxEventType;
+import com.example.bankcards.model.entity.enums.Role;
+import com.example.bankcards.model.entity.enums.TransferStatus;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.TransferJdbcRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.service.account.AccountBalanceService;
+import com.example.bankcards.service.analytics.SpendingAnalyticsService;
+import com.example.bankcards.service.card.BinLookupService;
+import com.example.bankcards.service.card.CardEncryptionService;
+import com.example.bankcards.service.card.CardLockManager;
+import com.example.bankcards.service.card.CardTokenService;
+import com.example.bankcards.service.fee.ServiceFeeService;
+import com.example.bankcards.service.fraud.TransferRiskService;
+import com.example.bankcards.service.fraud.TransferRiskService.Action;
+import com.example.bankcards.service.fraud.TransferRiskService.RiskDecision;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.fx.FxRateService.Conversion;
+import com.example.bankcards.service.idempotency.IdempotencyService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.ledger.LedgerService.Leg;
+import com.example.bankcards.service.ledger.LedgerService.Movement;
+import com.example.bankcards.service.limit.SpendingLimitService;
+import com.example.bankcards.service.outbox.OutboxService;
+import com.example.bankcards.util.BinTable.BinInfo;
+import com.example.bankcards.util.CardNumber;
+import com.example.bankcards.util.KeysetCursor;
+import com.example.bankcards.util.mapper.TransferMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TransferServiceTest {
+
+    @Mock
+    private CardEncryptionService cardEncryptionService;
+    @Mock
+    private CardTokenService cardTokenService;
+    @Mock
+    private TransferRepository transferRepository;
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private TransferMapper transferMapper;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransferRetryExecutor transferRetryExecutor;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private CardLockManager cardLockManager;
+    @Mock
+    private AccountBalanceService accountBalanceService;
+    @Mock
+    private TransferJdbcRepository transferJdbcRepository;
+    @Mock
+    private SpendingLimitService spendingLimitService;
+    @Mock
+    private SpendingAnalyticsService spendingAnalyticsService;
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private TransferRiskService transferRiskService;
+    @Mock
+    private FxRateService fxRateService;
+    @Mock
+    private BinLookupService binLookupService;
+    @Mock
+    private ServiceFeeService serviceFeeService;
+
+    @InjectMocks
+    private TransferService transferService;
+
+    private Card lowIdCard;
+    private Card highIdCard;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transferService, "maxHistoryPageSize", 200);
+        lowIdCard = card(1L, 10L, "alice", "100.00");
+        highIdCard = card(2L, 20L, "bob", "50.00");
+
+        when(transferRetryExecutor.executeInTransaction(any(), anyString())).thenAnswer(inv ->
+                ((Supplier<?>) inv.getArgument(0)).get());
+        when(cardLockManager.withCardLocks(any(), any())).thenAnswer(inv ->
+                ((Supplier<?>) inv.getArgument(1)).get());
+        when(cardRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(lowIdCard));
+        when(cardRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(highIdCard));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(transferMapper.toTransferResponseDto(any(Transfer.class))).thenReturn(new TransferResponseDto());
+        when(transferRiskService.assess(anyLong(), anyLong(), anyLong(), any())).thenReturn(RiskDecision.ALLOW);
+        when(fxRateService.toBaseCurrency(any(), any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void createTransfer_shouldLockRowsInAscendingIdOrderRegardlessOfDirection() {
+        transferService.createTransfer(request(2L, 1L, "10.00"), "bob");
+
+        InOrder inOrder = inOrder(cardRepository, accountRepository);
+        inOrder.verify(cardRepository).findByIdForUpdate(1L);
+        inOrder.verify(cardRepository).findByIdForUpdate(2L);
+        inOrder.verify(accountRepository).findByIdForUpdate(10L);
+        inOrder.verify(accountRepository).findByIdForUpdate(20L);
+        assertEquals(new BigDecimal("40.00"), highIdCard.getBalance());
+        assertEquals(new BigDecimal("110.00"), lowIdCard.getBalance());
+        assertEquals(new BigDecimal("110.00"), lowIdCard.getAccount().getBalance());
+        verify(outboxService).publish(eq(OutboxEventType.TRANSFER_COMPLETED), any(), any(TransferCompletedEvent.class));
+        verify(ledgerService).post(List.of(new Movement(MovementType.TRANSFER, new Leg(LedgerBook.CUSTOMER, 20L, 2L),
+                new Leg(LedgerBook.CUSTOMER, 10L, 1L), new BigDecimal("10.00"), null)));
+    }
+
+    @Test
+    void createTransfer_toBucketedAccount_shouldCreditBucketWithoutLockingIt() {
+        when(accountRepository.findBucketedById(20L)).thenReturn(Optional.of(true));
+
+        transferService.createTransfer(request(1L, 2L, "10.00"), "alice");
+
+        verify(accountRepository).findByIdForUpdate(10L);
+        verify(accountRepository, never()).findByIdForUpdate(20L);
+        verify(accountBalanceService).creditBucket(20L, new BigDecimal("10.00"));
+        assertEquals(new BigDecimal("50.00"), highIdCard.getAccount().getBalance());
+        assertEquals(new BigDecimal("90.00"), lowIdCard.getAccount().getBalance());
+    }
+
+    @Test
+    void createTransfer_whenInsufficientFunds_shouldThrowAndKeepBalances() {
+        assertThrows(InsufficientFundsException.class,
+                () -> transferService.createTransfer(request(1L, 2L, "1000.00"), "alice"));
+        assertEquals(new BigDecimal("100.00"), lowIdCard.getBalance());
+        verify(transferRepository, never()).save(any());
+    }
+
+    @Test
+    void createTransfer_whenSpendingLimitExceeded_shouldThrowAndKeepBalances() {
+        when(spendingLimitService.tryRecordSpend(lowIdCard, new BigDecimal("10.00")))
+                .thenReturn("Monthly spending limit exceeded.");
+
+        assertThrows(SpendingLimitExceededException.class,
+                () -> transferService.createTransfer(request(1L, 2L, "10.00"), "alice"));
+        assertEquals(new BigDecimal("100.00"), lowIdCard.getBalance());
+        verify(transferRepository, never()).save(any());
+        // Отклоненный лимитом перевод не попадает в скоринг
+        verify(transferRiskService, never()).record(anyLong(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void completePendingTransfer_shouldApplyPendingRowInPlace() {
+        Transfer pending = transfer(7L);
+        pending.setStatus(TransferStatus.PENDING);
+        when(transferRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(pending));
+
+        transferService.completePendingTransfer(7L, request(1L, 2L, "10.00"), 2L, "alice");
+
+        assertEquals(TransferStatus.SUCCESS, pending.getStatus());
+        verify(transferRepository).save(pending);
+        assertEquals(new BigDecimal("90.00"), lowIdCard.getBalance());
+    }
+
+    @Test
+    void completePendingTransfer_shouldLockTransferRowAfterCardsAndAccounts() {
+        Transfer pending = transfer(7L);
+        pending.setStatus(TransferStatus.PENDING);
+        when(transferRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(pending));
+
+        transferService.completePendingTransfer(7L, request(1L, 2L, "10.00"), 2L, "alice");
+
+        InOrder inOrder = inOrder(cardRepository, accountRepository, transferRepository);
+        inOrder.verify(cardRepository).findByIdForUpdate(1L);
+        inOrder.verify(cardRepository).findByIdForUpdate(2L);
+        inOrder.verify(accountRepository).findByIdForUpdate(20L);
+        inOrder.verify(transferRepository).findByIdForUpdate(7L);
+    }
+
+    @Test
+    void releaseHeldTransfer_shouldLockTransferRowAfterCardsAndAccounts() {
+        Transfer held = transfer(7L);
+        held.setFromCard(lowIdCard);
+        held.setToCard(highIdCard);
+        held.setAmount(new BigDecimal("10.00"));
+        held.setStatus(TransferStatus.ON_HOLD);
+        when(transferRepository.findById(7L)).thenReturn(Optional.of(held));
+        when(transferRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(held));
+
+        transferService.releaseHeldTransfer(7L);
+
+        InOrder inOrder = inOrder(cardRepository, accountRepository, transferRepository);
+        inOrder.verify(cardRepository).findByIdForUpdate(1L);
+        inOrder.verify(cardRepository).findByIdForUpdate(2L);
+        inOrder.verify(accountRepository).findByIdForUpdate(20L);
+        inOrder.verify(transferRepository).findByIdForUpdate(7L);
+        assertEquals(TransferStatus.SUCCESS, held.getStatus());
+        assertEquals(new BigDecimal("90.00"), lowIdCard.getBalance());
+    }
+
+    @Test
+    void completePendingTransfer_whenExecutionFails_shouldMarkTransferFailedWithReason() {
+        Transfer pending = transfer(7L);
+        pending.setStatus(TransferStatus.PENDING);
+        when(transferRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(pending));
+
+        transferService.completePendingTransfer(7L, request(1L, 2L, "1000.00"), 2L, "alice");
+
+        assertEquals(TransferStatus.FAILED, pending.getStatus());
+        assertEquals("Insufficient funds.", pending.getFailureReason());
+        assertEquals(new BigDecimal("100.00"), lowIdCard.getBalance());
+    }
+
+    @Test
+    void createTransfer_whenHeldByFraudScreening_shouldSaveTransferOnHoldWithoutMovingMoney() {
+        when(transferRiskService.assess(1L, 2L, 10L, new BigDecimal("10.00")))
+                .thenReturn(RiskDecision.hold("Transfers to 21 recipients within an hour"));
+        ArgumentCaptor<Transfer> saved = ArgumentCaptor.forClass(Transfer.class);
+
+        transferService.createTransfer(request(1L, 2L, "10.00"), "alice");
+
+        verify(transferRepository).save(saved.capture());
+        assertEquals(TransferStatus.ON_HOLD, saved.getValue().getStatus());
+        assertEquals("Transfers to 21 recipients within an hour", saved.getValue().getHoldReason());
+        assertEquals(new BigDecimal("100.00"), lowIdCard.getBalance());
+        verifyNoInteractions(spendingLimitService, ledgerService, outboxService);
+        verify(transferRiskService).record(eq(1L), eq(2L), eq(10L), eq(new BigDecimal("10.00")),
+                argThat(decision -> decision.action() == Action.HOLD));
+    }
+
+    @Test
+    void createTransfer_whenRejectedByFraudScreening_shouldThrowAndKeepBalances() {
+        when(transferRiskService.assess(1L, 2L, 10L, new BigDecimal("10.00")))
+                .thenReturn(RiskDecision.reject("11 transfers from the card within a minute"));
+
+        assertThrows(TransferRejectedException.class,
+                () -> transferService.createTransfer(request(1L, 2L, "10.00"), "alice"));
+        assertEquals(new BigDecimal("100.00"), lowIdCard.getBalance());
+        verify(transferRepository, never()).save(any());
+        verify(transferRiskService, never()).record(anyLong(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void createTransfer_fromForeignCurrencyCard_shouldScoreBynEquivalent() {
+        lowIdCard.setCurrency(Currency.USD);
+        highIdCard.setCurrency(Currency.USD);
+        when(fxRateService.toBaseCurrency(new BigDecimal("10.00"), Currency.USD)).thenReturn(new BigDecimal("32.72"));
+
+        transferService.createTransfer(request(1L, 2L, "10.00"), "alice");
+
+        verify(transferRiskService).assess(1L, 2L, 10L, new BigDecimal("32.72"));
+        verify(transferRiskService).record(1L, 2L, 10L, new BigDecimal("32.72"), RiskDecision.ALLOW);
+    }
+
+    @Test
+    void createTransfer_betweenCurrencies_shouldCreditConvertedAmountThroughFxPosition() {
+        lowIdCard.setCurrency(Currency.USD);
+        when(fxRateService.convert(new BigDecimal("10.00"), Currency.USD, Currency.BYN))
+                .thenReturn(new Conversion(new BigDecimal("32.72"), new BigDecimal("3.27180000")));
+        ArgumentCaptor<Transfer> saved = ArgumentCaptor.forClass(Transfer.class);
+
+        transferService.createTransfer(request(1L, 2L, "10.00"), "alice");
+
+        assertEquals(new BigDecimal("90.00"), lowIdCard.getBalance());
+        assertEquals(new BigDecimal("82.72"), highIdCard.getBalance());
+        assertEquals(new BigDecimal("82.72"), highIdCard.getAccount().getBalance());
+        verify(transferRepository).save(saved.capture());
+        assertEquals(new BigDecimal("10.00"), saved.getValue().getAmount());
+        assertEquals(new BigDecimal("32.72"), saved.getValue().getCreditedAmount());
+        assertEquals(new BigDecimal("3.27180000"), saved.getValue().getExchangeRate());
+        Leg position = Leg.book(LedgerBook.FX_POSITION);
+        verify(ledgerService).post(List.of(
+                new Movement(MovementType.TRANSFER, new Leg(LedgerBook.CUSTOMER, 10L, 1L), position, new BigDecimal("10.00"), null),
+                new Movement(MovementType.TRANSFER, position, new Leg(LedgerBook.CUSTOMER, 20L, 2L), new BigDecimal("32.72"), null)));
+    }
+
+    @Test
+    void createTransfer_betweenOwnCards_shouldNotCountAgainstSpendingLimitsOrAnalytics() {
+        highIdCard.getAccount().setUser(lowIdCard.getAccount().getUser());
+
+        transferService.createTransfer(request(1L, 2L, "10.00"), "alice");
+
+        verifyNoInteractions(spendingLimitService, spendingAnalyticsService, transferRiskService);
+    }
+
+    @Test
+    void createTransfer_whenIdempotencyKeyReplayed_shouldReturnStoredResponseWithoutLocking() {
+        TransferResponseDto stored = new TransferResponseDto();
+        stored.setId(42L);
+        when(idempotencyService.fingerprint(any())).thenReturn("hash");
+        when(idempotencyService.findStoredResponse("alice", "key-1", "hash")).thenReturn(Optional.of(stored));
+
+        TransferResponseDto result = transferService.createTransfer(request(1L, 2L, "10.00"), "alice", "key-1");
+
+        assertSame(stored, result);
+        verifyNoInteractions(cardRepository, cardLockManager, transferRetryExecutor);
+    }
+
+    @Test
+    void createTransfer_withNewIdempotencyKey_shouldStoreResponse() {
+        when(idempotencyService.fingerprint(any())).thenReturn("hash");
+        when(idempotencyService.findStoredResponse("alice", "key-1", "hash")).thenReturn(Optional.empty());
+
+        TransferResponseDto result = transferService.createTransfer(request(1L, 2L, "10.00"), "alice", "key-1");
+
+        verify(idempotencyService).store("alice", "key-1", "hash", result);
+        assertEquals(new BigDecimal("90.00"), lowIdCard.getBalance());
+    }
+
+    @Test
+    void createTransfer_toSameCard_shouldThrowBeforeLocking() {
+        assertThrows(InvalidTransferException.class,
+                () -> transferService.createTransfer(request(1L, 1L, "10.00"), "alice"));
+        verify(cardRepository, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void createTransfer_toCardToken_shouldResolveDestinationWithoutHashingCardNumber() {
+        TransferRequest request = request(1L, null, "10.00");
+        request.setToCardToken("tok_bob");
+        when(cardTokenService.resolveCardId("tok_bob")).thenReturn(Optional.of(2L));
+
+        transferService.createTransfer(request, "alice");
+
+        assertEquals(new BigDecimal("60.00"), highIdCard.getBalance());
+        verify(cardEncryptionService, never()).hashCardNumber(anyString());
+        verify(cardEncryptionService, never()).hashCardNumber(any(CardNumber.class));
+    }
+
+    @Test
+    void createTransfer_toUnknownCardToken_shouldThrowCardNotFound() {
+        TransferRequest request = request(1L, null, "10.00");
+        request.setToCardToken("tok_unknown");
+        when(cardTokenService.resolveCardId("tok_unknown")).thenReturn(Optional.empty());
+
+        assertThrows(CardNotFoundException.class, () -> transferService.createTransfer(request, "alice"));
+        verify(cardRepository, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void createTransfer_toNumberOfAnotherBank_shouldRejectRouteInsteadOfCardNotFound() {
+        TransferRequest request = request(1L, null, "10.00");
+        request.setToCardNumber("4012 8888 8888 1881");
+        BinInfo bin = new BinInfo(CardBrand.VISA, CardType.CREDIT, "Sample Bank UK", "GB");
+        when(cardRepository.findIdByCardNumberHash(any())).thenReturn(Optional.empty());
+        when(binLookupService.lookup(CardNumber.parse("4012888888881881"))).thenReturn(bin);
+        when(binLookupService.isOnUs(bin)).thenReturn(false);
+
+        InvalidTransferException e = assertThrows(InvalidTransferException.class,
+                () -> transferService.createTransfer(request, "alice"));
+        assertTrue(e.getMessage().contains("Sample Bank UK"));
+        verify(cardRepository, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void createTransfer_betweenCardsIssuedInDifferentCountries_shouldChargeCrossBorderFee() {
+        ReflectionTestUtils.setField(transferService, "crossBorderFeePercent", new BigDecimal("1.5"));
+        lowIdCard.setIssuerCountry("BY");
+        highIdCard.setIssuerCountry("DE");
+
+        when(serviceFeeService.convertToCollectionCurrency(new BigDecimal("0.15"), Currency.BYN)).thenReturn(null);
+        ArgumentCaptor<Transfer> saved = ArgumentCaptor.forClass(Transfer.class);
+
+        transferService.createTransfer(request(1L, 2L, "10.00"), "alice");
+
+        assertEquals(new BigDecimal("89.85"), lowIdCard.getBalance());
+        assertEquals(new BigDecimal("89.85"), lowIdCard.getAccount().getBalance());
+        assertEquals(new BigDecimal("60.00"), highIdCard.getBalance());
+        verify(transferRepository).save(saved.capture());
+        assertEquals(new BigDecimal("0.15"), saved.getValue().getFeeAmount());
+        verify(serviceFeeService).collectTransferFee(lowIdCard.getAccount(), lowIdCard, new BigDecimal("0.15"), null,
+                FeeType.TRANSFER_FEE, null);
+    }
+
+    @Test
+    void createTransfer_whenBalanceCoversAmountButNotCrossBorderFee_shouldThrowInsufficientFunds() {
+        ReflectionTestUtils.setField(transferService, "crossBorderFeePercent", new BigDecimal("1.5"));
+        lowIdCard.setIssuerCountry("BY");
+        highIdCard.setIssuerCountry("DE");
+
+        assertThrows(InsufficientFundsException.class,
+                () -> transferService.createTransfer(request(1L, 2L, "100.00"), "alice"));
+        assertEquals(new BigDecimal("100.00"), lowIdCard.getBalance());
+        verify(serviceFeeService, never()).collectTransferFee(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void createTransfer_betweenCardsIssuedInSameCountry_shouldNotChargeFee() {
+        ReflectionTestUtils.setField(transferService, "crossBorderFeePercent", new BigDecimal("1.5"));
+        lowIdCard.setIssuerCountry("BY");
+        highIdCard.setIssuerCountry("BY");
+
+        transferService.createTransfer(request(1L, 2L, "10.00"), "alice");
+
+        verifyNoInteractions(serviceFeeService);
+    }
+
+    @Test
+    void getUserTransfers_whenMoreRowsThanLimit_shouldReturnNextCursorOfLastItem() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 10, 0, 30);
+        KeysetCursor after = new KeysetCursor(now.plusMinutes(5), 99L);
+        List<KeysetCursor> keys = List.of(new KeysetCursor(now, 3L), new KeysetCursor(now, 2L), new KeysetCursor(now, 1L));
+        when(cardRepository.findIdsByUserUsername("alice")).thenReturn(List.of(1L));
+        when(transferJdbcRepository.findPageKeys(List.of(1L), after, 3)).thenReturn(keys);
+        when(transferRepository.findAllWithCardsByIdIn(List.of(3L, 2L))).thenReturn(List.of(transfer(2L), transfer(3L)));
+
+        TransferPageResponseDto page = transferService.getUserTransfers("alice", after.encode(), 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(new KeysetCursor(now, 2L), KeysetCursor.decode(page.getNext()));
+    }
+
+    private static TransferRequest request(Long fromCardId, Long toCardId, String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(fromCardId);
+        request.setToCardId(toCardId);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private static Transfer transfer(Long id) {
+        Transfer transfer = new Transfer();
+        transfer.setId(id);
+        return transfer;
+    }
+
+    private static Card card(Long cardId, Long accountId, String username, String balance) {
+        User user = new User(username, username + "@example.com", "password", Role.ROLE_USER);
+        user.setId(accountId);
+        Account account = new Account();
+        account.setId(accountId);
+        account.setUser(user);
+        account.setBalance(new BigDecimal(balance));
+        Card card = new Card();
+        card.setId(cardId);
+        card.setAccount(account);
+        card.setBalance(new BigDecimal(balance));
+        return card;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberTest {
+
+    @Test
+    void parse_shouldIgnoreSpacesAndDashesAndKeepAllDigits() {
+        CardNumber cardNumber = CardNumber.parse("6200-0000 0000-0000 612");
+
+        assertEquals(19, cardNumber.length());
+        assertEquals("6200", cardNumber.firstDigits());
+        assertEquals("0612", cardNumber.lastDigits());
+        assertEquals(620000, cardNumber.prefix(6));
+        assertArrayEquals("6200000000000000612".getBytes(), cardNumber.toAsciiBytes());
+        assertEquals(CardNumber.parse("6200000000000000612"), cardNumber);
+    }
+
+    @Test
+    void tryParse_withOtherCharactersOrTooManyDigits_shouldReturnNull() {
+        assertNull(CardNumber.tryParse("4111x111111111111"));
+        assertNull(CardNumber.tryParse("41111111111111111111"));
+        assertNull(CardNumber.tryParse(" - "));
+        assertThrows(IllegalArgumentException.class, () -> CardNumber.parse("not a number"));
+    }
+
+    @Test
+    void isValid_shouldMatchLuhnForEveryLength() {
+        for (String valid : new String[]{"4222222222222", "378282246310005", "4111 1111 1111 1111", "6200000000000000612"}) {
+            assertTrue(CardNumber.isValid(valid), valid);
+            assertTrue(CardNumber.parse(valid).isValid(), valid);
+        }
+        for (String invalid : new String[]{"4111111111111112", "411111111111", "4111-1111-1111-111x"}) {
+            assertFalse(CardNumber.isValid(invalid), invalid);
+        }
+    }
+
+    @Test
+    void maskInto_shouldReuseCallerBuffer() {
+        char[] buffer = new char[CardNumber.MASKED_LENGTH + 2];
+        Arrays.fill(buffer, '#');
+
+        int written = CardNumber.parse("5500000000000004").maskInto(buffer, 1);
+
+        assertEquals(CardNumber.MASKED_LENGTH, written);
+        assertEquals("#5500 **** **** 0004#", new String(buffer));
+        assertEquals("**** **** **** ****", CardNumber.parse("1234567").masked());
+        assertEquals("4111 **** **** 1111", CardNumber.parse("4111111111111111").toString());
+    }
+
+    @Test
+    void compareTo_shouldOrderDigitByDigitWithPrefixesFirst() {
+        assertTrue(CardNumber.parse("41").compareTo(CardNumber.parse("410")) < 0);
+        assertTrue(CardNumber.parse("41").compareTo(CardNumber.parse("405")) > 0);
+        assertTrue(CardNumber.parse("9999999999999999999").compareTo(CardNumber.parse("1")) > 0);
+        assertEquals(0, CardNumber.parse("4111 1111").compareTo(CardNumber.parse("41111111")));
+    }
+}